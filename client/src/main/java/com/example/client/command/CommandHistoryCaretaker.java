@@ -4,7 +4,7 @@ import com.example.common.observer.NotificationCenter; // Centro notifiche threa
 import com.example.common.observer.Observer; // Interfaccia Observer generica.
 
 import java.util.ArrayList; // Per mantenere lo storico dei memento.
-import java.util.Collections; // Per restituire liste immodificabili.
+import java.util.Collections; // Per sincronizzare la history.
 import java.util.List; // Tipo della history.
 import java.util.Objects; // Validazione null-safe.
 
@@ -16,10 +16,14 @@ import java.util.Objects; // Validazione null-safe.
  * Ruoli implementati:
  * - PATTERN MEMENTO: mantiene la lista dei CommandMemento
  * - PATTERN OBSERVER: notifica gli observer su ogni nuova esecuzione di comando
+ *
+ * I comandi possono essere eseguiti in parallelo da più thread (aggiornamento
+ * della dashboard), quindi la history è sincronizzata e gli observer vengono
+ * notificati sul thread che ha eseguito il comando.
  */
 public class CommandHistoryCaretaker {
 
-    private final List<CommandMemento> history = new ArrayList<>(); // Lista immutabile di memento dei comandi.
+    private final List<CommandMemento> history = Collections.synchronizedList(new ArrayList<>()); // Memento dei comandi, scritti da più thread.
     private final NotificationCenter<CommandMemento> notificationCenter // Centro notifiche per gli observer.
             = new NotificationCenter<>();
 
@@ -34,13 +38,15 @@ public class CommandHistoryCaretaker {
     }
 
     /**
-     * Restituisce la lista completa dei memento registrati.
-     * La lista è immodificabile per garantire integrità esterna.
+     * Restituisce una copia dei memento registrati.
+     * La copia è immodificabile e può essere iterata mentre altri thread aggiungono memento.
      *
      * @return history dei comandi eseguiti
      */
     public List<CommandMemento> history() {
-        return Collections.unmodifiableList(history); // Protegge la lista da modifiche esterne.
+        synchronized (history) { // La copia richiede il lock della lista sincronizzata.
+            return List.copyOf(history);
+        }
     }
 
     /**
@@ -0,0 +1,36 @@
+package com.example.client.command; // Package dedicato ai comandi lato client.
+
+import com.example.client.service.BackendGateway; // Gateway che esegue le chiamate REST verso il backend.
+import com.example.common.dto.ChangeSetDTO; // DTO con le modifiche di un elenco.
+import com.example.common.dto.CustomerDTO; // DTO che rappresenta l'entità sincronizzata.
+
+import java.time.Instant; // Istante dell'ultima sincronizzazione.
+
+/**
+ * Comando che carica dal backend i clienti creati, modificati o eliminati dopo l’ultima sincronizzazione.
+ * Senza istante di partenza il backend restituisce l’elenco completo. L’operazione è di sola lettura.
+ */
+public class LoadCustomerChangesCommand implements ClientCommand<ChangeSetDTO<CustomerDTO>> { // Restituisce le modifiche dell'elenco.
+
+    private final Instant since; // Istante dell'ultima sincronizzazione, null per l'elenco completo.
+
+    public LoadCustomerChangesCommand(Instant since) { // Costruttore con l'istante di partenza.
+        this.since = since;
+    }
+
+    public Instant since() { // Istante di partenza richiesto.
+        return since;
+    }
+
+    @Override
+    public CommandResult<ChangeSetDTO<CustomerDTO>> execute(BackendGateway gateway) { // Esecuzione del comando.
+        return CommandResult.withoutHistory( // Nessuno storico per il caricamento.
+                gateway.listCustomerChanges(since) // Recupera le modifiche dal backend.
+        );
+    }
+
+    @Override
+    public String description() { // Descrizione testuale per il Memento.
+        return "Sincronizzazione clienti"; // Etichetta leggibile dell'operazione eseguita.
+    }
+} // Fine della classe LoadCustomerChangesCommand.
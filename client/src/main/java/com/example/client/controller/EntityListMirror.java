@@ -0,0 +1,77 @@
+package com.example.client.controller;
+
+import com.example.client.service.EntityStore;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Lista mostrata a video che rispecchia un {@link EntityStore}. Lo store resta la fonte di verità: ogni delta
+ * viene applicato in modo incrementale solo se prosegue dalla versione già mostrata, altrimenti (per esempio
+ * quando un refresh superato è stato scartato) la lista viene ricostruita dall'elenco corrente dello store.
+ *
+ * @param <T> tipo delle entità nello store
+ * @param <M> tipo delle righe mostrate
+ */
+final class EntityListMirror<T, M> {
+
+    private final ObservableList<M> items;
+    private final Function<T, M> toModel;
+    private final Function<M, Long> idOf;
+    private long appliedVersion; // Versione dello store già riflessa nella lista.
+
+    EntityListMirror(ObservableList<M> items, Function<T, M> toModel, Function<M, Long> idOf) {
+        this.items = Objects.requireNonNull(items, "items");
+        this.toModel = Objects.requireNonNull(toModel, "toModel");
+        this.idOf = Objects.requireNonNull(idOf, "idOf");
+    }
+
+    /**
+     * Applica una sincronizzazione alla lista mostrata: sostituisce solo le righe modificate, rimuove quelle
+     * eliminate e aggiunge in testa le nuove, così tabelle e selezioni non vengono ricostruite a ogni refresh.
+     *
+     * @return {@code true} se la lista è stata modificata
+     */
+    boolean apply(EntityStore.Delta<T> delta) {
+        if (delta == null || delta.version() <= appliedVersion) { // Già coperto da una ricostruzione successiva.
+            return false;
+        }
+        boolean contiguous = delta.follows(appliedVersion);
+        appliedVersion = delta.version();
+        if (contiguous && delta.isEmpty()) {
+            return false;
+        }
+        if (delta.full() || !contiguous) {
+            items.setAll(delta.values().stream().map(toModel).toList());
+            return true;
+        }
+        Set<Long> removedIds = delta.removedIds();
+        if (!removedIds.isEmpty()) {
+            items.removeIf(item -> removedIds.contains(idOf.apply(item)));
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            positions.put(idOf.apply(items.get(i)), i);
+        }
+        List<M> added = new ArrayList<>();
+        for (T dto : delta.upserted()) {
+            M model = toModel.apply(dto);
+            Integer position = positions.get(idOf.apply(model));
+            if (position != null) {
+                items.set(position, model);
+            } else {
+                added.add(model);
+            }
+        }
+        if (!added.isEmpty()) {
+            items.addAll(0, added); // Le nuove entità sono le più recenti.
+        }
+        return true;
+    }
+}
@@ -21,7 +21,9 @@ import com.example.client.service.BackendCommunicationException;
 import com.example.client.service.BackendServiceException;
 import com.example.client.service.BackendGateway;
 import com.example.client.service.DataCacheService;
+import com.example.client.service.EntityStore;
 import com.example.client.service.NotificationService;
+import com.example.client.service.RefreshOrchestrator;
 import com.example.client.service.SessionExpiredException;
 import com.example.client.session.SessionStore;
 import com.example.client.view.ChatView;
@@ -51,6 +53,7 @@ import com.example.common.enums.DocumentAction;
 import com.example.common.enums.DocumentType;
 import com.example.common.enums.InvoiceStatus;
 import com.example.common.observer.Observer;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -90,11 +93,13 @@ import java.time.Month;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.nio.file.Files;
@@ -116,6 +121,12 @@ public class MainViewController {
     private final ObservableList<ContractModel> contractItems = FXCollections.observableArrayList();
     private final ObservableList<CustomerModel> customerItems = FXCollections.observableArrayList();
     private final ObservableList<ArticleModel> articleItems = FXCollections.observableArrayList();
+    private final EntityListMirror<InvoiceDTO, InvoiceModel> invoiceMirror =
+            new EntityListMirror<>(invoiceItems, InvoiceModel::fromDto, InvoiceModel::getId);
+    private final EntityListMirror<CustomerDTO, CustomerModel> customerMirror =
+            new EntityListMirror<>(customerItems, CustomerModel::fromDto, CustomerModel::getId);
+    private final EntityListMirror<ArticleDTO, ArticleModel> articleMirror =
+            new EntityListMirror<>(articleItems, ArticleModel::fromDto, ArticleModel::getId);
     private final ObservableList<InvoiceLineModel> invoiceLineItems = FXCollections.observableArrayList();
     private final ObservableList<AgentModel> agentItems = FXCollections.observableArrayList();
     private final ObservableList<TeamModel> teamItems = FXCollections.observableArrayList();
@@ -128,6 +139,7 @@ public class MainViewController {
     private final Observer<NotificationMessage> notificationObserver = this::onNotification;
     private final Observer<CommandMemento> historyObserver = this::onCommandExecuted;
     private final Observer<DataChangeEvent> dataChangeObserver = this::onDataChanged;
+    private final RefreshOrchestrator refreshOrchestrator = new RefreshOrchestrator(Platform::runLater, this::showLoadingSections);
     private final DateTimeFormatter historyFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")
             .withZone(ZoneId.systemDefault());
 
@@ -849,19 +861,35 @@ public class MainViewController {
         // preme il pulsante di refresh.
         dataCacheService.invalidateStatistics();
         dataCacheService.invalidateHistory();
-        refreshCustomers();
-        refreshArticles();
-        refreshInvoices();
-        refreshContracts();
-        refreshAgents();
-        refreshTeams();
-        refreshRoles();
-        refreshUsers();
-        refreshMessages();
-        refreshCommissions();
-        refreshStatistics();
-        refreshHistorySearch(true);
-        notificationService.publish(new NotificationMessage("refresh", "Dati aggiornati", Instant.now()));
+        // I filtri vengono letti ora, sul thread JavaFX; le chiamate partono in parallelo
+        // e ogni sezione si aggiorna appena arriva la sua risposta.
+        StatisticsFilter statistics = statisticsFilter();
+        RefreshOrchestrator.Refresh refresh = refreshOrchestrator.refresh()
+                .load("Clienti", dataCacheService::syncCustomers, this::applyCustomers)
+                .load("Articoli", dataCacheService::syncArticles, this::applyArticles)
+                .load("Fatture", dataCacheService::syncInvoices, this::applyInvoices)
+                .load("Contratti", dataCacheService::getContracts, this::applyContracts)
+                .load("Agenti", dataCacheService::getAgents, this::applyAgents)
+                .load("Team", dataCacheService::getTeams, this::applyTeams)
+                .load("Ruoli", dataCacheService::getRoles, this::applyRoles)
+                .load("Utenti", dataCacheService::getUsers, this::applyUsers)
+                .load("Messaggi", dataCacheService::getMessages, this::applyMessages)
+                .load("Provvigioni", dataCacheService::getCommissions, this::applyCommissions)
+                .load("Statistiche agenti", () -> statistics.loadAgents(dataCacheService), this::applyAgentStatistics)
+                .load("Statistiche team", () -> statistics.loadTeams(dataCacheService), this::applyTeamStatistics);
+        if (historySearchTable != null) {
+            HistorySearchRequest history = prepareHistorySearch(true);
+            refresh.load("Storico", () -> history.load(dataCacheService), this::applyHistorySearch);
+        }
+        refresh.start(this::handleBackendFailure,
+                () -> notificationService.publish(new NotificationMessage("refresh", "Dati aggiornati", Instant.now())));
+    }
+
+    private void showLoadingSections(Set<String> sections) {
+        // Stato di caricamento per sezione nella barra inferiore.
+        if (notificationLabel != null && !sections.isEmpty()) {
+            notificationLabel.setText("Caricamento: " + String.join(", ", sections) + "…");
+        }
     }
 
     @FXML
@@ -1504,14 +1532,16 @@ public class MainViewController {
     }
 
     private void refreshCustomers() {
+        applyCustomers(withSession(dataCacheService::syncCustomers));
+    }
+
+    private void applyCustomers(EntityStore.Delta<CustomerDTO> delta) {
         Long selectedCustomerId = Optional.ofNullable(invoiceCustomerCombo.getSelectionModel().getSelectedItem())
                 .map(CustomerModel::getId)
                 .orElse(null);
-        List<CustomerDTO> dtos = withSession(dataCacheService::getCustomers);
-        if (dtos == null) {
+        if (!customerMirror.apply(delta)) {
             return;
         }
-        customerItems.setAll(dtos.stream().map(CustomerModel::fromDto).toList());
         if (selectedCustomerId != null) {
             customerItems.stream()
                     .filter(item -> selectedCustomerId.equals(item.getId()))
@@ -1521,14 +1551,16 @@ public class MainViewController {
     }
 
     private void refreshArticles() {
+        applyArticles(withSession(dataCacheService::syncArticles));
+    }
+
+    private void applyArticles(EntityStore.Delta<ArticleDTO> delta) {
         Long selectedArticleId = Optional.ofNullable(invoiceLineArticleCombo.getSelectionModel().getSelectedItem())
                 .map(ArticleModel::getId)
                 .orElse(null);
-        List<ArticleDTO> dtos = withSession(dataCacheService::getArticles);
-        if (dtos == null) {
+        if (!articleMirror.apply(delta)) {
             return;
         }
-        articleItems.setAll(dtos.stream().map(ArticleModel::fromDto).toList());
         if (selectedArticleId != null) {
             articleItems.stream()
                     .filter(item -> selectedArticleId.equals(item.getId()))
@@ -1538,16 +1570,20 @@ public class MainViewController {
     }
 
     private void refreshInvoices() {
-        List<InvoiceDTO> dtos = withSession(dataCacheService::getInvoices);
-        if (dtos == null) {
-            return;
+        applyInvoices(withSession(dataCacheService::syncInvoices));
+    }
+
+    private void applyInvoices(EntityStore.Delta<InvoiceDTO> delta) {
+        if (invoiceMirror.apply(delta)) {
+            updateInvoiceChart();
         }
-        invoiceItems.setAll(dtos.stream().map(InvoiceModel::fromDto).toList());
-        updateInvoiceChart();
     }
 
     private void refreshContracts() {
-        List<ContractDTO> dtos = withSession(dataCacheService::getContracts);
+        applyContracts(withSession(dataCacheService::getContracts));
+    }
+
+    private void applyContracts(List<ContractDTO> dtos) {
         if (dtos == null) {
             return;
         }
@@ -1556,42 +1592,60 @@ public class MainViewController {
     }
 
     private void refreshAgents() {
-        List<AgentDTO> dtos = withSession(dataCacheService::getAgents);
+        applyAgents(withSession(dataCacheService::getAgents));
+    }
+
+    private void applyAgents(List<AgentDTO> dtos) {
         if (dtos != null) {
             agentItems.setAll(dtos.stream().map(AgentModel::fromDto).toList());
         }
     }
 
     private void refreshTeams() {
-        List<TeamDTO> dtos = withSession(dataCacheService::getTeams);
+        applyTeams(withSession(dataCacheService::getTeams));
+    }
+
+    private void applyTeams(List<TeamDTO> dtos) {
         if (dtos != null) {
             teamItems.setAll(dtos.stream().map(TeamModel::fromDto).toList());
         }
     }
 
     private void refreshRoles() {
-        List<RoleDTO> dtos = withSession(dataCacheService::getRoles);
+        applyRoles(withSession(dataCacheService::getRoles));
+    }
+
+    private void applyRoles(List<RoleDTO> dtos) {
         if (dtos != null) {
             roleItems.setAll(dtos.stream().map(RoleModel::fromDto).toList());
         }
     }
 
     private void refreshUsers() {
-        List<UserDTO> dtos = withSession(dataCacheService::getUsers);
+        applyUsers(withSession(dataCacheService::getUsers));
+    }
+
+    private void applyUsers(List<UserDTO> dtos) {
         if (dtos != null) {
             userItems.setAll(dtos.stream().map(UserModel::fromDto).toList());
         }
     }
 
     private void refreshMessages() {
-        List<MessageDTO> dtos = withSession(dataCacheService::getMessages);
+        applyMessages(withSession(dataCacheService::getMessages));
+    }
+
+    private void applyMessages(List<MessageDTO> dtos) {
         if (dtos != null) {
             messageItems.setAll(dtos.stream().map(MessageModel::fromDto).toList());
         }
     }
 
     private void refreshCommissions() {
-        List<CommissionDTO> dtos = withSession(dataCacheService::getCommissions);
+        applyCommissions(withSession(dataCacheService::getCommissions));
+    }
+
+    private void applyCommissions(List<CommissionDTO> dtos) {
         if (dtos != null) {
             commissionItems.setAll(dtos.stream().map(CommissionModel::fromDto).toList());
         }
@@ -1601,6 +1655,12 @@ public class MainViewController {
         if (historySearchTable == null) {
             return;
         }
+        HistorySearchRequest request = prepareHistorySearch(resetPage);
+        applyHistorySearch(withSession(() -> request.load(dataCacheService)));
+    }
+
+    private HistorySearchRequest prepareHistorySearch(boolean resetPage) {
+        // Legge i filtri dalla UI: va chiamato sul thread JavaFX.
         if (resetPage) {
             historyCurrentPage = 0;
         }
@@ -1610,8 +1670,10 @@ public class MainViewController {
                 .map(ComboBox::getValue)
                 .filter(Objects::nonNull)
                 .orElse(25);
-        DocumentHistoryPageDTO page = withSession(
-                () -> dataCacheService.searchDocumentHistory(criteria, historyCurrentPage, size));
+        return new HistorySearchRequest(criteria, historyCurrentPage, size);
+    }
+
+    private void applyHistorySearch(DocumentHistoryPageDTO page) {
         if (page == null || page.getItems() == null) {
             historySearchItems.clear();
             updateHistoryPagination(null);
@@ -1623,6 +1685,17 @@ public class MainViewController {
     }
 
     private void refreshStatistics() {
+        StatisticsFilter filter = statisticsFilter();
+        AgentStatisticsDTO agentStats = withSession(() -> filter.loadAgents(dataCacheService));
+        if (agentStats == null) {
+            return;
+        }
+        applyAgentStatistics(agentStats);
+        applyTeamStatistics(withSession(() -> filter.loadTeams(dataCacheService)));
+    }
+
+    private StatisticsFilter statisticsFilter() {
+        // Legge i filtri dalla UI: va chiamato sul thread JavaFX.
         Integer selectedYear = statsYearCombo != null ? statsYearCombo.getValue() : null;
         LocalDate from = statsFromDatePicker != null ? statsFromDatePicker.getValue() : null;
         LocalDate to = statsToDatePicker != null ? statsToDatePicker.getValue() : null;
@@ -1630,9 +1703,10 @@ public class MainViewController {
                 .map(ComboBox::getValue)
                 .map(RoleModel::getId)
                 .orElse(null);
+        return new StatisticsFilter(selectedYear, from, to, roleId);
+    }
 
-        AgentStatisticsDTO agentStats = withSession(
-                () -> dataCacheService.getAgentStatistics(selectedYear, from, to, roleId));
+    private void applyAgentStatistics(AgentStatisticsDTO agentStats) {
         if (agentStats == null) {
             return;
         }
@@ -1644,11 +1718,12 @@ public class MainViewController {
         }
         updateCommissionTrendChart(agentStats);
         updateAgentBarChart(agentStats);
-        TeamStatisticsDTO teamStats = withSession(() -> dataCacheService.getTeamStatistics(selectedYear, from, to, roleId));
-        if (teamStats == null) {
-            return;
+    }
+
+    private void applyTeamStatistics(TeamStatisticsDTO teamStats) {
+        if (teamStats != null) {
+            updateTeamPieChart(teamStats);
         }
-        updateTeamPieChart(teamStats);
     }
 
     private void updateInvoiceChart() {
@@ -2162,6 +2237,11 @@ public class MainViewController {
     }
 
     private void onCommandExecuted(CommandMemento memento) {
+        if (!Platform.isFxApplicationThread()) {
+            // I caricamenti paralleli registrano i memento dai thread di background.
+            Platform.runLater(() -> onCommandExecuted(memento));
+            return;
+        }
         if (memento == null || memento.getResult() == null || memento.getResult().historySnapshot().isEmpty()) {
             return;
         }
@@ -2174,6 +2254,7 @@ public class MainViewController {
     }
 
     public void shutdown() {
+        refreshOrchestrator.close();
         closeChatWindow(true);
         closeNotificationCenter(true);
         notificationService.unsubscribe(notificationObserver);
@@ -2259,12 +2340,19 @@ public class MainViewController {
     private <T> T withSession(Supplier<T> supplier) {
         try {
             return supplier.get();
-        } catch (SessionExpiredException ex) {
-            handleSessionExpired(ex.getMessage());
+        } catch (SessionExpiredException | BackendServiceException | BackendCommunicationException ex) {
+            handleBackendFailure(ex);
             return null;
-        } catch (BackendServiceException | BackendCommunicationException ex) {
+        }
+    }
+
+    private void handleBackendFailure(RuntimeException ex) {
+        if (ex instanceof SessionExpiredException) {
+            handleSessionExpired(ex.getMessage());
+        } else if (ex instanceof BackendServiceException || ex instanceof BackendCommunicationException) {
             notifyError(ex.getMessage());
-            return null;
+        } else {
+            throw ex;
         }
     }
 
@@ -2569,4 +2657,24 @@ public class MainViewController {
             }
         }
     }
+
+    // Filtri delle statistiche letti dalla UI, usati dai caricamenti in background.
+    private record StatisticsFilter(Integer year, LocalDate from, LocalDate to, Long roleId) {
+
+        AgentStatisticsDTO loadAgents(DataCacheService service) {
+            return service.getAgentStatistics(year, from, to, roleId);
+        }
+
+        TeamStatisticsDTO loadTeams(DataCacheService service) {
+            return service.getTeamStatistics(year, from, to, roleId);
+        }
+    }
+
+    // Ricerca nello storico letta dalla UI, usata dai caricamenti in background.
+    private record HistorySearchRequest(DocumentHistorySearchCriteria criteria, int page, int size) {
+
+        DocumentHistoryPageDTO load(DataCacheService service) {
+            return service.searchDocumentHistory(criteria, page, size);
+        }
+    }
 }
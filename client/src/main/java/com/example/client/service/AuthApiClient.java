@@ -49,7 +49,8 @@ public class AuthApiClient {
      */
     public AuthApiClient(String baseUrl) {
         this.baseUrl = baseUrl;
-        this.httpClient = HttpClient.newHttpClient();
+        this.httpClient = BackendHttpClient.shared().httpClient();
+        // Stesso client dei gateway: riusa connessioni e sessioni TLS verso il backend.
 
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
@@ -11,8 +11,10 @@ import com.example.common.dto.ChatMessageRequest;
 import com.example.common.dto.AgentDTO;
 import com.example.common.dto.AgentStatisticsDTO;
 import com.example.common.dto.ArticleDTO;
+import com.example.common.dto.ChangeSetDTO;
 import com.example.common.dto.CommissionDTO;
 import com.example.common.dto.ContractDTO;
+import com.example.common.dto.CursorPageDTO;
 import com.example.common.dto.CustomerDTO;
 import com.example.common.dto.DocumentHistoryDTO;
 import com.example.common.dto.DocumentHistoryPageDTO;
@@ -21,20 +23,23 @@ import com.example.common.dto.InvoiceLineDTO;
 import com.example.common.dto.InvoicePaymentRequest;
 import com.example.common.dto.MailRequest;
 import com.example.common.dto.MessageDTO;
+import com.example.common.dto.NotificationUnreadCountDTO;
 import com.example.common.dto.RoleDTO;
 import com.example.common.dto.TeamStatisticsDTO;
 import com.example.common.dto.TeamDTO;
 import com.example.common.dto.UserDTO;
 import com.example.common.enums.DocumentAction;
 import com.example.common.enums.DocumentType;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -42,18 +47,33 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Gateway REST minimale verso il backend Spring Boot.
+ * <p>
+ * Ogni operazione ha una variante {@code ...Async} che restituisce un {@link CompletableFuture}: le chiamate
+ * passano tutte dal {@link BackendHttpClient} condiviso, che ne limita il numero in corso e, con HTTP/2, le invia
+ * in parallelo sulla stessa connessione. Le varianti bloccanti attendono il risultato di quelle asincrone.
  */
 public class BackendGateway {
 
-    private final HttpClient httpClient;
+    private static final int RESPONSE_CACHE_ENTRIES = 256;
+
+    private final BackendHttpClient transport;
     private final ObjectMapper objectMapper;
     private final String baseUrl;
     private final SessionStore sessionStore;
+    private final ConditionalResponseCache responseCache = new ConditionalResponseCache(RESPONSE_CACHE_ENTRIES);
 
     public BackendGateway() {
         this("http://localhost:8080");
@@ -68,11 +88,13 @@ public class BackendGateway {
     }
 
     public BackendGateway(String baseUrl, SessionStore sessionStore) {
+        this(baseUrl, sessionStore, BackendHttpClient.shared());
+    }
+
+    public BackendGateway(String baseUrl, SessionStore sessionStore, BackendHttpClient transport) {
         this.baseUrl = baseUrl;
         this.sessionStore = sessionStore;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
+        this.transport = Objects.requireNonNull(transport, "transport");
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.findAndRegisterModules();
@@ -80,458 +102,782 @@ public class BackendGateway {
     }
 
     public List<InvoiceDTO> listInvoices() {
+        return await(listInvoicesAsync());
+    }
+
+    public CompletableFuture<List<InvoiceDTO>> listInvoicesAsync() {
         HttpRequest request = authorizedRequest("/api/invoices")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public ChangeSetDTO<InvoiceDTO> listInvoiceChanges(Instant since) {
+        return await(listInvoiceChangesAsync(since));
+    }
+
+    public CompletableFuture<ChangeSetDTO<InvoiceDTO>> listInvoiceChangesAsync(Instant since) {
+        HttpRequest request = authorizedRequest(buildChangesPath("/api/invoices/changes", since))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<InvoiceDTO> listInvoicesPage(String cursor, Integer size) {
+        return await(listInvoicesPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<InvoiceDTO>> listInvoicesPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/invoices/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public InvoiceDTO createInvoice(InvoiceDTO invoice) {
+        return await(createInvoiceAsync(invoice));
+    }
+
+    public CompletableFuture<InvoiceDTO> createInvoiceAsync(InvoiceDTO invoice) {
         HttpRequest request = authorizedRequest("/api/invoices")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(invoice), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public InvoiceDTO updateInvoice(Long id, InvoiceDTO invoice) {
+        return await(updateInvoiceAsync(id, invoice));
+    }
+
+    public CompletableFuture<InvoiceDTO> updateInvoiceAsync(Long id, InvoiceDTO invoice) {
         HttpRequest request = authorizedRequest("/api/invoices/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(invoice), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteInvoice(Long id) {
+        await(deleteInvoiceAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteInvoiceAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/invoices/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public InvoiceDTO registerInvoicePayment(Long id, InvoicePaymentRequest paymentRequest) {
+        return await(registerInvoicePaymentAsync(id, paymentRequest));
+    }
+
+    public CompletableFuture<InvoiceDTO> registerInvoicePaymentAsync(Long id, InvoicePaymentRequest paymentRequest) {
         HttpRequest request = authorizedRequest("/api/invoices/" + id + "/payments")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(paymentRequest), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public List<CustomerDTO> listCustomers() {
+        return await(listCustomersAsync());
+    }
+
+    public CompletableFuture<List<CustomerDTO>> listCustomersAsync() {
         HttpRequest request = authorizedRequest("/api/customers")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public ChangeSetDTO<CustomerDTO> listCustomerChanges(Instant since) {
+        return await(listCustomerChangesAsync(since));
+    }
+
+    public CompletableFuture<ChangeSetDTO<CustomerDTO>> listCustomerChangesAsync(Instant since) {
+        HttpRequest request = authorizedRequest(buildChangesPath("/api/customers/changes", since))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<CustomerDTO> listCustomersPage(String cursor, Integer size) {
+        return await(listCustomersPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<CustomerDTO>> listCustomersPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/customers/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public CustomerDTO createCustomer(CustomerDTO customer) {
+        return await(createCustomerAsync(customer));
+    }
+
+    public CompletableFuture<CustomerDTO> createCustomerAsync(CustomerDTO customer) {
         HttpRequest request = authorizedRequest("/api/customers")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(customer), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public CustomerDTO updateCustomer(Long id, CustomerDTO customer) {
+        return await(updateCustomerAsync(id, customer));
+    }
+
+    public CompletableFuture<CustomerDTO> updateCustomerAsync(Long id, CustomerDTO customer) {
         HttpRequest request = authorizedRequest("/api/customers/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(customer), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteCustomer(Long id) {
+        await(deleteCustomerAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteCustomerAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/customers/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<ArticleDTO> listArticles() {
+        return await(listArticlesAsync());
+    }
+
+    public CompletableFuture<List<ArticleDTO>> listArticlesAsync() {
         HttpRequest request = authorizedRequest("/api/articles")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public ChangeSetDTO<ArticleDTO> listArticleChanges(Instant since) {
+        return await(listArticleChangesAsync(since));
+    }
+
+    public CompletableFuture<ChangeSetDTO<ArticleDTO>> listArticleChangesAsync(Instant since) {
+        HttpRequest request = authorizedRequest(buildChangesPath("/api/articles/changes", since))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<ArticleDTO> listArticlesPage(String cursor, Integer size) {
+        return await(listArticlesPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<ArticleDTO>> listArticlesPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/articles/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public ArticleDTO createArticle(ArticleDTO article) {
+        return await(createArticleAsync(article));
+    }
+
+    public CompletableFuture<ArticleDTO> createArticleAsync(ArticleDTO article) {
         HttpRequest request = authorizedRequest("/api/articles")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(article), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public ArticleDTO updateArticle(Long id, ArticleDTO article) {
+        return await(updateArticleAsync(id, article));
+    }
+
+    public CompletableFuture<ArticleDTO> updateArticleAsync(Long id, ArticleDTO article) {
         HttpRequest request = authorizedRequest("/api/articles/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(article), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteArticle(Long id) {
+        await(deleteArticleAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteArticleAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/articles/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<DocumentHistoryDTO> invoiceHistory(Long id) {
+        return await(invoiceHistoryAsync(id));
+    }
+
+    public CompletableFuture<List<DocumentHistoryDTO>> invoiceHistoryAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/invoices/" + id + "/history")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public List<ContractDTO> listContracts() {
+        return await(listContractsAsync());
+    }
+
+    public CompletableFuture<List<ContractDTO>> listContractsAsync() {
         HttpRequest request = authorizedRequest("/api/contracts")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<ContractDTO> listContractsPage(String cursor, Integer size) {
+        return await(listContractsPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<ContractDTO>> listContractsPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/contracts/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public ContractDTO createContract(ContractDTO contract) {
+        return await(createContractAsync(contract));
+    }
+
+    public CompletableFuture<ContractDTO> createContractAsync(ContractDTO contract) {
         HttpRequest request = authorizedRequest("/api/contracts")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(contract), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public ContractDTO updateContract(Long id, ContractDTO contract) {
+        return await(updateContractAsync(id, contract));
+    }
+
+    public CompletableFuture<ContractDTO> updateContractAsync(Long id, ContractDTO contract) {
         HttpRequest request = authorizedRequest("/api/contracts/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(contract), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteContract(Long id) {
+        await(deleteContractAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteContractAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/contracts/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<AgentDTO> listAgents() {
+        return await(listAgentsAsync());
+    }
+
+    public CompletableFuture<List<AgentDTO>> listAgentsAsync() {
         HttpRequest request = authorizedRequest("/api/agents")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<AgentDTO> listAgentsPage(String cursor, Integer size) {
+        return await(listAgentsPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<AgentDTO>> listAgentsPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/agents/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public AgentDTO getAgent(Long id) {
+        return await(getAgentAsync(id));
+    }
+
+    public CompletableFuture<AgentDTO> getAgentAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/agents/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public AgentDTO createAgent(AgentDTO agentDTO) {
+        return await(createAgentAsync(agentDTO));
+    }
+
+    public CompletableFuture<AgentDTO> createAgentAsync(AgentDTO agentDTO) {
         HttpRequest request = authorizedRequest("/api/agents")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(agentDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public AgentDTO updateAgent(Long id, AgentDTO agentDTO) {
+        return await(updateAgentAsync(id, agentDTO));
+    }
+
+    public CompletableFuture<AgentDTO> updateAgentAsync(Long id, AgentDTO agentDTO) {
         HttpRequest request = authorizedRequest("/api/agents/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(agentDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteAgent(Long id) {
+        await(deleteAgentAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteAgentAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/agents/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<TeamDTO> listTeams() {
+        return await(listTeamsAsync());
+    }
+
+    public CompletableFuture<List<TeamDTO>> listTeamsAsync() {
         HttpRequest request = authorizedRequest("/api/teams")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public TeamDTO getTeam(Long id) {
+        return await(getTeamAsync(id));
+    }
+
+    public CompletableFuture<TeamDTO> getTeamAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/teams/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public TeamDTO createTeam(TeamDTO teamDTO) {
+        return await(createTeamAsync(teamDTO));
+    }
+
+    public CompletableFuture<TeamDTO> createTeamAsync(TeamDTO teamDTO) {
         HttpRequest request = authorizedRequest("/api/teams")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(teamDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public TeamDTO updateTeam(Long id, TeamDTO teamDTO) {
+        return await(updateTeamAsync(id, teamDTO));
+    }
+
+    public CompletableFuture<TeamDTO> updateTeamAsync(Long id, TeamDTO teamDTO) {
         HttpRequest request = authorizedRequest("/api/teams/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(teamDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteTeam(Long id) {
+        await(deleteTeamAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteTeamAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/teams/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<RoleDTO> listRoles() {
+        return await(listRolesAsync());
+    }
+
+    public CompletableFuture<List<RoleDTO>> listRolesAsync() {
         HttpRequest request = authorizedRequest("/api/roles")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public RoleDTO getRole(Long id) {
+        return await(getRoleAsync(id));
+    }
+
+    public CompletableFuture<RoleDTO> getRoleAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/roles/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public RoleDTO createRole(RoleDTO roleDTO) {
+        return await(createRoleAsync(roleDTO));
+    }
+
+    public CompletableFuture<RoleDTO> createRoleAsync(RoleDTO roleDTO) {
         HttpRequest request = authorizedRequest("/api/roles")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(roleDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public RoleDTO updateRole(Long id, RoleDTO roleDTO) {
+        return await(updateRoleAsync(id, roleDTO));
+    }
+
+    public CompletableFuture<RoleDTO> updateRoleAsync(Long id, RoleDTO roleDTO) {
         HttpRequest request = authorizedRequest("/api/roles/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(roleDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteRole(Long id) {
+        await(deleteRoleAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteRoleAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/roles/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<UserDTO> listUsers() {
+        return await(listUsersAsync());
+    }
+
+    public CompletableFuture<List<UserDTO>> listUsersAsync() {
         HttpRequest request = authorizedRequest("/api/users")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public CursorPageDTO<UserDTO> listUsersPage(String cursor, Integer size) {
+        return await(listUsersPageAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPageDTO<UserDTO>> listUsersPageAsync(String cursor, Integer size) {
+        HttpRequest request = authorizedRequest(buildPagePath("/api/users/page", cursor, size))
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public UserDTO getUser(Long id) {
+        return await(getUserAsync(id));
+    }
+
+    public CompletableFuture<UserDTO> getUserAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/users/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public UserDTO createUser(UserDTO userDTO) {
+        return await(createUserAsync(userDTO));
+    }
+
+    public CompletableFuture<UserDTO> createUserAsync(UserDTO userDTO) {
         HttpRequest request = authorizedRequest("/api/users")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(userDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public UserDTO updateUser(Long id, UserDTO userDTO) {
+        return await(updateUserAsync(id, userDTO));
+    }
+
+    public CompletableFuture<UserDTO> updateUserAsync(Long id, UserDTO userDTO) {
         HttpRequest request = authorizedRequest("/api/users/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(userDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteUser(Long id) {
+        await(deleteUserAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/users/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<MessageDTO> listMessages() {
+        return await(listMessagesAsync());
+    }
+
+    public CompletableFuture<List<MessageDTO>> listMessagesAsync() {
         HttpRequest request = authorizedRequest("/api/messages")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public MessageDTO getMessage(Long id) {
+        return await(getMessageAsync(id));
+    }
+
+    public CompletableFuture<MessageDTO> getMessageAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/messages/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public MessageDTO createMessage(MessageDTO messageDTO) {
+        return await(createMessageAsync(messageDTO));
+    }
+
+    public CompletableFuture<MessageDTO> createMessageAsync(MessageDTO messageDTO) {
         HttpRequest request = authorizedRequest("/api/messages")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(messageDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public MessageDTO updateMessage(Long id, MessageDTO messageDTO) {
+        return await(updateMessageAsync(id, messageDTO));
+    }
+
+    public CompletableFuture<MessageDTO> updateMessageAsync(Long id, MessageDTO messageDTO) {
         HttpRequest request = authorizedRequest("/api/messages/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(messageDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteMessage(Long id) {
+        await(deleteMessageAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteMessageAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/messages/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<CommissionDTO> listCommissions() {
+        return await(listCommissionsAsync());
+    }
+
+    public CompletableFuture<List<CommissionDTO>> listCommissionsAsync() {
         HttpRequest request = authorizedRequest("/api/commissions")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public CommissionDTO getCommission(Long id) {
+        return await(getCommissionAsync(id));
+    }
+
+    public CompletableFuture<CommissionDTO> getCommissionAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/commissions/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public CommissionDTO createCommission(CommissionDTO commissionDTO) {
+        return await(createCommissionAsync(commissionDTO));
+    }
+
+    public CompletableFuture<CommissionDTO> createCommissionAsync(CommissionDTO commissionDTO) {
         HttpRequest request = authorizedRequest("/api/commissions")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(commissionDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public CommissionDTO updateCommission(Long id, CommissionDTO commissionDTO) {
+        return await(updateCommissionAsync(id, commissionDTO));
+    }
+
+    public CompletableFuture<CommissionDTO> updateCommissionAsync(Long id, CommissionDTO commissionDTO) {
         HttpRequest request = authorizedRequest("/api/commissions/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(commissionDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteCommission(Long id) {
+        await(deleteCommissionAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteCommissionAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/commissions/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<InvoiceLineDTO> listInvoiceLines(Long invoiceId) {
+        return await(listInvoiceLinesAsync(invoiceId));
+    }
+
+    public CompletableFuture<List<InvoiceLineDTO>> listInvoiceLinesAsync(Long invoiceId) {
         String path = "/api/invoice-lines" + (invoiceId != null ? "?invoiceId=" + invoiceId : "");
         HttpRequest request = authorizedRequest(path)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public InvoiceLineDTO getInvoiceLine(Long id) {
+        return await(getInvoiceLineAsync(id));
+    }
+
+    public CompletableFuture<InvoiceLineDTO> getInvoiceLineAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/invoice-lines/" + id)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public InvoiceLineDTO createInvoiceLine(InvoiceLineDTO invoiceLineDTO) {
+        return await(createInvoiceLineAsync(invoiceLineDTO));
+    }
+
+    public CompletableFuture<InvoiceLineDTO> createInvoiceLineAsync(InvoiceLineDTO invoiceLineDTO) {
         HttpRequest request = authorizedRequest("/api/invoice-lines")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(invoiceLineDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public InvoiceLineDTO updateInvoiceLine(Long id, InvoiceLineDTO invoiceLineDTO) {
+        return await(updateInvoiceLineAsync(id, invoiceLineDTO));
+    }
+
+    public CompletableFuture<InvoiceLineDTO> updateInvoiceLineAsync(Long id, InvoiceLineDTO invoiceLineDTO) {
         HttpRequest request = authorizedRequest("/api/invoice-lines/" + id)
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(write(invoiceLineDTO), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void deleteInvoiceLine(Long id) {
+        await(deleteInvoiceLineAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteInvoiceLineAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/invoice-lines/" + id)
                 .DELETE()
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
     public List<DocumentHistoryDTO> contractHistory(Long id) {
+        return await(contractHistoryAsync(id));
+    }
+
+    public CompletableFuture<List<DocumentHistoryDTO>> contractHistoryAsync(Long id) {
         HttpRequest request = authorizedRequest("/api/contracts/" + id + "/history")
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
@@ -543,11 +889,55 @@ public class BackendGateway {
                                                         String search,
                                                         int page,
                                                         int size) {
+        return await(searchDocumentHistoryAsync(documentType, documentId, actions, from, to, search, page, size));
+    }
+
+    public CompletableFuture<DocumentHistoryPageDTO> searchDocumentHistoryAsync(DocumentType documentType,
+                                                                                Long documentId,
+                                                                                List<DocumentAction> actions,
+                                                                                Instant from,
+                                                                                Instant to,
+                                                                                String search,
+                                                                                int page,
+                                                                                int size) {
         String path = buildHistoryPath("/api/history", documentType, documentId, actions, from, to, search, page, size);
         HttpRequest request = authorizedRequest(path)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
+        });
+    }
+
+    public DocumentHistoryPageDTO searchDocumentHistoryKeyset(DocumentType documentType,
+                                                              Long documentId,
+                                                              List<DocumentAction> actions,
+                                                              Instant from,
+                                                              Instant to,
+                                                              String search,
+                                                              String cursor,
+                                                              int size,
+                                                              boolean count) {
+        return await(searchDocumentHistoryKeysetAsync(documentType, documentId, actions, from, to, search, cursor, size, count));
+    }
+
+    public CompletableFuture<DocumentHistoryPageDTO> searchDocumentHistoryKeysetAsync(DocumentType documentType,
+                                                                                      Long documentId,
+                                                                                      List<DocumentAction> actions,
+                                                                                      Instant from,
+                                                                                      Instant to,
+                                                                                      String search,
+                                                                                      String cursor,
+                                                                                      int size,
+                                                                                      boolean count) {
+        StringBuilder path = new StringBuilder(buildHistoryPath("/api/history", documentType, documentId, actions, from, to, search, 0, size));
+        path.append("&keyset=true&count=").append(count);
+        if (cursor != null && !cursor.isBlank()) {
+            path.append("&cursor=").append(URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        }
+        HttpRequest request = authorizedRequest(path.toString())
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
@@ -557,14 +947,27 @@ public class BackendGateway {
                                         Instant from,
                                         Instant to,
                                         String search) {
-        String path = buildHistoryPath("/api/history/export", documentType, documentId, actions, from, to, search, 0, 0);
+        return await(exportDocumentHistoryAsync(documentType, documentId, actions, from, to, search));
+    }
+
+    public CompletableFuture<byte[]> exportDocumentHistoryAsync(DocumentType documentType,
+                                                                Long documentId,
+                                                                List<DocumentAction> actions,
+                                                                Instant from,
+                                                                Instant to,
+                                                                String search) {
+        String path = buildHistoryPath("/api/history/export/stream", documentType, documentId, actions, from, to, search, 0, 0);
         HttpRequest request = authorizedRequest(path)
                 .GET()
                 .build();
-        return sendBytes(request);
+        return sendBytesAsync(request);
     }
 
     public AgentStatisticsDTO agentStatistics(Integer year, LocalDate from, LocalDate to, Long roleId) {
+        return await(agentStatisticsAsync(year, from, to, roleId));
+    }
+
+    public CompletableFuture<AgentStatisticsDTO> agentStatisticsAsync(Integer year, LocalDate from, LocalDate to, Long roleId) {
         StringBuilder path = new StringBuilder("/api/stats/agent");
         List<String> params = new ArrayList<>();
         if (year != null) {
@@ -585,11 +988,15 @@ public class BackendGateway {
         HttpRequest request = authorizedRequest(path.toString())
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public TeamStatisticsDTO teamStatistics(Integer year, LocalDate from, LocalDate to, Long roleId) {
+        return await(teamStatisticsAsync(year, from, to, roleId));
+    }
+
+    public CompletableFuture<TeamStatisticsDTO> teamStatisticsAsync(Integer year, LocalDate from, LocalDate to, Long roleId) {
         StringBuilder path = new StringBuilder("/api/stats/team");
         List<String> params = new ArrayList<>();
         if (year != null) {
@@ -610,11 +1017,15 @@ public class BackendGateway {
         HttpRequest request = authorizedRequest(path.toString())
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public List<NotificationItem> listNotifications(Long userId, Instant since) {
+        return await(listNotificationsAsync(userId, since));
+    }
+
+    public CompletableFuture<List<NotificationItem>> listNotificationsAsync(Long userId, Instant since) {
         StringBuilder path = new StringBuilder("/api/notifications?userId=").append(userId);
         if (since != null) {
             path.append("&since=").append(since);
@@ -622,21 +1033,84 @@ public class BackendGateway {
         HttpRequest request = authorizedRequest(path.toString())
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
+    public long countUnreadNotifications(Long userId) {
+        return await(countUnreadNotificationsAsync(userId));
+    }
+
+    public CompletableFuture<Long> countUnreadNotificationsAsync(Long userId) {
+        HttpRequest request = authorizedRequest("/api/notifications/unread-count?userId=" + userId)
+                .GET()
+                .build();
+        return sendAsync(request, new TypeReference<NotificationUnreadCountDTO>() {
+        }).thenApply(count -> count != null ? count.unread() : 0L);
+    }
+
+    public long markNotificationsRead(Long userId, Long upToId) {
+        return await(markNotificationsReadAsync(userId, upToId));
+    }
+
+    public CompletableFuture<Long> markNotificationsReadAsync(Long userId, Long upToId) {
+        HttpRequest request = authorizedRequest("/api/notifications/read?userId=" + userId + "&upToId=" + upToId)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return sendAsync(request, new TypeReference<NotificationUnreadCountDTO>() {
+        }).thenApply(count -> count != null ? count.unread() : 0L);
+    }
+
     public List<NotificationItem> pollNotifications(Long userId) {
+        return await(pollNotificationsAsync(userId));
+    }
+
+    public CompletableFuture<List<NotificationItem>> pollNotificationsAsync(Long userId) {
         HttpRequest request = authorizedRequest("/api/notifications/subscribe?userId=" + userId)
                 .timeout(Duration.ofSeconds(35))
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return exchangeAsync(request, new TypeReference<>() {
         });
     }
 
+    /**
+     * Apre lo stream Server-Sent Events delle notifiche e inoltra ogni evento al listener finché la connessione
+     * resta aperta. Restituisce l'id dell'ultima notifica ricevuta, da passare come {@code lastEventId} alla
+     * riconnessione per ricevere quelle pubblicate nel frattempo.
+     */
+    public Long streamNotifications(Long userId, Long lastEventId, Consumer<NotificationItem> listener) {
+        HttpRequest.Builder builder = authorizedRequest("/api/notifications/stream?userId=" + userId)
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", String.valueOf(lastEventId));
+        }
+        try {
+            HttpResponse<Stream<String>> response = transport.httpClient().send(builder.GET().build(), HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                int statusCode = response.statusCode();
+                if (statusCode == 401 || statusCode == 403) {
+                    handleUnauthorized(statusCode, "");
+                }
+                if (statusCode < 200 || statusCode >= 300) {
+                    handleHttpError(statusCode, lines.collect(Collectors.joining("\n")));
+                }
+                return readNotificationEvents(lines.iterator(), lastEventId, listener);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chiamata interrotta", e);
+        } catch (IOException | UncheckedIOException e) {
+            throw new BackendCommunicationException("Errore di comunicazione con il backend. Verifica la connessione e riprova.", e);
+        }
+    }
+
     public byte[] downloadClosedInvoicesReport(LocalDate from, LocalDate to, Long agentId) {
-        StringBuilder path = new StringBuilder("/api/reports/closed-invoices");
+        return await(downloadClosedInvoicesReportAsync(from, to, agentId));
+    }
+
+    public CompletableFuture<byte[]> downloadClosedInvoicesReportAsync(LocalDate from, LocalDate to, Long agentId) {
+        StringBuilder path = new StringBuilder("/api/reports/closed-invoices/stream");
         List<String> params = new ArrayList<>();
         if (from != null) {
             params.add("from=" + URLEncoder.encode(from.toString(), StandardCharsets.UTF_8));
@@ -653,36 +1127,52 @@ public class BackendGateway {
         HttpRequest request = authorizedRequest(path.toString())
                 .GET()
                 .build();
-        return sendBytes(request);
+        return sendBytesAsync(request);
     }
 
     public NotificationItem publishNotification(NotificationCreate create) {
+        return await(publishNotificationAsync(create));
+    }
+
+    public CompletableFuture<NotificationItem> publishNotificationAsync(NotificationCreate create) {
         HttpRequest request = authorizedRequest("/api/notifications")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(create), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public NotificationSubscriptionInfo registerNotificationChannel(NotificationSubscription subscription) {
+        return await(registerNotificationChannelAsync(subscription));
+    }
+
+    public CompletableFuture<NotificationSubscriptionInfo> registerNotificationChannelAsync(NotificationSubscription subscription) {
         HttpRequest request = authorizedRequest("/api/notification-subscriptions")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(subscription), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public List<ChatConversationDTO> listChatConversations(Long userId) {
+        return await(listChatConversationsAsync(userId));
+    }
+
+    public CompletableFuture<List<ChatConversationDTO>> listChatConversationsAsync(Long userId) {
         HttpRequest request = authorizedRequest("/api/chat/conversations?userId=" + userId)
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public List<ChatMessageDTO> listChatMessages(Long userId, String conversationId, Instant since) {
+        return await(listChatMessagesAsync(userId, conversationId, since));
+    }
+
+    public CompletableFuture<List<ChatMessageDTO>> listChatMessagesAsync(Long userId, String conversationId, Instant since) {
         StringBuilder path = new StringBuilder("/api/chat/messages?userId=")
                 .append(userId)
                 .append("&conversationId=")
@@ -693,35 +1183,51 @@ public class BackendGateway {
         HttpRequest request = authorizedRequest(path.toString())
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
-    public List<ChatMessageDTO> pollChatMessages(Long userId, String conversationId) {
-        HttpRequest request = authorizedRequest("/api/chat/poll?userId=" + userId + "&conversationId=" + conversationId)
+    public List<ChatMessageDTO> pollChatMessages(Long userId, String conversationId, Long afterId) {
+        return await(pollChatMessagesAsync(userId, conversationId, afterId));
+    }
+
+    public CompletableFuture<List<ChatMessageDTO>> pollChatMessagesAsync(Long userId, String conversationId, Long afterId) {
+        String path = "/api/chat/poll?userId=" + userId + "&conversationId=" + conversationId;
+        if (afterId != null) {
+            path += "&afterId=" + afterId;
+        }
+        HttpRequest request = authorizedRequest(path)
                 .timeout(Duration.ofSeconds(35))
                 .GET()
                 .build();
-        return send(request, new TypeReference<>() {
+        return exchangeAsync(request, new TypeReference<>() {
         });
     }
 
     public ChatMessageDTO sendChatMessage(ChatMessageRequest message) {
+        return await(sendChatMessageAsync(message));
+    }
+
+    public CompletableFuture<ChatMessageDTO> sendChatMessageAsync(ChatMessageRequest message) {
         HttpRequest request = authorizedRequest("/api/chat/messages")
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(write(message), StandardCharsets.UTF_8))
                 .build();
-        return send(request, new TypeReference<>() {
+        return sendAsync(request, new TypeReference<>() {
         });
     }
 
     public void sendMail(MailRequest mail, String delegatedToken) {
+        await(sendMailAsync(mail, delegatedToken));
+    }
+
+    public CompletableFuture<Void> sendMailAsync(MailRequest mail, String delegatedToken) {
         HttpRequest request = authorizedRequest("/api/mail/send")
                 .header("Content-Type", "application/json")
                 .header("X-Delegated-Authorization", "Bearer " + delegatedToken)
                 .POST(HttpRequest.BodyPublishers.ofString(write(mail), StandardCharsets.UTF_8))
                 .build();
-        send(request, new TypeReference<Void>() {
+        return sendAsync(request, new TypeReference<Void>() {
         });
     }
 
@@ -745,48 +1251,187 @@ public class BackendGateway {
         }
     }
 
-    private <T> T send(HttpRequest request, TypeReference<T> typeReference) {
-        try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            int statusCode = response.statusCode();
+    // Le chiamate ordinarie occupano uno dei permessi del client condiviso finché la risposta non è stata letta.
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, TypeReference<T> typeReference) {
+        return transport.submit(() -> exchangeAsync(request, typeReference));
+    }
+
+    // Le long-poll restano aperte fino a 35 secondi: non occupano permessi per non bloccare le altre chiamate.
+    private <T> CompletableFuture<T> exchangeAsync(HttpRequest request, TypeReference<T> typeReference) {
+        ConditionalResponseCache.Entry cached = "GET".equals(request.method()) ? responseCache.get(request.uri()) : null;
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", "gzip");
+        if (cached != null) {
+            // Rivalida la copia locale: se i dati non sono cambiati il server risponde 304 senza corpo.
+            builder.header("If-None-Match", cached.etag());
+        }
+        CompletableFuture<HttpResponse<InputStream>> exchange = transport.httpClient()
+                .sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        return abortOnCancel(translateErrors(exchange
+                // La lettura del corpo è bloccante: avviene sull'executor del client, non sul thread di rete.
+                .thenApplyAsync(response -> readResponse(request, cached, response, typeReference), transport.executor())), exchange);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readResponse(HttpRequest request,
+                               ConditionalResponseCache.Entry cached,
+                               HttpResponse<InputStream> response,
+                               TypeReference<T> typeReference) {
+        int statusCode = response.statusCode();
+        try (InputStream body = decodedBody(response)) {
             if (statusCode == 401 || statusCode == 403) {
-                handleUnauthorized(statusCode, response.body());
+                handleUnauthorized(statusCode, readText(body));
+            }
+            if (statusCode == 304 && cached != null) {
+                return (T) cached.value();
             }
             if (statusCode >= 200 && statusCode < 300) {
-                if (typeReference.getType() == Void.class || response.body() == null || response.body().isBlank()) {
+                if (typeReference.getType() == Void.class) {
                     return null;
                 }
-                return objectMapper.readValue(response.body(), typeReference);
+                T value = readJson(body, typeReference);
+                if ("GET".equals(request.method())) {
+                    response.headers().firstValue("ETag").filter(etag -> value != null).ifPresentOrElse(
+                            etag -> responseCache.put(request.uri(), etag, value),
+                            () -> responseCache.remove(request.uri()));
+                }
+                return value;
             }
-            handleHttpError(statusCode, response.body());
+            handleHttpError(statusCode, readText(body));
             return null;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException("Chiamata interrotta", e);
         } catch (IOException e) {
-            throw new BackendCommunicationException("Errore di comunicazione con il backend. Verifica la connessione e riprova.", e);
+            throw new UncheckedIOException(e);
         }
     }
 
-    private byte[] sendBytes(HttpRequest request) {
-        try {
-            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
-            int statusCode = response.statusCode();
-            if (statusCode == 401 || statusCode == 403) {
-                handleUnauthorized(statusCode, "");
+    // Converte il JSON man mano che arriva dalla rete, senza copiarlo prima in una stringa.
+    private <T> T readJson(InputStream body, TypeReference<T> typeReference) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() == null) {
+                return null;
             }
-            if (statusCode >= 200 && statusCode < 300) {
-                byte[] body = response.body();
-                return body != null ? body : new byte[0];
+            return objectMapper.readValue(parser, typeReference);
+        }
+    }
+
+    private static InputStream decodedBody(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.statusCode() != 204 && response.statusCode() != 304
+                && response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+        return gzip ? new GZIPInputStream(response.body()) : response.body();
+    }
+
+    private static String readText(InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private CompletableFuture<byte[]> sendBytesAsync(HttpRequest request) {
+        return transport.submit(() -> {
+            CompletableFuture<HttpResponse<byte[]>> exchange = transport.httpClient()
+                    .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            return abortOnCancel(translateErrors(exchange.thenApplyAsync(this::readBytes, transport.executor())), exchange);
+        });
+    }
+
+    private byte[] readBytes(HttpResponse<byte[]> response) {
+        int statusCode = response.statusCode();
+        if (statusCode == 401 || statusCode == 403) {
+            handleUnauthorized(statusCode, "");
+        }
+        if (statusCode >= 200 && statusCode < 300) {
+            byte[] body = response.body();
+            return body != null ? body : new byte[0];
+        }
+        handleHttpError(statusCode, response.body() != null ? new String(response.body(), StandardCharsets.UTF_8) : "");
+        return new byte[0];
+    }
+
+    // Riporta gli errori di rete alle stesse eccezioni delle chiamate bloccanti.
+    private static <T> CompletableFuture<T> translateErrors(CompletableFuture<T> future) {
+        return future.handle((value, error) -> {
+            if (error == null) {
+                return value;
+            }
+            Throwable cause = error;
+            while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw new BackendCommunicationException("Errore di comunicazione con il backend. Verifica la connessione e riprova.", cause);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    // Annullare il future restituito interrompe anche lo scambio HTTP, come l'interruzione della send bloccante.
+    private static <T> CompletableFuture<T> abortOnCancel(CompletableFuture<T> future, CompletableFuture<?> exchange) {
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
             }
-            handleHttpError(statusCode, response.body() != null ? new String(response.body(), StandardCharsets.UTF_8) : "");
-            return new byte[0];
+        });
+        return future;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
         } catch (InterruptedException e) {
+            future.cancel(true);
             Thread.currentThread().interrupt();
             throw new IllegalStateException("Chiamata interrotta", e);
-        } catch (IOException e) {
-            throw new BackendCommunicationException("Errore di comunicazione con il backend. Verifica la connessione e riprova.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Long readNotificationEvents(Iterator<String> lines, Long lastEventId, Consumer<NotificationItem> listener)
+            throws IOException {
+        Long lastId = lastEventId;
+        String eventId = null;
+        StringBuilder data = new StringBuilder();
+        while (!Thread.currentThread().isInterrupted() && lines.hasNext()) {
+            String line = lines.next();
+            if (line.isEmpty()) {
+                // Una riga vuota chiude l'evento: i commenti di heartbeat non hanno dati e vengono ignorati.
+                if (!data.isEmpty()) {
+                    listener.accept(objectMapper.readValue(data.toString(), NotificationItem.class));
+                    lastId = eventId != null ? Long.valueOf(eventId) : lastId;
+                }
+                eventId = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon >= 0 ? line.substring(0, colon) : line;
+            String value = colon >= 0 ? line.substring(colon + 1) : "";
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            if ("id".equals(field)) {
+                eventId = value;
+            } else if ("data".equals(field)) {
+                if (!data.isEmpty()) {
+                    data.append('\n');
+                }
+                data.append(value);
+            }
         }
+        return lastId;
     }
 
     private void handleUnauthorized(int statusCode, String body) {
@@ -859,4 +1504,19 @@ public class BackendGateway {
         }
         return params.isEmpty() ? basePath : basePath + "?" + String.join("&", params);
     }
+
+    private String buildChangesPath(String basePath, Instant since) {
+        return since == null ? basePath : basePath + "?since=" + URLEncoder.encode(since.toString(), StandardCharsets.UTF_8);
+    }
+
+    private String buildPagePath(String basePath, String cursor, Integer size) {
+        List<String> params = new ArrayList<>();
+        if (cursor != null && !cursor.isBlank()) {
+            params.add("cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        }
+        if (size != null) {
+            params.add("size=" + size);
+        }
+        return params.isEmpty() ? basePath : basePath + "?" + String.join("&", params);
+    }
 }
@@ -0,0 +1,135 @@
+package com.example.client.service;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * {@link HttpClient} condiviso da tutti i gateway del processo: pool di connessioni e sessioni TLS vengono
+ * riutilizzati e, se il server lo supporta, le richieste concorrenti viaggiano in multiplexing su HTTP/2.
+ * Limita inoltre il numero di chiamate in corso: quelle in eccesso restano in coda, senza occupare thread,
+ * finché una delle precedenti non termina. Annullare il future di una chiamata la toglie dalla coda oppure, se
+ * già avviata, interrompe lo scambio HTTP in corso.
+ * <p>
+ * Il limite predefinito si configura con la property {@code backend.http.maxConcurrentRequests} o la variabile
+ * d'ambiente {@code BACKEND_HTTP_MAX_CONCURRENT_REQUESTS}.
+ */
+public class BackendHttpClient {
+
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
+    private final HttpClient httpClient;
+    private final Executor executor; // Esegue la lettura delle risposte e le continuazioni asincrone.
+    private final Semaphore permits; // Chiamate che possono essere in corso contemporaneamente.
+    private final Queue<PendingCall> waiting = new ConcurrentLinkedQueue<>(); // Chiamate in attesa di un permesso.
+
+    public BackendHttpClient(Executor executor, int maxConcurrentRequests) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // Ripiega su HTTP/1.1 se il server non supporta HTTP/2.
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build(), executor, maxConcurrentRequests);
+    }
+
+    public BackendHttpClient(HttpClient httpClient, Executor executor, int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("maxConcurrentRequests deve essere almeno 1");
+        }
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    /**
+     * Istanza condivisa dal processo, creata al primo utilizzo su thread virtuali.
+     */
+    public static BackendHttpClient shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Avvia la chiamata appena c'è un permesso libero e lo rilascia quando il future restituito termina.
+     * Se il future restituito viene annullato la chiamata non parte più, o viene annullata se già avviata.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(new PendingCall(result, () -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<T> inFlight = started;
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    inFlight.cancel(true); // Il chiamante ha rinunciato: interrompe lo scambio HTTP.
+                }
+            });
+            started.whenComplete((value, error) -> {
+                permits.release();
+                drain(); // Il permesso liberato passa alla prima chiamata in coda.
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }));
+        drain();
+        return result;
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            PendingCall next = waiting.poll();
+            if (next == null) { // Un altro thread ha già avviato l'ultima chiamata in coda.
+                permits.release();
+                continue;
+            }
+            if (next.result().isDone()) { // Annullata mentre era in coda: non parte e non occupa il permesso.
+                permits.release();
+                continue;
+            }
+            next.start().run();
+        }
+    }
+
+    static int configuredMaxConcurrentRequests() {
+        String value = System.getProperty("backend.http.maxConcurrentRequests");
+        if (value == null || value.isBlank()) {
+            value = System.getenv("BACKEND_HTTP_MAX_CONCURRENT_REQUESTS");
+        }
+        if (value == null || value.isBlank()) {
+            return DEFAULT_MAX_CONCURRENT_REQUESTS;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_CONCURRENT_REQUESTS;
+        }
+    }
+
+    private record PendingCall(CompletableFuture<?> result, Runnable start) {
+    }
+
+    private static final class SharedHolder {
+        private static final BackendHttpClient INSTANCE = new BackendHttpClient(
+                Executors.newVirtualThreadPerTaskExecutor(), configuredMaxConcurrentRequests());
+    }
+}
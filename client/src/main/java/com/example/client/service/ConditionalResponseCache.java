@@ -0,0 +1,43 @@
+package com.example.client.service;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache delle risposte GET con ETag: conserva per URI l'ultimo valore già deserializzato, così una risposta 304
+ * viene servita senza rileggere né riconvertire il corpo. I valori sono condivisi tra le chiamate e vanno
+ * trattati in sola lettura.
+ */
+final class ConditionalResponseCache {
+
+    private final Map<URI, Entry> entries; // Valori per URI, dal meno al più recentemente usato.
+
+    ConditionalResponseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, Entry> eldest) {
+                return size() > maxEntries; // Scarta l'URI usato meno di recente.
+            }
+        };
+    }
+
+    synchronized Entry get(URI uri) {
+        return entries.get(uri);
+    }
+
+    synchronized void put(URI uri, String etag, Object value) {
+        entries.put(uri, new Entry(etag, value));
+    }
+
+    synchronized void remove(URI uri) {
+        entries.remove(uri);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    record Entry(String etag, Object value) {
+    }
+}
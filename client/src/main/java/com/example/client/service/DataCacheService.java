@@ -10,9 +10,12 @@ import com.example.client.command.DeleteArticleCommand;
 import com.example.client.command.DeleteContractCommand;
 import com.example.client.command.DeleteCustomerCommand;
 import com.example.client.command.DeleteInvoiceCommand;
+import com.example.client.command.LoadArticleChangesCommand;
 import com.example.client.command.LoadArticlesCommand;
 import com.example.client.command.LoadContractsCommand;
+import com.example.client.command.LoadCustomerChangesCommand;
 import com.example.client.command.LoadCustomersCommand;
+import com.example.client.command.LoadInvoiceChangesCommand;
 import com.example.client.command.LoadInvoicesCommand;
 import com.example.client.command.RegisterInvoicePaymentCommand;
 import com.example.client.command.UpdateArticleCommand;
@@ -48,6 +51,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Servizio client che orchestra le operazioni CRUD tramite Command pattern.
@@ -60,9 +64,17 @@ public class DataCacheService {
     private final Map<StatisticsCacheKey, AgentStatisticsDTO> agentStatsCache = new ConcurrentHashMap<>();
     private final Map<StatisticsCacheKey, TeamStatisticsDTO> teamStatsCache = new ConcurrentHashMap<>();
     private final Map<String, DocumentHistoryPageDTO> historyCache = new ConcurrentHashMap<>();
-
-    private BackendGateway backendGateway;
-    private CommandExecutor executor;
+    private final EntityStore<InvoiceDTO> invoiceStore = new EntityStore<>(InvoiceDTO::getId);
+    private final EntityStore<CustomerDTO> customerStore = new EntityStore<>(CustomerDTO::getId);
+    private final EntityStore<ArticleDTO> articleStore = new EntityStore<>(ArticleDTO::getId);
+    // Serializzano le sincronizzazioni senza usare il monitor degli store: durante la chiamata HTTP il thread FX
+    // continua a leggerli e un thread virtuale in attesa non blocca il proprio carrier.
+    private final ReentrantLock invoiceSyncLock = new ReentrantLock();
+    private final ReentrantLock customerSyncLock = new ReentrantLock();
+    private final ReentrantLock articleSyncLock = new ReentrantLock();
+
+    private volatile BackendGateway backendGateway;
+    private volatile CommandExecutor executor;
 
     public static DataCacheService create(SessionStore sessionStore) {
         return new DataCacheService(sessionStore, buildGateway(sessionStore));
@@ -89,6 +101,9 @@ public class DataCacheService {
         dataChangeCenter.clearObservers();
         invalidateStatistics();
         invalidateHistory();
+        invoiceStore.clear();
+        customerStore.clear();
+        articleStore.clear();
     }
 
     private static BackendGateway buildGateway(SessionStore sessionStore) {
@@ -103,6 +118,18 @@ public class DataCacheService {
         return executor.execute(new LoadInvoicesCommand()).value();
     }
 
+    /**
+     * Aggiorna la copia locale delle fatture con le sole modifiche successive all'ultima sincronizzazione.
+     */
+    public EntityStore.Delta<InvoiceDTO> syncInvoices() {
+        invoiceSyncLock.lock(); // Una sincronizzazione alla volta: ognuna parte dall'istante della precedente.
+        try {
+            return invoiceStore.apply(executor.execute(new LoadInvoiceChangesCommand(invoiceStore.syncedAt())).value());
+        } finally {
+            invoiceSyncLock.unlock();
+        }
+    }
+
     public InvoiceDTO createInvoice(InvoiceDTO invoiceDTO) {
         InvoiceDTO result = executor.execute(new CreateInvoiceCommand(invoiceDTO)).value();
         invalidateStatistics();
@@ -162,6 +189,15 @@ public class DataCacheService {
         return executor.execute(new LoadCustomersCommand()).value();
     }
 
+    public EntityStore.Delta<CustomerDTO> syncCustomers() {
+        customerSyncLock.lock();
+        try {
+            return customerStore.apply(executor.execute(new LoadCustomerChangesCommand(customerStore.syncedAt())).value());
+        } finally {
+            customerSyncLock.unlock();
+        }
+    }
+
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
         CustomerDTO result = executor.execute(new CreateCustomerCommand(customerDTO)).value();
         publishChange(DataChangeType.CUSTOMER);
@@ -183,6 +219,15 @@ public class DataCacheService {
         return executor.execute(new LoadArticlesCommand()).value();
     }
 
+    public EntityStore.Delta<ArticleDTO> syncArticles() {
+        articleSyncLock.lock();
+        try {
+            return articleStore.apply(executor.execute(new LoadArticleChangesCommand(articleStore.syncedAt())).value());
+        } finally {
+            articleSyncLock.unlock();
+        }
+    }
+
     public ArticleDTO createArticle(ArticleDTO articleDTO) {
         ArticleDTO result = executor.execute(new CreateArticleCommand(articleDTO)).value();
         publishChange(DataChangeType.ARTICLE);
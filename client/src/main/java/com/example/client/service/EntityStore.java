@@ -0,0 +1,149 @@
+package com.example.client.service;
+
+import com.example.common.dto.ChangeSetDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Copia locale di un elenco sincronizzato in modo incrementale: conserva le entità per id e
+ * l'istante dell'ultima sincronizzazione, da rimandare al server per ricevere solo le modifiche.
+ * Ogni {@link #apply} restituisce un {@link Delta} con cui aggiornare la lista mostrata a video
+ * senza ricostruirla; la versione dello store permette di accorgersi di un delta mai applicato.
+ *
+ * @param <T> tipo delle entità
+ */
+public class EntityStore<T> {
+
+    private final Function<T, Long> idOf; // Estrae l'id di un'entità.
+    private final Map<Long, T> entities = new LinkedHashMap<>(); // Entità per id, nell'ordine ricevuto dal server.
+    private Instant syncedAt; // Istante restituito dall'ultima sincronizzazione, null se mai sincronizzato.
+    private long version; // Incrementata a ogni modifica della copia locale.
+
+    public EntityStore(Function<T, Long> idOf) {
+        this.idOf = Objects.requireNonNull(idOf, "idOf");
+    }
+
+    public synchronized Instant syncedAt() {
+        return syncedAt;
+    }
+
+    /**
+     * Applica le modifiche ricevute dal server e restituisce le entità toccate.
+     */
+    public synchronized Delta<T> apply(ChangeSetDTO<T> changes) {
+        Objects.requireNonNull(changes, "changes");
+        if (changes.isFull()) { // Elenco completo: sostituisce la copia locale.
+            entities.clear();
+        }
+        Set<Long> upserted = new LinkedHashSet<>();
+        for (T item : changes.getItems()) {
+            Long id = idOf.apply(item);
+            entities.put(id, item);
+            upserted.add(id);
+        }
+        Set<Long> removed = new LinkedHashSet<>();
+        for (Long id : changes.getDeletedIds()) {
+            if (entities.remove(id) != null) { // Tombstone di entità mai viste: nulla da rimuovere.
+                removed.add(id);
+            }
+            upserted.remove(id);
+        }
+        if (changes.getSyncedAt() != null) {
+            syncedAt = changes.getSyncedAt();
+        }
+        version++;
+        return new Delta<>(this, version - 1, version, changes.isFull(), upserted, removed);
+    }
+
+    public synchronized List<T> values() {
+        return List.copyOf(entities.values());
+    }
+
+    public synchronized int size() {
+        return entities.size();
+    }
+
+    public synchronized void clear() { // Alla prossima sincronizzazione il server invierà l'elenco completo.
+        entities.clear();
+        syncedAt = null;
+        version++;
+    }
+
+    private synchronized T find(Long id) {
+        return entities.get(id);
+    }
+
+    /**
+     * Entità create, modificate o eliminate da una sincronizzazione. I valori vengono letti dallo store
+     * al momento dell'uso, quindi applicare un delta dopo uno più recente non reintroduce dati superati.
+     */
+    public static final class Delta<T> {
+
+        private final EntityStore<T> store;
+        private final long baseVersion; // Versione dello store prima del delta.
+        private final long version; // Versione dello store dopo il delta.
+        private final boolean full;
+        private final Set<Long> upsertedIds;
+        private final Set<Long> removedIds;
+
+        private Delta(EntityStore<T> store, long baseVersion, long version, boolean full,
+                      Set<Long> upsertedIds, Set<Long> removedIds) {
+            this.store = store;
+            this.baseVersion = baseVersion;
+            this.version = version;
+            this.full = full;
+            this.upsertedIds = Collections.unmodifiableSet(upsertedIds); // Mantiene l'ordine ricevuto dal server.
+            this.removedIds = Collections.unmodifiableSet(removedIds);
+        }
+
+        public boolean full() { // Vero se la lista va sostituita con values().
+            return full;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public boolean follows(long appliedVersion) { // Vero se nessun delta precedente è andato perso.
+            return baseVersion == appliedVersion;
+        }
+
+        public List<T> values() { // Elenco completo corrente dello store.
+            return store.values();
+        }
+
+        public List<T> upserted() { // Entità create o modificate, nella versione più recente.
+            List<T> current = new ArrayList<>(upsertedIds.size());
+            for (Long id : upsertedIds) {
+                T value = store.find(id);
+                if (value != null) {
+                    current.add(value);
+                }
+            }
+            return current;
+        }
+
+        public Set<Long> removedIds() { // Entità eliminate, comprese quelle modificate e poi eliminate.
+            Set<Long> removed = new LinkedHashSet<>(removedIds);
+            for (Long id : upsertedIds) {
+                if (store.find(id) == null) {
+                    removed.add(id);
+                }
+            }
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return !full && upsertedIds.isEmpty() && removedIds.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.client.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Esegue in parallelo i caricamenti di un aggiornamento della dashboard, ciascuno su un thread virtuale,
+ * e applica ogni risultato sul thread dell'interfaccia appena arriva, così il tempo percepito è quello
+ * della chiamata più lenta e non la somma di tutte.
+ * Un nuovo aggiornamento annulla quello precedente: i caricamenti ancora in corso vengono interrotti
+ * e i loro risultati ignorati. Le sezioni in caricamento sono notificate a ogni variazione.
+ */
+public class RefreshOrchestrator implements AutoCloseable {
+
+    private final ExecutorService loader; // Thread su cui girano le chiamate al backend.
+    private final Executor uiExecutor; // Thread dell'interfaccia (Platform::runLater).
+    private final Consumer<Set<String>> loadingListener; // Riceve le sezioni ancora in caricamento.
+    private Refresh current; // Aggiornamento in corso, letto e scritto sul thread dell'interfaccia.
+
+    public RefreshOrchestrator(Executor uiExecutor, Consumer<Set<String>> loadingListener) {
+        this(Executors.newVirtualThreadPerTaskExecutor(), uiExecutor, loadingListener);
+    }
+
+    RefreshOrchestrator(ExecutorService loader, Executor uiExecutor, Consumer<Set<String>> loadingListener) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.uiExecutor = Objects.requireNonNull(uiExecutor, "uiExecutor");
+        this.loadingListener = Objects.requireNonNull(loadingListener, "loadingListener");
+    }
+
+    /**
+     * Prepara un nuovo aggiornamento; i caricamenti partono con {@link Refresh#start}.
+     */
+    public Refresh refresh() {
+        return new Refresh();
+    }
+
+    /**
+     * Annulla l'aggiornamento in corso, ad esempio alla scadenza della sessione.
+     */
+    public void cancel() {
+        Refresh previous = current;
+        current = null;
+        if (previous != null) {
+            previous.cancel();
+            loadingListener.accept(Set.of());
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        loader.shutdownNow();
+    }
+
+    /**
+     * Insieme di caricamenti avviati insieme.
+     */
+    public final class Refresh {
+
+        private final List<Section<?>> sections = new ArrayList<>(); // Caricamenti registrati.
+        private final Set<String> pending = new LinkedHashSet<>(); // Sezioni non ancora completate.
+        private final List<Future<?>> futures = new ArrayList<>(); // Per interrompere i caricamenti superati.
+        private Consumer<RuntimeException> errorHandler; // Gestisce il primo errore dell'aggiornamento.
+        private Runnable onComplete; // Eseguito quando tutte le sezioni sono terminate.
+        private boolean failed; // Vero dopo il primo errore: gli altri non vengono mostrati.
+
+        private Refresh() {
+        }
+
+        public <T> Refresh load(String section, Callable<T> call, Consumer<? super T> apply) { // Registra un caricamento.
+            sections.add(new Section<>(section, call, apply));
+            return this;
+        }
+
+        /**
+         * Annulla l'aggiornamento precedente e avvia tutti i caricamenti. Va chiamato dal thread dell'interfaccia.
+         */
+        public void start(Consumer<RuntimeException> errorHandler, Runnable onComplete) {
+            this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler");
+            this.onComplete = Objects.requireNonNull(onComplete, "onComplete");
+            if (current != null) {
+                current.cancel();
+            }
+            current = this;
+            sections.forEach(section -> pending.add(section.name()));
+            loadingListener.accept(Set.copyOf(pending));
+            if (sections.isEmpty()) {
+                onComplete.run();
+                return;
+            }
+            for (Section<?> section : sections) {
+                futures.add(loader.submit(() -> run(section)));
+            }
+        }
+
+        private <T> void run(Section<T> section) { // Eseguito sul thread di caricamento.
+            try {
+                T result = section.call().call();
+                uiExecutor.execute(() -> completed(section, () -> section.apply().accept(result)));
+            } catch (InterruptedException ex) { // Aggiornamento superato.
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                uiExecutor.execute(() -> completed(section, () -> fail(ex)));
+            } catch (Exception ex) {
+                uiExecutor.execute(() -> completed(section, () -> fail(new IllegalStateException(ex.getMessage(), ex))));
+            }
+        }
+
+        private void completed(Section<?> section, Runnable outcome) { // Eseguito sul thread dell'interfaccia.
+            if (current != this) { // Superato da un aggiornamento più recente.
+                return;
+            }
+            pending.remove(section.name());
+            outcome.run();
+            if (current != this) { // L'esito ha annullato l'aggiornamento, ad esempio con la sessione scaduta.
+                return;
+            }
+            loadingListener.accept(Set.copyOf(pending));
+            if (pending.isEmpty()) {
+                current = null;
+                onComplete.run();
+            }
+        }
+
+        private void fail(RuntimeException ex) {
+            if (!failed) { // Un backend non raggiungibile fa fallire tutte le sezioni: un solo messaggio.
+                failed = true;
+                errorHandler.accept(ex);
+            }
+        }
+
+        private void cancel() {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private record Section<T>(String name, Callable<T> call, Consumer<? super T> apply) {
+    }
+}
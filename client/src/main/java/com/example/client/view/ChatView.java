@@ -33,6 +33,8 @@ import javafx.scene.layout.VBox;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ConcurrentHashMap;
@@ -96,6 +98,12 @@ public class ChatView extends BorderPane {
     private String conversationId;
     // ID della conversazione selezionata.
 
+    private volatile Long lastMessageId;
+    // ID dell’ultimo messaggio ricevuto, usato come cursore del polling.
+
+    private final Set<Long> knownMessageIds = ConcurrentHashMap.newKeySet();
+    // ID dei messaggi già mostrati: il server rilegge anche messaggi precedenti al cursore.
+
     /**
      * Costruzione della vista completa.
      * Imposta layout, listeners e pulsanti.
@@ -211,6 +219,13 @@ public class ChatView extends BorderPane {
             return;
         }
         List<ChatMessageDTO> data = backendGateway.listChatMessages(userId, conversationId, null);
+        lastMessageId = data.stream()
+                .map(ChatMessageDTO::id)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .orElse(null);
+        knownMessageIds.clear();
+        data.stream().map(ChatMessageDTO::id).filter(Objects::nonNull).forEach(knownMessageIds::add);
 
         Platform.runLater(() -> messages.setAll(data));
     }
@@ -243,11 +258,17 @@ public class ChatView extends BorderPane {
         executor.submit(() -> {
             while (polling.get()) {
                 try {
-                    // Richiede nuovi messaggi dal backend
-                    List<ChatMessageDTO> newMessages = backendGateway.pollChatMessages(userId, conversationId);
+                    // Richiede i messaggi successivi all'ultimo ricevuto: il server li restituisce in un unico lotto,
+                    // insieme a quelli con id minore confermati in ritardo, che vanno filtrati per id
+                    Long afterId = lastMessageId;
+                    List<ChatMessageDTO> newMessages = backendGateway.pollChatMessages(userId, conversationId, afterId).stream()
+                            .filter(message -> message.id() != null && knownMessageIds.add(message.id()))
+                            .toList();
 
                     // Se ci sono messaggi non ancora mostrati → aggiungili
                     if (!newMessages.isEmpty()) {
+                        long newest = newMessages.get(newMessages.size() - 1).id();
+                        lastMessageId = afterId == null ? newest : Math.max(afterId, newest);
                         Platform.runLater(() -> messages.addAll(newMessages));
                     }
 
@@ -7,6 +7,9 @@ import com.example.client.model.NotificationItem;
 import com.example.client.service.BackendGateway;
 // Gateway di comunicazione verso il backend (REST API).
 
+import com.example.client.service.BackendServiceException;
+// Errore HTTP del backend, usato per riconoscere l'assenza dello stream.
+
 import com.example.client.service.NotificationService;
 // Event bus locale per distribuire notifiche in tempo reale all'interno del client.
 
@@ -42,6 +45,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 // Threading e utility.
 
 import org.springframework.lang.NonNull;
@@ -52,7 +56,7 @@ import org.springframework.lang.NonNull;
  *
  * Funzionalità:
  * - mostra notifiche correnti dell'utente
- * - polling periodico delle nuove notifiche dal backend
+ * - ricezione continua delle nuove notifiche (stream SSE o long polling)
  * - integrazione con NotificationService per aggiornamenti push locali
  * - possibilità di refresh manuale
  *
@@ -97,6 +101,9 @@ public class NotificationTabView extends Tab implements Observer<NotificationMes
     private final AtomicBoolean running = new AtomicBoolean(false);
     // Indica se il polling è in esecuzione (thread-safe, evita doppio avvio).
 
+    private final AtomicLong unread = new AtomicLong();
+    // Notifiche non lette mostrate nel titolo della tab.
+
     private Long userId;
     // Utente a cui è associato questo tab.
 
@@ -115,7 +122,11 @@ public class NotificationTabView extends Tab implements Observer<NotificationMes
         // Bottone per refresh manuale
         Button refreshButton = new Button("Aggiorna");
         refreshButton.setOnAction(event -> refresh());
-        container.setTop(refreshButton);
+
+        // Bottone che segna come lette tutte le notifiche visualizzate
+        Button markReadButton = new Button("Segna come lette");
+        markReadButton.setOnAction(event -> markAllRead());
+        container.setTop(new HBox(10, refreshButton, markReadButton));
 
         // Lista notifiche al centro
         configureListView();
@@ -162,11 +173,49 @@ public class NotificationTabView extends Tab implements Observer<NotificationMes
         // Aggiornamento della UI (thread JavaFX)
         List<NotificationItem> finalMapped = mapped;
         Platform.runLater(() -> items.setAll(finalMapped));
+
+        // Il contatore arriva da un endpoint dedicato, senza scorrere tutta la casella
+        unread.set(backendGateway.countUnreadNotifications(userId));
+        updateBadge();
+    }
+
+    /**
+     * Segna come lette, con una sola richiesta, tutte le notifiche fino alla più recente visualizzata.
+     */
+    public void markAllRead() {
+        if (userId == null) {
+            return;
+        }
+        Long upToId = items.stream()
+                .map(NotificationItem::id)
+                .filter(id -> id != null)
+                .max(Long::compare)
+                .orElse(null);
+        if (upToId == null) {
+            return; // solo notifiche di benvenuto
+        }
+        unread.set(backendGateway.markNotificationsRead(userId, upToId));
+        updateBadge();
+        Platform.runLater(() -> items.replaceAll(item -> item.id() != null && item.id() <= upToId && !item.read()
+                ? new NotificationItem(item.id(), item.userId(), item.teamId(), item.title(), item.message(), true,
+                item.createdAt())
+                : item));
+    }
+
+    /**
+     * Mostra il numero di notifiche non lette nel titolo della tab.
+     */
+    private void updateBadge() {
+        long count = unread.get();
+        Platform.runLater(() -> setText(count > 0 ? "Notifiche (" + count + ")" : "Notifiche"));
     }
 
     /**
-     * Avvia il polling delle notifiche.
-     * Se è già attivo, non avvia un secondo thread.
+     * Avvia la ricezione delle notifiche in background.
+     * Usa lo stream Server-Sent Events, che resta aperto e riprende dall'ultima
+     * notifica ricevuta a ogni riconnessione; se il backend non espone lo stream
+     * ripiega sul long polling.
+     * Se è già attiva, non avvia un secondo thread.
      */
     private void startPolling() {
         if (userId == null || running.getAndSet(true)) {
@@ -174,29 +223,27 @@ public class NotificationTabView extends Tab implements Observer<NotificationMes
         }
 
         executor.submit(() -> {
+            Long lastEventId = null;
+            boolean streaming = true;
             while (running.get()) {
                 try {
-                    // Recupera nuove notifiche dal backend
-                    List<NotificationItem> updates = backendGateway.pollNotifications(userId);
-
-                    if (!updates.isEmpty()) {
-                        // Per ogni nuova notifica, pubblica un evento
-                        updates.forEach(item -> notificationService.publish(new NotificationMessage(
-                                // Il canale dipende dal destinatario:
-                                item.teamId() != null
-                                        ? "team" + item.teamId()
-                                        : "user" + item.userId(),
-                                // Payload della notifica
-                                item.title() + ": " + item.message(),
-                                item.createdAt())));
+                    if (streaming) {
+                        // Resta in ascolto finché la connessione è aperta, poi si riconnette
+                        lastEventId = backendGateway.streamNotifications(userId, lastEventId, this::publish);
+                    } else {
+                        // Recupera nuove notifiche dal backend
+                        backendGateway.pollNotifications(userId).forEach(this::publish);
                     }
 
+                } catch (BackendServiceException ex) {
+                    if (ex.getStatusCode() == 404) {
+                        streaming = false; // backend senza stream: usa il long polling
+                    } else if (!pause()) {
+                        return; // uscita dal polling
+                    }
                 } catch (Exception ex) {
                     // In caso di errore, attende 1 secondo e riprova
-                    try {
-                        Thread.sleep(1_000);
-                    } catch (InterruptedException ignored) {
-                        Thread.currentThread().interrupt();
+                    if (!pause()) {
                         return; // uscita dal polling
                     }
                 }
@@ -204,6 +251,38 @@ public class NotificationTabView extends Tab implements Observer<NotificationMes
         });
     }
 
+    /**
+     * Pubblica una notifica ricevuta dal backend sull'event bus locale.
+     */
+    private void publish(NotificationItem item) {
+        if (!item.read()) {
+            unread.incrementAndGet(); // nuova notifica da leggere
+            updateBadge();
+        }
+        notificationService.publish(new NotificationMessage(
+                // Il canale dipende dal destinatario:
+                item.teamId() != null
+                        ? "team" + item.teamId()
+                        : "user" + item.userId(),
+                // Payload della notifica
+                item.title() + ": " + item.message(),
+                item.createdAt()));
+    }
+
+    /**
+     * Attende 1 secondo prima di un nuovo tentativo.
+     * Restituisce false se il thread è stato interrotto.
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(1_000);
+            return true;
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     /**
      * Callback invocata quando il NotificationService pubblica
      * un nuovo NotificationMessage.
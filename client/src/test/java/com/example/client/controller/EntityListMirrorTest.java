@@ -0,0 +1,103 @@
+package com.example.client.controller;
+
+import com.example.client.model.CustomerModel;
+import com.example.client.service.EntityStore;
+import com.example.client.service.RefreshOrchestrator;
+import com.example.common.dto.ChangeSetDTO;
+import com.example.common.dto.CustomerDTO;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityListMirrorTest {
+
+    private static final Instant FIRST_SYNC = Instant.parse("2024-03-10T12:00:00Z");
+
+    private final BlockingQueue<Runnable> uiQueue = new LinkedBlockingQueue<>();
+    private final RefreshOrchestrator orchestrator = new RefreshOrchestrator(uiQueue::add, sections -> { });
+    private final EntityStore<CustomerDTO> store = new EntityStore<>(CustomerDTO::getId);
+    private final ObservableList<CustomerModel> items = FXCollections.observableArrayList();
+    private final EntityListMirror<CustomerDTO, CustomerModel> mirror =
+            new EntityListMirror<>(items, CustomerModel::fromDto, CustomerModel::getId);
+
+    @AfterEach
+    void tearDown() {
+        orchestrator.close();
+    }
+
+    @Test
+    void cleanRefreshRecoversTheDeltaOfASupersededOne() throws Exception {
+        mirror.apply(store.apply(new ChangeSetDTO<>(
+                List.of(customer(1L, "Rossi"), customer(2L, "Bianchi")), List.of(), FIRST_SYNC, true)));
+
+        CountDownLatch synced = new CountDownLatch(1);
+        AtomicBoolean firstCompleted = new AtomicBoolean();
+        orchestrator.refresh()
+                .load("Clienti", () -> {
+                    EntityStore.Delta<CustomerDTO> delta = store.apply(new ChangeSetDTO<>(
+                            List.of(customer(1L, "Rossi Srl")), List.of(2L), FIRST_SYNC.plusSeconds(60), false));
+                    synced.countDown();
+                    return delta;
+                }, mirror::apply)
+                .start(ex -> { throw ex; }, () -> firstCompleted.set(true));
+        assertTrue(synced.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean secondCompleted = new AtomicBoolean();
+        orchestrator.refresh()
+                .load("Clienti", () -> store.apply(new ChangeSetDTO<>(
+                        List.of(customer(3L, "Verdi")), List.of(), FIRST_SYNC.plusSeconds(120), false)), mirror::apply)
+                .start(ex -> { throw ex; }, () -> secondCompleted.set(true));
+        drainUntil(secondCompleted);
+
+        assertFalse(firstCompleted.get());
+        assertEquals(List.of(1L, 3L), items.stream().map(CustomerModel::getId).toList());
+        assertEquals("Rossi Srl", items.get(0).getName());
+    }
+
+    @Test
+    void contiguousDeltasAreMergedInPlace() {
+        mirror.apply(store.apply(new ChangeSetDTO<>(
+                List.of(customer(1L, "Rossi"), customer(2L, "Bianchi")), List.of(), FIRST_SYNC, true)));
+        CustomerModel untouched = items.get(1);
+
+        assertTrue(mirror.apply(store.apply(new ChangeSetDTO<>(
+                List.of(customer(3L, "Verdi")), List.of(), FIRST_SYNC.plusSeconds(60), false))));
+        assertFalse(mirror.apply(store.apply(new ChangeSetDTO<>(
+                List.of(), List.of(), FIRST_SYNC.plusSeconds(120), false))));
+
+        assertEquals(List.of(3L, 1L, 2L), items.stream().map(CustomerModel::getId).toList());
+        assertSame(untouched, items.get(2), "Le righe non modificate non vanno ricreate");
+    }
+
+    private void drainUntil(AtomicBoolean done) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.get()) {
+            Runnable task = uiQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (task != null) {
+                task.run();
+            }
+            assertTrue(System.nanoTime() < deadline, "aggiornamento non completato");
+        }
+    }
+
+    private static CustomerDTO customer(Long id, String name) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setName(name);
+        return customer;
+    }
+}
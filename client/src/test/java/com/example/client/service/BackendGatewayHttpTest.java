@@ -0,0 +1,200 @@
+package com.example.client.service;
+
+import com.example.client.session.SessionStore;
+import com.example.common.dto.AgentDTO;
+import com.example.common.dto.CustomerDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackendGatewayHttpTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private SessionStore sessionStore;
+    private BackendGateway gateway;
+    private final List<String> receivedIfNoneMatch = new ArrayList<>();
+    private final List<String> receivedAcceptEncoding = new ArrayList<>();
+    private volatile boolean compress;
+    private volatile String currentEtag = "\"v1\"";
+    private volatile String currentBody = "[{\"id\":1,\"name\":\"Rossi\"}]";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/customers", this::handleCustomers);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+
+        sessionStore = new SessionStore(tempDir);
+        sessionStore.save(new AuthSession("token-test", "Bearer", Instant.now().plusSeconds(3600),
+                new UserSummary(1L, "user@example.com", "User", "azure-1", 1L, 1L)));
+        gateway = new BackendGateway("http://localhost:" + server.getAddress().getPort(), sessionStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void unchangedListIsServedFromTheCacheAfterA304() {
+        List<CustomerDTO> first = gateway.listCustomers();
+        List<CustomerDTO> second = gateway.listCustomers();
+
+        assertSame(first, second, "Una risposta 304 deve restituire il valore già deserializzato");
+        assertEquals(Arrays.asList(null, "\"v1\""), receivedIfNoneMatch);
+    }
+
+    @Test
+    void changedListReplacesTheCachedValue() {
+        List<CustomerDTO> first = gateway.listCustomers();
+        currentEtag = "\"v2\"";
+        currentBody = "[{\"id\":1,\"name\":\"Rossi\"},{\"id\":2,\"name\":\"Bianchi\"}]";
+
+        List<CustomerDTO> changed = gateway.listCustomers();
+        List<CustomerDTO> unchanged = gateway.listCustomers();
+
+        assertNotSame(first, changed);
+        assertEquals(2, changed.size());
+        assertSame(changed, unchanged);
+        assertEquals(Arrays.asList(null, "\"v1\"", "\"v2\""), receivedIfNoneMatch);
+    }
+
+    @Test
+    void gzipResponsesAreDecodedWhileParsing() {
+        compress = true;
+
+        List<CustomerDTO> customers = gateway.listCustomers();
+
+        assertEquals(List.of("gzip"), receivedAcceptEncoding);
+        assertEquals(1, customers.size());
+        assertEquals("Rossi", customers.get(0).getName());
+    }
+
+    @Test
+    void emptyErrorBodiesAreReportedWithTheStatus() {
+        server.removeContext("/api/customers");
+        server.createContext("/api/customers", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        BackendServiceException error = assertThrows(BackendServiceException.class, gateway::listCustomers);
+
+        assertTrue(error.getMessage().contains("non trovata"));
+    }
+
+    @Test
+    void asyncCallsRespectTheConcurrencyLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        server.createContext("/api/agents", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        BackendGateway limited = new BackendGateway("http://localhost:" + server.getAddress().getPort(), sessionStore,
+                new BackendHttpClient(clientThreads, 2));
+
+        try {
+            List<CompletableFuture<List<AgentDTO>>> calls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                calls.add(limited.listAgentsAsync());
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+            assertTrue(calls.stream().allMatch(call -> call.join().isEmpty()));
+            assertTrue(maxInFlight.get() <= 2, "Al massimo due chiamate alla volta, rilevate " + maxInFlight.get());
+        } finally {
+            clientThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncErrorsCompleteTheFutureExceptionally() {
+        server.removeContext("/api/customers");
+        server.createContext("/api/customers", exchange -> {
+            exchange.sendResponseHeaders(409, -1);
+            exchange.close();
+        });
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> gateway.listCustomersAsync().get(10, TimeUnit.SECONDS));
+
+        BackendServiceException cause = assertInstanceOf(BackendServiceException.class, error.getCause());
+        assertTrue(cause.getMessage().contains("Conflitto"));
+    }
+
+    private void handleCustomers(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        synchronized (receivedIfNoneMatch) {
+            receivedIfNoneMatch.add(ifNoneMatch);
+            receivedAcceptEncoding.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        }
+        exchange.getResponseHeaders().add("ETag", currentEtag);
+        if (currentEtag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = currentBody.getBytes(StandardCharsets.UTF_8);
+        if (compress) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
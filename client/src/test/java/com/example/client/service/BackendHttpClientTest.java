@@ -0,0 +1,47 @@
+package com.example.client.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackendHttpClientTest {
+
+    private final BackendHttpClient client = new BackendHttpClient(HttpClient.newHttpClient(), Runnable::run, 1);
+
+    @Test
+    void cancelledQueuedCallsNeverStartAndDoNotHoldAPermit() {
+        CompletableFuture<String> running = new CompletableFuture<>();
+        AtomicInteger cancelledStarts = new AtomicInteger();
+        client.submit(() -> running);
+        CompletableFuture<String> queued = client.submit(() -> {
+            cancelledStarts.incrementAndGet();
+            return CompletableFuture.completedFuture("annullata");
+        });
+
+        queued.cancel(true);
+        running.complete("prima");
+        CompletableFuture<String> next = client.submit(() -> CompletableFuture.completedFuture("successiva"));
+
+        assertEquals(0, cancelledStarts.get());
+        assertEquals("successiva", next.join());
+    }
+
+    @Test
+    void cancellingAStartedCallCancelsTheExchangeAndReleasesThePermit() {
+        CompletableFuture<String> exchange = new CompletableFuture<>();
+        CompletableFuture<String> call = client.submit(() -> exchange);
+
+        call.cancel(true);
+        CompletableFuture<String> next = client.submit(() -> CompletableFuture.completedFuture("successiva"));
+
+        assertTrue(exchange.isCancelled());
+        assertFalse(next.isCompletedExceptionally());
+        assertEquals("successiva", next.join());
+    }
+}
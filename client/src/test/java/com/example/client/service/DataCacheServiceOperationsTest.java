@@ -25,6 +25,7 @@ import com.example.client.model.DataChangeType;
 import com.example.client.session.SessionStore;
 import com.example.common.dto.AgentDTO;
 import com.example.common.dto.ArticleDTO;
+import com.example.common.dto.ChangeSetDTO;
 import com.example.common.dto.CommissionDTO;
 import com.example.common.dto.ContractDTO;
 import com.example.common.dto.CustomerDTO;
@@ -54,6 +55,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -160,9 +164,9 @@ class DataCacheServiceOperationsTest {
         Map<DataChangeType, Long> occurrences = events.stream()
                 .collect(Collectors.groupingBy(type -> type, Collectors.counting()));
         assertEquals(4L, occurrences.getOrDefault(DataChangeType.INVOICE, 0L), "Ogni modifica fattura deve notificare gli observer");
-        assertEquals(2L, occurrences.getOrDefault(DataChangeType.ARTICLE, 0L), "Le variazioni articoli devono notificare");
-        assertEquals(2L, occurrences.getOrDefault(DataChangeType.CONTRACT, 0L), "Le variazioni contratti devono notificare");
-        assertEquals(2L, occurrences.getOrDefault(DataChangeType.CUSTOMER, 0L), "Le variazioni clienti devono notificare");
+        assertEquals(3L, occurrences.getOrDefault(DataChangeType.ARTICLE, 0L), "Le variazioni articoli devono notificare");
+        assertEquals(3L, occurrences.getOrDefault(DataChangeType.CONTRACT, 0L), "Le variazioni contratti devono notificare");
+        assertEquals(3L, occurrences.getOrDefault(DataChangeType.CUSTOMER, 0L), "Le variazioni clienti devono notificare");
 
     }
 
@@ -239,6 +243,82 @@ class DataCacheServiceOperationsTest {
         assertEquals(3L, occurrences.getOrDefault(DataChangeType.INVOICE, 0L));
     }
 
+    @Test
+    void syncInvoicesRequestsOnlyChangesSinceThePreviousSync() throws Exception {
+        SessionStore sessionStore = new SessionStore(tempDir);
+        sessionStore.save(activeSession);
+
+        Instant firstSync = Instant.parse("2024-03-10T12:00:00Z");
+        Instant secondSync = firstSync.plusSeconds(60);
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setId(1L);
+        InvoiceDTO created = new InvoiceDTO();
+        created.setId(2L);
+        List<Instant> requestedSince = new ArrayList<>();
+        BackendGateway gateway = new BackendGateway() {
+            @Override
+            public ChangeSetDTO<InvoiceDTO> listInvoiceChanges(Instant since) {
+                requestedSince.add(since);
+                return since == null
+                        ? new ChangeSetDTO<>(List.of(invoice), List.of(), firstSync, true)
+                        : new ChangeSetDTO<>(List.of(created), List.of(1L), secondSync, false);
+            }
+        };
+        DataCacheService service = DataCacheService.create(sessionStore);
+        injectField(service, "executor", new CommandExecutor(gateway, new CommandHistoryCaretaker()));
+
+        EntityStore.Delta<InvoiceDTO> full = service.syncInvoices();
+        EntityStore.Delta<InvoiceDTO> delta = service.syncInvoices();
+
+        assertTrue(full.full());
+        assertEquals(List.of(created), delta.upserted());
+        assertEquals(java.util.Set.of(1L), delta.removedIds());
+
+        service.clearSessionData();
+        service.syncInvoices();
+
+        assertEquals(java.util.Arrays.asList(null, firstSync, null), requestedSince,
+                "La seconda sincronizzazione deve partire dalla prima, il logout deve azzerarla");
+    }
+
+    @Test
+    void syncInvoicesKeepsTheStoreReadableDuringTheHttpCall() throws Exception {
+        SessionStore sessionStore = new SessionStore(tempDir);
+        sessionStore.save(activeSession);
+
+        InvoiceDTO invoice = new InvoiceDTO();
+        invoice.setId(1L);
+        DataCacheService service = DataCacheService.create(sessionStore);
+        EntityStore<InvoiceDTO> store = extractField(service, "invoiceStore");
+        AtomicBoolean readDuringCall = new AtomicBoolean();
+        BackendGateway gateway = new BackendGateway() {
+            @Override
+            public ChangeSetDTO<InvoiceDTO> listInvoiceChanges(Instant since) {
+                CompletableFuture<List<InvoiceDTO>> read = CompletableFuture.supplyAsync(store::values);
+                try {
+                    read.get(5, TimeUnit.SECONDS);
+                    readDuringCall.set(true);
+                } catch (Exception e) {
+                    read.cancel(true);
+                }
+                return new ChangeSetDTO<>(List.of(invoice), List.of(), Instant.parse("2024-03-10T12:00:00Z"), true);
+            }
+        };
+        injectField(service, "executor", new CommandExecutor(gateway, new CommandHistoryCaretaker()));
+
+        service.syncInvoices();
+
+        assertTrue(readDuringCall.get(), "Lo store deve restare leggibile mentre la sincronizzazione attende il server");
+        assertEquals(List.of(invoice), store.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T extractField(Object target, String fieldName) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return (T) field.get(target);
+    }
+
     private void injectField(Object target, String fieldName, Object value) throws Exception {
         Field field = target.getClass().getDeclaredField(fieldName);
         field.setAccessible(true);
@@ -0,0 +1,70 @@
+package com.example.client.service;
+
+import com.example.common.dto.ChangeSetDTO;
+import com.example.common.dto.CustomerDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityStoreTest {
+
+    private static final Instant FIRST_SYNC = Instant.parse("2024-03-10T12:00:00Z");
+    private static final Instant SECOND_SYNC = FIRST_SYNC.plusSeconds(60);
+
+    private final EntityStore<CustomerDTO> store = new EntityStore<>(CustomerDTO::getId);
+
+    @Test
+    void fullChangeSetReplacesTheLocalCopy() {
+        store.apply(new ChangeSetDTO<>(List.of(customer(1L, "Vecchio")), List.of(), FIRST_SYNC, true));
+
+        EntityStore.Delta<CustomerDTO> delta = store.apply(
+                new ChangeSetDTO<>(List.of(customer(2L, "Rossi"), customer(3L, "Bianchi")), List.of(), SECOND_SYNC, true));
+
+        assertTrue(delta.full());
+        assertEquals(List.of(2L, 3L), delta.values().stream().map(CustomerDTO::getId).toList());
+        assertEquals(SECOND_SYNC, store.syncedAt());
+    }
+
+    @Test
+    void deltaUpdatesAndRemovesOnlyTheChangedEntities() {
+        store.apply(new ChangeSetDTO<>(List.of(customer(1L, "Rossi"), customer(2L, "Bianchi")), List.of(), FIRST_SYNC, true));
+
+        EntityStore.Delta<CustomerDTO> delta = store.apply(new ChangeSetDTO<>(
+                List.of(customer(1L, "Rossi Srl"), customer(3L, "Verdi")), List.of(2L, 99L), SECOND_SYNC, false));
+
+        assertFalse(delta.full());
+        assertEquals(List.of("Rossi Srl", "Verdi"), delta.upserted().stream().map(CustomerDTO::getName).toList());
+        assertEquals(Set.of(2L), delta.removedIds(), "Le tombstone di entità mai ricevute vanno ignorate");
+        assertEquals(List.of(1L, 3L), store.values().stream().map(CustomerDTO::getId).toList());
+        assertEquals(SECOND_SYNC, store.syncedAt());
+    }
+
+    @Test
+    void olderDeltaAppliedLateExposesTheCurrentValues() {
+        store.apply(new ChangeSetDTO<>(List.of(customer(1L, "Rossi")), List.of(), FIRST_SYNC, true));
+        EntityStore.Delta<CustomerDTO> older = store.apply(
+                new ChangeSetDTO<>(List.of(customer(1L, "Rossi Srl")), List.of(), FIRST_SYNC, false));
+        store.apply(new ChangeSetDTO<>(List.of(), List.of(1L), SECOND_SYNC, false));
+
+        assertTrue(older.upserted().isEmpty());
+        assertEquals(Set.of(1L), older.removedIds());
+
+        store.clear();
+        assertNull(store.syncedAt());
+        assertEquals(0, store.size());
+    }
+
+    private static CustomerDTO customer(Long id, String name) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setName(name);
+        return customer;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.client.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshOrchestratorTest {
+
+    // Simula il thread JavaFX: i task applicati vengono eseguiti dal thread del test.
+    private final BlockingQueue<Runnable> uiQueue = new LinkedBlockingQueue<>();
+    private final List<Set<String>> loadingStates = new ArrayList<>();
+    private final RefreshOrchestrator orchestrator = new RefreshOrchestrator(
+            Executors.newVirtualThreadPerTaskExecutor(), uiQueue::add, loadingStates::add);
+
+    @AfterEach
+    void tearDown() {
+        orchestrator.close();
+    }
+
+    @Test
+    void loadsSectionsConcurrentlyAndAppliesEachResultOnTheUiThread() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<String> applied = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+
+        orchestrator.refresh()
+                .load("Clienti", () -> awaitOthers(allStarted, "clienti"), applied::add)
+                .load("Fatture", () -> awaitOthers(allStarted, "fatture"), applied::add)
+                .load("Contratti", () -> awaitOthers(allStarted, "contratti"), applied::add)
+                .start(ex -> { throw ex; }, () -> completed.set(true));
+
+        assertEquals(Set.of("Clienti", "Fatture", "Contratti"), loadingStates.get(0));
+        drainUntil(completed);
+        assertEquals(Set.of("clienti", "fatture", "contratti"), Set.copyOf(applied));
+        assertEquals(Set.of(), loadingStates.get(loadingStates.size() - 1));
+        assertEquals(4, loadingStates.size());
+    }
+
+    @Test
+    void ignoresResultsOfSupersededRefresh() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<String> applied = new ArrayList<>();
+        AtomicBoolean firstCompleted = new AtomicBoolean();
+        AtomicBoolean secondCompleted = new AtomicBoolean();
+
+        orchestrator.refresh()
+                .load("Clienti", () -> {
+                    firstStarted.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        interrupted.countDown();
+                        throw ex;
+                    }
+                    return "vecchio";
+                }, applied::add)
+                .start(ex -> { throw ex; }, () -> firstCompleted.set(true));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        orchestrator.refresh()
+                .load("Clienti", () -> "nuovo", applied::add)
+                .start(ex -> { throw ex; }, () -> secondCompleted.set(true));
+        release.countDown();
+        drainUntil(secondCompleted);
+
+        assertEquals(List.of("nuovo"), applied);
+        assertFalse(firstCompleted.get());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void reportsOnlyTheFirstFailureAndStillCompletes() throws Exception {
+        List<RuntimeException> failures = new ArrayList<>();
+        List<String> applied = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+
+        orchestrator.refresh()
+                .load("Clienti", RefreshOrchestratorTest::offline, applied::add)
+                .load("Fatture", RefreshOrchestratorTest::offline, applied::add)
+                .load("Ruoli", () -> "ruoli", applied::add)
+                .start(failures::add, () -> completed.set(true));
+        drainUntil(completed);
+
+        assertEquals(1, failures.size());
+        assertEquals("offline", failures.get(0).getMessage());
+        assertEquals(List.of("ruoli"), applied);
+    }
+
+    private static String offline() {
+        throw new IllegalStateException("offline");
+    }
+
+    private static String awaitOthers(CountDownLatch allStarted, String value) throws InterruptedException {
+        allStarted.countDown();
+        // Termina solo se tutte le sezioni sono in corso nello stesso momento.
+        if (!allStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("caricamenti eseguiti in sequenza");
+        }
+        return value;
+    }
+
+    private void drainUntil(AtomicBoolean done) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.get()) {
+            Runnable task = uiQueue.poll(100, TimeUnit.MILLISECONDS);
+            if (task != null) {
+                task.run();
+            }
+            assertTrue(System.nanoTime() < deadline, "aggiornamento non completato");
+        }
+    }
+}
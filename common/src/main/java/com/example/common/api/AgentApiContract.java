@@ -4,6 +4,7 @@ import java.util.List;          // DTO che rappresenta un agente nel livello di
 import java.util.Optional;                           // Supporto per liste di oggetti.
 
 import com.example.common.dto.AgentDTO;                       // Usato per rappresentare risultati potenzialmente assenti.
+import com.example.common.dto.CursorPageDTO;                  // DTO della pagina a cursore per gli elenchi paginati.
 
 /**
  * Contratto API condiviso per la gestione degli agenti.
@@ -14,6 +15,8 @@ public interface AgentApiContract {               // Interfaccia che espone le o
 
     List<AgentDTO> listAgents();                  // Restituisce la lista completa degli agenti presenti nel sistema.
 
+    CursorPageDTO<AgentDTO> listAgentsPage(String cursor, Integer size); // Restituisce una pagina di agenti a partire dal cursore indicato.
+
     Optional<AgentDTO> findById(Long id);         // Recupera un agente tramite il suo identificatore, se esiste.
 
     AgentDTO create(AgentDTO agent);              // Crea un nuovo agente utilizzando i dati contenuti nel DTO fornito.
@@ -1,9 +1,12 @@
 package com.example.common.api;                   // Package che contiene i contratti API condivisi tra client e server.
 
+import java.time.Instant;          // Istante da cui leggere le modifiche.
 import java.util.List;         // DTO che rappresenta un articolo nel sistema di catalogo.
 import java.util.Optional;                            // Necessario per restituire collezioni di oggetti.
 
 import com.example.common.dto.ArticleDTO;                        // Utilizzato per risultati opzionali (entità non garantita).
+import com.example.common.dto.ChangeSetDTO;                      // DTO delle modifiche incrementali di un elenco.
+import com.example.common.dto.CursorPageDTO;                     // DTO della pagina a cursore per gli elenchi paginati.
 
 /**
  * Contratto API per la gestione del catalogo articoli.
@@ -13,6 +16,10 @@ public interface ArticleApiContract {              // Interfaccia che espone le
 
     List<ArticleDTO> listArticles();               // Restituisce la lista completa degli articoli presenti nel catalogo.
 
+    CursorPageDTO<ArticleDTO> listArticlesPage(String cursor, Integer size); // Restituisce una pagina di articoli a partire dal cursore indicato.
+
+    ChangeSetDTO<ArticleDTO> listArticleChanges(Instant since); // Restituisce gli articoli modificati o eliminati dopo l'istante indicato.
+
     Optional<ArticleDTO> findById(Long id);        // Recupera un singolo articolo in base al suo identificatore, se esiste.
 
     ArticleDTO create(ArticleDTO article);         // Crea un nuovo articolo utilizzando i dati contenuti nel DTO fornito.
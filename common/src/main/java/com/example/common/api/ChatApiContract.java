@@ -23,7 +23,8 @@ public interface ChatApiContract {                               // Interfaccia
                                   Instant since);                // Restituisce solo i messaggi più recenti di un timestamp dato (per aggiornamenti incrementali).
 
     DeferredResult<List<ChatMessageDTO>> poll(Long userId,       // Attiva una richiesta di long-polling per ricevere nuovi messaggi.
-                                              String conversationId); // L'operazione rimane sospesa finché non arrivano messaggi nuovi.
+                                              String conversationId, // L'operazione rimane sospesa finché non arrivano messaggi nuovi.
+                                              Long afterId);         // Id dell'ultimo messaggio ricevuto: i messaggi successivi vengono restituiti in un unico lotto.
 
     ChatMessageDTO send(ChatMessageRequest request);             // Invia un nuovo messaggio all'interno della conversazione.
 }                                                                // Fine dell’interfaccia ChatApiContract.
@@ -4,6 +4,7 @@ import java.util.List;              // DTO che rappresenta un contratto nel sist
 import java.util.Optional;       // DTO che rappresenta una voce dello storico dei documenti associati.
 
 import com.example.common.dto.ContractDTO;                                  // Necessario per operazioni che restituiscono collezioni.
+import com.example.common.dto.CursorPageDTO;                                // DTO della pagina a cursore per gli elenchi paginati.
 import com.example.common.dto.DocumentHistoryDTO;                              // Supporta la gestione di risultati non garantiti.
 
 /**
@@ -15,6 +16,8 @@ public interface ContractApiContract {                  // Interfaccia che defin
 
     List<ContractDTO> listContracts();                  // Restituisce l'elenco completo dei contratti presenti nel sistema.
 
+    CursorPageDTO<ContractDTO> listContractsPage(String cursor, Integer size); // Restituisce una pagina di contratti a partire dal cursore indicato.
+
     Optional<ContractDTO> findById(Long id);            // Recupera un contratto tramite il suo ID, se esiste.
 
     ContractDTO create(ContractDTO contractDTO);        // Crea un nuovo contratto con i dati forniti nel DTO.
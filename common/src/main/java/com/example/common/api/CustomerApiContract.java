@@ -1,8 +1,11 @@
 package com.example.common.api;                        // Package che contiene i contratti API condivisi tra client e server.
 
+import java.time.Instant;          // Istante da cui leggere le modifiche.
 import java.util.List;             // DTO che rappresenta un cliente nell’anagrafica del sistema.
 import java.util.Optional;                                 // Usato per restituire liste di risultati.
 
+import com.example.common.dto.ChangeSetDTO;                            // DTO delle modifiche incrementali di un elenco.
+import com.example.common.dto.CursorPageDTO;                           // DTO della pagina a cursore per gli elenchi paginati.
 import com.example.common.dto.CustomerDTO;                             // Usato per rappresentare risultati opzionali (entità non certa).
 
 /**
@@ -13,6 +16,10 @@ public interface CustomerApiContract {                 // Interfaccia che espone
 
     List<CustomerDTO> listCustomers();                 // Restituisce la lista completa dei clienti presenti nell’anagrafica.
 
+    CursorPageDTO<CustomerDTO> listCustomersPage(String cursor, Integer size); // Restituisce una pagina di clienti a partire dal cursore indicato.
+
+    ChangeSetDTO<CustomerDTO> listCustomerChanges(Instant since); // Restituisce i clienti modificati o eliminati dopo l'istante indicato.
+
     Optional<CustomerDTO> findById(Long id);           // Recupera un cliente tramite identificatore, se presente.
 
     CustomerDTO create(CustomerDTO customer);          // Crea un nuovo cliente utilizzando i dati forniti nel DTO.
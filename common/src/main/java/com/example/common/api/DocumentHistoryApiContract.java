@@ -26,7 +26,10 @@ public interface DocumentHistoryApiContract {                            // Inte
             OffsetDateTime to,                                           // Timestamp finale del filtro temporale.
             String search,                                               // Termine di ricerca testuale libera (utente, descrizione, ecc.).
             int page,                                                    // Numero della pagina richiesta (paginazione).
-            int size                                                     // Dimensione della pagina.
+            int size,                                                    // Dimensione della pagina.
+            boolean keyset,                                              // Abilita la paginazione a cursore su (created_at, id).
+            String cursor,                                               // Cursore opaco restituito dalla pagina precedente.
+            Boolean count                                                // Richiede il totale (default: sì per pagine numerate, no a cursore).
     );
 
     ResponseEntity<byte[]> export(                                       // Esporta lo storico filtrato in formato binario (PDF/CSV/Excel).
@@ -1,8 +1,11 @@
 package com.example.common.api;                               // Package che definisce i contratti API condivisi fra client e server.
 
+import java.time.Instant;          // Istante da cui leggere le modifiche.
 import java.util.List;             // DTO che rappresenta una singola voce dello storico documentale.
 import java.util.Optional;                     // DTO principale che rappresenta una fattura.
 
+import com.example.common.dto.ChangeSetDTO;                // DTO delle modifiche incrementali di un elenco.
+import com.example.common.dto.CursorPageDTO;               // DTO della pagina a cursore per gli elenchi paginati.
 import com.example.common.dto.DocumentHistoryDTO;          // DTO utilizzato per registrare il pagamento di una fattura.
 import com.example.common.dto.InvoiceDTO;                                        // Supporto per elenchi di risultati.
 import com.example.common.dto.InvoicePaymentRequest;                                    // Gestione del risultato opzionale (fattura non garantita).
@@ -15,6 +18,10 @@ public interface InvoiceApiContract {                         // Interfaccia che
 
     List<InvoiceDTO> listInvoices();                          // Restituisce l'elenco completo delle fatture.
 
+    CursorPageDTO<InvoiceDTO> listInvoicesPage(String cursor, Integer size); // Restituisce una pagina di fatture a partire dal cursore indicato.
+
+    ChangeSetDTO<InvoiceDTO> listInvoiceChanges(Instant since); // Restituisce le fatture modificate o eliminate dopo l'istante indicato.
+
     Optional<InvoiceDTO> findById(Long id);                   // Recupera una singola fattura tramite ID, se esiste.
 
     InvoiceDTO create(InvoiceDTO invoiceDTO);                 // Crea una nuova fattura utilizzando i dati forniti nel DTO.
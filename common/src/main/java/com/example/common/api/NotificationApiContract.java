@@ -4,6 +4,7 @@ import java.time.Instant;                // DTO che rappresenta una singola noti
 import java.util.List;                                     // Timestamp utilizzato per filtrare notifiche più recenti di un istante.
 
 import com.example.common.dto.NotificationDTO;                                        // Utilizzato per restituire collezioni di notifiche.
+import com.example.common.dto.NotificationUnreadCountDTO;                             // Conteggio delle notifiche non lette.
 
 /**
  * Contratto API per la gestione delle notifiche utente.
@@ -13,9 +14,15 @@ public interface NotificationApiContract {                    // Interfaccia che
 
     List<NotificationDTO> listNotifications(                  // Restituisce l’elenco delle notifiche relative all’utente indicato.
             Long userId,                                      // Identificativo dell’utente a cui appartengono le notifiche.
-            Instant since                                      // Restituisce solo le notifiche successive a questo timestamp.
+            Instant since,                                     // Restituisce solo le notifiche successive a questo timestamp.
+            Long afterId                                       // Con since: id dell'ultima notifica ricevuta, per riprendere tra quelle con lo stesso timestamp.
     );
 
+    NotificationUnreadCountDTO unreadCount(Long userId);      // Numero di notifiche non lette dell’utente e del suo team.
+
+    NotificationUnreadCountDTO markRead(Long userId,          // Segna come lette le notifiche dell’utente e del suo team
+                                        Long upToId);         // con id fino a quello indicato; restituisce il nuovo conteggio.
+
     NotificationDTO create(NotificationDTO notification);     // Crea una nuova notifica con i dati forniti nel DTO.
 
     NotificationDTO update(Long id,                           // Aggiorna la notifica corrispondente all'ID indicato,
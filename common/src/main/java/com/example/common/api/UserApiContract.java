@@ -1,5 +1,6 @@
 package com.example.common.api; // Package che contiene i contratti API condivisi tra client e server.
 
+import com.example.common.dto.CursorPageDTO; // DTO della pagina a cursore per gli elenchi paginati.
 import com.example.common.dto.UserDTO; // DTO che rappresenta un utente applicativo.
 
 import java.util.List; // Utilizzato per restituire elenchi di utenti.
@@ -14,6 +15,8 @@ public interface UserApiContract { // Interfaccia che espone i metodi di gestion
 
     List<UserDTO> listUsers(); // Restituisce l'elenco completo degli utenti presenti nel sistema.
 
+    CursorPageDTO<UserDTO> listUsersPage(String cursor, Integer size); // Restituisce una pagina di utenti a partire dal cursore indicato.
+
     Optional<UserDTO> findById(Long id); // Recupera un utente tramite il suo identificatore.
 
     UserDTO create(UserDTO user); // Crea un nuovo utente con i dati forniti nel DTO.
@@ -0,0 +1,15 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi dell’applicazione.
+
+/**
+ * DTO con le statistiche di una cache del server: voci presenti, letture servite dalla cache e non,
+ * rapporto di successo e voci rimosse per dimensione o scadenza.
+ */
+public record CacheMetricsDTO(                                    // Record immutabile restituito dall'endpoint delle metriche.
+        String name,                                               // Nome della cache.
+        long size,                                                 // Voci attualmente presenti (stima).
+        long hits,                                                 // Letture trovate in cache.
+        long misses,                                               // Letture non trovate in cache.
+        double hitRatio,                                           // Rapporto tra letture trovate e letture totali.
+        long evictions                                             // Voci rimosse per limite di dimensione o scadenza.
+) {
+}                                                                  // Fine del record CacheMetricsDTO.
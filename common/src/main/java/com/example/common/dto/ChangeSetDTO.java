@@ -0,0 +1,87 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi tra client e server.
+
+import java.time.Instant;                                        // Istante del server a cui si riferisce la sincronizzazione.
+import java.util.ArrayList;                                      // Implementazione mutabile di lista, usata per la copia difensiva.
+import java.util.List;                                           // Interfaccia per collezioni ordinate.
+import java.util.Objects;                                        // Utility per equals(), hashCode() e confronti null-safe.
+
+/**
+ * DTO che rappresenta le modifiche di un elenco a partire da un istante di sincronizzazione:
+ * elementi creati o modificati e id degli elementi eliminati. Il client rimanda {@code syncedAt}
+ * alla richiesta successiva; se {@code full} è vero gli elementi sono l'elenco completo e
+ * sostituiscono quelli già in memoria.
+ *
+ * @param <T> tipo degli elementi dell'elenco
+ */
+public class ChangeSetDTO<T> {                                   // DTO mutabile per la sincronizzazione incrementale.
+
+    private List<T> items = new ArrayList<>();                   // Elementi creati o modificati (o elenco completo).
+    private List<Long> deletedIds = new ArrayList<>();           // Id degli elementi eliminati.
+    private Instant syncedAt;                                    // Istante da usare come "since" alla richiesta successiva.
+    private boolean full;                                        // Vero se items contiene l'elenco completo.
+
+    public ChangeSetDTO() {                                      // Costruttore vuoto richiesto dai framework di serializzazione.
+    }
+
+    public ChangeSetDTO(List<T> items, List<Long> deletedIds, Instant syncedAt, boolean full) { // Costruttore completo.
+        this.items = items != null ? new ArrayList<>(items)      // Copia difensiva per evitare modifiche esterne.
+                                   : new ArrayList<>();
+        this.deletedIds = deletedIds != null ? new ArrayList<>(deletedIds)
+                                             : new ArrayList<>();
+        this.syncedAt = syncedAt;
+        this.full = full;
+    }
+
+    public List<T> getItems() {                                  // Restituisce gli elementi creati o modificati.
+        return items;
+    }
+
+    public void setItems(List<T> items) {                        // Imposta gli elementi, applicando copia difensiva.
+        this.items = items != null ? new ArrayList<>(items)
+                                   : new ArrayList<>();
+    }
+
+    public List<Long> getDeletedIds() {                          // Restituisce gli id eliminati.
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<Long> deletedIds) {           // Imposta gli id eliminati, applicando copia difensiva.
+        this.deletedIds = deletedIds != null ? new ArrayList<>(deletedIds)
+                                             : new ArrayList<>();
+    }
+
+    public Instant getSyncedAt() {                               // Restituisce l'istante di sincronizzazione.
+        return syncedAt;
+    }
+
+    public void setSyncedAt(Instant syncedAt) {                  // Imposta l'istante di sincronizzazione.
+        this.syncedAt = syncedAt;
+    }
+
+    public boolean isFull() {                                    // Indica se gli elementi sono l'elenco completo.
+        return full;
+    }
+
+    public void setFull(boolean full) {                          // Imposta il flag di elenco completo.
+        this.full = full;
+    }
+
+    @Override
+    public boolean equals(Object o) {                            // Confronto tra due insiemi di modifiche basato sugli stessi campi.
+        if (this == o) {                                         // Stessa istanza → uguali.
+            return true;
+        }
+        if (!(o instanceof ChangeSetDTO<?> that)) {              // Se tipo diverso → non uguali.
+            return false;
+        }
+        return full == that.full                                 // Confronto dei campi principali.
+                && Objects.equals(syncedAt, that.syncedAt)
+                && Objects.equals(deletedIds, that.deletedIds)
+                && Objects.equals(items, that.items);
+    }
+
+    @Override
+    public int hashCode() {                                      // Calcolo hash coerente con equals().
+        return Objects.hash(items, deletedIds, syncedAt, full);
+    }
+}                                                                 // Fine della classe ChangeSetDTO.
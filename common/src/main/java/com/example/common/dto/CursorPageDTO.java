@@ -0,0 +1,75 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi tra client e server.
+
+import java.util.ArrayList;                                      // Implementazione mutabile di lista, usata per la copia difensiva.
+import java.util.List;                                           // Interfaccia per collezioni ordinate.
+import java.util.Objects;                                        // Utility per equals(), hashCode() e confronti null-safe.
+
+/**
+ * DTO che rappresenta una pagina di un elenco letto con paginazione a cursore (keyset).
+ * Il cursore è opaco: il client lo rimanda così com'è per ottenere la pagina successiva.
+ *
+ * @param <T> tipo degli elementi della pagina
+ */
+public class CursorPageDTO<T> {                                  // DTO mutabile per le pagine a cursore.
+
+    private List<T> items = new ArrayList<>();                   // Lista degli elementi della pagina corrente.
+    private String nextCursor;                                   // Cursore della pagina successiva, null se è l'ultima.
+    private int size;                                            // Dimensione di pagina applicata dal server.
+
+    public CursorPageDTO() {                                     // Costruttore vuoto richiesto dai framework di serializzazione.
+    }
+
+    public CursorPageDTO(List<T> items, String nextCursor, int size) { // Costruttore completo per inizializzazione manuale.
+        this.items = items != null ? new ArrayList<>(items)      // Copia difensiva per evitare modifiche esterne.
+                                   : new ArrayList<>();
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    public List<T> getItems() {                                  // Restituisce la lista degli elementi della pagina.
+        return items;
+    }
+
+    public void setItems(List<T> items) {                        // Imposta la lista degli elementi, applicando copia difensiva.
+        this.items = items != null ? new ArrayList<>(items)
+                                   : new ArrayList<>();
+    }
+
+    public String getNextCursor() {                              // Restituisce il cursore della pagina successiva.
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {               // Imposta il cursore della pagina successiva.
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {                                       // Restituisce la dimensione della pagina.
+        return size;
+    }
+
+    public void setSize(int size) {                              // Imposta la dimensione della pagina.
+        this.size = size;
+    }
+
+    public boolean hasNext() {                                   // Indica se esiste una pagina successiva.
+        return nextCursor != null && !nextCursor.isBlank();
+    }
+
+    @Override
+    public boolean equals(Object o) {                            // Confronto tra due pagine basato sugli stessi campi.
+        if (this == o) {                                         // Stessa istanza → uguali.
+            return true;
+        }
+        if (!(o instanceof CursorPageDTO<?> that)) {             // Se tipo diverso → non uguali.
+            return false;
+        }
+        return size == that.size                                 // Confronto dei campi principali.
+                && Objects.equals(nextCursor, that.nextCursor)
+                && Objects.equals(items, that.items);
+    }
+
+    @Override
+    public int hashCode() {                                      // Calcolo hash coerente con equals().
+        return Objects.hash(items, nextCursor, size);
+    }
+}                                                                 // Fine della classe CursorPageDTO.
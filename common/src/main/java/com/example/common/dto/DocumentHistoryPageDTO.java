@@ -14,6 +14,9 @@ public class DocumentHistoryPageDTO {                            // DTO mutabile
     private long totalElements;                                   // Numero totale di elementi disponibili per la query.
     private int page;                                             // Numero della pagina corrente (0-based).
     private int size;                                             // Dimensione della pagina.
+    private boolean keyset;                                       // True se la pagina è stata letta con paginazione a cursore.
+    private String nextCursor;                                    // Cursore opaco della pagina successiva (solo modalità a cursore).
+    private boolean moreAvailable;                                // True se esiste una pagina successiva (usato quando il totale non è noto).
 
     public DocumentHistoryPageDTO() {                             // Costruttore vuoto richiesto dai framework di serializzazione.
     }
@@ -29,6 +32,16 @@ public class DocumentHistoryPageDTO {                            // DTO mutabile
         this.size = size;
     }
 
+    public static DocumentHistoryPageDTO keyset(List<DocumentHistoryDTO> items,
+                                                long totalElements,
+                                                int size,
+                                                String nextCursor) { // Crea una pagina letta a cursore; totale negativo se non calcolato.
+        DocumentHistoryPageDTO page = new DocumentHistoryPageDTO(items, totalElements, 0, size);
+        page.setKeyset(true);
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+
     public List<DocumentHistoryDTO> getItems() {                  // Restituisce la lista degli elementi della pagina.
         return items;
     }
@@ -71,7 +84,43 @@ public class DocumentHistoryPageDTO {                            // DTO mutabile
         this.size = size;
     }
 
+    /**
+     * Indica se il server ha calcolato il totale: in modalità a cursore il conteggio è facoltativo.
+     *
+     * @return true se {@link #getTotalElements()} è valorizzato
+     */
+    public boolean totalKnown() {                                 // Totale negativo = conteggio non richiesto.
+        return totalElements >= 0;
+    }
+
+    public boolean isKeyset() {                                   // Restituisce la modalità di paginazione.
+        return keyset;
+    }
+
+    public void setKeyset(boolean keyset) {                       // Imposta la modalità di paginazione.
+        this.keyset = keyset;
+    }
+
+    public String getNextCursor() {                               // Restituisce il cursore della pagina successiva.
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {                // Imposta il cursore della pagina successiva.
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isMoreAvailable() {                            // Restituisce la presenza di una pagina successiva.
+        return moreAvailable;
+    }
+
+    public void setMoreAvailable(boolean moreAvailable) {         // Imposta la presenza di una pagina successiva.
+        this.moreAvailable = moreAvailable;
+    }
+
     public long getTotalPages() {                                 // Calcola il numero totale di pagine.
+        if (!totalKnown()) {                                      // Senza conteggio: pagine note finora, compresa la successiva.
+            return page + (moreAvailable ? 2L : 1L);
+        }
         if (size <= 0) {                                          // Se la size è non valida, assume una singola pagina.
             return 1;
         }
@@ -83,6 +132,12 @@ public class DocumentHistoryPageDTO {                            // DTO mutabile
     }
 
     public boolean hasNext() {                                    // Indica se esiste una pagina successiva.
+        if (keyset) {                                             // In modalità a cursore decide la presenza del cursore.
+            return nextCursor != null;
+        }
+        if (!totalKnown()) {                                      // Totale omesso: decide la riga in più letta dal server.
+            return moreAvailable;
+        }
         return page + 1 < getTotalPages();
     }
 
@@ -101,11 +156,14 @@ public class DocumentHistoryPageDTO {                            // DTO mutabile
         return page == that.page                                  // Confronto dei campi principali.
                 && size == that.size
                 && totalElements == that.totalElements
+                && keyset == that.keyset
+                && moreAvailable == that.moreAvailable
+                && Objects.equals(nextCursor, that.nextCursor)
                 && Objects.equals(items, that.items);
     }
 
     @Override
     public int hashCode() {                                       // Calcolo hash coerente con equals().
-        return Objects.hash(items, totalElements, page, size);
+        return Objects.hash(items, totalElements, page, size, keyset, nextCursor, moreAvailable);
     }
 }                                                                  // Fine della classe DocumentHistoryPageDTO.
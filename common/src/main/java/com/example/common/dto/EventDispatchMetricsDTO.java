@@ -0,0 +1,14 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi dell’applicazione.
+
+/**
+ * DTO con i contatori della consegna asincrona degli eventi ai listener locali (long polling, stream SSE):
+ * eventi consegnati, scartati per coda piena, falliti, in attesa e listener che non tengono il passo.
+ */
+public record EventDispatchMetricsDTO(                            // Record immutabile restituito dall'endpoint delle metriche.
+        long delivered,                                            // Eventi consegnati ai listener.
+        long dropped,                                              // Eventi scartati perché la coda del listener era piena.
+        long failed,                                               // Eventi il cui listener ha sollevato un'eccezione.
+        long queued,                                               // Eventi accodati e non ancora consegnati.
+        long saturatedListeners                                    // Listener che hanno scartato almeno un evento.
+) {
+}                                                                  // Fine del record EventDispatchMetricsDTO.
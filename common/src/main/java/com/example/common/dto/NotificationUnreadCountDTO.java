@@ -0,0 +1,11 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi dell’applicazione.
+
+/**
+ * DTO con il numero di notifiche non lette di un utente, comprese quelle del suo team.
+ * Permette al client di aggiornare il contatore senza scaricare l'elenco delle notifiche.
+ */
+public record NotificationUnreadCountDTO(                         // Record immutabile restituito dall'endpoint di conteggio.
+        Long userId,                                               // Utente a cui si riferisce il conteggio.
+        long unread                                                // Notifiche non lette dell'utente e del suo team.
+) {
+}                                                                  // Fine del record NotificationUnreadCountDTO.
@@ -0,0 +1,12 @@
+package com.example.common.dto;                                   // Package che contiene i DTO condivisi dell’applicazione.
+
+/**
+ * DTO con le sottoscrizioni attive di un publisher del server: chiavi con almeno un listener (utenti, team o
+ * conversazioni) e listener registrati.
+ */
+public record SubscriptionMetricsDTO(                             // Record immutabile restituito dall'endpoint delle metriche.
+        String name,                                               // Nome del publisher.
+        long topics,                                               // Chiavi con almeno un listener attivo.
+        long subscriptions                                         // Listener registrati in totale.
+) {
+}                                                                  // Fine del record SubscriptionMetricsDTO.
@@ -42,6 +42,37 @@ class DocumentHistoryPageDTOTest { // Classe di test JUnit 5.
         assertThat(page.getItems()).isEmpty(); // Conferma comportamento corretto.
     }
 
+    @Test
+    void keysetPageShouldRelyOnCursorInsteadOfTotal() { // Verifica la pagina letta a cursore.
+        DocumentHistoryDTO history = new DocumentHistoryDTO();
+        history.setId(7L);
+
+        DocumentHistoryPageDTO withNext = DocumentHistoryPageDTO.keyset(List.of(history), -1, 1, "abc");
+        DocumentHistoryPageDTO last = DocumentHistoryPageDTO.keyset(List.of(history), 10, 1, null);
+
+        assertThat(withNext.hasNext()).isTrue(); // Il cursore indica un seguito anche senza totale.
+        assertThat(withNext.totalKnown()).isFalse(); // Totale non calcolato.
+        assertThat(last.hasNext()).isFalse(); // Senza cursore è l'ultima pagina, qualunque sia il totale.
+        assertThat(last.totalKnown()).isTrue();
+        assertThat(withNext).isNotEqualTo(DocumentHistoryPageDTO.keyset(List.of(history), -1, 1, "def"));
+    }
+
+    @Test
+    void numberedPageWithoutTotalShouldRelyOnMoreAvailable() { // Verifica la pagina numerata senza conteggio.
+        DocumentHistoryDTO history = new DocumentHistoryDTO();
+        history.setId(3L);
+
+        DocumentHistoryPageDTO middle = new DocumentHistoryPageDTO(List.of(history), -1, 4, 1);
+        middle.setMoreAvailable(true);
+        DocumentHistoryPageDTO last = new DocumentHistoryPageDTO(List.of(history), -1, 5, 1);
+
+        assertThat(middle.hasNext()).isTrue(); // Il server ha letto una riga oltre la pagina.
+        assertThat(middle.getTotalPages()).isEqualTo(6); // Pagine note finora, compresa la successiva.
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.hasPrevious()).isTrue();
+        assertThat(middle).isNotEqualTo(new DocumentHistoryPageDTO(List.of(history), -1, 4, 1));
+    }
+
     @Test
     void equalsShouldConsiderPaginationFields() { // Verifica equals/hashCode nella DTO.
         DocumentHistoryDTO history = new DocumentHistoryDTO();
@@ -0,0 +1,86 @@
+package com.example.server.service.broker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Subscribe/cancel/publish sul registro dei listener con più thread in concorrenza.
+ * Esecuzione, dopo {@code mvn install -DskipTests}: {@code mvn -pl server -Pbenchmark test-compile exec:exec}
+ * (argomenti JMH con {@code -Djmh.args="SubscriberRegistryBenchmark -p topics=16"}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class SubscriberRegistryBenchmark {
+
+    @Param({"16", "4096"})
+    int topics;
+
+    private SubscriberRegistry<Integer, Consumer<Object>> registry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SubscriberRegistry<>();
+        for (int topic = 0; topic < topics; topic++) {
+            for (int i = 0; i < 4; i++) {
+                registry.add(topic, newListener());
+            }
+        }
+    }
+
+    @Benchmark
+    public void subscribeAndCancel() {
+        int topic = ThreadLocalRandom.current().nextInt(topics * 2);
+        Consumer<Object> listener = newListener();
+        registry.add(topic, listener);
+        registry.remove(topic, listener);
+    }
+
+    @Benchmark
+    public void publish(Blackhole blackhole) {
+        registry.forEach(ThreadLocalRandom.current().nextInt(topics), blackhole::consume);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void mixed(Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int topic = random.nextInt(topics);
+        if (random.nextInt(10) == 0) {
+            Consumer<Object> listener = newListener();
+            registry.add(topic, listener);
+            registry.remove(topic, listener);
+        } else {
+            registry.forEach(topic, blackhole::consume);
+        }
+    }
+
+    // Una lambda che non cattura nulla sarebbe un'unica istanza condivisa: ogni chiamata deve produrre un listener distinto.
+    private static Consumer<Object> newListener() {
+        return new Consumer<>() {
+            @Override
+            public void accept(Object event) {
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.server.config; // Dichiara il package delle configurazioni applicative.
+
+import com.github.benmanes.caffeine.cache.Caffeine; // Importa il builder delle cache Caffeine.
+import org.springframework.boot.context.properties.EnableConfigurationProperties; // Importa l'annotazione per attivare le properties.
+import org.springframework.cache.CacheManager; // Importa l'astrazione del gestore delle cache.
+import org.springframework.cache.caffeine.CaffeineCacheManager; // Importa il gestore basato su Caffeine.
+import org.springframework.context.annotation.Bean; // Importa l'annotazione per esporre un bean Spring.
+import org.springframework.context.annotation.Configuration; // Importa l'annotazione che marca una classe di configurazione.
+
+import java.util.Arrays; // Importa l'utilità per scorrere le opzioni della specifica.
+
+/**
+ * Gestore delle cache applicative basato su Caffeine: ogni cache ha dimensione massima e scadenza proprie,
+ * lette da {@code app.cache.specs[nome]}, e registra le statistiche di accesso esposte da {@code /api/metrics/caches}.
+ * Le cache senza specifica usano {@code app.cache.default-spec}. L'opzione {@code recordStats} nella specifica è
+ * ammessa ma superflua, perché le statistiche vengono sempre attivate.
+ */
+@Configuration // Indica che questa classe fornisce definizioni di bean Spring.
+@EnableConfigurationProperties(CacheSettingsProperties.class) // Abilita il binding delle specifiche delle cache.
+public class CacheConfiguration { // Configura il provider delle cache.
+
+    @Bean // Sostituisce il gestore predefinito senza limiti.
+    public CacheManager cacheManager(CacheSettingsProperties properties) { // Crea il gestore a partire dalle proprietà.
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(); // Le cache non elencate vengono create al primo uso.
+        cacheManager.setCaffeine(withStats(properties.getDefaultSpec())); // Limiti predefiniti con statistiche.
+        properties.getSpecs().forEach((name, spec) -> cacheManager.registerCustomCache(name, // Cache con limiti propri.
+                withStats(spec).build())); // Le statistiche restano attive qualunque sia la specifica.
+        return cacheManager; // Restituisce il gestore configurato.
+    }
+
+    static Caffeine<Object, Object> withStats(String spec) { // Builder della specifica con le statistiche attive.
+        Caffeine<Object, Object> builder = Caffeine.from(spec); // Interpreta dimensione, scadenza e le altre opzioni.
+        boolean recorded = Arrays.stream(spec.split(",")) // Opzioni separate da virgola, come in CaffeineSpec.
+                .anyMatch(option -> option.trim().equals("recordStats")); // Già attivate dalla specifica.
+        return recorded ? builder : builder.recordStats(); // Caffeine rifiuta una seconda attivazione.
+    }
+} // Chiude la definizione della classe di configurazione.
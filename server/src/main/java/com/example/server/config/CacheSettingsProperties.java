@@ -0,0 +1,37 @@
+package com.example.server.config; // Dichiara il package delle configurazioni applicative.
+
+import org.springframework.boot.context.properties.ConfigurationProperties; // Importa il supporto per mappare proprietà esterne in un oggetto.
+
+import java.util.LinkedHashMap; // Importa la mappa che conserva l'ordine delle cache configurate.
+import java.util.Map; // Importa l'interfaccia delle specifiche per nome di cache.
+
+@ConfigurationProperties(prefix = "app.cache") // Collega le proprietà con prefisso "app.cache" a questo bean.
+public class CacheSettingsProperties { // Dimensioni e scadenze delle cache applicative.
+
+    /**
+     * Caffeine specification applied to caches without an entry in {@link #specs},
+     * for example {@code maximumSize=1000,expireAfterWrite=10m}.
+     */
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m"; // Specifica usata per le cache non elencate.
+
+    /**
+     * Caffeine specification of each named cache, set as {@code app.cache.specs[cacheName]=...}.
+     */
+    private Map<String, String> specs = new LinkedHashMap<>(); // Specifica per nome di cache.
+
+    public String getDefaultSpec() { // Restituisce la specifica predefinita.
+        return defaultSpec; // Ritorna il valore configurato.
+    }
+
+    public void setDefaultSpec(String defaultSpec) { // Imposta la specifica predefinita.
+        this.defaultSpec = defaultSpec; // Memorizza il valore ricevuto.
+    }
+
+    public Map<String, String> getSpecs() { // Restituisce le specifiche per nome di cache.
+        return specs; // Ritorna la mappa configurata.
+    }
+
+    public void setSpecs(Map<String, String> specs) { // Imposta le specifiche per nome di cache.
+        this.specs = specs == null ? new LinkedHashMap<>() : specs; // Usa una mappa vuota se il valore è nullo.
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.server.config; // Dichiara il package delle configurazioni applicative.
+
+import com.example.server.controller.ConditionalGet; // Annotazione degli endpoint con ETag.
+import com.example.server.service.TableVersionService; // Versioni delle tabelle da cui calcolare gli ETag.
+import jakarta.servlet.http.HttpServletRequest; // Richiesta HTTP in ingresso.
+import jakarta.servlet.http.HttpServletResponse; // Risposta HTTP in uscita.
+import org.springframework.http.HttpHeaders; // Nomi standard degli header HTTP.
+import org.springframework.http.HttpMethod; // Metodi HTTP.
+import org.springframework.web.context.request.ServletWebRequest; // Supporto Spring alle richieste condizionali.
+import org.springframework.web.method.HandlerMethod; // Metodo del controller che gestisce la richiesta.
+import org.springframework.web.servlet.HandlerInterceptor; // Intercettore delle richieste MVC.
+
+import java.util.List; // Lista delle tabelle dell'endpoint.
+
+/**
+ * Risponde alle GET annotate con {@link ConditionalGet} confrontando {@code If-None-Match} con l'ETag calcolato
+ * dalle versioni delle tabelle: se coincide restituisce 304 senza invocare il controller, altrimenti aggiunge
+ * l'ETag alla risposta. Il confronto avviene prima di leggere o serializzare qualsiasi dato.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor { // Intercettore delle GET condizionali.
+
+    private final TableVersionService tableVersionService; // Versioni correnti delle tabelle.
+
+    public ConditionalGetInterceptor(TableVersionService tableVersionService) { // Costruttore con le versioni delle tabelle.
+        this.tableVersionService = tableVersionService; // Assegna il servizio delle versioni.
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) { // Prima del controller.
+        if (!(handler instanceof HandlerMethod handlerMethod) || !HttpMethod.GET.matches(request.getMethod())) { // Solo GET verso controller.
+            return true; // Prosegue senza ETag.
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class); // Tabelle dell'endpoint.
+        if (conditionalGet == null) { // Endpoint senza GET condizionale.
+            return true; // Prosegue senza ETag.
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache"); // Il client deve sempre rivalidare la copia.
+        String etag = tableVersionService.etag(List.of(conditionalGet.value())); // ETag delle versioni correnti.
+        return !new ServletWebRequest(request, response).checkNotModified(etag); // Imposta ETag o 304 e interrompe se invariato.
+    }
+} // Chiude la definizione dell'intercettore.
@@ -0,0 +1,32 @@
+package com.example.server.config; // Dichiara il package delle configurazioni applicative.
+
+import com.example.server.service.TableVersionService; // Versioni delle tabelle per gli ETag.
+import org.springframework.context.annotation.Bean; // Importa l'annotazione per esporre un bean Spring.
+import org.springframework.context.annotation.Configuration; // Importa l'annotazione che marca una classe di configurazione.
+import org.springframework.data.relational.core.mapping.RelationalMappingContext; // Metadati di mapping delle entità.
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry; // Registro degli intercettori MVC.
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer; // Personalizzazione di Spring MVC.
+
+/**
+ * Configurazione MVC: registra l'intercettore delle GET condizionali sulle API. Il servizio delle versioni è
+ * dichiarato qui perché anche i test del solo livello web caricano questa configurazione.
+ */
+@Configuration // Indica che questa classe fornisce definizioni di bean Spring.
+public class WebConfiguration implements WebMvcConfigurer { // Personalizza la configurazione MVC.
+
+    private final TableVersionService tableVersionService; // Versioni delle tabelle usate dall'intercettore.
+
+    public WebConfiguration(TableVersionService tableVersionService) { // Costruttore con il servizio delle versioni.
+        this.tableVersionService = tableVersionService; // Assegna il servizio delle versioni.
+    }
+
+    @Bean // Espone le versioni delle tabelle ai servizi che scrivono con JdbcTemplate.
+    public static TableVersionService tableVersionService(RelationalMappingContext mappingContext) { // Crea il servizio delle versioni.
+        return new TableVersionService(mappingContext); // Versioni alimentate dagli eventi di Spring Data JDBC.
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) { // Registra gli intercettori MVC.
+        registry.addInterceptor(new ConditionalGetInterceptor(tableVersionService)).addPathPatterns("/api/**"); // GET condizionali sulle API.
+    }
+} // Chiude la definizione della classe di configurazione.
@@ -2,6 +2,7 @@ package com.example.server.controller; // Package del controller
 
 import com.example.common.api.AgentApiContract; // Import delle dipendenze necessarie
 import com.example.common.dto.AgentDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.CursorPageDTO; // Import delle dipendenze necessarie
 import com.example.server.service.AgentService; // Import delle dipendenze necessarie
 import org.springframework.http.HttpStatus; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.DeleteMapping; // Import delle dipendenze necessarie
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.PostMapping; // Import delle dipe
 import org.springframework.web.bind.annotation.PutMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestBody; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
 import org.springframework.web.server.ResponseStatusException; // Import delle dipendenze necessarie
 
@@ -29,10 +31,23 @@ public class AgentController implements AgentApiContract { // Dichiarazione dell
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"agents"}) // Risposta 304 se le tabelle non sono cambiate
     public List<AgentDTO> listAgents() { // Inizio di un metodo esposto dal controller
         return agentService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
+    @Override // Sovrascrive un metodo dell interfaccia
+    @GetMapping("/page") // Mapping per una richiesta GET paginata a cursore
+    @ConditionalGet({"agents"}) // Risposta 304 se le tabelle non sono cambiate
+    public CursorPageDTO<AgentDTO> listAgentsPage(@RequestParam(value = "cursor", required = false) String cursor, // Cursore opaco della pagina precedente
+                                                  @RequestParam(value = "size", required = false) Integer size) { // Dimensione di pagina richiesta
+        try { // Istruzione di gestione del controller
+            return agentService.findPage(cursor, size); // Restituisce il risultato dell operazione
+        } catch (IllegalArgumentException ex) { // Cursore o dimensione non validi
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/{id}") // Mapping per una richiesta GET
     public Optional<AgentDTO> findById(@PathVariable Long id) { // Inizio di un metodo esposto dal controller
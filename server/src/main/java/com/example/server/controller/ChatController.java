@@ -47,9 +47,10 @@ public class ChatController implements ChatApiContract { // Dichiarazione della
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/poll") // Mapping per una richiesta GET
     public DeferredResult<List<ChatMessageDTO>> poll(@RequestParam("userId") Long userId, // Firma di un metodo del controller
-                                                    @RequestParam("conversationId") String conversationId) { // Istruzione di gestione del controller
+                                                    @RequestParam("conversationId") String conversationId, // Istruzione di gestione del controller
+                                                    @RequestParam(value = "afterId", required = false) Long afterId) { // Cursore dell'ultimo messaggio ricevuto
         DeferredResult<List<ChatMessageDTO>> deferredResult = new DeferredResult<>(30_000L); // Istruzione di gestione del controller
-        chatService.registerConversationListener(userId, conversationId, deferredResult); // Istruzione di gestione del controller
+        chatService.registerConversationListener(userId, conversationId, afterId, deferredResult); // Istruzione di gestione del controller
         return deferredResult; // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
@@ -29,6 +29,7 @@ public class CommissionController implements CommissionApiContract { // Dichiara
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"commissions"}) // Risposta 304 se le tabelle non sono cambiate
     public List<CommissionDTO> listCommissions() { // Inizio di un metodo esposto dal controller
         return commissionService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
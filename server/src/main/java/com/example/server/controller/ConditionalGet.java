@@ -0,0 +1,20 @@
+package com.example.server.controller; // Package dei controller
+
+import java.lang.annotation.Documented; // Include l'annotazione nella documentazione generata
+import java.lang.annotation.ElementType; // Tipi di elemento annotabili
+import java.lang.annotation.Retention; // Politica di conservazione dell'annotazione
+import java.lang.annotation.RetentionPolicy; // Conservazione a runtime
+import java.lang.annotation.Target; // Elementi su cui applicare l'annotazione
+
+/**
+ * Abilita le GET condizionali su un endpoint: la risposta riceve un ETag calcolato dalle versioni delle tabelle
+ * indicate e una richiesta con {@code If-None-Match} corrispondente riceve 304 senza eseguire il metodo.
+ * Le tabelle devono coprire tutti i dati letti dall'endpoint, comprese quelle in join.
+ */
+@Documented // Visibile nella documentazione del metodo
+@Target(ElementType.METHOD) // Applicabile ai metodi dei controller
+@Retention(RetentionPolicy.RUNTIME) // Letta dall'interceptor a runtime
+public @interface ConditionalGet { // Annotazione delle GET con ETag
+
+    String[] value(); // Tabelle da cui dipende la risposta
+} // Fine dell'annotazione ConditionalGet
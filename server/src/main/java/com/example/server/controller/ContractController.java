@@ -2,6 +2,7 @@ package com.example.server.controller; // Package del controller
 
 import com.example.common.api.ContractApiContract; // Import delle dipendenze necessarie
 import com.example.common.dto.ContractDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.CursorPageDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.DocumentHistoryDTO; // Import delle dipendenze necessarie
 import com.example.server.service.ContractService; // Import delle dipendenze necessarie
 import org.springframework.http.HttpStatus; // Import delle dipendenze necessarie
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.PostMapping; // Import delle dipe
 import org.springframework.web.bind.annotation.PutMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestBody; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
 import org.springframework.web.server.ResponseStatusException; // Import delle dipendenze necessarie
 
@@ -30,10 +32,23 @@ public class ContractController implements ContractApiContract { // Dichiarazion
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"contracts"}) // Risposta 304 se le tabelle non sono cambiate
     public List<ContractDTO> listContracts() { // Inizio di un metodo esposto dal controller
         return contractService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
+    @Override // Sovrascrive un metodo dell interfaccia
+    @GetMapping("/page") // Mapping per una richiesta GET paginata a cursore
+    @ConditionalGet({"contracts"}) // Risposta 304 se le tabelle non sono cambiate
+    public CursorPageDTO<ContractDTO> listContractsPage(@RequestParam(value = "cursor", required = false) String cursor, // Cursore opaco della pagina precedente
+                                                        @RequestParam(value = "size", required = false) Integer size) { // Dimensione di pagina richiesta
+        try { // Istruzione di gestione del controller
+            return contractService.findPage(cursor, size); // Restituisce il risultato dell operazione
+        } catch (IllegalArgumentException ex) { // Cursore o dimensione non validi
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/{id}") // Mapping per una richiesta GET
     public Optional<ContractDTO> findById(@PathVariable Long id) { // Inizio di un metodo esposto dal controller
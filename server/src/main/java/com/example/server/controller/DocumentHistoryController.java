@@ -6,28 +6,43 @@ import com.example.common.enums.DocumentAction; // Import delle dipendenze neces
 import com.example.common.enums.DocumentType; // Import delle dipendenze necessarie
 import com.example.server.service.DocumentHistoryQuery; // Import delle dipendenze necessarie
 import com.example.server.service.DocumentHistoryService; // Import delle dipendenze necessarie
+import com.example.server.service.KeysetPagination; // Import delle dipendenze necessarie
+import jakarta.servlet.http.HttpServletRequest; // Import delle dipendenze necessarie
+import org.springframework.beans.factory.annotation.Value; // Import delle dipendenze necessarie
 import org.springframework.format.annotation.DateTimeFormat; // Import delle dipendenze necessarie
 import org.springframework.http.HttpHeaders; // Import delle dipendenze necessarie
+import org.springframework.http.HttpStatus; // Import delle dipendenze necessarie
 import org.springframework.http.MediaType; // Import delle dipendenze necessarie
 import org.springframework.http.ResponseEntity; // Import delle dipendenze necessarie
 import org.springframework.util.StringUtils; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.GetMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestHeader; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
+import org.springframework.web.server.ResponseStatusException; // Import delle dipendenze necessarie
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody; // Import delle dipendenze necessarie
 
+import java.time.Duration; // Import delle dipendenze necessarie
 import java.time.OffsetDateTime; // Import delle dipendenze necessarie
 import java.util.Collections; // Import delle dipendenze necessarie
 import java.util.List; // Import delle dipendenze necessarie
+import java.util.Locale; // Import delle dipendenze necessarie
+import java.util.zip.GZIPOutputStream; // Import delle dipendenze necessarie
 
 @RestController // Contrassegna la classe come controller REST
 @RequestMapping("/api/history") // Imposta il percorso base degli endpoint
 public class DocumentHistoryController implements DocumentHistoryApiContract { // Dichiarazione della classe controller
 
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024; // Dimensione del buffer di compressione dell export
+
     private final DocumentHistoryService documentHistoryService; // Definizione di una dipendenza iniettata
+    private final Duration streamTimeout; // Timeout dell export in streaming
 
-    public DocumentHistoryController(DocumentHistoryService documentHistoryService) { // Inizio di un metodo esposto dal controller
+    public DocumentHistoryController(DocumentHistoryService documentHistoryService, // Inizio di un metodo esposto dal controller
+                                     @Value("${app.downloads.stream-timeout:10m}") Duration streamTimeout) { // Timeout degli scaricamenti in streaming
         this.documentHistoryService = documentHistoryService; // Inizializza il campo del controller
+        this.streamTimeout = streamTimeout; // Inizializza il campo del controller
     } // Istruzione di gestione del controller
 
     @Override // Sovrascrive un metodo dell interfaccia
@@ -41,9 +56,23 @@ public class DocumentHistoryController implements DocumentHistoryApiContract { /
                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to, // Istruzione di gestione del controller
                                          @RequestParam(value = "q", required = false) String search, // Istruzione di gestione del controller
                                          @RequestParam(value = "page", defaultValue = "0") int page, // Istruzione di gestione del controller
-                                         @RequestParam(value = "size", defaultValue = "25") int size) { // Istruzione di gestione del controller
-        DocumentHistoryQuery query = buildQuery(documentType, documentId, actions, from, to, search, page, size); // Istruzione di gestione del controller
-        return documentHistoryService.search(query); // Restituisce il risultato dell operazione
+                                         @RequestParam(value = "size", defaultValue = "25") int size, // Istruzione di gestione del controller
+                                         @RequestParam(value = "keyset", defaultValue = "false") boolean keyset, // Paginazione a cursore
+                                         @RequestParam(value = "cursor", required = false) String cursor, // Cursore della pagina precedente
+                                         @RequestParam(value = "count", required = false) Boolean count) { // Richiesta del totale
+        boolean seek = keyset || StringUtils.hasText(cursor); // Un cursore implica la modalità a cursore
+        DocumentHistoryQuery.Builder builder = DocumentHistoryQuery.from(buildQuery(documentType, documentId, actions, from, to, search, page, size)) // Istruzione di gestione del controller
+                .keyset(seek) // Imposta la modalità di paginazione
+                .includeTotal(count != null ? count : !seek); // A cursore il conteggio si calcola solo su richiesta
+        if (StringUtils.hasText(cursor)) { // Riparte dall'ultima voce restituita
+            try { // Istruzione di gestione del controller
+                KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Decodifica il cursore opaco
+                builder.after(position.instantKey(), position.id()); // Imposta la posizione (created_at, id)
+            } catch (IllegalArgumentException ex) { // Cursore non valido
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex); // Genera un eccezione HTTP
+            } // Istruzione di gestione del controller
+        } // Istruzione di gestione del controller
+        return documentHistoryService.search(builder.build()); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
     @Override // Sovrascrive un metodo dell interfaccia
@@ -65,6 +94,40 @@ public class DocumentHistoryController implements DocumentHistoryApiContract { /
                 .body(csv); // Istruzione di gestione del controller
     } // Istruzione di gestione del controller
 
+    @GetMapping("/export/stream") // Variante in streaming dell export CSV
+    public ResponseEntity<StreamingResponseBody> streamExport(@RequestParam(value = "documentType", required = false) DocumentType documentType, // Firma del metodo di streaming
+                                                              @RequestParam(value = "documentId", required = false) Long documentId, // Documento opzionale
+                                                              @RequestParam(value = "actions", required = false) List<DocumentAction> actions, // Azioni opzionali
+                                                              @RequestParam(value = "from", required = false) // Data iniziale opzionale
+                                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from, // Istruzione di gestione del controller
+                                                              @RequestParam(value = "to", required = false) // Data finale opzionale
+                                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to, // Istruzione di gestione del controller
+                                                              @RequestParam(value = "q", required = false) String search, // Testo libero opzionale
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding, // Codifiche accettate dal client
+                                                              HttpServletRequest request) { // Richiesta corrente
+        StreamingTimeout.apply(request, streamTimeout); // L export completo può richiedere più del timeout asincrono predefinito
+        DocumentHistoryQuery query = buildQuery(documentType, documentId, actions, from, to, search, 0, 0); // Stessi filtri dell export in memoria
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip"); // Compressione solo se accettata
+        StreamingResponseBody body = outputStream -> { // Scrive il CSV direttamente sullo stream della risposta
+            if (!gzip) { // Nessuna compressione richiesta
+                documentHistoryService.writeCsv(query, outputStream); // Righe lette dal cursore e scritte a blocchi
+                return; // Istruzione di gestione del controller
+            } // Istruzione di gestione del controller
+            GZIPOutputStream compressed = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE); // Comprime i blocchi man mano
+            documentHistoryService.writeCsv(query, compressed); // Righe lette dal cursore e compresse a blocchi
+            compressed.finish(); // Chiude il formato gzip senza chiudere lo stream della risposta
+        }; // Istruzione di gestione del controller
+        String filename = "document-history-" + System.currentTimeMillis() + ".csv"; // Nome file suggerito al client
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok() // Restituisce la risposta senza bufferizzare il file
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename) // Intestazione di download
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING) // Il corpo dipende dalla codifica accettata
+                .contentType(MediaType.valueOf("text/csv;charset=UTF-8")); // Tipo di contenuto CSV
+        if (gzip) { // Corpo compresso
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip"); // Indica la codifica applicata
+        } // Istruzione di gestione del controller
+        return response.body(body); // Corpo prodotto in modo incrementale
+    } // Istruzione di gestione del controller
+
     private DocumentHistoryQuery buildQuery(DocumentType documentType, // Istruzione di gestione del controller
                                             Long documentId, // Lettura di un identificativo o valore numerico
                                             List<DocumentAction> actions, // Gestione di una lista di valori
@@ -1,10 +1,13 @@
 package com.example.server.controller; // Package del controller
 
 import com.example.common.api.InvoiceApiContract; // Import delle dipendenze necessarie
+import com.example.common.dto.ChangeSetDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.CursorPageDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.DocumentHistoryDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.InvoiceDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.InvoicePaymentRequest; // Import delle dipendenze necessarie
 import com.example.server.service.InvoiceService; // Import delle dipendenze necessarie
+import org.springframework.format.annotation.DateTimeFormat; // Import delle dipendenze necessarie
 import org.springframework.http.HttpStatus; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.DeleteMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.GetMapping; // Import delle dipendenze necessarie
@@ -13,9 +16,11 @@ import org.springframework.web.bind.annotation.PostMapping; // Import delle dipe
 import org.springframework.web.bind.annotation.PutMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestBody; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
 import org.springframework.web.server.ResponseStatusException; // Import delle dipendenze necessarie
 
+import java.time.Instant; // Import delle dipendenze necessarie
 import java.util.List; // Import delle dipendenze necessarie
 import java.util.Optional; // Import delle dipendenze necessarie
 
@@ -31,10 +36,31 @@ public class InvoiceController implements InvoiceApiContract { // Dichiarazione
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"invoices", "invoice_lines"}) // Risposta 304 se le tabelle non sono cambiate
     public List<InvoiceDTO> listInvoices() { // Inizio di un metodo esposto dal controller
         return invoiceService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
+    @Override // Sovrascrive un metodo dell interfaccia
+    @GetMapping("/page") // Mapping per una richiesta GET paginata a cursore
+    @ConditionalGet({"invoices", "invoice_lines"}) // Risposta 304 se le tabelle non sono cambiate
+    public CursorPageDTO<InvoiceDTO> listInvoicesPage(@RequestParam(value = "cursor", required = false) String cursor, // Cursore opaco della pagina precedente
+                                                      @RequestParam(value = "size", required = false) Integer size) { // Dimensione di pagina richiesta
+        try { // Istruzione di gestione del controller
+            return invoiceService.findPage(cursor, size); // Restituisce il risultato dell operazione
+        } catch (IllegalArgumentException ex) { // Cursore o dimensione non validi
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+
+    @Override // Sovrascrive un metodo dell interfaccia
+    @GetMapping("/changes") // Mapping per la sincronizzazione incrementale
+    public ChangeSetDTO<InvoiceDTO> listInvoiceChanges(@RequestParam(value = "since", required = false) // Istante restituito dalla sincronizzazione precedente
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) // Formato ISO-8601
+                                                       Instant since) { // Inizio di un metodo esposto dal controller
+        return invoiceService.findChanges(since); // Restituisce il risultato dell operazione
+    } // Istruzione di gestione del controller
+
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/{id}") // Mapping per una richiesta GET
     public Optional<InvoiceDTO> findById(@PathVariable Long id) { // Inizio di un metodo esposto dal controller
@@ -37,6 +37,11 @@ public class InvoiceLineController implements InvoiceLineApiContract { // Dichia
         return invoiceLineService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
+    @GetMapping(params = "invoiceIds") // Mapping per le righe di più fatture in una sola richiesta
+    public List<InvoiceLineDTO> listInvoiceLinesForInvoices(@RequestParam("invoiceIds") List<Long> invoiceIds) { // Inizio di un metodo esposto dal controller
+        return invoiceLineService.findByInvoiceIds(invoiceIds); // Restituisce le righe caricate con query batch
+    } // Istruzione di gestione del controller
+
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/{id}") // Mapping per una richiesta GET
     public Optional<InvoiceLineDTO> findById(@PathVariable Long id) { // Inizio di un metodo esposto dal controller
@@ -0,0 +1,41 @@
+package com.example.server.controller; // Package del controller
+
+import com.example.common.dto.CacheMetricsDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.EventDispatchMetricsDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.SubscriptionMetricsDTO; // Import delle dipendenze necessarie
+import com.example.server.service.CacheMetricsService; // Import delle dipendenze necessarie
+import com.example.server.service.EventMetricsService; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.GetMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
+
+import java.util.List; // Import per l'elenco delle statistiche
+
+@RestController // Contrassegna la classe come controller REST
+@RequestMapping("/api/metrics") // Imposta il percorso base degli endpoint
+public class MetricsController { // Dichiarazione della classe controller
+
+    private final CacheMetricsService cacheMetricsService; // Servizio che legge le statistiche delle cache
+    private final EventMetricsService eventMetricsService; // Servizio che legge i contatori della consegna degli eventi
+
+    public MetricsController(CacheMetricsService cacheMetricsService,
+                             EventMetricsService eventMetricsService) { // Costruttore con dependency injection
+        this.cacheMetricsService = cacheMetricsService; // Inizializza il campo del controller
+        this.eventMetricsService = eventMetricsService; // Inizializza il campo del controller
+    } // Istruzione di gestione del controller
+
+    @GetMapping("/caches") // Mapping per una richiesta GET
+    public List<CacheMetricsDTO> caches() { // Dimensione, letture e rapporto di successo di ogni cache
+        return cacheMetricsService.caches(); // Restituisce il risultato dell operazione
+    } // Istruzione di gestione del controller
+
+    @GetMapping("/events") // Mapping per una richiesta GET
+    public EventDispatchMetricsDTO events() { // Eventi consegnati, scartati, falliti e in coda verso i listener locali
+        return eventMetricsService.dispatch(); // Restituisce il risultato dell operazione
+    } // Istruzione di gestione del controller
+
+    @GetMapping("/subscriptions") // Mapping per una richiesta GET
+    public List<SubscriptionMetricsDTO> subscriptions() { // Chiavi e listener attivi di notifiche e chat su questa istanza
+        return eventMetricsService.subscriptions(); // Restituisce il risultato dell operazione
+    } // Istruzione di gestione del controller
+} // Istruzione di gestione del controller
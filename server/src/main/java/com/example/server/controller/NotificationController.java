@@ -3,6 +3,7 @@ package com.example.server.controller; // Package del controller
 import com.example.common.api.NotificationApiContract; // Import delle dipendenze necessarie
 import com.example.common.dto.NotificationDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.NotificationSubscriptionDTO; // Import delle dipendenze necessarie
+import com.example.common.dto.NotificationUnreadCountDTO; // Import delle dipendenze necessarie
 import com.example.server.dto.NotificationSubscribeRequest; // Import delle dipendenze necessarie
 import com.example.server.service.NotificationService; // Import delle dipendenze necessarie
 import jakarta.validation.Valid; // Import delle dipendenze necessarie
@@ -13,10 +14,13 @@ import org.springframework.web.bind.annotation.PathVariable; // Import delle dip
 import org.springframework.web.bind.annotation.PostMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.PutMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestBody; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.RequestHeader; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
 import org.springframework.web.context.request.async.DeferredResult; // Import delle dipendenze necessarie
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // Import delle dipendenze necessarie
+import org.springframework.http.MediaType; // Import delle dipendenze necessarie
 import org.springframework.http.HttpStatus; // Import delle dipendenze necessarie
 import org.springframework.web.server.ResponseStatusException; // Import delle dipendenze necessarie
 
@@ -33,13 +37,41 @@ public class NotificationController implements NotificationApiContract { // Dich
         this.notificationService = notificationService; // Inizializza il campo del controller
     } // Istruzione di gestione del controller
 
+    /**
+     * Al massimo 200 notifiche. Senza {@code afterId} sono ordinate dalla più recente, anche con {@code since}:
+     * una risposta di 200 elementi può essere troncata. Con {@code since} e {@code afterId} (0 per partire da
+     * {@code since} incluso) sono ordinate per {@code createdAt} e {@code id} crescenti: si ripete la richiesta con
+     * {@code createdAt} e {@code id} dell'ultima ricevuta finché la risposta non ha meno di 200 elementi.
+     */
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
     public List<NotificationDTO> listNotifications(@RequestParam("userId") Long userId, // Firma di un metodo del controller
                                                    @RequestParam(value = "since", required = false) // Istruzione di gestione del controller
                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) // Istruzione di gestione del controller
-                                                   Instant since) { // Istruzione di gestione del controller
-        return notificationService.findNotifications(userId, since); // Restituisce il risultato dell operazione
+                                                   Instant since, // Istruzione di gestione del controller
+                                                   @RequestParam(value = "afterId", required = false) Long afterId) { // Id dell'ultima notifica ricevuta con createdAt uguale a since
+        return notificationService.findNotifications(userId, since, afterId); // Restituisce il risultato dell operazione
+    } // Istruzione di gestione del controller
+
+    @Override // Sovrascrive un metodo dell interfaccia
+    @GetMapping("/unread-count") // Mapping per una richiesta GET
+    public NotificationUnreadCountDTO unreadCount(@RequestParam("userId") Long userId) { // Contatore per il badge del client
+        try { // Istruzione di gestione del controller
+            return notificationService.countUnread(userId); // Conteggio calcolato dal database, senza scaricare la casella
+        } catch (IllegalArgumentException ex) { // Utente inesistente
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+
+    @Override // Sovrascrive un metodo dell interfaccia
+    @PostMapping("/read") // Mapping per una richiesta POST
+    public NotificationUnreadCountDTO markRead(@RequestParam("userId") Long userId, // Utente destinatario
+                                               @RequestParam("upToId") Long upToId) { // Ultima notifica visualizzata dal client
+        try { // Istruzione di gestione del controller
+            return notificationService.markReadUpTo(userId, upToId); // Aggiornamento in blocco, restituisce il nuovo contatore
+        } catch (IllegalArgumentException ex) { // Utente inesistente
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
     } // Istruzione di gestione del controller
 
     @GetMapping("/subscribe") // Mapping per una richiesta GET
@@ -49,6 +81,16 @@ public class NotificationController implements NotificationApiContract { // Dich
         return deferredResult; // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE) // Stream Server-Sent Events persistente
+    public SseEmitter stream(@RequestParam("userId") Long userId, // Utente destinatario
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) { // Ultima notifica ricevuta prima della riconnessione
+        try { // Istruzione di gestione del controller
+            return notificationService.openStream(userId, lastEventId); // Notifiche di utente e team su un unica connessione
+        } catch (IllegalArgumentException ex) { // Utente inesistente
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex); // Genera un eccezione HTTP
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+
     @Override // Sovrascrive un metodo dell interfaccia
     @PostMapping // Mapping per una richiesta POST
     public NotificationDTO create(@Valid @RequestBody NotificationDTO request) { // Inizio di un metodo esposto dal controller
@@ -2,6 +2,8 @@ package com.example.server.controller; // Package del controller
 
 import com.example.common.api.ReportApiContract; // Import delle dipendenze necessarie
 import com.example.server.service.ReportService; // Import delle dipendenze necessarie
+import jakarta.servlet.http.HttpServletRequest; // Import delle dipendenze necessarie
+import org.springframework.beans.factory.annotation.Value; // Import delle dipendenze necessarie
 import org.springframework.format.annotation.DateTimeFormat; // Import delle dipendenze necessarie
 import org.springframework.http.HttpHeaders; // Import delle dipendenze necessarie
 import org.springframework.http.MediaType; // Import delle dipendenze necessarie
@@ -10,7 +12,9 @@ import org.springframework.web.bind.annotation.GetMapping; // Import delle dipen
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody; // Import delle dipendenze necessarie
 
+import java.time.Duration; // Import delle dipendenze necessarie
 import java.time.LocalDate; // Import delle dipendenze necessarie
 import java.util.Objects; // Import delle dipendenze necessarie
 
@@ -19,9 +23,12 @@ import java.util.Objects; // Import delle dipendenze necessarie
 public class ReportController implements ReportApiContract { // Dichiarazione della classe controller
 
     private final ReportService reportService; // Definizione di una dipendenza iniettata
+    private final Duration streamTimeout; // Timeout della risposta in streaming
 
-    public ReportController(ReportService reportService) { // Inizio di un metodo esposto dal controller
+    public ReportController(ReportService reportService, // Inizio di un metodo esposto dal controller
+                            @Value("${app.downloads.stream-timeout:10m}") Duration streamTimeout) { // Timeout degli scaricamenti in streaming
         this.reportService = reportService; // Inizializza il campo del controller
+        this.streamTimeout = streamTimeout; // Inizializza il campo del controller
     } // Istruzione di gestione del controller
 
     @Override // Sovrascrive un metodo dell interfaccia
@@ -39,4 +46,20 @@ public class ReportController implements ReportApiContract { // Dichiarazione de
                 .contentType(Objects.requireNonNull(MediaType.APPLICATION_PDF, "mediaType must not be null")) // Istruzione di gestione del controller
                 .body(pdf); // Istruzione di gestione del controller
     } // Istruzione di gestione del controller
+
+    @GetMapping("/closed-invoices/stream") // Variante in streaming del report fatture chiuse
+    public ResponseEntity<StreamingResponseBody> streamClosedInvoices(@RequestParam(value = "from", required = false) // Firma del metodo di streaming
+                                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, // Data iniziale opzionale
+                                                                      @RequestParam(value = "to", required = false) // Data finale opzionale
+                                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to, // Istruzione di gestione del controller
+                                                                      @RequestParam(value = "agentId", required = false) Long agentId, // Agente opzionale
+                                                                      HttpServletRequest request) { // Richiesta corrente
+        StreamingTimeout.apply(request, streamTimeout); // Il PDF può richiedere più del timeout asincrono predefinito
+        StreamingResponseBody body = outputStream -> reportService.writeClosedInvoicesReport(from, to, agentId, outputStream); // Scrive il PDF direttamente sullo stream della risposta
+        String filename = "report-fatture-chiuse-" + System.currentTimeMillis() + ".pdf"; // Nome file suggerito al client
+        return ResponseEntity.ok() // Restituisce la risposta senza bufferizzare il documento
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename) // Intestazione di download
+                .contentType(Objects.requireNonNull(MediaType.APPLICATION_PDF, "mediaType must not be null")) // Tipo di contenuto PDF
+                .body(body); // Corpo prodotto in modo incrementale
+    } // Istruzione di gestione del controller
 } // Istruzione di gestione del controller
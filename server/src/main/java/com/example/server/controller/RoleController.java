@@ -29,6 +29,7 @@ public class RoleController implements RoleApiContract { // Dichiarazione della
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"roles"}) // Risposta 304 se le tabelle non sono cambiate
     public List<RoleDTO> listRoles() { // Inizio di un metodo esposto dal controller
         return roleService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
@@ -3,27 +3,35 @@ package com.example.server.controller; // Package del controller
 import com.example.common.api.StatisticsApiContract; // Import delle dipendenze necessarie
 import com.example.common.dto.AgentStatisticsDTO; // Import delle dipendenze necessarie
 import com.example.common.dto.TeamStatisticsDTO; // Import delle dipendenze necessarie
+import com.example.server.service.CommissionRollupService; // Import delle dipendenze necessarie
 import com.example.server.service.StatisticsService; // Import delle dipendenze necessarie
 import org.springframework.format.annotation.DateTimeFormat; // Import delle dipendenze necessarie
+import org.springframework.http.ResponseEntity; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.GetMapping; // Import delle dipendenze necessarie
+import org.springframework.web.bind.annotation.PostMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestMapping; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RequestParam; // Import delle dipendenze necessarie
 import org.springframework.web.bind.annotation.RestController; // Import delle dipendenze necessarie
 
 import java.time.LocalDate; // Import per gestire i parametri data
+import java.util.Map; // Import per il corpo della risposta di ricostruzione
 
 @RestController // Contrassegna la classe come controller REST
 @RequestMapping("/api/stats") // Imposta il percorso base degli endpoint
 public class StatisticsController implements StatisticsApiContract { // Dichiarazione della classe controller
 
     private final StatisticsService statisticsService; // Definizione di una dipendenza iniettata
+    private final CommissionRollupService commissionRollupService; // Servizio del rollup mensile delle provvigioni
 
-    public StatisticsController(StatisticsService statisticsService) { // Inizio di un metodo esposto dal controller
+    public StatisticsController(StatisticsService statisticsService, // Inizio di un metodo esposto dal controller
+                                CommissionRollupService commissionRollupService) { // Dipendenza per la ricostruzione del rollup
         this.statisticsService = statisticsService; // Inizializza il campo del controller
+        this.commissionRollupService = commissionRollupService; // Inizializza il servizio del rollup
     } // Istruzione di gestione del controller
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/agent") // Mapping per una richiesta GET
+    @ConditionalGet({"invoices", "contracts", "agents", "users", "teams", "commission_monthly_rollups"}) // Risposta 304 se le tabelle non sono cambiate
     public AgentStatisticsDTO agentStatistics(@RequestParam(value = "year", required = false) Integer year, // Inizio di un metodo esposto dal controller
             @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, // Data di inizio filtro
             @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to, // Data di fine filtro
@@ -33,10 +41,17 @@ public class StatisticsController implements StatisticsApiContract { // Dichiara
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping("/team") // Mapping per una richiesta GET
+    @ConditionalGet({"invoices", "contracts", "agents", "users", "teams", "commission_monthly_rollups"}) // Risposta 304 se le tabelle non sono cambiate
     public TeamStatisticsDTO teamStatistics(@RequestParam(value = "year", required = false) Integer year, // Inizio di un metodo esposto dal controller
             @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, // Data di inizio filtro
             @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to, // Data di fine filtro
             @RequestParam(value = "roleId", required = false) Long roleId) { // Ruolo agente opzionale
         return statisticsService.teamStatistics(year, from, to, roleId); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
+
+    @PostMapping("/rollup/rebuild") // Mapping per la ricostruzione del rollup provvigionale
+    public ResponseEntity<Map<String, Integer>> rebuildRollup() { // Ricalcola il rollup mensile dalle fatture pagate
+        int rows = commissionRollupService.rebuild(); // Esegue la ricostruzione completa
+        return ResponseEntity.ok(Map.of("rows", rows)); // Restituisce il numero di righe scritte
+    } // Istruzione di gestione del controller
 } // Istruzione di gestione del controller
@@ -0,0 +1,24 @@
+package com.example.server.controller; // Package del controller
+
+import jakarta.servlet.http.HttpServletRequest; // Richiesta servlet corrente
+import org.springframework.web.context.request.async.AsyncWebRequest; // Richiesta asincrona gestita da Spring MVC
+import org.springframework.web.context.request.async.WebAsyncUtils; // Accesso al gestore asincrono della richiesta
+
+import java.time.Duration; // Durata del timeout
+
+/**
+ * Timeout dedicato delle risposte in streaming: gli scaricamenti lunghi (report PDF, export CSV) non devono
+ * essere interrotti dal timeout asincrono predefinito, che resta invece valido per long-poll e stream SSE.
+ */
+final class StreamingTimeout { // Utility dei controller con corpo in streaming
+
+    private StreamingTimeout() { // Classe di sola utilità
+    } // Istruzione di gestione del controller
+
+    static void apply(HttpServletRequest request, Duration timeout) { // Imposta il timeout prima dell'avvio dello streaming
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest(); // Richiesta asincrona preparata dall'adapter
+        if (asyncWebRequest != null) { // Presente per ogni richiesta gestita da un controller annotato
+            asyncWebRequest.setTimeout(timeout.toMillis()); // Usato all'avvio dell'elaborazione asincrona dello StreamingResponseBody
+        } // Istruzione di gestione del controller
+    } // Istruzione di gestione del controller
+} // Istruzione di gestione del controller
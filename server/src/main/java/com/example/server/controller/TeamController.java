@@ -29,6 +29,7 @@ public class TeamController implements TeamApiContract { // Dichiarazione della
 
     @Override // Sovrascrive un metodo dell interfaccia
     @GetMapping // Mapping per una richiesta GET
+    @ConditionalGet({"teams"}) // Risposta 304 se le tabelle non sono cambiate
     public List<TeamDTO> listTeams() { // Inizio di un metodo esposto dal controller
         return teamService.findAll(); // Restituisce il risultato dell operazione
     } // Istruzione di gestione del controller
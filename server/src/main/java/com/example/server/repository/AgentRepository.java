@@ -1,6 +1,7 @@
 package com.example.server.repository; // Definisce il package in cui si trova l'interfaccia del repository degli agenti.
 
 import com.example.server.domain.Agent; // Importa l'entità Agent utilizzata dal repository.
+import org.springframework.data.domain.Limit; // Limite di righe per le pagine keyset.
 import org.springframework.data.repository.CrudRepository; // Fornisce le operazioni CRUD di base.
 import org.springframework.stereotype.Repository; // Indica a Spring che questa interfaccia è un componente repository.
 
@@ -12,6 +13,10 @@ public interface AgentRepository extends CrudRepository<Agent, Long> { // Estend
 
     List<Agent> findAllByOrderByAgentCodeAsc(); // Recupera tutti gli agenti ordinati per codice in ordine crescente.
 
+    List<Agent> findAllByOrderByAgentCodeAsc(Limit limit); // Prima pagina keyset: il codice agente è univoco e basta come chiave.
+
+    List<Agent> findByAgentCodeGreaterThanOrderByAgentCodeAsc(String agentCode, Limit limit); // Pagina keyset successiva al codice indicato.
+
     Optional<Agent> findByUserId(Long userId); // Trova un agente associato all'ID utente specificato.
 
     Optional<Agent> findByAgentCode(String agentCode); // Trova un agente a partire dal suo codice identificativo.
@@ -1,9 +1,11 @@
 package com.example.server.repository; // Package che raggruppa i repository Spring dell'applicazione server.
 
 import com.example.server.domain.Article; // Importa l'entità Article gestita dal repository.
+import org.springframework.data.domain.Limit; // Limite di righe per le pagine keyset.
 import org.springframework.data.repository.CrudRepository; // Interfaccia base per operazioni CRUD.
 import org.springframework.stereotype.Repository; // Stereotipo Spring che registra il bean come repository.
 
+import java.time.Instant; // Istante da cui leggere le modifiche.
 import java.util.List; // Supporta i metodi che restituiscono collezioni di articoli.
 import java.util.Optional; // Avvolge risultati che potrebbero essere assenti.
 
@@ -12,5 +14,14 @@ public interface ArticleRepository extends CrudRepository<Article, Long> { // Es
 
     List<Article> findAllByOrderByNameAsc(); // Restituisce tutti gli articoli ordinati alfabeticamente per nome.
 
+    List<Article> findAllByOrderByNameAscIdAsc(Limit limit); // Prima pagina keyset per nome e id crescenti.
+
+    List<Article> findByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(String name, // Pagina keyset successiva a (name, id).
+                                                                                 String sameName,
+                                                                                 Long id,
+                                                                                 Limit limit);
+
     Optional<Article> findByCodeIgnoreCase(String code); // Cerca un articolo in base al codice ignorando le differenze di maiuscole.
+
+    List<Article> findByUpdatedAtGreaterThan(Instant since); // Restituisce gli articoli creati o modificati dopo l'istante indicato.
 }
@@ -0,0 +1,89 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import com.example.server.domain.Message;                              // Messaggio che aggiorna il riepilogo della conversazione.
+import org.springframework.dao.DuplicateKeyException;                  // Eccezione sollevata se un'altra transazione ha già inserito la riga.
+import org.springframework.jdbc.core.RowMapper;                        // Interfaccia per mappare le righe del ResultSet in oggetti Java.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.sql.Timestamp;                                             // Conversione del timestamp dell'ultimo messaggio.
+import java.time.Instant;                                              // Istante dell'ultimo messaggio.
+import java.util.List;                                                 // Supporta la gestione di liste di risultati.
+
+/**
+ * Repository custom della tabella {@code conversations}: un record per conversazione con l'ultimo messaggio,
+ * il suo istante, un'anteprima del testo e il team partecipante (solo per le conversazioni {@code team:<id>}).
+ * L'elenco delle conversazioni legge da qui invece di scorrere tutta la tabella dei messaggi.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class ChatConversationRepository {                              // Repository dedicato al riepilogo delle conversazioni.
+
+    public static final int SNIPPET_LENGTH = 61;                       // Caratteri sufficienti a capire se l'anteprima va troncata.
+
+    private static final RowMapper<ConversationSummary> SUMMARY_MAPPER = (rs, rowNum) -> new ConversationSummary( // Converte ogni riga.
+            rs.getString("conversation_id"),                           // Identificativo della conversazione.
+            rs.getObject("team_id", Long.class),                       // Team partecipante, nullo per le altre conversazioni.
+            rs.getLong("last_message_id"),                             // Id dell'ultimo messaggio.
+            rs.getTimestamp("last_message_at").toInstant(),            // Istante dell'ultimo messaggio.
+            rs.getString("last_message_snippet")                       // Inizio del testo dell'ultimo messaggio.
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL.
+
+    public ChatConversationRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
+        this.jdbcTemplate = jdbcTemplate;                              // Assegna il template al campo interno.
+    }
+
+    public void recordMessage(Message message, Long teamId) {          // Aggiorna il riepilogo con un messaggio appena salvato.
+        String body = message.getBody() != null ? message.getBody() : "";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("conversationId", message.getConversationId())
+                .addValue("teamId", teamId)
+                .addValue("messageId", message.getId())
+                .addValue("createdAt", Timestamp.from(message.getCreatedAt()))
+                .addValue("snippet", body.substring(0, Math.min(body.length(), SNIPPET_LENGTH)));
+
+        String update = """
+                UPDATE "conversations"
+                SET "last_message_id" = :messageId,
+                    "last_message_at" = :createdAt,
+                    "last_message_snippet" = :snippet
+                WHERE "conversation_id" = :conversationId AND "last_message_id" < :messageId
+                """;                                                   // Non sovrascrive un messaggio più recente già registrato.
+        if (jdbcTemplate.update(update, params) == 0) { // Conversazione nuova o già aggiornata a un messaggio successivo.
+            try {
+                jdbcTemplate.update("""
+                        INSERT INTO "conversations"
+                            ("conversation_id", "team_id", "last_message_id", "last_message_at", "last_message_snippet")
+                        VALUES (:conversationId, :teamId, :messageId, :createdAt, :snippet)
+                        """, params);
+            } catch (DuplicateKeyException ex) {                        // Riga già presente: riprova l'aggiornamento condizionale.
+                jdbcTemplate.update(update, params);
+            }
+        }
+    }
+
+    public List<ConversationSummary> findAccessible(Long teamId) {     // Conversazioni visibili a un membro del team, dalla più recente.
+        StringBuilder sql = new StringBuilder("""
+                SELECT "conversation_id", "team_id", "last_message_id", "last_message_at", "last_message_snippet"
+                FROM "conversations"
+                WHERE "team_id" IS NULL
+                """);                                                  // Le conversazioni senza team sono aperte a tutti.
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (teamId != null) {
+            sql.append(" OR \"team_id\" = :teamId");                   // Più la conversazione del proprio team.
+            params.addValue("teamId", teamId);
+        }
+        sql.append(" ORDER BY \"last_message_at\" DESC, \"last_message_id\" DESC");
+        return jdbcTemplate.query(sql.toString(), params, SUMMARY_MAPPER);
+    }
+
+    // Record che rappresenta il riepilogo di una conversazione.
+    public record ConversationSummary(String conversationId,
+                                      Long teamId,
+                                      Long lastMessageId,
+                                      Instant lastMessageAt,
+                                      String lastMessageSnippet) {
+    }
+} // Fine classe ChatConversationRepository.
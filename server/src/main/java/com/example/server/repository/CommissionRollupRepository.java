@@ -0,0 +1,126 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import org.springframework.dao.DuplicateKeyException;                  // Eccezione sollevata se un'altra transazione ha già inserito la riga.
+import org.springframework.jdbc.core.RowMapper;                        // Interfaccia per mappare le righe del ResultSet in oggetti Java.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;    // Parametri per gli inserimenti in batch.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.math.BigDecimal;                                           // Rappresenta importi e provvigioni.
+import java.time.LocalDate;                                            // Primo giorno del mese di riferimento.
+import java.util.List;                                                 // Supporta la gestione di liste di risultati.
+
+/**
+ * Repository custom della tabella di rollup mensile: un record per agente e mese con numero di fatture pagate
+ * e importo incassato. Le statistiche leggono da qui invece di aggregare tutte le fatture.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class CommissionRollupRepository {                              // Repository dedicato al rollup delle provvigioni mensili.
+
+    private static final RowMapper<PaidInvoiceTotal> TOTAL_MAPPER = (rs, rowNum) -> new PaidInvoiceTotal( // Converte ogni riga aggregata.
+            rs.getLong("agent_id"),                                    // Agente del contratto.
+            LocalDate.of(rs.getInt("payment_year"), rs.getInt("payment_month"), 1), // Primo giorno del mese di pagamento.
+            rs.getInt("invoice_count"),                                // Numero di fatture pagate nel mese.
+            rs.getBigDecimal("total_amount")                           // Importo complessivo incassato.
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL.
+
+    public CommissionRollupRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
+        this.jdbcTemplate = jdbcTemplate;                              // Assegna il template al campo interno.
+    }
+
+    public void addToPeriod(Long agentId,                              // Applica una variazione al rollup di un agente in un mese.
+                            LocalDate periodStart,
+                            int invoiceDelta,
+                            BigDecimal amountDelta) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("agentId", agentId)
+                .addValue("periodStart", periodStart)
+                .addValue("invoiceDelta", invoiceDelta)
+                .addValue("amountDelta", amountDelta);
+
+        String update = """
+                UPDATE "commission_monthly_rollups"
+                SET "invoice_count" = "invoice_count" + :invoiceDelta,
+                    "total_amount" = "total_amount" + :amountDelta
+                WHERE "agent_id" = :agentId AND "period_start" = :periodStart
+                """;
+        if (jdbcTemplate.update(update, params) == 0) {                // Nessuna riga per il mese: la crea.
+            try {
+                jdbcTemplate.update("""
+                        INSERT INTO "commission_monthly_rollups"
+                            ("agent_id", "period_start", "invoice_count", "total_amount")
+                        VALUES (:agentId, :periodStart, :invoiceDelta, :amountDelta)
+                        """, params);
+            } catch (DuplicateKeyException ex) {                        // Inserita nel frattempo da un'altra transazione.
+                jdbcTemplate.update(update, params);
+            }
+        }
+
+        jdbcTemplate.update("""
+                DELETE FROM "commission_monthly_rollups"
+                WHERE "agent_id" = :agentId AND "period_start" = :periodStart AND "invoice_count" <= 0
+                """, params);                                          // Rimuove i mesi rimasti senza fatture pagate.
+    }
+
+    public List<PaidInvoiceTotal> findPaidInvoiceTotals(String paidStatus, Long contractId) { // Aggrega le fatture pagate per agente e mese.
+        StringBuilder sql = new StringBuilder("""
+                SELECT c."agent_id" AS agent_id,
+                       EXTRACT(YEAR FROM i."payment_date") AS payment_year,
+                       EXTRACT(MONTH FROM i."payment_date") AS payment_month,
+                       COUNT(*) AS invoice_count,
+                       SUM(i."amount") AS total_amount
+                FROM "invoices" i
+                         JOIN "contracts" c ON i."contract_id" = c."id"
+                WHERE i."status" = :paidStatus AND i."payment_date" IS NOT NULL
+                """);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("paidStatus", paidStatus)
+                .addValue("contractId", contractId);
+
+        if (contractId != null) {
+            sql.append(" AND c.\"id\" = :contractId");
+        }
+
+        sql.append(" GROUP BY c.\"agent_id\", EXTRACT(YEAR FROM i.\"payment_date\"), EXTRACT(MONTH FROM i.\"payment_date\")");
+        return jdbcTemplate.query(sql.toString(), params, TOTAL_MAPPER);
+    }
+
+    public int replaceAll(List<RollupRow> rows) {                      // Sostituisce l'intero contenuto del rollup.
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM \"commission_monthly_rollups\"");
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        SqlParameterSource[] batch = rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("agentId", row.agentId())
+                        .addValue("periodStart", row.periodStart())
+                        .addValue("invoiceCount", row.invoiceCount())
+                        .addValue("totalAmount", row.totalAmount()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO "commission_monthly_rollups"
+                    ("agent_id", "period_start", "invoice_count", "total_amount")
+                VALUES (:agentId, :periodStart, :invoiceCount, :totalAmount)
+                """, batch);                                           // Inserisce tutte le righe in un unico batch.
+        return rows.size();
+    }
+
+    public boolean isEmpty() {                                         // Indica se il rollup non è ancora stato popolato.
+        Integer populated = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT CASE WHEN EXISTS (SELECT 1 FROM \"commission_monthly_rollups\") THEN 1 ELSE 0 END",
+                Integer.class);                                        // EXISTS si ferma alla prima riga trovata.
+        return populated == null || populated == 0;
+    }
+
+    // Record che rappresenta il totale delle fatture pagate di un agente in un mese.
+    public record PaidInvoiceTotal(Long agentId, LocalDate periodStart, int invoiceCount, BigDecimal totalAmount) {
+    }
+
+    // Record che rappresenta una riga del rollup mensile.
+    public record RollupRow(Long agentId, LocalDate periodStart, int invoiceCount, BigDecimal totalAmount) {
+    }
+} // Fine classe CommissionRollupRepository.
@@ -0,0 +1,45 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import org.springframework.jdbc.core.RowMapper;                        // Interfaccia per mappare le righe del ResultSet in oggetti Java.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.util.List;                                                 // Supporta la gestione di liste di risultati.
+
+/**
+ * Repository custom che legge in un'unica query l'associazione agente → utente → team
+ * necessaria per costruire le regole provvigionali di tutti i team.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class CommissionRuleRepository {                                // Repository dedicato al registro delle regole provvigionali.
+
+    private static final RowMapper<AgentAssignment> ROW_MAPPER = (rs, rowNum) -> new AgentAssignment( // Converte ogni riga in un AgentAssignment.
+            rs.getLong("agent_id"),                                    // Identificativo dell'agente.
+            rs.getObject("user_id") != null ? rs.getLong("user_id") : null, // Utente associato, se presente.
+            rs.getObject("team_id") != null ? rs.getLong("team_id") : null, // Team dell'utente, nullo se l'utente non esiste.
+            rs.getString("team_role")                                  // Ruolo dell'agente nel team.
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL.
+
+    public CommissionRuleRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
+        this.jdbcTemplate = jdbcTemplate;                              // Assegna il template al campo interno.
+    }
+
+    public List<AgentAssignment> findAgentAssignments() {              // Restituisce tutti gli agenti con il relativo team in un solo round trip.
+        String sql = """
+                SELECT a."id" AS agent_id,
+                       a."user_id" AS user_id,
+                       u."team_id" AS team_id,
+                       a."team_role" AS team_role
+                FROM "agents" a
+                         LEFT JOIN "users" u ON a."user_id" = u."id"
+                ORDER BY a."id"
+                """;
+        return jdbcTemplate.query(sql, ROW_MAPPER);                    // Esegue la query e mappa ogni riga.
+    }
+
+    // Record che rappresenta l'appartenenza di un agente a un team.
+    public record AgentAssignment(Long agentId, Long userId, Long teamId, String teamRole) {
+    }
+} // Fine classe CommissionRuleRepository.
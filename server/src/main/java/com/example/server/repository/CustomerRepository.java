@@ -1,9 +1,11 @@
 package com.example.server.repository; // Package che raccoglie i repository Spring del server.
 
 import com.example.server.domain.Customer; // Importa l'entità Customer gestita dal repository.
+import org.springframework.data.domain.Limit; // Limite di righe per le pagine keyset.
 import org.springframework.data.repository.CrudRepository; // Fornisce le operazioni CRUD di base.
 import org.springframework.stereotype.Repository; // Indica a Spring che l'interfaccia è un componente repository.
 
+import java.time.Instant; // Istante da cui leggere le modifiche.
 import java.util.List; // Supporta i metodi che restituiscono elenchi di clienti.
 import java.util.Optional; // Gestisce risultati opzionali per ricerche specifiche.
 
@@ -12,7 +14,16 @@ public interface CustomerRepository extends CrudRepository<Customer, Long> { //
 
     List<Customer> findAllByOrderByNameAsc(); // Restituisce tutti i clienti ordinati alfabeticamente per nome.
 
+    List<Customer> findAllByOrderByNameAscIdAsc(Limit limit); // Prima pagina keyset per nome e id crescenti.
+
+    List<Customer> findByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(String name, // Pagina keyset successiva a (name, id).
+                                                                                  String sameName,
+                                                                                  Long id,
+                                                                                  Limit limit);
+
     Optional<Customer> findByEmailIgnoreCase(String email); // Cerca un cliente tramite email ignorando maiuscole e minuscole.
 
     Optional<Customer> findByVatNumberIgnoreCase(String vatNumber); // Recupera un cliente tramite partita IVA senza distinzione di maiuscole.
+
+    List<Customer> findByUpdatedAtGreaterThan(Instant since); // Restituisce i clienti creati o modificati dopo l'istante indicato.
 }
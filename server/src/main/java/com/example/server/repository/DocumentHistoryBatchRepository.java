@@ -0,0 +1,71 @@
+package com.example.server.repository; // Package che contiene i repository e le classi di query personalizzate.
+
+import com.example.server.domain.DocumentHistory; // Voci di storico da inserire.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati di ogni riga del batch.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.jdbc.core.namedparam.SqlParameterSource; // Parametri di una riga del batch.
+import org.springframework.jdbc.support.GeneratedKeyHolder; // Raccoglie gli id generati dal database.
+import org.springframework.stereotype.Repository; // Stereotipo Spring per la classe repository personalizzata.
+import org.springframework.transaction.annotation.Transactional; // Rende atomico il batch scritto fuori da una transazione.
+
+import java.sql.Timestamp; // Conversione del timestamp della voce.
+import java.util.ArrayList; // Lista delle voci con id.
+import java.util.List; // Gestisce liste di voci.
+import java.util.Map; // Chiavi generate per ogni riga.
+
+/**
+ * Repository custom che inserisce le voci dello storico documentale con un unico batch JDBC, al posto di un
+ * {@code save} per riga. Gli id generati vengono letti solo se il backend di ricerca testuale li richiede per
+ * il proprio indice: alcuni driver, come quello di SQL Server, non restituiscono le chiavi di un batch.
+ */
+@Repository // Rende la classe rilevabile come componente repository da Spring.
+public class DocumentHistoryBatchRepository { // Scritture in blocco dello storico.
+
+    private static final String INSERT_SQL = """
+            INSERT INTO "document_history" ("document_type", "document_id", "action", "description", "created_at")
+            VALUES (:documentType, :documentId, :action, :description, :createdAt)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate; // Template JDBC usato per il batch.
+    private final DocumentHistoryTextSearch textSearch; // Backend di ricerca che decide se servono gli id.
+
+    public DocumentHistoryBatchRepository(NamedParameterJdbcTemplate jdbcTemplate, // Costruttore con iniezione del template JDBC.
+                                          DocumentHistoryTextSearch textSearch) { // Riceve il backend di ricerca del profilo attivo.
+        this.jdbcTemplate = jdbcTemplate; // Assegna il template al campo interno.
+        this.textSearch = textSearch; // Assegna il backend di ricerca.
+    }
+
+    @Transactional // Un batch fallito non lascia righe parziali che un nuovo tentativo duplicherebbe.
+    public List<DocumentHistory> insertAll(List<DocumentHistory> entries) { // Inserisce le voci e le restituisce nello stesso ordine.
+        if (entries.isEmpty()) { // Nessuna voce da scrivere.
+            return List.of(); // Evita il round trip.
+        }
+        SqlParameterSource[] batch = entries.stream() // Parametri di ogni riga.
+                .map(DocumentHistoryBatchRepository::parameters)
+                .toArray(SqlParameterSource[]::new);
+        if (!textSearch.requiresIds()) { // Gli id non servono a nessuno.
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch); // Un solo round trip per tutte le righe.
+            return entries; // Voci senza id.
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder(); // Id generati, una mappa per riga.
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, keyHolder, new String[]{"id"}); // Batch con lettura delle chiavi.
+        List<Map<String, Object>> keys = keyHolder.getKeyList(); // Chiavi nell'ordine delle righe.
+        List<DocumentHistory> saved = new ArrayList<>(entries.size()); // Voci con id.
+        for (int i = 0; i < entries.size(); i++) {
+            DocumentHistory entry = entries.get(i); // Voce inserita.
+            Number id = (Number) keys.get(i).values().iterator().next(); // Unica colonna richiesta, qualunque sia il nome restituito dal driver.
+            saved.add(new DocumentHistory(id.longValue(), entry.getDocumentType(), entry.getDocumentId(),
+                    entry.getAction(), entry.getDescription(), entry.getCreatedAt())); // Copia con id.
+        }
+        return saved;
+    }
+
+    private static SqlParameterSource parameters(DocumentHistory entry) { // Parametri di una riga.
+        return new MapSqlParameterSource()
+                .addValue("documentType", entry.getDocumentType().name()) // Tipo di documento come testo.
+                .addValue("documentId", entry.getDocumentId()) // Id del documento.
+                .addValue("action", entry.getAction().name()) // Azione come testo.
+                .addValue("description", entry.getDescription()) // Descrizione facoltativa.
+                .addValue("createdAt", Timestamp.from(entry.getCreatedAt())); // Istante della registrazione.
+    }
+}
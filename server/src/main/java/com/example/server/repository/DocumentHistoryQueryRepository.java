@@ -5,6 +5,8 @@ import com.example.common.enums.DocumentType; // Importa l'enum che identifica i
 import com.example.server.domain.DocumentHistory; // Importa l'entità che rappresenta una riga dello storico documentale.
 import com.example.server.service.DocumentHistoryQuery; // Importa l'oggetto di query con i filtri richiesti.
 import java.sql.Timestamp;
+import org.springframework.jdbc.core.JdbcTemplate; // Template JDBC di base usato per configurare il fetch size.
+import org.springframework.jdbc.core.RowCallbackHandler; // Callback che elabora una riga alla volta senza accumulare risultati.
 import org.springframework.jdbc.core.RowMapper; // RowMapper per convertire le righe del ResultSet in oggetti dominio.
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Gestisce i parametri nominati della query SQL.
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
@@ -15,6 +17,7 @@ import java.time.Instant; // Rappresenta timestamp utilizzati nei record dello s
 import java.util.Collections; // Fornisce collezioni immutabili di fallback.
 import java.util.List; // Gestisce liste di risultati della query.
 import java.util.Objects; // Utility per controllare valori null o costruire requisiti.
+import java.util.function.Consumer; // Riceve le voci lette dal cursore.
 
 /**
  * Repository custom per interrogare lo storico documentale con filtri dinamici e paginazione.
@@ -22,7 +25,12 @@ import java.util.Objects; // Utility per controllare valori null o costruire req
 @Repository // Rende la classe rilevabile come componente repository da Spring.
 public class DocumentHistoryQueryRepository { // Implementa query personalizzate sullo storico dei documenti.
 
+    public static final long UNKNOWN_TOTAL = -1L; // Totale non calcolato perché non richiesto dal chiamante.
+    static final int FETCH_SIZE = 500; // Numero di righe trasferite per ogni round trip del cursore di esportazione.
+
     private final NamedParameterJdbcTemplate jdbcTemplate; // Template JDBC usato per eseguire query con parametri nominati.
+    private final NamedParameterJdbcTemplate streamingTemplate; // Template con fetch size dedicato allo streaming.
+    private final DocumentHistoryTextSearch textSearch; // Backend della ricerca testuale sulla descrizione.
 
     private static final RowMapper<DocumentHistory> ROW_MAPPER = (rs, rowNum) -> { // Converte ogni riga del ResultSet in un DocumentHistory.
         Long id = rs.getLong("id"); // Legge l'identificativo del record.
@@ -42,30 +50,68 @@ public class DocumentHistoryQueryRepository { // Implementa query personalizzate
         );
     }; // Conclusione del RowMapper statico.
 
-    public DocumentHistoryQueryRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore che riceve il template JDBC.
+    public DocumentHistoryQueryRepository(NamedParameterJdbcTemplate jdbcTemplate, // Costruttore che riceve il template JDBC.
+                                          DocumentHistoryTextSearch textSearch) { // Riceve il backend di ricerca del profilo attivo.
         this.jdbcTemplate = jdbcTemplate; // Assegna il template al campo finale.
+        JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull( // Crea un template separato per non alterare quello condiviso.
+                jdbcTemplate.getJdbcTemplate().getDataSource(), "dataSource must not be null"));
+        streaming.setFetchSize(FETCH_SIZE); // Limita le righe bufferizzate dal driver.
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming); // Template con parametri nominati basato sul cursore.
+        this.textSearch = textSearch; // Assegna il backend di ricerca testuale.
     }
 
     public ResultPage find(DocumentHistoryQuery query) { // Esegue una ricerca paginata sullo storico in base ai filtri ricevuti.
+        if (query.isKeyset()) { // Paginazione a cursore richiesta.
+            return findKeyset(query); // Evita OFFSET e, se non richiesto, il conteggio.
+        }
         QueryParts parts = buildQuery(query); // Costruisce dinamicamente la clausola FROM/WHERE e i parametri.
         String fromClause = Objects.requireNonNull(parts.fromClause(), "fromClause must not be null"); // Verifica che la clausola SQL sia presente.
         MapSqlParameterSource parameters = Objects.requireNonNull(parts.parameters(), "parameters must not be null"); // Recupera i parametri sicuri.
         StringBuilder sql = new StringBuilder("SELECT \"id\", \"document_type\", \"document_id\", \"action\", \"description\", \"created_at\" ") // Avvia la query di selezione.
                 .append(fromClause) // Aggiunge il blocco FROM e i filtri.
-                .append(" ORDER BY \"created_at\" DESC"); // Ordina i risultati dalla voce più recente.
+                .append(" ORDER BY \"created_at\" DESC, \"id\" DESC"); // Ordina dalla voce più recente con ordine stabile a parità di data.
+        boolean countSkipped = query.isPaginated() && !query.isIncludeTotal(); // Senza conteggio il seguito si ricava da una riga in più.
         if (query.isPaginated()) { // Applica la paginazione solo se richiesta.
             sql.append(" LIMIT :limit OFFSET :offset"); // Usa la sintassi Postgres/H2 per limit e offset.
-            parameters.addValue("limit", query.getSize()); // Imposta il numero di elementi da recuperare.
+            parameters.addValue("limit", countSkipped ? query.getSize() + 1 : query.getSize()); // Imposta il numero di elementi da recuperare.
             parameters.addValue("offset", query.offset()); // Imposta l'offset calcolato dalla query.
         }
-        List<DocumentHistory> items = jdbcTemplate.query(sql.toString(), parameters, // Esegue la query e mappa i risultati.
+        List<DocumentHistory> rows = jdbcTemplate.query(sql.toString(), parameters, // Esegue la query e mappa i risultati.
                 Objects.requireNonNull(ROW_MAPPER, "rowMapper must not be null")); // Utilizza il RowMapper definito per creare gli oggetti dominio.
-        Long totalCount = query.isPaginated() // Calcola il numero totale solo quando la paginazione è attiva.
+        if (countSkipped) { // Il chiamante ha rinunciato al totale.
+            boolean hasMore = rows.size() > query.getSize(); // La riga in più indica una pagina successiva.
+            return new ResultPage(hasMore ? rows.subList(0, query.getSize()) : rows, UNKNOWN_TOTAL, hasMore); // Scarta la riga di controllo.
+        }
+        long total = query.isPaginated() // Calcola il totale solo se paginato.
                 ? Objects.requireNonNull(jdbcTemplate.queryForObject("SELECT COUNT(*) " + fromClause, parameters, Long.class), // Esegue query di conteggio.
                 "totalCount must not be null") // Garantisce che il conteggio non sia nullo.
-                : null; // In assenza di paginazione non calcola il totale.
-        long total = totalCount != null ? totalCount : items.size(); // Determina il numero totale di risultati.
-        return new ResultPage(items, total); // Restituisce i risultati e il totale incapsulati in ResultPage.
+                : rows.size(); // In assenza di paginazione il totale coincide con le righe lette.
+        return new ResultPage(rows, total); // Restituisce i risultati e il totale incapsulati in ResultPage.
+    }
+
+    private ResultPage findKeyset(DocumentHistoryQuery query) { // Ricerca con predicato di seek su (created_at, id).
+        QueryParts parts = buildQuery(query); // Costruisce i filtri comuni.
+        String fromClause = Objects.requireNonNull(parts.fromClause(), "fromClause must not be null"); // Clausola FROM/WHERE dei filtri.
+        MapSqlParameterSource parameters = Objects.requireNonNull(parts.parameters(), "parameters must not be null"); // Parametri dei filtri.
+        StringBuilder sql = new StringBuilder("SELECT \"id\", \"document_type\", \"document_id\", \"action\", \"description\", \"created_at\" ")
+                .append(fromClause); // Aggiunge il blocco FROM e i filtri.
+        if (query.hasPosition()) { // Riparte dopo l'ultima voce restituita.
+            sql.append(" AND (\"created_at\" < :afterCreatedAt OR (\"created_at\" = :afterCreatedAt AND \"id\" < :afterId))");
+            parameters.addValue("afterCreatedAt", Timestamp.from(query.getAfterCreatedAt())); // Data dell'ultima voce.
+            parameters.addValue("afterId", query.getAfterId()); // Id dell'ultima voce.
+        }
+        sql.append(" ORDER BY \"created_at\" DESC, \"id\" DESC LIMIT :limit"); // Stesso ordinamento dell'indice, senza OFFSET.
+        parameters.addValue("limit", query.getSize() + 1); // Una riga in più per sapere se esiste un seguito.
+        List<DocumentHistory> rows = jdbcTemplate.query(sql.toString(), parameters, // Esegue la query e mappa i risultati.
+                Objects.requireNonNull(ROW_MAPPER, "rowMapper must not be null"));
+        boolean hasMore = rows.size() > query.getSize(); // La riga in più indica una pagina successiva.
+        List<DocumentHistory> items = hasMore ? rows.subList(0, query.getSize()) : rows; // Scarta la riga di controllo.
+        long total = UNKNOWN_TOTAL; // Il conteggio è calcolato solo su richiesta.
+        if (query.isIncludeTotal()) { // Il chiamante ha chiesto il totale.
+            total = Objects.requireNonNull(jdbcTemplate.queryForObject("SELECT COUNT(*) " + fromClause, parameters, Long.class), // Conteggio sui soli filtri.
+                    "totalCount must not be null");
+        }
+        return new ResultPage(items, total, hasMore); // Restituisce la pagina con l'indicazione del seguito.
     }
 
     public List<DocumentHistory> findAll(DocumentHistoryQuery query) { // Recupera tutti i record che soddisfano i filtri senza paginazione.
@@ -74,10 +120,19 @@ public class DocumentHistoryQueryRepository { // Implementa query personalizzate
         MapSqlParameterSource parameters = Objects.requireNonNull(parts.parameters(), "parameters must not be null"); // Ottiene i parametri impostati.
         String sql = "SELECT \"id\", \"document_type\", \"document_id\", \"action\", \"description\", \"created_at\" " // Stringa base della SELECT.
                 + fromClause // Aggiunge la clausola dinamica costruita.
-                + " ORDER BY \"created_at\" DESC"; // Ordina per data di creazione decrescente.
+                + " ORDER BY \"created_at\" DESC, \"id\" DESC"; // Stesso ordine stabile della ricerca paginata a parità di data.
         return jdbcTemplate.query(sql, parameters, Objects.requireNonNull(ROW_MAPPER, "rowMapper must not be null")); // Esegue la query e mappa i risultati.
     }
 
+    public void forEach(DocumentHistoryQuery query, Consumer<DocumentHistory> consumer) { // Scorre i record filtrati con un cursore forward-only.
+        QueryParts parts = buildQuery(query.withoutPagination()); // Stessi filtri di findAll, senza paginazione.
+        String sql = "SELECT \"id\", \"document_type\", \"document_id\", \"action\", \"description\", \"created_at\" " // Stringa base della SELECT.
+                + Objects.requireNonNull(parts.fromClause(), "fromClause must not be null") // Aggiunge la clausola dinamica costruita.
+                + " ORDER BY \"created_at\" DESC, \"id\" DESC"; // Stesso ordine della ricerca paginata.
+        RowCallbackHandler handler = rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)); // Inoltra ogni riga appena letta senza accumularla.
+        streamingTemplate.query(sql, Objects.requireNonNull(parts.parameters(), "parameters must not be null"), handler); // Esegue la query in streaming.
+    }
+
     private static DocumentType parseDocumentType(String source) { // Effettua una conversione sicura del tipo documento.
         if (source == null) { // Gestisce valori null provenienti dal database.
             return null; // Nessun enum da restituire.
@@ -125,17 +180,20 @@ public class DocumentHistoryQueryRepository { // Implementa query personalizzate
         }
         String searchText = query.getSearchText(); // Recupera il testo libero da cercare nella descrizione.
         if (StringUtils.hasText(searchText)) { // Verifica che il testo di ricerca contenga caratteri significativi.
-            String normalizedSearch = searchText.trim(); // Normalizza la stringa eliminando spazi superflui.
-            fromClause.append(" AND LOWER(\"description\") LIKE :search"); // Aggiunge condizione LIKE sulla descrizione in minuscolo.
-            parameters.addValue("search", "%" + normalizedSearch.toLowerCase() + "%"); // Imposta il parametro di ricerca con wildcard.
+            textSearch.appendCondition(searchText.trim(), fromClause, parameters); // Delega la condizione al backend di ricerca.
         }
         return new QueryParts(fromClause.toString(), parameters); // Restituisce le parti della query da usare nella SELECT principale.
     }
 
-    public record ResultPage(List<DocumentHistory> items, long totalElements) { // Record che incapsula risultati e totale elementi.
-        public ResultPage(List<DocumentHistory> items, long totalElements) { // Costruttore che normalizza la lista ricevuta.
+    public record ResultPage(List<DocumentHistory> items, long totalElements, boolean hasMore) { // Record che incapsula risultati, totale e presenza di un seguito.
+        public ResultPage(List<DocumentHistory> items, long totalElements, boolean hasMore) { // Costruttore che normalizza la lista ricevuta.
             this.items = items != null ? items : Collections.emptyList(); // Usa lista vuota se gli elementi sono null.
             this.totalElements = totalElements; // Imposta il numero totale di elementi.
+            this.hasMore = hasMore; // Indica se esistono altre voci dopo la pagina.
+        }
+
+        public ResultPage(List<DocumentHistory> items, long totalElements) { // Costruttore per la paginazione per numero di pagina.
+            this(items, totalElements, false); // Il seguito si ricava dal totale.
         }
     }
 
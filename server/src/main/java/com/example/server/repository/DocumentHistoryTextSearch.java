@@ -0,0 +1,21 @@
+package com.example.server.repository; // Package che contiene i repository e le classi di query personalizzate.
+
+import com.example.server.domain.DocumentHistory; // Voce di storico appena registrata.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati della query SQL.
+
+/**
+ * Backend della ricerca testuale sulla descrizione dello storico documentale.
+ * Ogni implementazione traduce il testo libero di {@code DocumentHistoryQuery.searchText} in una condizione
+ * della clausola WHERE costruita da {@link DocumentHistoryQueryRepository}.
+ */
+public interface DocumentHistoryTextSearch { // Punto di estensione per la ricerca full-text.
+
+    void appendCondition(String searchText, StringBuilder whereClause, MapSqlParameterSource parameters); // Aggiunge la condizione "AND ..." e i relativi parametri.
+
+    default void indexed(DocumentHistory entry) { // Notifica una nuova voce salvata, per i backend con indice proprio.
+    }
+
+    default boolean requiresIds() { // Indica se indexed() ha bisogno dell'id generato della voce.
+        return false; // I backend senza indice proprio non lo usano.
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.server.repository; // Package che contiene i repository e le classi di query personalizzate.
+
+import com.example.server.domain.DocumentHistory; // Voce di storico da indicizzare.
+import org.slf4j.Logger; // Logger della disattivazione dell'indice.
+import org.slf4j.LoggerFactory; // Factory del logger.
+import org.springframework.beans.factory.annotation.Autowired; // Costruttore usato da Spring.
+import org.springframework.beans.factory.annotation.Value; // Lettura delle proprietà di configurazione.
+import org.springframework.boot.context.event.ApplicationReadyEvent; // Evento di avvio completato.
+import org.springframework.context.annotation.Profile; // Attiva il backend fuori dal profilo SQL Server.
+import org.springframework.context.event.EventListener; // Caricamento iniziale dell'indice.
+import org.springframework.jdbc.core.RowCallbackHandler; // Lettura in streaming delle descrizioni.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati della query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC per il caricamento.
+import org.springframework.stereotype.Component; // Stereotipo Spring del componente.
+
+import java.text.Normalizer; // Rimozione degli accenti dai termini.
+import java.util.ArrayList; // Lista dei termini estratti.
+import java.util.HashSet; // Id candidati di un termine.
+import java.util.List; // Termini della ricerca.
+import java.util.Locale; // Minuscole indipendenti dalla lingua di sistema.
+import java.util.Set; // Insiemi di id.
+import java.util.concurrent.ConcurrentHashMap; // Insiemi di id aggiornabili in concorrenza.
+import java.util.concurrent.ConcurrentNavigableMap; // Dizionario ordinato dei termini.
+import java.util.concurrent.ConcurrentSkipListMap; // Implementazione concorrente del dizionario.
+import java.util.concurrent.atomic.AtomicLong; // Numero di coppie parola-id indicizzate.
+import java.util.regex.Pattern; // Separatori tra le parole.
+
+/**
+ * Indice invertito in memoria sulle descrizioni dello storico, usato con H2 e nei profili locali.
+ * L'indice associa ogni parola normalizzata (minuscole, senza accenti) agli id delle voci che la contengono;
+ * una ricerca trova le voci in cui ogni parola cercata è prefisso di almeno una parola della descrizione e
+ * restringe la query con {@code "id" IN (...)}. L'indice viene caricato all'avvio e aggiornato a ogni
+ * scrittura dello storico confermata. Finché non è pronto, o quando le voci trovate sono troppe per una lista
+ * {@code IN}, ogni parola diventa una condizione {@code LIKE} in AND: l'ordine e la vicinanza delle parole
+ * restano ininfluenti come con l'indice, ma le descrizioni accentate vanno cercate con gli accenti.
+ * <p>
+ * L'indice vive nel processo e riceve solo le scritture dell'istanza locale: con {@code app.events.broker=outbox}
+ * (più istanze) non viene costruito e si usano sempre le condizioni {@code LIKE}, altrimenti le voci scritte dagli
+ * altri nodi non sarebbero mai trovate. La memoria è limitata da {@code app.document-history.text-index.max-postings}
+ * coppie parola-id (circa 100 byte ciascuna): superata la soglia l'indice viene svuotato e si passa alle stesse
+ * condizioni {@code LIKE} fino al riavvio.
+ */
+@Component // Registrato come bean Spring.
+@Profile("!sqlserver") // Con SQL Server si usa il catalogo full-text.
+public class InMemoryDocumentHistoryTextSearch implements DocumentHistoryTextSearch { // Backend con indice invertito in processo.
+
+    static final int MAX_MATCHES = 10_000; // Oltre questa soglia la lista IN costa più della scansione LIKE.
+    static final long DEFAULT_MAX_POSTINGS = 2_000_000; // Coppie parola-id ammesse in memoria.
+    private static final Logger log = LoggerFactory.getLogger(InMemoryDocumentHistoryTextSearch.class); // Logger del backend.
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+"); // Tutto ciò che non è lettera o cifra.
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+"); // Segni diacritici dopo la decomposizione.
+
+    private final NamedParameterJdbcTemplate jdbcTemplate; // Template JDBC per leggere le voci esistenti.
+    private final DocumentHistoryTextSearch fallback = new LikeDocumentHistoryTextSearch(); // Ricerca usata senza indice.
+    private final ConcurrentNavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>(); // Parola -> id delle voci.
+    private final AtomicLong postingCount = new AtomicLong(); // Coppie parola-id presenti nell'indice.
+    private final boolean enabled; // Falso con il broker condiviso: l'indice locale non vedrebbe le voci degli altri nodi.
+    private final long maxPostings; // Limite di memoria dell'indice.
+    private volatile boolean ready; // Indica che il caricamento iniziale è terminato.
+    private volatile boolean full; // Indica che l'indice ha superato il limite ed è stato svuotato.
+
+    public InMemoryDocumentHistoryTextSearch(NamedParameterJdbcTemplate jdbcTemplate) { // Indice per una singola istanza.
+        this(jdbcTemplate, "memory", DEFAULT_MAX_POSTINGS); // Broker in processo e limite predefinito.
+    }
+
+    @Autowired // Costruttore usato da Spring.
+    public InMemoryDocumentHistoryTextSearch(NamedParameterJdbcTemplate jdbcTemplate, // Costruttore con dependency injection.
+                                             @Value("${app.events.broker:memory}") String broker, // Broker degli eventi tra istanze.
+                                             @Value("${app.document-history.text-index.max-postings:2000000}") long maxPostings) { // Limite dell'indice.
+        this.jdbcTemplate = jdbcTemplate; // Assegna il template JDBC.
+        this.enabled = !"outbox".equalsIgnoreCase(broker); // Con più istanze l'indice locale resterebbe incompleto.
+        this.maxPostings = maxPostings; // Assegna il limite.
+    }
+
+    @EventListener(ApplicationReadyEvent.class) // Eseguito a contesto avviato.
+    public void rebuild() { // Carica l'indice dalle voci già presenti.
+        if (!enabled) { // Più istanze: si cerca sempre con LIKE.
+            return;
+        }
+        jdbcTemplate.getJdbcOperations().query("SELECT \"id\", \"description\" FROM \"document_history\"",
+                (RowCallbackHandler) rs -> add(rs.getLong("id"), rs.getString("description"))); // Indicizza riga per riga senza materializzare la tabella.
+        ready = true; // Le voci registrate nel frattempo sono già state aggiunte da indexed().
+    }
+
+    @Override
+    public void indexed(DocumentHistory entry) { // Aggiornamento incrementale dopo il salvataggio.
+        if (enabled && entry != null && entry.getId() != null) { // Solo voci persistite, con l'indice attivo.
+            add(entry.getId(), entry.getDescription()); // Un id di una transazione annullata non trova righe e viene ignorato dalla query.
+        }
+    }
+
+    @Override
+    public boolean requiresIds() { // L'indice associa le parole agli id delle voci.
+        return enabled && !full; // Senza indice l'id generato non serve.
+    }
+
+    @Override
+    public void appendCondition(String searchText, StringBuilder whereClause, MapSqlParameterSource parameters) { // Traduce la ricerca in un filtro sugli id.
+        List<String> terms = terms(searchText); // Parole normalizzate della ricerca.
+        if (!ready || full || terms.isEmpty()) { // Indice non ancora caricato, disattivato o testo senza parole.
+            if (terms.isEmpty()) { // Nessuna parola da cercare singolarmente.
+                fallback.appendCondition(searchText, whereClause, parameters); // Ricerca per sottostringa.
+            } else {
+                appendTermConditions(terms, whereClause, parameters); // Stessa semantica dell'indice.
+            }
+            return;
+        }
+        Set<Long> matches = matching(terms); // Voci che contengono tutte le parole.
+        if (matches.isEmpty()) { // Nessuna corrispondenza.
+            whereClause.append(" AND 1 = 0"); // Evita di interrogare la tabella con una lista vuota.
+        } else if (matches.size() > MAX_MATCHES) { // Ricerca poco selettiva.
+            appendTermConditions(terms, whereClause, parameters); // La scansione resta più economica.
+        } else {
+            whereClause.append(" AND \"id\" IN (:searchIds)"); // Restringe alle voci trovate dall'indice.
+            parameters.addValue("searchIds", matches); // Id candidati.
+        }
+    }
+
+    private static void appendTermConditions(List<String> terms, StringBuilder whereClause, MapSqlParameterSource parameters) { // Una condizione LIKE per parola.
+        for (int i = 0; i < terms.size(); i++) { // Tutte le parole devono comparire, in qualsiasi ordine.
+            whereClause.append(" AND LOWER(\"description\") LIKE :searchTerm").append(i); // Confronto sulla descrizione in minuscolo.
+            parameters.addValue("searchTerm" + i, "%" + terms.get(i) + "%"); // I termini contengono solo lettere e cifre: nessun carattere jolly da escludere.
+        }
+    }
+
+    Set<Long> matching(List<String> terms) { // Interseca gli id di ciascuna parola cercata.
+        Set<Long> result = null; // Nessun vincolo prima del primo termine.
+        for (String term : terms) { // Ogni parola deve comparire come prefisso.
+            Set<Long> ids = new HashSet<>(); // Id delle parole che iniziano con il termine.
+            postings.subMap(term, true, term + Character.MAX_VALUE, false).values().forEach(ids::addAll); // Intervallo ordinato dei prefissi.
+            if (result == null) { // Primo termine.
+                result = ids;
+            } else {
+                result.retainAll(ids); // Mantiene solo le voci comuni.
+            }
+            if (result.isEmpty()) { // Inutile proseguire.
+                break;
+            }
+        }
+        return result != null ? result : Set.of(); // Nessun termine, nessun risultato.
+    }
+
+    static List<String> terms(String text) { // Estrae le parole normalizzate da un testo.
+        List<String> terms = new ArrayList<>(); // Parole distinte nell'ordine di comparsa.
+        if (text == null || text.isBlank()) { // Nessun testo.
+            return terms;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("") // Rimuove gli accenti.
+                .toLowerCase(Locale.ROOT); // Confronto senza distinzione di maiuscole.
+        for (String term : SEPARATORS.split(normalized)) { // Spezza sulle sequenze di separatori.
+            if (!term.isEmpty() && !terms.contains(term)) { // Scarta vuoti e duplicati.
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private void add(long id, String description) { // Aggiunge una descrizione all'indice.
+        for (String term : terms(description)) { // Ogni parola distinta della descrizione.
+            if (full) { // Indice disattivato per memoria.
+                return;
+            }
+            if (postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(id) // Registra l'id sotto la parola.
+                    && postingCount.incrementAndGet() > maxPostings) { // Limite di memoria superato.
+                disable(); // Si passa alle condizioni LIKE.
+            }
+        }
+    }
+
+    private void disable() { // Svuota l'indice oltre il limite di memoria.
+        full = true; // Le ricerche usano le condizioni LIKE.
+        postings.clear(); // Libera la memoria.
+        log.warn("Indice di ricerca dello storico oltre {} coppie parola-id: disattivato fino al riavvio", maxPostings);
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.data.repository.CrudRepository;
 // Importazione dell'annotazione che definisce il bean come repository Spring.
 import org.springframework.stereotype.Repository;
 
+// Importazione di Collection per ricevere insiemi di identificativi fattura.
+import java.util.Collection;
 // Importazione di List per restituire collezioni ordinate di righe fattura.
 import java.util.List;
 
@@ -18,6 +20,9 @@ public interface InvoiceLineRepository extends CrudRepository<InvoiceLine, Long>
     // Restituisce le righe di una fattura specifica ordinate per id.
     List<InvoiceLine> findByInvoiceIdOrderById(Long invoiceId);
 
+    // Restituisce in un'unica query le righe di più fatture, ordinate per fattura e id.
+    List<InvoiceLine> findByInvoiceIdInOrderByInvoiceIdAscIdAsc(Collection<Long> invoiceIds);
+
     // Elimina tutte le righe collegate a una specifica fattura.
     void deleteByInvoiceId(Long invoiceId);
 }
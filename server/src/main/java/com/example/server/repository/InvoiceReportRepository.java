@@ -0,0 +1,91 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import org.springframework.jdbc.core.JdbcTemplate;                     // Template JDBC di base usato per configurare il fetch size.
+import org.springframework.jdbc.core.RowCallbackHandler;               // Callback che elabora una riga alla volta senza accumulare risultati.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.math.BigDecimal;                                           // Rappresenta gli importi delle fatture.
+import java.sql.Date;                                                  // Tipo SQL della data di pagamento.
+import java.time.LocalDate;                                            // Gestisce le date filtro.
+import java.util.Objects;                                              // Utility per i controlli di nullità.
+import java.util.function.Consumer;                                    // Riceve le righe lette dal cursore.
+
+/**
+ * Repository custom per il report delle fatture chiuse: filtra stato, periodo e agente direttamente in SQL
+ * e scorre il risultato con un cursore forward-only, così la memoria non dipende dalla dimensione della tabella.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class InvoiceReportRepository {                                 // Repository dedicato all'estrazione delle righe di report.
+
+    static final int FETCH_SIZE = 500;                                 // Numero di righe trasferite per ogni round trip del cursore.
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template con fetch size dedicato allo streaming.
+
+    public InvoiceReportRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC condiviso.
+        JdbcTemplate streaming = new JdbcTemplate(Objects.requireNonNull( // Crea un template separato per non alterare quello condiviso.
+                jdbcTemplate.getJdbcTemplate().getDataSource(), "dataSource must not be null"));
+        streaming.setFetchSize(FETCH_SIZE);                            // Limita le righe bufferizzate dal driver.
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(streaming);  // Template con parametri nominati basato sul cursore.
+    }
+
+    public void forEachClosedInvoice(LocalDate fromDate,               // Scorre le fatture pagate che rispettano i filtri.
+                                     LocalDate toDate,
+                                     Long agentId,
+                                     String paidStatus,
+                                     Consumer<ClosedInvoiceRow> consumer) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT i."invoice_number" AS invoice_number,
+                       i."customer_name" AS customer_name,
+                       i."contract_id" AS contract_id,
+                       c."agent_id" AS agent_id,
+                       i."payment_date" AS payment_date,
+                       i."amount" AS amount
+                FROM "invoices" i
+                         LEFT JOIN "contracts" c ON i."contract_id" = c."id"
+                WHERE i."status" = :paidStatus
+                """);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("paidStatus", paidStatus)
+                .addValue("fromDate", fromDate)
+                .addValue("toDate", toDate)
+                .addValue("agentId", agentId);
+
+        if (fromDate != null) {
+            sql.append(" AND i.\"payment_date\" >= :fromDate");
+        }
+        if (toDate != null) {
+            sql.append(" AND i.\"payment_date\" <= :toDate");
+        }
+        if (agentId != null) {
+            sql.append(" AND c.\"agent_id\" = :agentId");
+        }
+
+        sql.append(" ORDER BY CASE WHEN i.\"payment_date\" IS NULL THEN 1 ELSE 0 END,") // Date mancanti in coda, indipendentemente dal database.
+                .append(" i.\"payment_date\" DESC, LOWER(i.\"invoice_number\") ASC");
+
+        RowCallbackHandler handler = rs -> {                           // Converte e inoltra ogni riga appena letta.
+            Date paymentDate = rs.getDate("payment_date");
+            consumer.accept(new ClosedInvoiceRow(
+                    rs.getString("invoice_number"),
+                    rs.getString("customer_name"),
+                    rs.getObject("contract_id") != null ? rs.getLong("contract_id") : null,
+                    rs.getObject("agent_id") != null ? rs.getLong("agent_id") : null,
+                    paymentDate != null ? paymentDate.toLocalDate() : null,
+                    rs.getBigDecimal("amount")
+            ));
+        };
+        jdbcTemplate.query(sql.toString(), params, handler);
+    }
+
+    // Record che rappresenta una fattura chiusa con l'agente del contratto già risolto.
+    public record ClosedInvoiceRow(String number,
+                                   String customerName,
+                                   Long contractId,
+                                   Long agentId,
+                                   LocalDate paymentDate,
+                                   BigDecimal amount) {
+    }
+} // Fine classe InvoiceReportRepository.
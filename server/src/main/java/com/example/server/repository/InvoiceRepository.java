@@ -3,11 +3,17 @@ package com.example.server.repository;
 
 // Importazione dell'entità che rappresenta una fattura.
 import com.example.server.domain.Invoice;
+// Importazione di Limit per leggere una pagina keyset di dimensione limitata.
+import org.springframework.data.domain.Limit;
 // Importazione di CrudRepository per fornire operazioni CRUD standard.
 import org.springframework.data.repository.CrudRepository;
 // Importazione dell'annotazione che registra il bean come repository Spring.
 import org.springframework.stereotype.Repository;
 
+// Importazione di Instant per leggere le fatture modificate dopo un istante.
+import java.time.Instant;
+// Importazione di LocalDate per i predicati di seek sulla data di emissione.
+import java.time.LocalDate;
 // Importazione di List per restituire collezioni di fatture ordinate.
 import java.util.List;
 
@@ -17,4 +23,16 @@ public interface InvoiceRepository extends CrudRepository<Invoice, Long> {
 
     // Recupera tutte le fatture ordinate in modo decrescente per data di emissione.
     List<Invoice> findAllByOrderByIssueDateDesc();
+
+    // Prima pagina keyset: fatture più recenti, a parità di data per id decrescente.
+    List<Invoice> findAllByOrderByIssueDateDescIdDesc(Limit limit);
+
+    // Pagina successiva keyset: fatture che seguono (issueDate, id) nell'ordinamento decrescente.
+    List<Invoice> findByIssueDateLessThanOrIssueDateAndIdLessThanOrderByIssueDateDescIdDesc(LocalDate issueDate,
+                                                                                            LocalDate sameIssueDate,
+                                                                                            Long id,
+                                                                                            Limit limit);
+
+    // Fatture create o modificate dopo l'istante indicato, per la sincronizzazione incrementale.
+    List<Invoice> findByUpdatedAtGreaterThan(Instant since);
 }
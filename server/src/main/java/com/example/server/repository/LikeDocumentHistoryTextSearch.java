@@ -0,0 +1,16 @@
+package com.example.server.repository; // Package che contiene i repository e le classi di query personalizzate.
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati della query SQL.
+
+/**
+ * Ricerca testuale per sottostringa con {@code LIKE}: non richiede indici ma scandisce tutte le righe filtrate.
+ * Resta il ripiego degli altri backend quando il loro indice non è utilizzabile.
+ */
+public class LikeDocumentHistoryTextSearch implements DocumentHistoryTextSearch { // Backend senza indice.
+
+    @Override
+    public void appendCondition(String searchText, StringBuilder whereClause, MapSqlParameterSource parameters) { // Condizione LIKE sulla descrizione.
+        whereClause.append(" AND LOWER(\"description\") LIKE :search"); // Confronto sulla descrizione in minuscolo.
+        parameters.addValue("search", "%" + searchText.trim().toLowerCase() + "%"); // Testo normalizzato con wildcard.
+    }
+}
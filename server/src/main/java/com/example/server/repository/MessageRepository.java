@@ -5,6 +5,8 @@ package com.example.server.repository;
 import com.example.server.domain.Message;
 // Importazione di CrudRepository per le operazioni CRUD standard.
 import org.springframework.data.repository.CrudRepository;
+// Importazione di Limit per limitare le righe restituite dai metodi derivati.
+import org.springframework.data.domain.Limit;
 // Importazione dell'annotazione che registra il bean come repository Spring.
 import org.springframework.stereotype.Repository;
 
@@ -22,4 +24,9 @@ public interface MessageRepository extends CrudRepository<Message, Long> {
 
     // Recupera i messaggi di una conversazione creati dopo un certo istante, ordinati in modo crescente.
     List<Message> findByConversationIdAndCreatedAtAfterOrderByCreatedAtAsc(String conversationId, Instant createdAfter);
+    // Recupera i messaggi di una conversazione con id successivo all'ultimo ricevuto, nell'ordine di invio.
+    List<Message> findByConversationIdAndIdGreaterThanOrderByIdAsc(String conversationId, Long lastId, Limit limit);
+    // Recupera i messaggi di una conversazione con id precedente al cursore ma creati a ridosso di esso, dal più recente.
+    List<Message> findByConversationIdAndIdLessThanAndCreatedAtGreaterThanEqualOrderByIdDesc(String conversationId, Long lastId,
+                                                                                           Instant createdFrom, Limit limit);
 }
@@ -0,0 +1,118 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import com.example.server.domain.Notification;                         // Entità restituita dalla casella delle notifiche.
+import org.springframework.jdbc.core.RowMapper;                        // Interfaccia per mappare le righe del ResultSet in oggetti Java.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.sql.Timestamp;                                             // Conversione dei timestamp delle notifiche.
+import java.time.Instant;                                              // Istante da cui leggere le notifiche.
+import java.util.List;                                                 // Supporta la gestione di liste di risultati.
+import java.util.Objects;                                              // Verifica del conteggio restituito.
+
+/**
+ * Repository custom della casella notifiche di un utente: notifiche personali e del suo team lette con un'unica
+ * query {@code UNION ALL}, già ordinate e limitate dal database. Ogni ramo ha il proprio {@code LIMIT} e sfrutta
+ * gli indici {@code (user_id, created_at, is_read)} e {@code (team_id, created_at, is_read)}, che coprono anche
+ * il conteggio delle non lette. Con il solo {@code since} le notifiche successive restano ordinate dalla più recente,
+ * entro il limite. Con {@code since} e {@code afterId} sono restituite dalla più vecchia in ordine
+ * {@code (created_at, id)}: se sono più del limite, la richiesta seguente passa {@code createdAt} e {@code id}
+ * dell'ultima ricevuta e riparte da lì con una condizione keyset, senza perdere le notifiche con lo stesso istante.
+ * Lettura in blocco e pulizia delle notifiche lette sono singole istruzioni SQL.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class NotificationInboxRepository {                             // Repository dedicato alla casella notifiche.
+
+    private static final String COLUMNS = "\"id\", \"user_id\", \"team_id\", \"title\", \"message\", \"is_read\", \"created_at\"";
+
+    private static final RowMapper<Notification> ROW_MAPPER = (rs, rowNum) -> new Notification( // Converte ogni riga.
+            rs.getLong("id"),                                          // Identificativo della notifica.
+            rs.getObject("user_id", Long.class),                       // Utente destinatario, nullo per le notifiche di team.
+            rs.getObject("team_id", Long.class),                       // Team destinatario, nullo per le notifiche personali.
+            rs.getString("title"),                                     // Titolo.
+            rs.getString("message"),                                   // Testo.
+            rs.getBoolean("is_read"),                                  // Stato di lettura.
+            rs.getTimestamp("created_at").toInstant()                  // Istante di creazione.
+    );
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL.
+
+    public NotificationInboxRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
+        this.jdbcTemplate = jdbcTemplate;                              // Assegna il template al campo interno.
+    }
+
+    public List<Notification> findInbox(Long userId, Long teamId, Instant since, int limit) { // Notifiche di utente e team, dalla più recente o dopo since.
+        return findInbox(userId, teamId, since, null, limit);          // Senza id: tutte le notifiche dopo l'istante.
+    }
+
+    public List<Notification> findInbox(Long userId, Long teamId, Instant since, Long afterId, int limit) { // Riprende dopo la coppia (since, afterId).
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("limit", limit);
+        String sinceFilter = "";                                       // Nessun filtro: le più recenti entro il limite.
+        String order = "\"created_at\" DESC, \"id\" DESC";              // Casella completa: dalla più recente.
+        if (since != null) {
+            sinceFilter = " AND \"created_at\" > :since";              // Solo le notifiche successive all'ultimo aggiornamento.
+            if (afterId != null) {                                     // Cursore completo: stesso istante ma id successivo.
+                sinceFilter = " AND (\"created_at\" > :since OR (\"created_at\" = :since AND \"id\" > :afterId))";
+                order = "\"created_at\", \"id\"";                       // Dalla più vecchia: oltre il limite restano le più nuove, lette alla richiesta seguente.
+                params.addValue("afterId", afterId);
+            }
+            params.addValue("since", Timestamp.from(since));
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM (")
+                .append(branch("user_id", ":userId", sinceFilter, order)); // Notifiche personali.
+        if (teamId != null) {
+            sql.append(" UNION ALL ").append(branch("team_id", ":teamId", sinceFilter, order)); // Notifiche del team.
+            params.addValue("teamId", teamId);
+        }
+        sql.append(") \"inbox\" ORDER BY ").append(order).append(" LIMIT :limit"); // Unione dei due rami già limitati.
+        return jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    public long countUnread(Long userId, Long teamId) {                // Notifiche non lette di utente e team.
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId)
+                .addValue("read", false);                              // Confronto sul flag senza letterali booleani del dialetto.
+        StringBuilder sql = new StringBuilder("SELECT (SELECT COUNT(*) FROM \"notifications\" WHERE \"user_id\" = :userId AND \"is_read\" = :read)");
+        if (teamId != null) {
+            sql.append(" + (SELECT COUNT(*) FROM \"notifications\" WHERE \"team_id\" = :teamId AND \"is_read\" = :read)"); // Conteggio sul secondo indice.
+            params.addValue("teamId", teamId);
+        }
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(sql.toString(), params, Long.class), "count must not be null");
+    }
+
+    public int markReadUpTo(Long userId, Long teamId, long upToId) {   // Segna come lette le notifiche fino all'id indicato.
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("upToId", upToId)
+                .addValue("read", true)
+                .addValue("unread", false);
+        StringBuilder sql = new StringBuilder("""
+                UPDATE "notifications" SET "is_read" = :read
+                WHERE "id" <= :upToId AND "is_read" = :unread AND ("user_id" = :userId""");
+        if (teamId != null) {
+            sql.append(" OR \"team_id\" = :teamId");                   // Più le notifiche del team.
+            params.addValue("teamId", teamId);
+        }
+        sql.append(')');
+        return jdbcTemplate.update(sql.toString(), params);            // Un'unica istruzione al posto di lettura e salvataggio per riga.
+    }
+
+    public int deleteReadBefore(Instant cutoff, int batchSize) {       // Elimina un blocco di notifiche lette più vecchie della soglia.
+        return jdbcTemplate.update("""
+                DELETE FROM "notifications" WHERE "id" IN (
+                    SELECT "id" FROM "notifications"
+                    WHERE "is_read" = :read AND "created_at" < :cutoff
+                    ORDER BY "id" LIMIT :batchSize)
+                """, new MapSqlParameterSource()
+                .addValue("read", true)
+                .addValue("cutoff", Timestamp.from(cutoff))
+                .addValue("batchSize", batchSize));                    // Blocchi limitati: lock brevi anche su tabelle grandi.
+    }
+
+    private static String branch(String column, String parameter, String sinceFilter, String order) { // Un ramo della UNION ALL, servito dal proprio indice.
+        return "SELECT * FROM (SELECT " + COLUMNS + " FROM \"notifications\" WHERE \"" + column + "\" = " + parameter
+                + sinceFilter + " ORDER BY " + order + " LIMIT :limit) \"" + column + "_inbox\""; // Stesso ordine della query esterna.
+    }
+}
@@ -8,8 +8,6 @@ import org.springframework.data.repository.CrudRepository;
 // Importazione dell'annotazione che registra l'interfaccia come repository Spring.
 import org.springframework.stereotype.Repository;
 
-// Importazione di Instant per filtrare le notifiche in base alla data di creazione.
-import java.time.Instant;
 // Importazione di List per restituire collezioni di notifiche ordinate.
 import java.util.List;
 
@@ -17,15 +15,9 @@ import java.util.List;
 @Repository
 public interface NotificationRepository extends CrudRepository<Notification, Long> {
 
-    // Recupera le notifiche di un utente ordinate dalla più recente alla meno recente.
-    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
+    // Recupera le notifiche di un utente con id successivo all'ultimo ricevuto, nell'ordine di creazione.
+    List<Notification> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long lastId);
 
-    // Recupera le notifiche di un team ordinate dalla più recente alla meno recente.
-    List<Notification> findByTeamIdOrderByCreatedAtDesc(Long teamId);
-
-    // Recupera le notifiche di un utente successive a un istante specifico, in ordine decrescente di creazione.
-    List<Notification> findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(Long userId, Instant createdAfter);
-
-    // Recupera le notifiche di un team successive a un istante specifico, in ordine decrescente di creazione.
-    List<Notification> findByTeamIdAndCreatedAtAfterOrderByCreatedAtDesc(Long teamId, Instant createdAfter);
+    // Recupera le notifiche di un team con id successivo all'ultimo ricevuto, nell'ordine di creazione.
+    List<Notification> findByTeamIdAndIdGreaterThanOrderByIdAsc(Long teamId, Long lastId);
 }
@@ -0,0 +1,34 @@
+package com.example.server.repository; // Package che contiene i repository e le classi di query personalizzate.
+
+import org.springframework.context.annotation.Profile; // Attiva il backend solo con SQL Server.
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati della query SQL.
+import org.springframework.stereotype.Component; // Stereotipo Spring del componente.
+
+import java.util.List; // Termini della ricerca.
+import java.util.stream.Collectors; // Composizione della condizione CONTAINS.
+
+/**
+ * Ricerca testuale tramite il catalogo full-text di SQL Server ({@code ft_document_history}, creato dalla
+ * migrazione in {@code db/sqlserver}). Ogni parola cercata diventa un termine prefisso di {@code CONTAINS},
+ * con la stessa semantica dell'indice in memoria usato negli altri profili. L'indice è mantenuto dal database
+ * ({@code CHANGE_TRACKING AUTO}), quindi le nuove voci non richiedono notifiche.
+ */
+@Component // Registrato come bean Spring.
+@Profile("sqlserver") // Solo con il database SQL Server.
+public class SqlServerFullTextSearch implements DocumentHistoryTextSearch { // Backend basato su CONTAINS.
+
+    private final DocumentHistoryTextSearch fallback = new LikeDocumentHistoryTextSearch(); // Ricerca per testi senza parole.
+
+    @Override
+    public void appendCondition(String searchText, StringBuilder whereClause, MapSqlParameterSource parameters) { // Condizione CONTAINS sulla descrizione.
+        List<String> terms = InMemoryDocumentHistoryTextSearch.terms(searchText); // Parole normalizzate come nell'indice in memoria.
+        if (terms.isEmpty()) { // Solo punteggiatura: CONTAINS rifiuterebbe la condizione.
+            fallback.appendCondition(searchText, whereClause, parameters); // Ricerca per sottostringa.
+            return;
+        }
+        whereClause.append(" AND CONTAINS(\"description\", :search)"); // Usa il catalogo full-text.
+        parameters.addValue("search", terms.stream() // Tutte le parole devono comparire come prefisso.
+                .map(term -> "\"" + term + "*\"") // Le parole contengono solo lettere e cifre: nessun escape necessario.
+                .collect(Collectors.joining(" AND ")));
+    }
+}
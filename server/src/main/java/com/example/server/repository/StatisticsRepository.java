@@ -1,5 +1,6 @@
 package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
 
+import com.example.common.enums.InvoiceStatus;                         // Enum degli stati fattura, per riconoscere le fatture pagate.
 import org.springframework.jdbc.core.RowMapper;                        // Interfaccia per mappare le righe del ResultSet in oggetti Java.
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
@@ -9,9 +10,16 @@ import java.math.BigDecimal;                                           // Rappre
 import java.time.LocalDate;                                            // Gestisce le date filtro.
 import java.util.List;                                                 // Supporta la gestione di liste di risultati.
 
+/**
+ * Repository custom per le aggregazioni statistiche. Quando il periodo richiesto copre mesi interi le aggregazioni
+ * leggono dalla tabella {@code commission_monthly_rollups} (una riga per agente e mese); negli altri casi
+ * aggregano direttamente le fatture.
+ */
 @Repository                                                             // Rende la classe un bean Spring di tipo repository.
 public class StatisticsRepository {                                    // Repository custom per aggregazioni statistiche.
 
+    private static final String PAID_STATUS = InvoiceStatus.PAID.name(); // Unico stato mantenuto nel rollup.
+
     private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL con parametri nominati.
 
     public StatisticsRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
@@ -30,7 +38,25 @@ public class StatisticsRepository {                                    // Reposi
         return jdbcTemplate.query(sql, params, (rs, rowNum) -> rs.getInt("payment_year"));  // Esegue la query e mappa l'anno come intero.
     }
 
+    public List<YearCount> findPaidInvoiceCountsByYear(String paidStatus) { // Conta le fatture pagate per anno, base del registro anni in memoria.
+        String sql = """
+                SELECT EXTRACT(YEAR FROM i."payment_date") AS payment_year,
+                       COUNT(*) AS invoice_count
+                FROM "invoices" i
+                WHERE i."status" = :paidStatus AND i."payment_date" IS NOT NULL
+                GROUP BY EXTRACT(YEAR FROM i."payment_date")
+                ORDER BY payment_year
+                """;
+        MapSqlParameterSource params = new MapSqlParameterSource("paidStatus", paidStatus); // Parametro nominato per lo stato.
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new YearCount(  // Mappa anno e numero di fatture.
+                rs.getInt("payment_year"),
+                rs.getLong("invoice_count")));
+    }
+
     public List<MonthlyAggregate> findMonthlyTotals(LocalDate fromDate, LocalDate toDate, String paidStatus, Long roleId) { // Aggrega i totali mensili in un intervallo.
+        if (readsFromRollup(fromDate, toDate, paidStatus)) {
+            return findMonthlyTotalsFromRollup(fromDate, toDate, roleId);
+        }
         StringBuilder sql = new StringBuilder("""
                 SELECT EXTRACT(YEAR FROM i."payment_date") AS payment_year,
                        EXTRACT(MONTH FROM i."payment_date") AS payment_month,
@@ -70,6 +96,9 @@ public class StatisticsRepository {                                    // Reposi
     }
 
     public List<AgentAggregate> findAgentTotals(LocalDate fromDate, LocalDate toDate, String paidStatus, Long roleId) { // Aggrega i totali per agente e team.
+        if (readsFromRollup(fromDate, toDate, paidStatus)) {
+            return findAgentTotalsFromRollup(fromDate, toDate, roleId);
+        }
         StringBuilder sql = new StringBuilder("""
                 SELECT a."id" AS agent_id,
                        u."display_name" AS agent_name,
@@ -114,6 +143,9 @@ public class StatisticsRepository {                                    // Reposi
     }
 
     public List<TeamAggregate> findTeamTotals(LocalDate fromDate, LocalDate toDate, String paidStatus, Long roleId) { // Aggrega i totali dei team.
+        if (readsFromRollup(fromDate, toDate, paidStatus)) {
+            return findTeamTotalsFromRollup(fromDate, toDate, roleId);
+        }
         StringBuilder sql = new StringBuilder("""
                 SELECT t."id" AS team_id,
                        t."name" AS team_name,
@@ -153,6 +185,103 @@ public class StatisticsRepository {                                    // Reposi
         return jdbcTemplate.query(sql.toString(), params, mapper);
     }
 
+    private List<MonthlyAggregate> findMonthlyTotalsFromRollup(LocalDate fromDate, LocalDate toDate, Long roleId) { // Totali mensili letti dal rollup.
+        StringBuilder sql = new StringBuilder("""
+                SELECT r."period_start" AS period_start,
+                       SUM(r."total_amount") AS total_amount
+                FROM "commission_monthly_rollups" r
+                         JOIN "agents" a ON r."agent_id" = a."id"
+                         JOIN "users" u ON a."user_id" = u."id"
+                WHERE 1 = 1
+                """);
+        MapSqlParameterSource params = rollupFilters(sql, fromDate, toDate, roleId);
+        sql.append(" GROUP BY r.\"period_start\"")
+                .append(" ORDER BY r.\"period_start\" ASC");
+
+        RowMapper<MonthlyAggregate> mapper = (rs, rowNum) -> {
+            LocalDate periodStart = rs.getDate("period_start").toLocalDate();
+            return new MonthlyAggregate(periodStart.getYear(), periodStart.getMonthValue(), rs.getBigDecimal("total_amount"));
+        };
+        return jdbcTemplate.query(sql.toString(), params, mapper);
+    }
+
+    private List<AgentAggregate> findAgentTotalsFromRollup(LocalDate fromDate, LocalDate toDate, Long roleId) { // Totali per agente letti dal rollup.
+        StringBuilder sql = new StringBuilder("""
+                SELECT a."id" AS agent_id,
+                       u."display_name" AS agent_name,
+                       t."id" AS team_id,
+                       t."name" AS team_name,
+                       SUM(r."total_amount") AS total_amount
+                FROM "commission_monthly_rollups" r
+                         JOIN "agents" a ON r."agent_id" = a."id"
+                         JOIN "users" u ON a."user_id" = u."id"
+                         JOIN "teams" t ON u."team_id" = t."id"
+                WHERE 1 = 1
+                """);
+        MapSqlParameterSource params = rollupFilters(sql, fromDate, toDate, roleId);
+        sql.append(" GROUP BY a.\"id\", u.\"display_name\", t.\"id\", t.\"name\"")
+                .append(" ORDER BY total_amount DESC");
+
+        RowMapper<AgentAggregate> mapper = (rs, rowNum) -> new AgentAggregate(
+                rs.getLong("agent_id"),
+                rs.getString("agent_name"),
+                rs.getLong("team_id"),
+                rs.getString("team_name"),
+                rs.getBigDecimal("total_amount")
+        );
+        return jdbcTemplate.query(sql.toString(), params, mapper);
+    }
+
+    private List<TeamAggregate> findTeamTotalsFromRollup(LocalDate fromDate, LocalDate toDate, Long roleId) { // Totali per team letti dal rollup.
+        StringBuilder sql = new StringBuilder("""
+                SELECT t."id" AS team_id,
+                       t."name" AS team_name,
+                       SUM(r."total_amount") AS total_amount
+                FROM "commission_monthly_rollups" r
+                         JOIN "agents" a ON r."agent_id" = a."id"
+                         JOIN "users" u ON a."user_id" = u."id"
+                         JOIN "teams" t ON u."team_id" = t."id"
+                WHERE 1 = 1
+                """);
+        MapSqlParameterSource params = rollupFilters(sql, fromDate, toDate, roleId);
+        sql.append(" GROUP BY t.\"id\", t.\"name\"")
+                .append(" ORDER BY total_amount DESC");
+
+        RowMapper<TeamAggregate> mapper = (rs, rowNum) -> new TeamAggregate(
+                rs.getLong("team_id"),
+                rs.getString("team_name"),
+                rs.getBigDecimal("total_amount")
+        );
+        return jdbcTemplate.query(sql.toString(), params, mapper);
+    }
+
+    private MapSqlParameterSource rollupFilters(StringBuilder sql, LocalDate fromDate, LocalDate toDate, Long roleId) { // Filtri comuni alle letture dal rollup.
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromDate", fromDate)
+                .addValue("toDate", toDate)
+                .addValue("roleId", roleId);
+        if (fromDate != null) {
+            sql.append(" AND r.\"period_start\" >= :fromDate");
+        }
+        if (toDate != null) {
+            sql.append(" AND r.\"period_start\" <= :toDate");
+        }
+        if (roleId != null) {
+            sql.append(" AND u.\"role_id\" = :roleId");
+        }
+        return params;
+    }
+
+    private static boolean readsFromRollup(LocalDate fromDate, LocalDate toDate, String paidStatus) { // Il rollup ha granularità mensile.
+        return PAID_STATUS.equals(paidStatus)
+                && (fromDate == null || fromDate.getDayOfMonth() == 1)
+                && (toDate == null || toDate.equals(toDate.withDayOfMonth(toDate.lengthOfMonth())));
+    }
+
+    // Record che rappresenta il numero di fatture pagate in un anno.
+    public record YearCount(Integer paymentYear, Long invoiceCount) {
+    }
+
     // Record che rappresenta l'aggregazione mensile.
     public record MonthlyAggregate(Integer paymentYear, Integer paymentMonth, BigDecimal totalAmount) {
         public Integer getYear() {                                    // Getter standardizzato dell'anno.
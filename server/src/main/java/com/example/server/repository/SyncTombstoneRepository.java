@@ -0,0 +1,52 @@
+package com.example.server.repository;                                 // Package che contiene i repository personalizzati del backend.
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Classe per fornire parametri nominati nelle query SQL.
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC che supporta parametri nominati.
+import org.springframework.stereotype.Repository;                      // Indica che la classe è un componente di accesso ai dati.
+
+import java.sql.Timestamp;                                             // Conversione degli istanti di cancellazione.
+import java.time.Instant;                                              // Istante di cancellazione.
+import java.util.List;                                                 // Supporta la gestione di liste di risultati.
+
+/**
+ * Repository custom delle tombstone usate dalla sincronizzazione incrementale: per ogni entità eliminata resta
+ * una riga con tipo, id e istante di cancellazione, così i client possono rimuoverla dalla propria copia locale.
+ * Le letture e la pulizia sfruttano l'indice {@code (entity_type, deleted_at)}.
+ */
+@Repository                                                             // Rende la classe un bean Spring di tipo repository.
+public class SyncTombstoneRepository {                                 // Repository dedicato alle tombstone.
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;             // Template centralizzato per eseguire query SQL.
+
+    public SyncTombstoneRepository(NamedParameterJdbcTemplate jdbcTemplate) { // Costruttore con iniezione del template JDBC.
+        this.jdbcTemplate = jdbcTemplate;                              // Assegna il template al campo interno.
+    }
+
+    public void insert(String entityType, long entityId, Instant deletedAt) { // Registra la cancellazione di un'entità.
+        jdbcTemplate.update("""
+                INSERT INTO "sync_tombstones" ("entity_type", "entity_id", "deleted_at")
+                VALUES (:entityType, :entityId, :deletedAt)
+                """, new MapSqlParameterSource()
+                .addValue("entityType", entityType)
+                .addValue("entityId", entityId)
+                .addValue("deletedAt", Timestamp.from(deletedAt)));
+    }
+
+    public List<Long> findDeletedIds(String entityType, Instant since) { // Id eliminati dopo l'istante indicato.
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT "entity_id" FROM "sync_tombstones"
+                WHERE "entity_type" = :entityType AND "deleted_at" > :since
+                """, new MapSqlParameterSource()
+                .addValue("entityType", entityType)
+                .addValue("since", Timestamp.from(since)), Long.class);
+    }
+
+    public int deleteOlderThan(String entityType, Instant cutoff) {   // Elimina le tombstone oltre la retention.
+        return jdbcTemplate.update("""
+                DELETE FROM "sync_tombstones"
+                WHERE "entity_type" = :entityType AND "deleted_at" < :cutoff
+                """, new MapSqlParameterSource()
+                .addValue("entityType", entityType)
+                .addValue("cutoff", Timestamp.from(cutoff)));
+    }
+}
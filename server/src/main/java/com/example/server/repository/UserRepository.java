@@ -3,6 +3,8 @@ package com.example.server.repository;
 
 // Import the User entity to define repository operations.
 import com.example.server.domain.User;
+// Import Limit to bound keyset pages.
+import org.springframework.data.domain.Limit;
 // Import CrudRepository to expose CRUD operations for users.
 import org.springframework.data.repository.CrudRepository;
 // Import Repository annotation to register the interface with Spring.
@@ -21,6 +23,15 @@ public interface UserRepository extends CrudRepository<User, Long> {
     // Retrieve all users sorted by their display name in ascending order.
     List<User> findAllByOrderByDisplayNameAsc();
 
+    // Retrieve the first keyset page ordered by display name and id.
+    List<User> findAllByOrderByDisplayNameAscIdAsc(Limit limit);
+
+    // Retrieve the keyset page that follows the given (displayName, id) position.
+    List<User> findByDisplayNameGreaterThanOrDisplayNameAndIdGreaterThanOrderByDisplayNameAscIdAsc(String displayName,
+                                                                                                  String sameDisplayName,
+                                                                                                  Long id,
+                                                                                                  Limit limit);
+
     // Find a user by email if present.
     Optional<User> findByEmail(String email);
 
@@ -1,6 +1,7 @@
 package com.example.server.service; // Inserisce il servizio nel package principale del server.
 
 import com.example.common.dto.AgentDTO; // Importa il DTO usato per trasferire i dati dell'agente.
+import com.example.common.dto.CursorPageDTO; // Importa il DTO delle pagine a cursore.
 import com.example.server.domain.Agent; // Importa l'entità di dominio che rappresenta l'agente nel database.
 import com.example.server.repository.AgentRepository; // Importa il repository JPA incaricato di leggere e scrivere gli agenti.
 import com.example.server.service.mapper.AgentMapper; // Importa il mapper che traduce tra entità Agent e AgentDTO.
@@ -16,9 +17,12 @@ import java.util.Optional; // Importa Optional per modellare risultati facoltati
 public class AgentService { // Classe che incapsula le operazioni di business sugli agenti.
 
     private final AgentRepository agentRepository; // Repository usato per tutte le operazioni di persistenza degli agenti.
+    private final TeamCommissionRuleRegistry teamCommissionRuleRegistry; // Registro delle regole provvigionali da invalidare sulle modifiche.
 
-    public AgentService(AgentRepository agentRepository) { // Costruttore che riceve il repository tramite dependency injection.
+    public AgentService(AgentRepository agentRepository, // Costruttore che riceve il repository tramite dependency injection.
+                        TeamCommissionRuleRegistry teamCommissionRuleRegistry) { // Riceve il registro delle regole provvigionali.
         this.agentRepository = agentRepository; // Assegna il repository al campo interno per utilizzi futuri.
+        this.teamCommissionRuleRegistry = teamCommissionRuleRegistry; // Assegna il registro delle regole.
     } // Termine del costruttore di AgentService.
 
     public List<AgentDTO> findAll() { // Recupera tutti gli agenti e li ordina per codice.
@@ -27,6 +31,19 @@ public class AgentService { // Classe che incapsula le operazioni di business su
                 .toList(); // Raccoglie tutti i DTO in una lista immutabile.
     } // Chiusura del metodo findAll.
 
+    public CursorPageDTO<AgentDTO> findPage(String cursor, Integer size) { // Recupera una pagina keyset di agenti.
+        int pageSize = KeysetPagination.pageSize(size); // Normalizza la dimensione richiesta.
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Posizione successiva alla pagina precedente.
+        List<Agent> agents = position == null // Legge una riga in più per sapere se esiste un seguito.
+                ? agentRepository.findAllByOrderByAgentCodeAsc(KeysetPagination.fetchLimit(pageSize))
+                : agentRepository.findByAgentCodeGreaterThanOrderByAgentCodeAsc(position.key(), // Il codice è univoco: basta come chiave di seek.
+                        KeysetPagination.fetchLimit(pageSize));
+        return KeysetPagination.page(agents, pageSize, // Costruisce la pagina e il cursore successivo.
+                Agent::getAgentCode,
+                Agent::getId,
+                rows -> rows.stream().map(AgentMapper::toDto).toList());
+    } // Chiusura del metodo findPage.
+
     public Optional<AgentDTO> findById(Long id) { // Cerca un agente tramite il suo identificativo.
         return agentRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Controlla che l'id sia valorizzato e interroga il repository.
                 .map(AgentMapper::toDto); // Se l'entità esiste, la converte in DTO.
@@ -39,6 +56,7 @@ public class AgentService { // Classe che incapsula le operazioni di business su
         Agent agent = Objects.requireNonNull(AgentMapper.fromDto(validatedDto), "mapped agent must not be null"); // Converte il DTO in entità e verifica che la conversione sia riuscita.
         Agent toSave = Agent.forUser(agent.getUserId(), normalize(agent.getAgentCode()), normalize(agent.getTeamRole())); // Normalizza i valori testuali e costruisce l'entità pronta per il salvataggio.
         Agent saved = agentRepository.save(toSave); // Salva l'entità nel database.
+        teamCommissionRuleRegistry.invalidate(); // Il nuovo agente modifica le quote del suo team.
         return AgentMapper.toDto(saved); // Restituisce il DTO dell'agente appena salvato.
     } // Chiusura del metodo create.
 
@@ -52,7 +70,10 @@ public class AgentService { // Classe che incapsula le operazioni di business su
                         normalize(validatedDto.getAgentCode()), // Normalizza il codice agente ricevuto.
                         normalize(validatedDto.getTeamRole()))) // Normalizza il ruolo del team.
                 .map(agentRepository::save) // Salva l'entità aggiornata nel database.
-                .map(AgentMapper::toDto); // Converte il risultato persistito in DTO.
+                .map(saved -> { // Dopo il salvataggio aggiorna il registro delle regole.
+                    teamCommissionRuleRegistry.invalidate(); // Ruolo o utente possono cambiare le quote di team.
+                    return AgentMapper.toDto(saved); // Converte il risultato persistito in DTO.
+                });
     } // Chiusura del metodo update.
 
     @Transactional // Avvolge la cancellazione in una transazione per garantire atomicità.
@@ -60,6 +81,7 @@ public class AgentService { // Classe che incapsula le operazioni di business su
         return agentRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Verifica l'id e cerca l'agente.
                 .map(existing -> { // Se l'agente esiste, esegue il blocco di cancellazione.
                     agentRepository.deleteById(id); // Rimuove l'entità dal database.
+                    teamCommissionRuleRegistry.invalidate(); // L'agente rimosso non partecipa più alle quote.
                     return true; // Segnala che la cancellazione è andata a buon fine.
                 }) // Chiusura della lambda di gestione dell'Optional.
                 .orElse(false); // Restituisce false se l'agente non è stato trovato.
@@ -1,6 +1,8 @@
 package com.example.server.service; // Specifica il package che ospita il servizio dedicato agli articoli.
 
 import com.example.common.dto.ArticleDTO; // Importa il DTO impiegato per esporre i dati degli articoli all'esterno.
+import com.example.common.dto.ChangeSetDTO; // Importa il DTO delle modifiche incrementali.
+import com.example.common.dto.CursorPageDTO; // Importa il DTO delle pagine a cursore.
 import com.example.server.domain.Article; // Importa l'entità Article che rappresenta un prodotto persistito.
 import com.example.server.repository.ArticleRepository; // Importa il repository JPA responsabile delle operazioni sugli articoli.
 import com.example.server.service.mapper.ArticleMapper; // Importa il mapper che converte tra entità Article e ArticleDTO.
@@ -9,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional; // Importa il s
 import org.springframework.util.StringUtils; // Importa gli helper per validare stringhe non vuote.
 
 import java.math.BigDecimal; // Importa BigDecimal per gestire importi monetari con precisione.
+import java.time.Instant; // Importa Instant per l'istante di sincronizzazione.
 import java.util.List; // Importa l'interfaccia List usata per restituire collezioni ordinate.
 import java.util.Objects; // Importa le utility per i controlli di nullità.
 import java.util.Optional; // Importa Optional per rappresentare risultati facoltativi.
@@ -17,9 +20,12 @@ import java.util.Optional; // Importa Optional per rappresentare risultati facol
 public class ArticleService { // Classe che gestisce la logica applicativa relativa agli articoli.
 
     private final ArticleRepository articleRepository; // Repository che esegue le operazioni di persistenza sugli articoli.
+    private final ChangeFeedService changeFeedService; // Servizio della sincronizzazione incrementale.
 
-    public ArticleService(ArticleRepository articleRepository) { // Costruttore che riceve il repository tramite dependency injection.
+    public ArticleService(ArticleRepository articleRepository, // Costruttore che riceve il repository tramite dependency injection.
+                          ChangeFeedService changeFeedService) { // Riceve il servizio delle modifiche incrementali.
         this.articleRepository = articleRepository; // Salva il repository in un campo per utilizzi futuri.
+        this.changeFeedService = changeFeedService; // Salva il servizio delle modifiche.
     } // Chiusura del costruttore.
 
     public List<ArticleDTO> findAll() { // Recupera tutti gli articoli ordinati alfabeticamente.
@@ -28,6 +34,26 @@ public class ArticleService { // Classe che gestisce la logica applicativa relat
                 .toList(); // Raccoglie i DTO in una lista immutabile.
     } // Chiusura del metodo findAll.
 
+    public CursorPageDTO<ArticleDTO> findPage(String cursor, Integer size) { // Recupera una pagina keyset di articoli.
+        int pageSize = KeysetPagination.pageSize(size); // Normalizza la dimensione richiesta.
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Posizione successiva alla pagina precedente.
+        List<Article> articles = position == null // Legge una riga in più per sapere se esiste un seguito.
+                ? articleRepository.findAllByOrderByNameAscIdAsc(KeysetPagination.fetchLimit(pageSize))
+                : articleRepository.findByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(
+                        position.key(), position.key(), position.id(), KeysetPagination.fetchLimit(pageSize));
+        return KeysetPagination.page(articles, pageSize, // Costruisce la pagina e il cursore successivo.
+                Article::getName,
+                Article::getId,
+                rows -> rows.stream().map(ArticleMapper::toDto).toList());
+    } // Chiusura del metodo findPage.
+
+    public ChangeSetDTO<ArticleDTO> findChanges(Instant since) { // Articoli creati, modificati o eliminati dopo l'istante indicato.
+        return changeFeedService.changes(ChangeFeedService.SyncedEntity.ARTICLE, since,
+                articleRepository::findByUpdatedAtGreaterThan, // Righe modificate tramite updated_at.
+                rows -> rows.stream().map(ArticleMapper::toDto).toList(),
+                this::findAll); // Elenco completo alla prima sincronizzazione.
+    } // Chiusura del metodo findChanges.
+
     public Optional<ArticleDTO> findById(Long id) { // Cerca un articolo specifico tramite l'identificativo.
         return articleRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Verifica che l'id sia presente e interroga il repository.
                 .map(ArticleMapper::toDto); // Se trovato, converte l'entità in DTO.
@@ -77,6 +103,7 @@ public class ArticleService { // Classe che gestisce la logica applicativa relat
         return articleRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Controlla l'id e cerca l'articolo corrispondente.
                 .map(existing -> { // Se l'articolo è presente, esegue il blocco di cancellazione.
                     articleRepository.deleteById(id); // Rimuove l'entità dal database.
+                    changeFeedService.recordDeletion(ChangeFeedService.SyncedEntity.ARTICLE, id); // Tombstone per i client sincronizzati.
                     return true; // Indica che la cancellazione è stata completata correttamente.
                 }) // Chiusura della lambda di gestione dell'Optional.
                 .orElse(false); // Restituisce false se l'articolo non è stato trovato.
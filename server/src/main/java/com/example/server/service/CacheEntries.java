@@ -0,0 +1,27 @@
+package com.example.server.service; // Package dei servizi applicativi.
+
+import org.springframework.cache.Cache; // Cache Spring da invalidare.
+
+import java.util.concurrent.ConcurrentMap; // Mappa nativa delle cache in memoria.
+import java.util.function.Predicate; // Filtro sulle chiavi da scartare.
+
+/**
+ * Invalidazione selettiva delle cache Spring: l'astrazione {@link Cache} non permette di scorrere le chiavi,
+ * quindi si passa dalla cache nativa (Caffeine o mappa concorrente). Con altri provider la cache viene svuotata.
+ */
+final class CacheEntries { // Utility senza stato.
+
+    private CacheEntries() { // Non istanziabile.
+    }
+
+    static void evictIf(Cache cache, Predicate<Object> keyFilter) { // Scarta le voci le cui chiavi soddisfano il filtro.
+        Object nativeCache = cache.getNativeCache(); // Implementazione del provider.
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) { // Provider predefinito.
+            caffeine.asMap().keySet().removeIf(keyFilter); // Vista concorrente della cache.
+        } else if (nativeCache instanceof ConcurrentMap<?, ?> map) { // ConcurrentMapCacheManager.
+            map.keySet().removeIf(keyFilter);
+        } else { // Provider senza accesso alle chiavi.
+            cache.clear(); // Invalida tutto per prudenza.
+        }
+    }
+}
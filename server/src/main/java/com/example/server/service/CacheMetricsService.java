@@ -0,0 +1,43 @@
+package com.example.server.service; // Package dei servizi applicativi.
+
+import com.example.common.dto.CacheMetricsDTO; // DTO con le statistiche di una cache.
+import com.github.benmanes.caffeine.cache.stats.CacheStats; // Statistiche registrate da Caffeine.
+import org.springframework.cache.Cache; // Cache Spring da descrivere.
+import org.springframework.cache.CacheManager; // Gestore delle cache applicative.
+import org.springframework.stereotype.Service; // Annotazione di servizio Spring.
+
+import java.util.Comparator; // Ordinamento per nome.
+import java.util.List; // Elenco delle statistiche.
+import java.util.Objects; // Filtro delle cache assenti.
+
+/**
+ * Raccoglie le statistiche delle cache Caffeine del server. Le cache create al primo utilizzo compaiono
+ * dopo la prima lettura; con provider diversi da Caffeine i contatori restano a zero.
+ */
+@Service // Indica che la classe è un servizio Spring.
+public class CacheMetricsService { // Statistiche delle cache.
+
+    private final CacheManager cacheManager; // Gestore delle cache.
+
+    public CacheMetricsService(CacheManager cacheManager) { // Costruttore con dependency injection.
+        this.cacheManager = cacheManager; // Assegna il gestore.
+    }
+
+    public List<CacheMetricsDTO> caches() { // Statistiche di tutte le cache, ordinate per nome.
+        return cacheManager.getCacheNames().stream() // Nomi delle cache note.
+                .map(cacheManager::getCache) // Cache corrispondente.
+                .filter(Objects::nonNull)
+                .map(CacheMetricsService::metrics) // Fotografia dei contatori.
+                .sorted(Comparator.comparing(CacheMetricsDTO::name))
+                .toList();
+    }
+
+    private static CacheMetricsDTO metrics(Cache cache) { // Statistiche di una cache.
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)) { // Provider senza statistiche.
+            return new CacheMetricsDTO(cache.getName(), 0, 0, 0, 0, 0);
+        }
+        CacheStats stats = caffeine.stats(); // Contatori registrati con recordStats.
+        return new CacheMetricsDTO(cache.getName(), caffeine.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount()); // hitRate vale 1 se non ci sono letture.
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.server.service; // Package for service layer classes
+
+import com.example.common.dto.ChangeSetDTO; // DTO carrying the changes of a list
+import com.example.server.repository.SyncTombstoneRepository; // Repository of the deletion tombstones
+import org.springframework.beans.factory.annotation.Value; // Injection of configuration properties
+import org.springframework.stereotype.Service; // Spring stereotype indicating a service component
+
+import java.time.Clock; // Clock used for sync instants
+import java.time.Duration; // Overlap window and tombstone retention
+import java.time.Instant; // Sync instants
+import java.util.List; // List interface
+import java.util.Objects; // Utility for null checks
+import java.util.function.Function; // Query of the rows changed since an instant
+import java.util.function.Supplier; // Query of the full list
+
+/**
+ * Builds the "changes since" responses used by the clients to keep a local copy of invoices, customers and
+ * articles in sync without downloading the whole list. Created and updated rows are read through their
+ * {@code updated_at} column, deletions through the {@code sync_tombstones} table.
+ * <p>
+ * Each response carries the server instant at which it was built; the next request reads from that instant
+ * minus {@link #OVERLAP}, so rows stamped by a transaction that committed while the previous response was
+ * being read are not missed. The overlap may resend a few rows, which the client merges by id. A request
+ * without {@code since}, or older than the tombstone retention, gets the full list instead.
+ */
+@Service // Marks the class as a Spring service bean
+public class ChangeFeedService { // Incremental sync of client-side lists
+
+    static final Duration OVERLAP = Duration.ofSeconds(30); // Re-read window covering in-flight transactions
+
+    private final SyncTombstoneRepository tombstoneRepository; // Repository of the deletion tombstones
+    private final Clock clock; // Clock used for sync instants
+    private final Duration tombstoneRetention; // Age after which tombstones are deleted
+
+    public ChangeFeedService(SyncTombstoneRepository tombstoneRepository, // Constructor injecting dependencies
+                             Clock clock,
+                             @Value("${app.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.tombstoneRepository = tombstoneRepository; // Assign repository
+        this.clock = clock; // Assign clock
+        this.tombstoneRetention = tombstoneRetention; // Assign retention
+    } // End constructor
+
+    public void recordDeletion(SyncedEntity entity, Long id) { // Leaves a tombstone for a deleted row
+        Instant now = clock.instant(); // Deletion instant
+        tombstoneRepository.insert(entity.name(), Objects.requireNonNull(id, "id must not be null"), now); // Same transaction as the delete
+        tombstoneRepository.deleteOlderThan(entity.name(), now.minus(tombstoneRetention)); // Tombstones expire as fast as they are created
+    } // End recordDeletion
+
+    public <E, D> ChangeSetDTO<D> changes(SyncedEntity entity, // Builds the changes of a list since the given instant
+                                          Instant since,
+                                          Function<Instant, List<E>> changedSince,
+                                          Function<List<E>, List<D>> toDtos,
+                                          Supplier<List<D>> fullList) {
+        Instant now = clock.instant(); // Instant returned to the client for the next request
+        if (since == null || since.isBefore(now.minus(tombstoneRetention)) || since.isAfter(now)) { // First sync, expired tombstones or clock moved back
+            return new ChangeSetDTO<>(fullList.get(), List.of(), now, true); // Client replaces its copy
+        }
+        Instant from = since.minus(OVERLAP); // Re-read rows of transactions still open at the previous sync
+        List<D> items = toDtos.apply(changedSince.apply(from)); // Created or updated rows
+        List<Long> deletedIds = tombstoneRepository.findDeletedIds(entity.name(), from); // Deleted rows
+        return new ChangeSetDTO<>(items, deletedIds, now, false); // Delta to merge
+    } // End changes
+
+    public enum SyncedEntity { // Lists that support incremental sync
+        INVOICE, // Invoices
+        CUSTOMER, // Customers
+        ARTICLE // Articles
+    } // End SyncedEntity
+} // End ChangeFeedService class
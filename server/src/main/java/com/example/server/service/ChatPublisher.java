@@ -1,29 +1,63 @@
 package com.example.server.service; // Inserisce il componente nel package dedicato ai servizi del server.
 
 import com.example.common.dto.ChatMessageDTO; // Importa il DTO che incapsula il contenuto di un messaggio di chat.
+import com.example.server.service.broker.EventBroker; // Importa il trasporto che consegna i messaggi a tutte le istanze.
+import com.example.server.service.broker.InMemoryEventBroker; // Importa il trasporto predefinito a istanza singola.
+import com.example.server.service.broker.ListenerDispatcher; // Importa la consegna asincrona ai listener.
+import com.example.server.service.broker.SubscriberRegistry; // Importa il registro dei listener per conversazione.
+import org.springframework.beans.factory.annotation.Autowired; // Importa l'annotazione per il costruttore usato da Spring.
 import org.springframework.stereotype.Component; // Importa l'annotazione che registra la classe come componente Spring.
 
-import java.util.List; // Importa l'interfaccia List per gestire collezioni di listener.
-import java.util.Map; // Importa Map per associare conversazioni e relativi listener.
-import java.util.concurrent.ConcurrentHashMap; // Importa la mappa concorrente che consente accessi thread-safe.
-import java.util.concurrent.CopyOnWriteArrayList; // Importa una lista thread-safe adatta a letture frequenti.
 import java.util.function.Consumer; // Importa l'interfaccia Consumer usata per ricevere i messaggi pubblicati.
 
 @Component // Indica che la classe è un componente gestito dal container Spring.
 public class ChatPublisher { // Gestisce la registrazione dei listener e la diffusione dei messaggi di chat.
 
-    private final Map<String, List<Consumer<ChatMessageDTO>>> listeners = new ConcurrentHashMap<>(); // Mantiene i listener organizzati per identificativo di conversazione.
+    static final String TOPIC = "chat-messages"; // Topic del broker per i messaggi di chat.
+
+    private final SubscriberRegistry<String, Consumer<ChatMessageDTO>> listeners = new SubscriberRegistry<>(); // Mantiene i listener organizzati per identificativo di conversazione.
+    private final EventBroker broker; // Trasporto che raggiunge i listener di tutte le istanze.
+    private final ListenerDispatcher dispatcher; // Accoda ogni listener fuori dal thread che pubblica.
+
+    public ChatPublisher() { // Publisher per una singola istanza.
+        this(new InMemoryEventBroker(), ListenerDispatcher.direct()); // Consegna solo in processo e sincrona.
+    } // Chiusura del costruttore predefinito.
+
+    @Autowired // Costruttore usato da Spring.
+    public ChatPublisher(EventBroker broker, ListenerDispatcher dispatcher) { // Publisher basato sul broker configurato.
+        this.broker = broker; // Assegna il broker.
+        this.dispatcher = dispatcher; // Assegna il dispatcher.
+        broker.register(TOPIC, ChatMessageDTO.class, this::deliver); // Consegna locale di ogni messaggio pubblicato.
+    } // Chiusura del costruttore.
 
     public Subscription subscribe(String conversationId, Consumer<ChatMessageDTO> listener) { // Registra un nuovo listener per la conversazione indicata.
-        listeners.computeIfAbsent(conversationId, key -> new CopyOnWriteArrayList<>()).add(listener); // Crea la lista se assente e aggiunge il listener in modo thread-safe.
-        return () -> listeners.getOrDefault(conversationId, List.of()).remove(listener); // Restituisce un handler che permette di annullare in seguito la sottoscrizione.
+        return subscribe(conversationId, dispatcher.mailbox(listener)); // Coda dedicata: la pubblicazione si limita ad accodare.
+    } // Chiusura del metodo subscribe.
+
+    public Subscription subscribe(String conversationId, Consumer<ChatMessageDTO> listener, Runnable onOverflow) { // Registra un listener chiuso alla prima coda piena.
+        return subscribe(conversationId, dispatcher.mailbox(listener, onOverflow)); // Il listener riprende dal database invece di perdere messaggi.
     } // Chiusura del metodo subscribe.
 
-    public void publish(ChatMessageDTO message) { // Invia un messaggio a tutti i listener della conversazione.
-        listeners.getOrDefault(message.conversationId(), List.of()) // Recupera i listener registrati per l'id di conversazione.
-                .forEach(listener -> listener.accept(message)); // Notifica ogni listener passando il messaggio ricevuto.
+    private Subscription subscribe(String conversationId, ListenerDispatcher.Mailbox<ChatMessageDTO> mailbox) { // Registra la casella del listener.
+        listeners.add(conversationId, mailbox); // Aggiunge il listener alla conversazione in modo thread-safe.
+        return () -> { // Restituisce un handler che permette di annullare in seguito la sottoscrizione.
+            listeners.remove(conversationId, mailbox); // Rimuove il listener ed elimina la conversazione rimasta senza listener.
+            mailbox.close(); // Scarta le consegne ancora in coda.
+        };
+    } // Chiusura del metodo subscribe.
+
+    public SubscriberRegistry.Stats subscriptionStats() { // Conversazioni e sottoscrizioni attive su questa istanza.
+        return listeners.stats(); // Valori correnti del registro.
+    } // Chiusura del metodo subscriptionStats.
+
+    public void publish(ChatMessageDTO message) { // Invia un messaggio ai listener della conversazione su tutte le istanze.
+        broker.publish(TOPIC, message); // Affida il messaggio al broker.
     } // Chiusura del metodo publish.
 
+    private void deliver(ChatMessageDTO message) { // Consegna un messaggio ai listener di questa istanza.
+        listeners.forEach(message.conversationId(), listener -> listener.accept(message)); // Notifica ogni listener registrato per l'id di conversazione.
+    } // Chiusura del metodo deliver.
+
     @FunctionalInterface // Specifica che l'interfaccia dichiara un solo metodo astratto.
     public interface Subscription { // Rappresenta la gestione di una sottoscrizione a eventi di chat.
         void cancel(); // Annulla la sottoscrizione rimossa precedentemente.
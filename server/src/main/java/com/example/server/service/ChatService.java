@@ -5,20 +5,28 @@ import com.example.common.dto.ChatMessageDTO; // Importa il DTO per un messaggio
 import com.example.common.dto.ChatMessageRequest; // Importa il DTO per le richieste di invio messaggi
 import com.example.server.domain.Message; // Importa l'entità di dominio Message
 import com.example.server.domain.User; // Importa l'entità di dominio User
+import com.example.server.repository.ChatConversationRepository; // Importa il repository del riepilogo conversazioni
 import com.example.server.repository.MessageRepository; // Importa il repository per i messaggi
 import com.example.server.repository.UserRepository; // Importa il repository per gli utenti
+import org.springframework.beans.factory.annotation.Autowired; // Importa l'annotazione per il costruttore usato da Spring
+import org.springframework.beans.factory.annotation.Value; // Importa l'annotazione per leggere le proprietà
+import org.springframework.data.domain.Limit; // Importa il limite di righe per i metodi derivati
 import org.springframework.stereotype.Service; // Importa l'annotazione di servizio Spring
+import org.springframework.transaction.annotation.Transactional; // Importa la gestione transazionale
 import org.springframework.web.context.request.async.DeferredResult; // Importa il supporto per le risposte asincrone
 
 import java.time.Clock; // Importa Clock per ottenere l'ora corrente
+import java.time.Duration; // Importa Duration per la finestra di raccolta
 import java.time.Instant; // Importa Instant per gestire timestamp
 import java.util.ArrayList; // Importa la lista mutabile per le sottoscrizioni
-import java.util.Comparator; // Importa Comparator per ordinare elementi
 import java.util.List; // Importa List per collezionare risultati
-import java.util.Map; // Importa Map per raggruppare messaggi
+import java.util.Map; // Importa Map per i nomi degli interlocutori e i lotti di messaggi
 import java.util.Objects; // Importa utilità per controlli di nullità
 import java.util.Optional; // Importa Optional per valori facoltativi
-import java.util.concurrent.atomic.AtomicBoolean; // Importa AtomicBoolean per gestire stati concorrenti
+import java.util.Set; // Importa Set per gli id degli interlocutori
+import java.util.TreeMap; // Importa TreeMap per ordinare i messaggi del lotto
+import java.util.concurrent.CompletableFuture; // Importa l'executor ritardato per la finestra di raccolta
+import java.util.concurrent.TimeUnit; // Importa l'unità di misura del ritardo
 import java.util.stream.Collectors; // Importa Collectors per operazioni sugli stream
 import java.util.stream.StreamSupport; // Importa StreamSupport per creare stream da Iterable
 
@@ -26,40 +34,49 @@ import java.util.stream.StreamSupport; // Importa StreamSupport per creare strea
 public class ChatService { // Incapsula la logica dell'applicazione relativa alla chat
 
     private static final String TEAM_PREFIX = "team:"; // Prefisso per identificare conversazioni di team
+    static final int MAX_POLL_BATCH = 200; // Numero massimo di messaggi persi restituiti da un singolo poll
+    static final Duration RESUME_OVERLAP = Duration.ofSeconds(30); // Finestra riletta prima del cursore: copre le transazioni confermate fuori ordine
 
     private final MessageRepository messageRepository; // Repository per la persistenza dei messaggi
+    private final ChatConversationRepository conversationRepository; // Repository del riepilogo delle conversazioni
     private final UserRepository userRepository; // Repository per la persistenza degli utenti
     private final ChatPublisher chatPublisher; // Componente che gestisce la pubblicazione dei messaggi
     private final Clock clock; // Orologio iniettato per calcolare i timestamp
+    private final Duration coalesceWindow; // Attesa dopo il primo messaggio per restituirne altri nello stesso poll
 
     public ChatService(MessageRepository messageRepository, // Costruttore che riceve il repository dei messaggi
+                       ChatConversationRepository conversationRepository, // Repository del riepilogo iniettato
                        UserRepository userRepository, // Repository degli utenti iniettato
                        ChatPublisher chatPublisher, // Publisher iniettato per notificare i listener
                        Clock clock) { // Clock iniettato per controllare il tempo
+        this(messageRepository, conversationRepository, userRepository, chatPublisher, clock, Duration.ZERO); // Nessuna finestra di raccolta
+    }
+
+    @Autowired // Costruttore usato da Spring
+    public ChatService(MessageRepository messageRepository, // Costruttore che riceve il repository dei messaggi
+                       ChatConversationRepository conversationRepository, // Repository del riepilogo iniettato
+                       UserRepository userRepository, // Repository degli utenti iniettato
+                       ChatPublisher chatPublisher, // Publisher iniettato per notificare i listener
+                       Clock clock, // Clock iniettato per controllare il tempo
+                       @Value("${app.chat.poll.coalesce-window:250ms}") Duration coalesceWindow) { // Finestra di raccolta dei messaggi
         this.messageRepository = messageRepository; // Assegna il repository dei messaggi
+        this.conversationRepository = conversationRepository; // Assegna il repository del riepilogo
         this.userRepository = userRepository; // Assegna il repository degli utenti
         this.chatPublisher = chatPublisher; // Assegna il publisher
         this.clock = clock; // Assegna l'orologio
+        this.coalesceWindow = Objects.requireNonNull(coalesceWindow, "coalesceWindow must not be null"); // Assegna la finestra di raccolta
     }
 
     public List<ChatConversationDTO> listConversations(Long userId) { // Restituisce le conversazioni accessibili dall'utente
         User user = requireUser(userId); // Recupera l'utente e verifica che esista
-        Map<String, List<Message>> grouped = StreamSupport.stream(messageRepository.findAll().spliterator(), false) // Crea uno stream di tutti i messaggi
-                .filter(message -> canAccessConversation(user, message.getConversationId())) // Filtra i messaggi accessibili all'utente
-                .collect(Collectors.groupingBy(Message::getConversationId)); // Raggruppa i messaggi per conversazione
-
-        return grouped.entrySet().stream() // Scorre i gruppi di conversazione
-                .map(entry -> { // Mappa ogni gruppo in un DTO di conversazione
-                    List<Message> messages = entry.getValue(); // Estrae i messaggi del gruppo
-                    messages.sort(Comparator.comparing(Message::getCreatedAt).reversed()); // Ordina i messaggi per data decrescente
-                    Message latest = messages.getFirst(); // Prende l'ultimo messaggio
-                    String title = buildConversationTitle(entry.getKey(), user); // Costruisce il titolo da mostrare
-                    return new ChatConversationDTO(entry.getKey(), // Crea il DTO della conversazione
-                            title, // Imposta il titolo calcolato
-                            latest.getCreatedAt(), // Imposta l'ultima attività
-                            truncate(latest.getBody())); // Imposta l'anteprima del messaggio
-                })
-                .sorted(Comparator.comparing(ChatConversationDTO::lastActivity).reversed()) // Ordina le conversazioni per attività recente
+        List<ChatConversationRepository.ConversationSummary> summaries = conversationRepository.findAccessible(user.getTeamId()); // Una query sull'indice del riepilogo
+        Map<Long, String> participantNames = participantNames(summaries); // Nomi degli interlocutori letti in un unico lotto
+
+        return summaries.stream() // Scorre i riepiloghi già ordinati per attività recente
+                .map(summary -> new ChatConversationDTO(summary.conversationId(), // Crea il DTO della conversazione
+                        buildConversationTitle(summary.conversationId(), user, participantNames), // Imposta il titolo calcolato
+                        summary.lastMessageAt(), // Imposta l'ultima attività
+                        truncate(summary.lastMessageSnippet()))) // Imposta l'anteprima del messaggio
                 .toList(); // Colleziona i risultati in lista
     }
 
@@ -76,6 +93,7 @@ public class ChatService { // Incapsula la logica dell'applicazione relativa all
         return messages.stream().map(this::toResponse).toList(); // Converte i messaggi in DTO e li restituisce
     }
 
+    @Transactional // Messaggio e riepilogo della conversazione vengono salvati insieme
     public ChatMessageDTO sendMessage(ChatMessageRequest request) { // Invia un nuovo messaggio
         ChatMessageRequest requiredRequest = Objects.requireNonNull(request, "request must not be null"); // Verifica che la richiesta non sia nulla
         User sender = requireUser(requiredRequest.senderId()); // Recupera il mittente assicurandosi che esista
@@ -85,39 +103,51 @@ public class ChatService { // Incapsula la logica dell'applicazione relativa all
         Message message = Objects.requireNonNull(Message.create(conversationId, sender.getId(), sender.getTeamId(), // Crea il messaggio di dominio
                 requiredRequest.body(), Instant.now(clock)), "message must not be null"); // Utilizza l'orologio per impostare la data
         Message saved = messageRepository.save(message); // Salva il messaggio nel database
+        conversationRepository.recordMessage(saved, conversationTeamId(conversationId)); // Aggiorna il riepilogo della conversazione
         ChatMessageDTO response = toResponse(saved); // Converte l'entità salvata in DTO
-        chatPublisher.publish(response); // Notifica i listener della conversazione
+        chatPublisher.publish(response); // Il broker consegna ai listener solo dopo il commit
         return response; // Restituisce il DTO del messaggio inviato
     }
 
     public void registerConversationListener(Long userId, // Registra un listener per gli aggiornamenti di conversazione
                                              String conversationId, // Identificativo della conversazione da seguire
                                              DeferredResult<List<ChatMessageDTO>> deferredResult) { // Risultato asincrono da completare
+        registerConversationListener(userId, conversationId, null, deferredResult); // Nessun cursore: solo i messaggi futuri
+    }
+
+    public void registerConversationListener(Long userId, // Registra un listener con ripresa dall'ultimo messaggio ricevuto
+                                             String conversationId, // Identificativo della conversazione da seguire
+                                             Long afterId, // Id dell'ultimo messaggio già ricevuto dal client, se noto
+                                             DeferredResult<List<ChatMessageDTO>> deferredResult) { // Risultato asincrono da completare
         User user = requireUser(userId); // Recupera l'utente che si iscrive
         String requiredConversationId = Objects.requireNonNull(conversationId, "conversationId must not be null"); // Verifica la presenza dell'id conversazione
         DeferredResult<List<ChatMessageDTO>> requiredDeferredResult = Objects.requireNonNull(deferredResult, // Garantisce che il risultato differito non sia nullo
                 "deferredResult must not be null"); // Messaggio di errore in caso di null
         assertCanAccess(user, requiredConversationId); // Controlla che l'utente possa ascoltare la conversazione
-
-        AtomicBoolean pending = new AtomicBoolean(true); // Flag per evitare risposte multiple
+        PendingPoll poll = new PendingPoll(requiredDeferredResult, afterId); // Raccoglie i messaggi da restituire in un unico lotto
         List<ChatPublisher.Subscription> subscriptions = new ArrayList<>(); // Lista delle sottoscrizioni attive
-
-        subscriptions.add(chatPublisher.subscribe(requiredConversationId, message -> { // Aggiunge una sottoscrizione al publisher
-            if (pending.getAndSet(false)) { // Se è la prima notifica ancora pendente
-                ChatMessageDTO nonNullMessage = Objects.requireNonNull(message, "message must not be null"); // Verifica che il messaggio non sia nullo
-                List<ChatMessageDTO> result = Objects.requireNonNull(List.of(nonNullMessage), // Crea la lista di risposta con il messaggio
-                        "message list must not be null"); // Messaggio di errore in caso di null
-                requiredDeferredResult.setResult(result); // Completa il DeferredResult con i dati
-            }
-        }));
-
+        subscriptions.add(chatPublisher.subscribe(requiredConversationId, poll::publish, poll::overflow)); // Sottoscrive prima di leggere lo storico: nessun messaggio va perso
         Runnable cancel = () -> subscriptions.forEach(ChatPublisher.Subscription::cancel); // Operazione di cleanup per annullare tutte le sottoscrizioni
         requiredDeferredResult.onCompletion(cancel); // Registra il cleanup al completamento del DeferredResult
         requiredDeferredResult.onTimeout(() -> { // Gestisce il caso di timeout
-            List<ChatMessageDTO> emptyResult = Objects.requireNonNull(List.of(), "result list must not be null"); // Prepara una lista vuota come risposta
-            requiredDeferredResult.setResult(emptyResult); // Completa il DeferredResult con risultato vuoto
+            poll.flush(); // Restituisce quanto raccolto, eventualmente una lista vuota
             cancel.run(); // Esegue il cleanup delle sottoscrizioni
         });
+        if (afterId != null) { // Il client riprende da un messaggio noto
+            reread(requiredConversationId, afterId).stream().map(this::toResponse).forEach(poll::reread); // Id minori confermati dopo il cursore
+            List<Message> missed = messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc( // Messaggi pubblicati tra un poll e l'altro
+                    requiredConversationId, afterId, Limit.of(MAX_POLL_BATCH));
+            missed.stream().map(this::toResponse).forEach(poll::add); // Aggiunge i messaggi persi al lotto
+            poll.replayed(); // Risponde subito se il client è rimasto indietro
+        }
+    }
+
+    private List<Message> reread(String conversationId, Long afterId) { // Messaggi con id minore del cursore ma creati poco prima
+        return messageRepository.findById(afterId) // Ultimo messaggio ricevuto dal client
+                .filter(last -> conversationId.equals(last.getConversationId()) && last.getCreatedAt() != null) // Cursore valido per la conversazione
+                .map(last -> messageRepository.findByConversationIdAndIdLessThanAndCreatedAtGreaterThanEqualOrderByIdDesc( // Finestra prima del cursore
+                        conversationId, afterId, last.getCreatedAt().minus(RESUME_OVERLAP), Limit.of(MAX_POLL_BATCH)))
+                .orElse(List.of()); // Cursore sconosciuto: solo i messaggi successivi
     }
 
     private User requireUser(Long id) { // Recupera l'utente o solleva eccezione se non presente
@@ -133,26 +163,47 @@ public class ChatService { // Incapsula la logica dell'applicazione relativa all
     }
 
     private boolean canAccessConversation(User user, String conversationId) { // Determina se l'utente può accedere a una conversazione
+        Long teamId = conversationTeamId(conversationId); // Team partecipante, se la conversazione è di tipo team
+        return teamId == null || teamId.equals(user.getTeamId()); // Consente accesso solo se appartiene allo stesso team
+    }
+
+    private Long conversationTeamId(String conversationId) { // Estrae il team dalle conversazioni di tipo team
         if (conversationId.startsWith(TEAM_PREFIX)) { // Verifica se la conversazione è di tipo team
-            long teamId = Long.parseLong(conversationId, TEAM_PREFIX.length(), conversationId.length(), 10); // Estrae l'id del team dal prefisso
-            Long userTeamId = user.getTeamId(); // Recupera il team dell'utente
-            return userTeamId != null && userTeamId == teamId; // Consente accesso solo se appartiene allo stesso team
+            return Long.parseLong(conversationId, TEAM_PREFIX.length(), conversationId.length(), 10); // Estrae l'id del team dal prefisso
         }
-        return true; // Accesso consentito per le altre conversazioni
+        return null; // Le altre conversazioni non sono legate a un team
     }
 
-    private String buildConversationTitle(String conversationId, User user) { // Costruisce il titolo da mostrare per la conversazione
-        if (conversationId.startsWith(TEAM_PREFIX)) { // Se è una conversazione di team
-            return "Team " + Optional.ofNullable(user.getTeamId()).map(Object::toString).orElse("sconosciuto"); // Usa il team dell'utente o indica sconosciuto
+    private Map<Long, String> participantNames(List<ChatConversationRepository.ConversationSummary> summaries) { // Risolve i nomi degli interlocutori
+        Set<Long> participantIds = summaries.stream() // Id utente delle conversazioni dirette
+                .map(summary -> participantId(summary.conversationId())) // Interpreta l'id conversazione come utente
+                .filter(Objects::nonNull) // Scarta team e conversazioni non numeriche
+                .collect(Collectors.toSet()); // Senza duplicati
+        if (participantIds.isEmpty()) { // Nessuna conversazione diretta
+            return Map.of(); // Nessuna query necessaria
+        }
+        return StreamSupport.stream(userRepository.findAllById(participantIds).spliterator(), false) // Un'unica query per tutti gli utenti
+                .filter(participant -> participant.getDisplayName() != null) // Senza nome si mostra l'id
+                .collect(Collectors.toMap(User::getId, User::getDisplayName)); // Id utente -> nome visualizzato
+    }
+
+    private Long participantId(String conversationId) { // Id dell'interlocutore di una conversazione diretta
+        if (conversationId.startsWith(TEAM_PREFIX)) { // Le conversazioni di team non hanno un interlocutore
+            return null; // Nessun utente
         }
         try {
-            long participantId = Long.parseLong(conversationId); // Prova a interpretare l'id come utente
-            return userRepository.findById(participantId)
-                    .map(User::getDisplayName)
-                    .orElse(conversationId); // Se non trovato, mostra l'id originale
+            return Long.parseLong(conversationId); // Prova a interpretare l'id come utente
         } catch (NumberFormatException ex) {
-            return conversationId; // Per conversazioni non numeriche usa l'id
+            return null; // Conversazione non numerica
+        }
+    }
+
+    private String buildConversationTitle(String conversationId, User user, Map<Long, String> participantNames) { // Costruisce il titolo da mostrare per la conversazione
+        if (conversationId.startsWith(TEAM_PREFIX)) { // Se è una conversazione di team
+            return "Team " + Optional.ofNullable(user.getTeamId()).map(Object::toString).orElse("sconosciuto"); // Usa il team dell'utente o indica sconosciuto
         }
+        Long participantId = participantId(conversationId); // Interlocutore della conversazione diretta
+        return participantId != null ? participantNames.getOrDefault(participantId, conversationId) : conversationId; // Se non trovato, mostra l'id originale
     }
 
     private String truncate(String body) { // Accorcia il testo del messaggio per anteprima
@@ -162,6 +213,90 @@ public class ChatService { // Incapsula la logica dell'applicazione relativa all
         return body.length() > 60 ? body.substring(0, 57) + "..." : body; // Trunca se più lungo di 60 caratteri
     }
 
+    private final class PendingPoll { // Lotto di messaggi in attesa di essere restituiti a un long poll
+
+        private final DeferredResult<List<ChatMessageDTO>> deferredResult; // Risultato da completare
+        private final Map<Long, ChatMessageDTO> batch = new TreeMap<>(); // Messaggi ordinati per id, senza duplicati
+        private boolean replaying; // Indica che lo storico non è ancora stato letto
+        private boolean scheduled; // Indica che la finestra di raccolta è già partita
+        private boolean completed; // Indica che il risultato è già stato impostato
+        private boolean overflowed; // Indica che la coda del listener ha scartato messaggi
+        private final Long afterId; // Ultimo messaggio già ricevuto dal client
+        private boolean fresh; // Indica che il lotto contiene messaggi non ancora noti al client
+
+        private PendingPoll(DeferredResult<List<ChatMessageDTO>> deferredResult, Long afterId) { // Costruttore del lotto
+            this.deferredResult = deferredResult; // Assegna il risultato differito
+            this.afterId = afterId; // Assegna il cursore del client
+            this.replaying = afterId != null; // Con un cursore si attende la lettura dello storico
+        }
+
+        private synchronized boolean add(ChatMessageDTO message) { // Aggiunge un messaggio nuovo per il client
+            ChatMessageDTO nonNullMessage = Objects.requireNonNull(message, "message must not be null"); // Verifica che il messaggio non sia nullo
+            if (completed || nonNullMessage.id() == null || nonNullMessage.id().equals(afterId) // Già restituito o già noto
+                    || batch.putIfAbsent(nonNullMessage.id(), nonNullMessage) != null) { // Duplicato tra storico e pubblicazione
+                return false; // Nessuna variazione
+            }
+            fresh = true; // Anche un id minore del cursore, pubblicato ora, è nuovo per il client
+            return true; // Messaggio accodato
+        }
+
+        private synchronized void reread(ChatMessageDTO message) { // Aggiunge un messaggio forse già ricevuto dal client
+            if (!completed && message.id() != null) { // Lotto ancora aperto
+                batch.putIfAbsent(message.id(), message); // Parte con la risposta ma non la anticipa: il client scarta i duplicati
+            }
+        }
+
+        private void publish(ChatMessageDTO message) { // Riceve un messaggio pubblicato in tempo reale
+            boolean startWindow; // Indica se questo messaggio apre la finestra di raccolta
+            synchronized (this) { // Aggiorna lo stato in modo atomico
+                startWindow = add(message) && !scheduled && !replaying; // Solo il primo messaggio avvia la finestra, a storico letto
+                scheduled = scheduled || startWindow; // Registra l'avvio
+            }
+            if (!startWindow) { // Finestra già avviata o messaggio scartato
+                return; // Il messaggio partirà con il lotto in corso
+            }
+            if (coalesceWindow.isZero()) { // Nessuna attesa configurata
+                flush(); // Risponde subito
+            } else { // Attende altri messaggi ravvicinati
+                CompletableFuture.delayedExecutor(coalesceWindow.toMillis(), TimeUnit.MILLISECONDS).execute(this::flush); // Completa a fine finestra
+            }
+        }
+
+        private void overflow() { // La coda del listener è piena: i messaggi successivi sono stati scartati
+            boolean flushNow; // Indica se rispondere subito
+            synchronized (this) { // Aggiorna lo stato in modo atomico
+                overflowed = true; // Nessun altro messaggio arriverà da questa sottoscrizione
+                flushNow = !replaying; // Durante la lettura dello storico risponde replayed()
+            }
+            if (flushNow) { // Storico già letto
+                flush(); // Il client ripete il poll con afterId e legge dal database i messaggi scartati
+            }
+        }
+
+        private void replayed() { // Chiude la lettura dello storico
+            boolean pending; // Indica se ci sono messaggi da restituire
+            synchronized (this) { // Aggiorna lo stato in modo atomico
+                replaying = false; // I nuovi messaggi possono avviare la finestra
+                pending = fresh || overflowed; // Storico, messaggi arrivati durante la lettura o sottoscrizione chiusa
+            }
+            if (pending) { // Il client è rimasto indietro
+                flush(); // Risponde subito: i successivi arriveranno al prossimo poll
+            }
+        }
+
+        private void flush() { // Completa il long poll con i messaggi raccolti
+            List<ChatMessageDTO> result; // Contenuto della risposta
+            synchronized (this) { // Legge e chiude il lotto in modo atomico
+                if (completed) { // Già completato
+                    return; // Nessuna doppia risposta
+                }
+                completed = true; // Chiude il lotto
+                result = List.copyOf(batch.values()); // Messaggi in ordine di id
+            }
+            deferredResult.setResult(result); // Completa il DeferredResult con i dati
+        }
+    }
+
     private ChatMessageDTO toResponse(Message message) { // Converte un'entità Message in DTO
         return new ChatMessageDTO(message.getId(), // Id del messaggio
                 message.getConversationId(), // Id della conversazione
@@ -0,0 +1,150 @@
+package com.example.server.service; // Package dei servizi applicativi
+
+import com.example.common.enums.InvoiceStatus; // Enum degli stati fattura
+import com.example.server.domain.Contract; // Entità contratto, da cui si ricava l'agente
+import com.example.server.domain.Invoice; // Entità fattura
+import com.example.server.repository.CommissionRollupRepository; // Repository del rollup mensile
+import com.example.server.repository.ContractRepository; // Repository dei contratti
+import org.springframework.beans.factory.annotation.Value; // Iniezione delle proprietà di configurazione
+import org.springframework.boot.context.event.ApplicationReadyEvent; // Evento di avvio completato
+import org.springframework.context.event.EventListener; // Registrazione dei listener di eventi
+import org.springframework.stereotype.Service; // Stereotipo di servizio Spring
+import org.springframework.transaction.annotation.Transactional; // Gestione delle transazioni
+
+import java.math.BigDecimal; // Importi monetari
+import java.time.LocalDate; // Date di pagamento
+import java.util.List; // Liste di risultati
+import java.util.Objects; // Utility per i controlli di nullità
+
+/**
+ * Mantiene la tabella {@code commission_monthly_rollups} allineata alle fatture pagate.
+ * Ogni modifica di fattura applica una variazione al mese e all'agente interessati nella stessa transazione;
+ * le provvigioni non vengono memorizzate ma calcolate dalle statistiche sui totali, con le regole correnti.
+ * {@link #rebuild()} ricalcola l'intera tabella dalle fatture ed è usato per il backfill iniziale.
+ */
+@Service // Registra il servizio nel contesto Spring
+public class CommissionRollupService { // Servizio di manutenzione del rollup provvigionale
+
+    private static final String PAID_STATUS = InvoiceStatus.PAID.name(); // Stato delle fatture incassate
+
+    private final CommissionRollupRepository rollupRepository; // Accesso alla tabella di rollup
+    private final ContractRepository contractRepository; // Risoluzione dell'agente dal contratto
+    private final StatisticsService statisticsService; // Cache delle statistiche da invalidare dopo una ricostruzione
+    private final TableVersionService tableVersionService; // Versioni delle tabelle per gli ETag delle statistiche
+    private final boolean backfillOnStartup; // Abilita il popolamento automatico all'avvio
+
+    public CommissionRollupService(CommissionRollupRepository rollupRepository, // Costruttore con dipendenze
+                                   ContractRepository contractRepository,
+                                   StatisticsService statisticsService,
+                                   TableVersionService tableVersionService,
+                                   @Value("${app.statistics.rollup.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.rollupRepository = rollupRepository; // Assegna il repository del rollup
+        this.contractRepository = contractRepository; // Assegna il repository dei contratti
+        this.statisticsService = statisticsService; // Assegna il servizio statistiche
+        this.tableVersionService = tableVersionService; // Assegna le versioni delle tabelle
+        this.backfillOnStartup = backfillOnStartup; // Memorizza la configurazione di backfill
+    }
+
+    public void invoiceChanged(Invoice previous, Invoice current) { // Aggiorna il rollup dopo creazione, modifica, pagamento o cancellazione
+        if (previous != null && current != null && contributesSame(previous, current)) { // Nessun effetto sui totali
+            return; // Evita scritture inutili
+        }
+        if (previous != null) { // Rimuove il contributo precedente
+            apply(previous, -1); // Sottrae numero di fatture e importo
+        }
+        if (current != null) { // Aggiunge il nuovo contributo
+            apply(current, 1); // Somma numero di fatture e importo
+        }
+    }
+
+    @Transactional // Sposta i totali nella stessa transazione dell'aggiornamento del contratto
+    public void contractAgentChanged(Long contractId, Long previousAgentId, Long currentAgentId) { // Riassegna i totali del contratto al nuovo agente
+        if (Objects.equals(previousAgentId, currentAgentId)) { // Agente invariato
+            return; // Nessuna variazione
+        }
+        List<CommissionRollupRepository.PaidInvoiceTotal> totals = rollupRepository.findPaidInvoiceTotals(PAID_STATUS, // Totali pagati del contratto per mese
+                Objects.requireNonNull(contractId, "contractId must not be null"));
+        if (totals.isEmpty()) { // Nessuna fattura pagata sul contratto
+            return; // Il rollup non cambia
+        }
+        for (CommissionRollupRepository.PaidInvoiceTotal total : totals) { // Per ogni mese con incassi
+            if (previousAgentId != null) { // Toglie i totali al vecchio agente
+                rollupRepository.addToPeriod(previousAgentId, total.periodStart(), -total.invoiceCount(),
+                        total.totalAmount().negate());
+            }
+            if (currentAgentId != null) { // Assegna i totali al nuovo agente
+                rollupRepository.addToPeriod(currentAgentId, total.periodStart(), total.invoiceCount(),
+                        total.totalAmount());
+            }
+        }
+        statisticsService.clearCache(); // Le statistiche per agente e team sono cambiate per più mesi
+    }
+
+    @Transactional // Ricostruzione atomica: i lettori vedono il vecchio o il nuovo contenuto
+    public int rebuild() { // Ricalcola l'intero rollup dalle fatture pagate
+        List<CommissionRollupRepository.RollupRow> rows = rollupRepository.findPaidInvoiceTotals(PAID_STATUS, null).stream() // Un'unica aggregazione sulle fatture
+                .map(total -> new CommissionRollupRepository.RollupRow(
+                        total.agentId(),
+                        total.periodStart(),
+                        total.invoiceCount(),
+                        total.totalAmount()))
+                .toList(); // Colleziona le righe
+        int written = rollupRepository.replaceAll(rows); // Sostituisce il contenuto della tabella
+        statisticsService.clearCache(); // Scarta le statistiche calcolate sul rollup precedente
+        tableVersionService.changed("commission_monthly_rollups"); // Scritta con JdbcTemplate: nessun evento di Spring Data
+        return written; // Numero di righe scritte
+    }
+
+    @EventListener(ApplicationReadyEvent.class) // Eseguito a contesto avviato
+    @Transactional // Verifica e ricostruzione nella stessa transazione
+    public void backfillIfEmpty() { // Popola il rollup al primo avvio dopo la migrazione
+        if (backfillOnStartup && rollupRepository.isEmpty()) { // Solo se abilitato e la tabella è vuota
+            rebuild(); // Ricostruzione completa
+        }
+    }
+
+    private void apply(Invoice invoice, int sign) { // Applica il contributo di una fattura con il segno indicato
+        LocalDate paymentDate = paidDate(invoice); // Data di incasso, se la fattura è pagata
+        Long agentId = paymentDate != null ? agentOf(invoice.getContractId()) : null; // Agente del contratto
+        if (agentId == null) { // Fattura non pagata o senza agente: fuori dal rollup
+            return; // Nessuna variazione
+        }
+        BigDecimal amount = invoice.getAmount() != null ? invoice.getAmount() : BigDecimal.ZERO; // Importo della fattura
+        rollupRepository.addToPeriod(agentId, paymentDate.withDayOfMonth(1), sign, // Aggiorna il mese di incasso
+                sign > 0 ? amount : amount.negate());
+    }
+
+    private boolean contributesSame(Invoice previous, Invoice current) { // Verifica se il contributo al rollup è invariato
+        LocalDate previousDate = paidDate(previous); // Data di incasso precedente
+        LocalDate currentDate = paidDate(current); // Data di incasso attuale
+        if (previousDate == null || currentDate == null) { // Almeno una delle due non contribuisce
+            return previousDate == currentDate; // Invariato solo se entrambe non contribuiscono
+        }
+        return previousDate.withDayOfMonth(1).equals(currentDate.withDayOfMonth(1)) // Stesso mese
+                && Objects.equals(previous.getContractId(), current.getContractId()) // Stesso contratto
+                && compareAmounts(previous.getAmount(), current.getAmount()); // Stesso importo
+    }
+
+    private boolean compareAmounts(BigDecimal previous, BigDecimal current) { // Confronta gli importi ignorando la scala
+        if (previous == null || current == null) { // Importo mancante
+            return previous == current; // Uguali solo se entrambi nulli
+        }
+        return previous.compareTo(current) == 0; // Confronto numerico
+    }
+
+    private Long agentOf(Long contractId) { // Restituisce l'agente assegnato al contratto
+        if (contractId == null) { // Fattura senza contratto
+            return null; // Nessun agente
+        }
+        return contractRepository.findById(contractId) // Carica il contratto
+                .map(Contract::getAgentId) // Estrae l'agente
+                .orElse(null); // Contratto inesistente
+    }
+
+    private static LocalDate paidDate(Invoice invoice) { // Data di incasso se la fattura è pagata
+        if (invoice == null || invoice.getStatus() != InvoiceStatus.PAID) { // Fattura non pagata
+            return null; // Non contribuisce al rollup
+        }
+        return invoice.getPaymentDate(); // Data di pagamento registrata
+    }
+}
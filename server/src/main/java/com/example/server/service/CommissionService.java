@@ -1,14 +1,10 @@
 package com.example.server.service; // Definisce il package del servizio commissioni
 
 import com.example.common.dto.CommissionDTO; // Importa il DTO per esporre le commissioni
-import com.example.server.domain.Agent; // Importa l'entità di dominio Agent
 import com.example.server.domain.Commission; // Importa l'entità di dominio Commission
 import com.example.server.domain.Contract; // Importa l'entità di dominio Contract
-import com.example.server.domain.User; // Importa l'entità di dominio User
-import com.example.server.repository.AgentRepository; // Importa il repository degli agenti
 import com.example.server.repository.CommissionRepository; // Importa il repository delle commissioni
 import com.example.server.repository.ContractRepository; // Importa il repository dei contratti
-import com.example.server.repository.UserRepository; // Importa il repository degli utenti
 import com.example.server.service.mapper.CommissionMapper; // Importa il mapper tra Commission e CommissionDTO
 import org.springframework.stereotype.Service; // Importa l'annotazione di servizio Spring
 
@@ -21,7 +17,6 @@ import java.util.ArrayList; // Importa ArrayList per collezioni mutabili
 import java.util.Comparator; // Importa Comparator per ordinare elementi
 import java.util.LinkedHashMap; // Importa LinkedHashMap per mantenere l'ordine di inserimento
 import java.util.List; // Importa List per collezionare risultati
-import java.util.Locale; // Importa Locale per normalizzare stringhe
 import java.util.Map; // Importa Map per le allocazioni
 import java.util.Objects; // Importa utilità per verifiche di nullità
 import java.util.Optional; // Importa Optional per valori facoltativi
@@ -30,29 +25,21 @@ import java.util.stream.StreamSupport; // Importa StreamSupport per iterare sull
 @Service // Indica che la classe è un servizio Spring
 public class CommissionService { // Gestisce la logica di calcolo e persistenza delle commissioni
 
-    private static final BigDecimal MIN_TEAM_RATE = new BigDecimal("0.10"); // Aliquota minima di team
-    private static final BigDecimal MAX_TEAM_RATE = new BigDecimal("0.12"); // Aliquota massima di team
-    private static final BigDecimal SENIOR_RATE = new BigDecimal("0.03"); // Aliquota per ruoli senior
-    private static final BigDecimal JUNIOR_RATE = new BigDecimal("0.02"); // Aliquota per ruoli junior
-    private static final BigDecimal INTERN_RATE = new BigDecimal("0.015"); // Aliquota per stagisti
-    private static final BigDecimal DEFAULT_RATE = new BigDecimal("0.01"); // Aliquota di default
+    private static final BigDecimal MIN_TEAM_RATE = TeamCommissionRuleRegistry.MIN_TEAM_RATE; // Aliquota minima di team
     private static final MathContext MATH_CONTEXT = new MathContext(8, RoundingMode.HALF_UP); // Precisione per i calcoli di scala
 
     private final CommissionRepository commissionRepository; // Repository per persistere le commissioni
     private final ContractRepository contractRepository; // Repository per i contratti
-    private final AgentRepository agentRepository; // Repository per gli agenti
-    private final UserRepository userRepository; // Repository per gli utenti
+    private final TeamCommissionRuleRegistry teamCommissionRuleRegistry; // Registro precalcolato delle regole di team
     private final Clock clock; // Orologio per determinare i timestamp
 
     public CommissionService(CommissionRepository commissionRepository, // Costruttore con dependency injection del repository commissioni
                              ContractRepository contractRepository, // Repository dei contratti iniettato
-                             AgentRepository agentRepository, // Repository degli agenti iniettato
-                             UserRepository userRepository, // Repository degli utenti iniettato
+                             TeamCommissionRuleRegistry teamCommissionRuleRegistry, // Registro delle regole di team iniettato
                              Clock clock) { // Clock iniettato per controllare il tempo
         this.commissionRepository = commissionRepository; // Assegna il repository delle commissioni
         this.contractRepository = contractRepository; // Assegna il repository dei contratti
-        this.agentRepository = agentRepository; // Assegna il repository degli agenti
-        this.userRepository = userRepository; // Assegna il repository degli utenti
+        this.teamCommissionRuleRegistry = teamCommissionRuleRegistry; // Assegna il registro delle regole
         this.clock = clock; // Assegna l'orologio
     }
 
@@ -157,7 +144,13 @@ public class CommissionService { // Gestisce la logica di calcolo e persistenza
         if (contract.isEmpty()) { // Se non trovato
             return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP); // Restituisce zero
         }
-        Long agentId = contract.get().getAgentId(); // Recupera l'agente del contratto
+        return agentCommission(contract.get().getAgentId(), amount); // Calcola la quota dell'agente del contratto
+    }
+
+    public BigDecimal agentCommission(Long agentId, BigDecimal amount) { // Calcola la commissione per un agente già noto, senza rileggere il contratto
+        if (agentId == null) { // Se l'agente non è indicato
+            return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP); // Restituisce zero
+        }
         TeamCommissionRule rule = resolveRuleForAgent(agentId); // Determina la regola di ripartizione
         Map<Long, BigDecimal> allocations = allocationForAmount(amount, rule); // Calcola le allocazioni
         return allocations.getOrDefault(agentId, BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP); // Restituisce la quota dell'agente formattata
@@ -246,96 +239,10 @@ public class CommissionService { // Gestisce la logica di calcolo e persistenza
     }
 
     private TeamCommissionRule resolveRuleForAgent(Long agentId) { // Determina la regola di commissione per un agente specifico
-        if (agentId == null) { // Se l'agente non è definito
-            return null; // Non esiste alcuna regola
-        }
-        Optional<Agent> agent = agentRepository.findById(agentId); // Recupera l'agente se presente
-        if (agent.isEmpty()) { // Se non trovato
-            return TeamCommissionRule.singleAgent(agentId, MIN_TEAM_RATE); // Usa una regola basata su un solo agente
-        }
-        Long userId = Objects.requireNonNull(agent.get().getUserId(), "userId must not be null"); // Recupera l'utente associato
-        Optional<User> user = userRepository.findById(userId); // Cerca l'utente
-        if (user.isEmpty() || user.get().getTeamId() == null) { // Se l'utente non ha team
-            return TeamCommissionRule.singleAgent(agentId, MIN_TEAM_RATE); // Applica la regola minima
-        }
-        TeamCommissionRule teamRule = resolveRuleForTeam(user.get().getTeamId()); // Recupera la regola del team
-        boolean containsAgent = teamRule.shares().stream() // Controlla se l'agente è già presente nella regola
-                .anyMatch(share -> share.agentId().equals(agentId));
-        if (!containsAgent) { // Se manca
-            List<AgentCommissionShare> enriched = new ArrayList<>(teamRule.shares()); // Copia le quote esistenti
-            enriched.add(new AgentCommissionShare(agentId, // Aggiunge la quota per l'agente mancante
-                    percentageForRole(agent.get().getTeamRole()), // Determina la percentuale in base al ruolo
-                    rankingForRole(agent.get().getTeamRole()))); // Determina il ranking in base al ruolo
-            return new TeamCommissionRule(teamRule.teamId(), teamRule.teamCommissionRate(), // Costruisce una nuova regola
-                    teamRule.distributionStrategy(), List.copyOf(enriched)); // Mantiene strategia e aggiunge la nuova quota
-        }
-        return teamRule; // Se già presente restituisce la regola originale
+        return teamCommissionRuleRegistry.ruleForAgent(agentId); // Delega al registro precalcolato
     }
 
     private TeamCommissionRule resolveRuleForTeam(Long teamId) { // Determina la regola di commissione per un team
-        if (teamId == null) { // Se il team non è definito
-            return new TeamCommissionRule(null, MIN_TEAM_RATE, DistributionStrategy.PERCENTAGE, List.of()); // Restituisce la regola minima senza membri
-        }
-        List<User> teamMembers = userRepository.findByTeamId(teamId); // Recupera gli utenti del team
-        List<AgentCommissionShare> shares = new ArrayList<>(); // Collezione per le quote di commissione
-        for (User member : teamMembers) { // Itera sui membri del team
-            agentRepository.findByUserId(member.getId()).ifPresent(agent -> // Se l'utente è anche agente
-                    shares.add(new AgentCommissionShare(agent.getId(), // Aggiunge la quota per l'agente
-                            percentageForRole(agent.getTeamRole()), // Percentuale basata sul ruolo
-                            rankingForRole(agent.getTeamRole())))); // Ranking basato sul ruolo
-        }
-        BigDecimal totalRequested = shares.stream() // Somma le percentuali richieste
-                .map(AgentCommissionShare::percentage)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal teamRate = normalizeTeamRate(totalRequested); // Normalizza l'aliquota del team
-        DistributionStrategy strategy = totalRequested.compareTo(teamRate) > 0 // Decide la strategia in base alla somma richiesta
-                ? DistributionStrategy.BARRIER
-                : DistributionStrategy.PERCENTAGE;
-        return new TeamCommissionRule(teamId, teamRate, strategy, List.copyOf(shares)); // Crea la regola finale per il team
-    }
-
-    private BigDecimal normalizeTeamRate(BigDecimal desired) { // Normalizza l'aliquota del team entro i limiti
-        if (desired == null) { // Se non è specificata
-            return MIN_TEAM_RATE; // Usa l'aliquota minima
-        }
-        BigDecimal capped = desired.min(MAX_TEAM_RATE); // Limita l'aliquota al massimo consentito
-        if (capped.compareTo(MIN_TEAM_RATE) < 0) { // Se inferiore al minimo
-            return MIN_TEAM_RATE; // Usa il minimo
-        }
-        return capped; // Restituisce l'aliquota normalizzata
-    }
-
-    private BigDecimal percentageForRole(String role) { // Determina la percentuale di commissione in base al ruolo
-        if (role == null) { // Se il ruolo non è specificato
-            return DEFAULT_RATE; // Usa l'aliquota di default
-        }
-        String normalized = role.toLowerCase(Locale.ITALY); // Normalizza il ruolo in minuscolo
-        if (normalized.contains("senior")) { // Controlla ruolo senior
-            return SENIOR_RATE; // Restituisce aliquota senior
-        }
-        if (normalized.contains("junior")) { // Controlla ruolo junior
-            return JUNIOR_RATE; // Restituisce aliquota junior
-        }
-        if (normalized.contains("stag")) { // Controlla ruolo stagista
-            return INTERN_RATE; // Restituisce aliquota stagista
-        }
-        return DEFAULT_RATE; // In assenza di corrispondenza usa l'aliquota di default
-    }
-
-    private int rankingForRole(String role) { // Determina la priorità di distribuzione in base al ruolo
-        if (role == null) { // Se non è specificato
-            return 3; // Posiziona alla fine
-        }
-        String normalized = role.toLowerCase(Locale.ITALY); // Normalizza il ruolo in minuscolo
-        if (normalized.contains("senior")) { // Ruolo senior
-            return 0; // Priorità più alta
-        }
-        if (normalized.contains("junior")) { // Ruolo junior
-            return 1; // Seconda priorità
-        }
-        if (normalized.contains("stag")) { // Ruolo stagista
-            return 2; // Terza priorità
-        }
-        return 3; // Default per altri ruoli
+        return teamCommissionRuleRegistry.ruleForTeam(teamId); // Delega al registro precalcolato
     }
 }
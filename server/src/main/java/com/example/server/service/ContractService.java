@@ -1,6 +1,7 @@
 package com.example.server.service; // Definisce il package in cui si trova il servizio dei contratti.
 
 import com.example.common.dto.ContractDTO; // Importa il DTO dei contratti scambiato con il client.
+import com.example.common.dto.CursorPageDTO; // Importa il DTO delle pagine a cursore.
 import com.example.common.dto.DocumentHistoryDTO; // Importa il DTO dello storico documentale.
 import com.example.common.enums.DocumentAction; // Importa l'enum che descrive l'azione effettuata sul documento.
 import com.example.common.enums.DocumentType; // Importa l'enum che identifica il tipo di documento gestito.
@@ -9,6 +10,7 @@ import com.example.server.repository.ContractRepository; // Importa il repositor
 import com.example.server.service.mapper.ContractMapper; // Importa il mapper tra entità Contract e ContractDTO.
 import com.example.server.service.mapper.DocumentHistoryMapper; // Importa il mapper per convertire lo storico documentale in DTO.
 import org.springframework.stereotype.Service; // Importa l'annotazione Service di Spring.
+import org.springframework.transaction.annotation.Transactional; // Importa l'annotazione per la gestione delle transazioni.
 
 import java.util.List; // Importa la struttura dati List.
 import java.util.Objects; // Importa la classe Objects per validazioni di null.
@@ -20,10 +22,13 @@ public class ContractService { // Gestisce le operazioni di business sui contrat
 
     private final ContractRepository contractRepository; // Repository per accedere ai dati dei contratti.
     private final DocumentHistoryService documentHistoryService; // Servizio per registrare lo storico dei documenti.
+    private final CommissionRollupService commissionRollupService; // Servizio che mantiene il rollup mensile delle provvigioni.
 
-    public ContractService(ContractRepository contractRepository, DocumentHistoryService documentHistoryService) { // Costruttore che riceve le dipendenze necessarie.
+    public ContractService(ContractRepository contractRepository, DocumentHistoryService documentHistoryService, // Costruttore che riceve le dipendenze necessarie.
+                           CommissionRollupService commissionRollupService) {
         this.contractRepository = contractRepository; // Inizializza il repository dei contratti.
         this.documentHistoryService = documentHistoryService; // Inizializza il servizio per lo storico documentale.
+        this.commissionRollupService = commissionRollupService; // Inizializza il servizio del rollup provvigionale.
     }
 
     public List<ContractDTO> findAll() { // Restituisce tutti i contratti ordinati per data di inizio decrescente.
@@ -32,6 +37,19 @@ public class ContractService { // Gestisce le operazioni di business sui contrat
                 .toList(); // Colleziona il risultato in una lista.
     }
 
+    public CursorPageDTO<ContractDTO> findPage(String cursor, Integer size) { // Restituisce una pagina keyset di contratti.
+        int pageSize = KeysetPagination.pageSize(size); // Normalizza la dimensione richiesta.
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Posizione successiva alla pagina precedente.
+        List<Contract> contracts = position == null // Legge una riga in più per sapere se esiste un seguito.
+                ? contractRepository.findAllByOrderByStartDateDescIdDesc(KeysetPagination.fetchLimit(pageSize))
+                : contractRepository.findByStartDateLessThanOrStartDateAndIdLessThanOrderByStartDateDescIdDesc(
+                        position.dateKey(), position.dateKey(), position.id(), KeysetPagination.fetchLimit(pageSize));
+        return KeysetPagination.page(contracts, pageSize, // Costruisce la pagina e il cursore successivo.
+                contract -> String.valueOf(contract.getStartDate()),
+                Contract::getId,
+                rows -> rows.stream().map(ContractMapper::toDto).toList());
+    }
+
     public Optional<ContractDTO> findById(Long id) { // Recupera un contratto per id e lo mappa in DTO se presente.
         return contractRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Cerca per id dopo averlo validato.
                 .map(ContractMapper::toDto); // Converte l'entità in DTO se trovata.
@@ -49,14 +67,15 @@ public class ContractService { // Gestisce le operazioni di business sui contrat
         return ContractMapper.toDto(saved); // Restituisce il contratto salvato come DTO.
     }
 
+    @Transactional // Aggiorna contratto e rollup provvigionale nella stessa transazione.
     public Optional<ContractDTO> update(Long id, ContractDTO dto) { // Aggiorna un contratto esistente se trovato.
         ContractDTO requiredDto = Objects.requireNonNull(dto, "contract must not be null"); // Verifica che il DTO passato non sia null.
         return contractRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Recupera il contratto da aggiornare.
-                .map(existing -> Objects.requireNonNull(existing.updateFrom(Objects.requireNonNull( // Aggiorna i campi dell'entità esistente.
-                        ContractMapper.fromDto(requiredDto), "mapped contract must not be null")), // Converte e valida il DTO.
-                        "updated contract must not be null")) // Garantisce che l'oggetto aggiornato non sia null.
-                .map(contractRepository::save) // Salva l'entità aggiornata nel database.
-                .map(saved -> { // Converte il risultato e registra lo storico.
+                .map(existing -> { // Aggiorna i campi dell'entità esistente.
+                    Contract saved = contractRepository.save(Objects.requireNonNull(existing.updateFrom(Objects.requireNonNull( // Salva l'entità aggiornata nel database.
+                            ContractMapper.fromDto(requiredDto), "mapped contract must not be null")), // Converte e valida il DTO.
+                            "updated contract must not be null")); // Garantisce che l'oggetto aggiornato non sia null.
+                    commissionRollupService.contractAgentChanged(saved.getId(), existing.getAgentId(), saved.getAgentId()); // Sposta gli incassi se cambia l'agente.
                     documentHistoryService.log(DocumentType.CONTRACT, // Registra l'aggiornamento nel log.
                             Objects.requireNonNull(saved.getId(), "contract id must not be null"), // Valida l'id del contratto salvato.
                             DocumentAction.UPDATED, // Indica che l'azione è un aggiornamento.
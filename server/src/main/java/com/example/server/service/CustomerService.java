@@ -1,5 +1,7 @@
 package com.example.server.service; // Definisce il package che contiene i servizi legati ai clienti.
 
+import com.example.common.dto.ChangeSetDTO; // Importa il DTO delle modifiche incrementali.
+import com.example.common.dto.CursorPageDTO; // Importa il DTO delle pagine a cursore.
 import com.example.common.dto.CustomerDTO; // Importa il DTO usato per esporre i dati del cliente.
 import com.example.server.domain.Customer; // Importa l'entità di dominio del cliente.
 import com.example.server.repository.CustomerRepository; // Importa il repository per la persistenza dei clienti.
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Service; // Importa l'annotazione Service
 import org.springframework.transaction.annotation.Transactional; // Importa l'annotazione per la gestione transazionale.
 import org.springframework.util.StringUtils; // Importa utility per la gestione di stringhe.
 
+import java.time.Instant; // Importa Instant per l'istante di sincronizzazione.
 import java.util.List; // Importa l'interfaccia List.
 import java.util.Objects; // Importa metodi di utilità per controlli null-safe.
 import java.util.Optional; // Importa Optional per risultati opzionali.
@@ -16,9 +19,12 @@ import java.util.Optional; // Importa Optional per risultati opzionali.
 public class CustomerService { // Gestisce le operazioni di business sui clienti.
 
     private final CustomerRepository customerRepository; // Repository per l'accesso ai dati dei clienti.
+    private final ChangeFeedService changeFeedService; // Servizio della sincronizzazione incrementale.
 
-    public CustomerService(CustomerRepository customerRepository) { // Costruttore che riceve il repository come dipendenza.
+    public CustomerService(CustomerRepository customerRepository, // Costruttore che riceve il repository come dipendenza.
+                           ChangeFeedService changeFeedService) { // Riceve il servizio delle modifiche incrementali.
         this.customerRepository = customerRepository; // Inizializza il repository dei clienti.
+        this.changeFeedService = changeFeedService; // Inizializza il servizio delle modifiche.
     }
 
     public List<CustomerDTO> findAll() { // Restituisce tutti i clienti ordinati per nome.
@@ -27,6 +33,26 @@ public class CustomerService { // Gestisce le operazioni di business sui clienti
                 .toList(); // Colleziona i DTO in una lista.
     }
 
+    public CursorPageDTO<CustomerDTO> findPage(String cursor, Integer size) { // Restituisce una pagina keyset di clienti.
+        int pageSize = KeysetPagination.pageSize(size); // Normalizza la dimensione richiesta.
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Posizione successiva alla pagina precedente.
+        List<Customer> customers = position == null // Legge una riga in più per sapere se esiste un seguito.
+                ? customerRepository.findAllByOrderByNameAscIdAsc(KeysetPagination.fetchLimit(pageSize))
+                : customerRepository.findByNameGreaterThanOrNameAndIdGreaterThanOrderByNameAscIdAsc(
+                        position.key(), position.key(), position.id(), KeysetPagination.fetchLimit(pageSize));
+        return KeysetPagination.page(customers, pageSize, // Costruisce la pagina e il cursore successivo.
+                Customer::getName,
+                Customer::getId,
+                rows -> rows.stream().map(CustomerMapper::toDto).toList());
+    }
+
+    public ChangeSetDTO<CustomerDTO> findChanges(Instant since) { // Clienti creati, modificati o eliminati dopo l'istante indicato.
+        return changeFeedService.changes(ChangeFeedService.SyncedEntity.CUSTOMER, since,
+                customerRepository::findByUpdatedAtGreaterThan, // Righe modificate tramite updated_at.
+                rows -> rows.stream().map(CustomerMapper::toDto).toList(),
+                this::findAll); // Elenco completo alla prima sincronizzazione.
+    }
+
     public Optional<CustomerDTO> findById(Long id) { // Cerca un cliente per id e restituisce un DTO se trovato.
         return customerRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Valida l'id e interroga il repository.
                 .map(CustomerMapper::toDto); // Converte l'entità trovata in DTO.
@@ -76,6 +102,7 @@ public class CustomerService { // Gestisce le operazioni di business sui clienti
         return customerRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Valida l'id e cerca il cliente.
                 .map(existing -> { // Se presente, procede con la cancellazione.
                     customerRepository.deleteById(id); // Cancella il cliente per id.
+                    changeFeedService.recordDeletion(ChangeFeedService.SyncedEntity.CUSTOMER, id); // Tombstone per i client sincronizzati.
                     return true; // Indica che la cancellazione è avvenuta.
                 })
                 .orElse(false); // Restituisce false se il cliente non è stato trovato.
@@ -23,6 +23,10 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
     private final String searchText; // Testo libero da cercare nella descrizione.
     private final int page; // Numero di pagina richiesto.
     private final int size; // Dimensione della pagina.
+    private final boolean keyset; // Paginazione a cursore su (created_at, id) invece che per numero di pagina.
+    private final Instant afterCreatedAt; // Data di creazione dell'ultima voce già restituita.
+    private final Long afterId; // Id dell'ultima voce già restituita.
+    private final boolean includeTotal; // Indica se calcolare il numero totale di risultati.
 
     private DocumentHistoryQuery(Builder builder) { // Costruttore privato che riceve il builder.
         this.documentType = builder.documentType; // Assegna il tipo di documento dal builder.
@@ -35,6 +39,10 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
         this.searchText = builder.searchText; // Assegna il testo di ricerca dal builder.
         this.page = builder.page; // Assegna il numero di pagina dal builder.
         this.size = builder.size; // Assegna la dimensione pagina dal builder.
+        this.keyset = builder.keyset; // Assegna la modalità di paginazione dal builder.
+        this.afterCreatedAt = builder.afterCreatedAt; // Assegna la posizione del cursore dal builder.
+        this.afterId = builder.afterId; // Assegna l'id del cursore dal builder.
+        this.includeTotal = builder.includeTotal; // Assegna la richiesta del totale dal builder.
     }
 
     public static Builder builder() { // Factory method per ottenere un nuovo builder.
@@ -82,6 +90,26 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
         return size > 0; // True se la dimensione della pagina è maggiore di zero.
     }
 
+    public boolean isKeyset() { // Indica se la ricerca usa la paginazione a cursore.
+        return keyset; // Ritorna la modalità di paginazione.
+    }
+
+    public Instant getAfterCreatedAt() { // Restituisce la data di creazione della posizione di partenza.
+        return afterCreatedAt; // Null sulla prima pagina.
+    }
+
+    public Long getAfterId() { // Restituisce l'id della posizione di partenza.
+        return afterId; // Null sulla prima pagina.
+    }
+
+    public boolean hasPosition() { // Indica se la ricerca riparte da una voce già restituita.
+        return keyset && afterCreatedAt != null && afterId != null; // True solo con un cursore completo.
+    }
+
+    public boolean isIncludeTotal() { // Indica se occorre calcolare il totale dei risultati.
+        return includeTotal; // Ritorna la richiesta del totale.
+    }
+
     public int offset() { // Calcola l'offset di partenza per la query.
         return Math.max(page, 0) * Math.max(size, 0); // Moltiplica pagina e dimensione assicurandosi che non siano negativi.
     }
@@ -117,9 +145,25 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
         joiner.add(searchText != null ? searchText : "*"); // Aggiunge il testo di ricerca o wildcard.
         joiner.add(Integer.toString(page)); // Aggiunge il numero di pagina.
         joiner.add(Integer.toString(size)); // Aggiunge la dimensione pagina.
+        if (keyset) { // La posizione del cursore distingue le pagine in modalità keyset.
+            joiner.add("after=" + (afterCreatedAt != null ? afterCreatedAt + "," + afterId : "*")); // Aggiunge la posizione o wildcard.
+        }
+        if (!includeTotal) { // Il totale omesso cambia il contenuto della risposta.
+            joiner.add("nototal"); // Aggiunge il marcatore.
+        }
         return joiner.toString(); // Restituisce la chiave finale.
     }
 
+    static boolean cacheKeyCovers(Object cacheKey, DocumentType type, Long documentId) { // Verifica se una ricerca in cache può includere il documento.
+        if (!(cacheKey instanceof String key)) { // Chiave non prodotta da cacheKey().
+            return true; // Invalidata per prudenza.
+        }
+        String[] parts = key.split("\\|", 3); // Tipo e id sono i primi due segmenti, prima del testo libero.
+        return parts.length >= 2 // Chiave ben formata.
+                && ("*".equals(parts[0]) || parts[0].equals(type.name())) // Nessun filtro sul tipo o stesso tipo.
+                && ("*".equals(parts[1]) || parts[1].equals(String.valueOf(documentId))); // Nessun filtro sull'id o stesso documento.
+    }
+
     @Override
     public boolean equals(Object o) { // Confronta questa istanza con un altro oggetto.
         if (this == o) { // Verifica se il riferimento è lo stesso.
@@ -135,12 +179,17 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
                 && Objects.equals(actions, that.actions) // Confronta la lista di azioni.
                 && Objects.equals(from, that.from) // Confronta la data di inizio.
                 && Objects.equals(to, that.to) // Confronta la data di fine.
-                && Objects.equals(searchText, that.searchText); // Confronta il testo di ricerca.
+                && Objects.equals(searchText, that.searchText) // Confronta il testo di ricerca.
+                && keyset == that.keyset // Confronta la modalità di paginazione.
+                && Objects.equals(afterCreatedAt, that.afterCreatedAt) // Confronta la data del cursore.
+                && Objects.equals(afterId, that.afterId) // Confronta l'id del cursore.
+                && includeTotal == that.includeTotal; // Confronta la richiesta del totale.
     }
 
     @Override
     public int hashCode() { // Calcola l'hash dell'istanza.
-        return Objects.hash(documentType, documentId, actions, from, to, searchText, page, size); // Usa tutti i campi per l'hash.
+        return Objects.hash(documentType, documentId, actions, from, to, searchText, page, size, // Usa tutti i campi per l'hash.
+                keyset, afterCreatedAt, afterId, includeTotal);
     }
 
     public static final class Builder { // Builder per costruire DocumentHistoryQuery in modo fluente.
@@ -152,6 +201,10 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
         private String searchText; // Testo di ricerca da impostare.
         private int page = 0; // Numero di pagina di default.
         private int size = 25; // Dimensione pagina di default.
+        private boolean keyset; // Paginazione per numero di pagina di default.
+        private Instant afterCreatedAt; // Nessuna posizione di partenza di default.
+        private Long afterId; // Nessun id di partenza di default.
+        private boolean includeTotal = true; // Il totale viene calcolato di default.
 
         private Builder() { // Costruttore privato per impedire istanziazioni esterne.
         }
@@ -165,6 +218,10 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
             this.searchText = query.searchText; // Copia il testo di ricerca.
             this.page = query.page; // Copia la pagina.
             this.size = query.size; // Copia la dimensione pagina.
+            this.keyset = query.keyset; // Copia la modalità di paginazione.
+            this.afterCreatedAt = query.afterCreatedAt; // Copia la data del cursore.
+            this.afterId = query.afterId; // Copia l'id del cursore.
+            this.includeTotal = query.includeTotal; // Copia la richiesta del totale.
         }
 
         public Builder documentType(DocumentType documentType) { // Imposta il tipo di documento.
@@ -207,6 +264,22 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
             return this; // Restituisce il builder per chaining.
         }
 
+        public Builder keyset(boolean keyset) { // Abilita la paginazione a cursore.
+            this.keyset = keyset; // Memorizza la modalità indicata.
+            return this; // Restituisce il builder per chaining.
+        }
+
+        public Builder after(Instant createdAt, Long id) { // Imposta la posizione dell'ultima voce già restituita.
+            this.afterCreatedAt = createdAt; // Memorizza la data di creazione.
+            this.afterId = id; // Memorizza l'id.
+            return this; // Restituisce il builder per chaining.
+        }
+
+        public Builder includeTotal(boolean includeTotal) { // Indica se calcolare il totale dei risultati.
+            this.includeTotal = includeTotal; // Memorizza la scelta.
+            return this; // Restituisce il builder per chaining.
+        }
+
         public DocumentHistoryQuery build() { // Costruisce l'istanza finale.
             if (documentId == null && documentType == null && actions.isEmpty() && searchText == null && from == null && to == null) { // Verifica se non è stato impostato alcun filtro.
                 // allow retrieving everything but make sure pagination is enabled to avoid huge responses
@@ -223,6 +296,12 @@ public final class DocumentHistoryQuery { // Definisce una classe immutabile per
             if (size < 0) { // Controlla che la dimensione non sia negativa.
                 size = 0; // Forza la dimensione a zero se negativa.
             }
+            if (keyset) { // La modalità a cursore non usa il numero di pagina.
+                page = 0; // Azzera la pagina.
+            } else { // La posizione ha senso solo in modalità a cursore.
+                afterCreatedAt = null; // Scarta la data del cursore.
+                afterId = null; // Scarta l'id del cursore.
+            }
             return new DocumentHistoryQuery(this); // Crea l'istanza immutabile con i valori del builder.
         }
 
@@ -7,16 +7,27 @@ import com.example.common.enums.DocumentType; // Importa l'enum per i tipi di do
 import com.example.server.domain.DocumentHistory; // Importa l'entità di storico documentale.
 import com.example.server.repository.DocumentHistoryQueryRepository; // Importa il repository per ricerche complesse.
 import com.example.server.repository.DocumentHistoryRepository; // Importa il repository per operazioni CRUD di base.
+import com.example.server.repository.DocumentHistoryTextSearch; // Importa il backend della ricerca testuale.
 import com.example.server.service.mapper.DocumentHistoryMapper; // Importa il mapper tra entità e DTO di storico.
-import org.springframework.cache.annotation.CacheEvict; // Importa l'annotazione per invalidare la cache.
+import jakarta.annotation.PostConstruct; // Importa l'annotazione per l'inizializzazione a bean pronto.
+import org.springframework.cache.Cache; // Importa la cache delle ricerche da invalidare.
+import org.springframework.cache.CacheManager; // Importa il gestore delle cache applicative.
 import org.springframework.cache.annotation.Cacheable; // Importa l'annotazione per abilitare la cache.
 import org.springframework.stereotype.Service; // Importa l'annotazione Service di Spring.
 
+import java.io.BufferedWriter; // Importa il writer bufferizzato per scrivere il CSV a blocchi.
+import java.io.ByteArrayOutputStream; // Importa il buffer per l'esportazione in memoria.
+import java.io.IOException; // Importa l'eccezione di scrittura.
+import java.io.OutputStream; // Importa lo stream di destinazione dell'esportazione.
+import java.io.OutputStreamWriter; // Importa il writer che codifica i caratteri in UTF-8.
+import java.io.UncheckedIOException; // Importa l'eccezione non controllata per le callback.
+import java.io.Writer; // Importa l'astrazione di scrittura dei caratteri.
 import java.time.Clock; // Importa Clock per gestire l'ora corrente in modo testabile.
 import java.time.Instant; // Importa Instant per gli istanti temporali.
 import java.time.format.DateTimeFormatter; // Importa il formattatore per date in CSV.
 import java.util.List; // Importa l'interfaccia List.
 import java.util.Objects; // Importa utility per controlli null-safe.
+import java.util.function.Consumer; // Importa l'interfaccia per ricevere le voci da esportare.
 import java.util.stream.Collectors; // Importa Collectors per convertire stream.
 
 import static java.nio.charset.StandardCharsets.UTF_8; // Importa la costante di charset UTF-8.
@@ -27,25 +38,50 @@ public class DocumentHistoryService { // Gestisce lo storico dei documenti e le
     private static final int DEFAULT_PAGE_SIZE = 25; // Dimensione di pagina di default.
     private static final int MAX_PAGE_SIZE = 200; // Dimensione massima consentita per le pagine.
     private static final DateTimeFormatter CSV_DATE_FORMATTER = DateTimeFormatter.ISO_INSTANT; // Formattatore per le date nel CSV.
+    private static final int CSV_BUFFER_SIZE = 8 * 1024; // Dimensione dei blocchi scritti sullo stream di esportazione.
+    static final String SEARCH_CACHE = "documentHistorySearch"; // Cache dei risultati di ricerca.
 
     private final DocumentHistoryRepository repository; // Repository per operazioni di persistenza di base.
     private final DocumentHistoryQueryRepository queryRepository; // Repository per query avanzate con criteri.
+    private final DocumentHistoryTextSearch textSearch; // Backend di ricerca da aggiornare a ogni nuova voce.
+    private final DocumentHistoryWriter writer; // Scrittura in blocco delle nuove voci.
+    private final CacheManager cacheManager; // Gestore della cache delle ricerche.
     private final Clock clock; // Sorgente di tempo per generare timestamp.
 
     public DocumentHistoryService(DocumentHistoryRepository repository, // Costruttore con dependency injection.
                                   DocumentHistoryQueryRepository queryRepository, // Riceve il repository per ricerche.
+                                  DocumentHistoryTextSearch textSearch, // Riceve il backend di ricerca testuale.
+                                  DocumentHistoryWriter writer, // Riceve il writer in blocco.
+                                  CacheManager cacheManager, // Riceve il gestore delle cache.
                                   Clock clock) { // Riceve l'orologio di sistema o mock.
         this.repository = repository; // Inizializza il repository di base.
         this.queryRepository = queryRepository; // Inizializza il repository per le query complesse.
+        this.textSearch = textSearch; // Inizializza il backend di ricerca.
+        this.writer = writer; // Inizializza il writer.
+        this.cacheManager = cacheManager; // Inizializza il gestore delle cache.
         this.clock = clock; // Inizializza la sorgente di tempo.
     }
 
-    @CacheEvict(cacheNames = "documentHistorySearch", allEntries = true) // Invalida la cache delle ricerche quando si scrive.
-    public DocumentHistory log(DocumentType type, Long documentId, DocumentAction action, String description) { // Registra una nuova voce di storico.
+    @PostConstruct // Eseguito a bean costruito, senza esporre il servizio durante il costruttore.
+    void registerWrittenListener() { // Collega il writer all'aggiornamento di indice e cache.
+        writer.onWritten(this::written); // Indice e cache si aggiornano solo dopo la scrittura effettiva.
+    }
+
+    public void log(DocumentType type, Long documentId, DocumentAction action, String description) { // Registra una nuova voce di storico.
         DocumentHistory history = Objects.requireNonNull( // Crea l'oggetto di storico e verifica che non sia null.
                 DocumentHistory.create(type, documentId, action, description, Instant.now(clock)), // Costruisce la voce con timestamp corrente.
                 "document history must not be null"); // Messaggio di errore se la creazione fallisce.
-        return repository.save(history); // Salva e restituisce la voce di storico.
+        writer.write(history); // Inserita nel batch della transazione o accodata.
+    }
+
+    void written(List<DocumentHistory> entries) { // Aggiorna indice e cache dopo la scrittura di un blocco di voci.
+        entries.forEach(textSearch::indexed); // Aggiorna in modo incrementale l'indice di ricerca.
+        Cache cache = cacheManager.getCache(SEARCH_CACHE); // Cache delle ricerche.
+        if (cache == null || entries.isEmpty()) { // Nessuna cache configurata o nessuna voce.
+            return;
+        }
+        CacheEntries.evictIf(cache, key -> entries.stream() // Solo le ricerche che possono includere i documenti scritti.
+                .anyMatch(entry -> DocumentHistoryQuery.cacheKeyCovers(key, entry.getDocumentType(), entry.getDocumentId())));
     }
 
     public List<DocumentHistory> list(DocumentType type, Long documentId) { // Restituisce tutte le voci di storico per un documento.
@@ -54,37 +90,75 @@ public class DocumentHistoryService { // Gestisce lo storico dei documenti e le
         return repository.findByDocumentTypeAndDocumentIdOrderByCreatedAtDesc(requiredType, requiredDocumentId); // Recupera lo storico ordinato per data.
     }
 
-    @Cacheable(cacheNames = "documentHistorySearch", key = "#query.cacheKey()") // Abilita la cache per i risultati di ricerca.
+    @Cacheable(cacheNames = SEARCH_CACHE, key = "#query.cacheKey()") // Abilita la cache per i risultati di ricerca.
     public DocumentHistoryPageDTO search(DocumentHistoryQuery query) { // Esegue una ricerca paginata dello storico.
         DocumentHistoryQuery normalized = normalize(Objects.requireNonNull(query, "query must not be null"), true); // Normalizza la query e la valida.
         DocumentHistoryQueryRepository.ResultPage resultPage = queryRepository.find(normalized); // Esegue la ricerca tramite repository specializzato.
         List<DocumentHistoryDTO> items = resultPage.items().stream() // Ottiene gli elementi della pagina come stream.
                 .map(DocumentHistoryMapper::toDto) // Converte ogni entità in DTO.
                 .collect(Collectors.toList()); // Colleziona i DTO in una lista.
-        return new DocumentHistoryPageDTO(items, resultPage.totalElements(), normalized.getPage(), normalized.getSize()); // Crea il DTO paginato di risposta.
+        if (normalized.isKeyset()) { // Paginazione a cursore: la pagina successiva riparte dall'ultima voce.
+            String nextCursor = null; // Nessun seguito per default.
+            if (resultPage.hasMore() && !resultPage.items().isEmpty()) { // Esistono altre voci dopo la pagina.
+                DocumentHistory last = resultPage.items().get(resultPage.items().size() - 1); // Ultima voce restituita.
+                nextCursor = KeysetPagination.encode(String.valueOf(last.getCreatedAt()), last.getId()); // Posizione (created_at, id).
+            }
+            return DocumentHistoryPageDTO.keyset(items, resultPage.totalElements(), normalized.getSize(), nextCursor); // Pagina a cursore.
+        }
+        DocumentHistoryPageDTO page = new DocumentHistoryPageDTO(items, resultPage.totalElements(), normalized.getPage(), normalized.getSize()); // Crea il DTO paginato di risposta.
+        page.setMoreAvailable(resultPage.hasMore()); // Seguito noto anche quando il conteggio è stato omesso.
+        return page; // Restituisce la pagina numerata.
     }
 
     public byte[] exportCsv(DocumentHistoryQuery query) { // Esporta i risultati della ricerca in formato CSV.
-        DocumentHistoryQuery normalized = normalize(Objects.requireNonNull(query, "query must not be null"), false) // Normalizza la query senza imporre paginazione.
-                .withoutPagination(); // Disabilita la paginazione per esportare tutti i risultati.
-        List<DocumentHistory> results = queryRepository.findAll(normalized); // Recupera tutte le voci corrispondenti.
-        StringBuilder builder = new StringBuilder(); // Crea un builder per il contenuto CSV.
-        builder.append("id;documentType;documentId;action;description;createdAt\n"); // Aggiunge l'intestazione del CSV.
-        for (DocumentHistory entry : results) { // Itera su ogni voce di storico.
-            builder.append(valueOf(entry.getId())) // Scrive l'id della voce.
-                    .append(';') // Aggiunge il separatore.
-                    .append(enumValue(entry.getDocumentType())) // Scrive il tipo di documento.
-                    .append(';') // Aggiunge il separatore.
-                    .append(valueOf(entry.getDocumentId())) // Scrive l'id del documento.
-                    .append(';') // Aggiunge il separatore.
-                    .append(enumValue(entry.getAction())) // Scrive l'azione effettuata.
-                    .append(';') // Aggiunge il separatore.
-                    .append(escape(entry.getDescription())) // Scrive la descrizione escapata.
-                    .append(';') // Aggiunge il separatore.
-                    .append(entry.getCreatedAt() != null ? CSV_DATE_FORMATTER.format(entry.getCreatedAt()) : "") // Scrive la data formattata se presente.
-                    .append('\n'); // Termina la riga del CSV.
+        List<DocumentHistory> results = queryRepository.findAll(exportQuery(query)); // Recupera tutte le voci corrispondenti.
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(); // Buffer del file completo.
+        try { // Scrive direttamente in byte UTF-8, senza passare da una String intermedia.
+            writeCsv(outputStream, results::forEach); // Serializza le voci già caricate.
+        } catch (IOException ex) { // Non previsto su un buffer in memoria.
+            throw new UncheckedIOException(ex);
+        }
+        return outputStream.toByteArray(); // Restituisce il contenuto CSV.
+    }
+
+    public void writeCsv(DocumentHistoryQuery query, OutputStream outputStream) throws IOException { // Esporta in streaming sullo stream ricevuto.
+        DocumentHistoryQuery normalized = exportQuery(query); // Stessi filtri dell'esportazione in memoria.
+        writeCsv(outputStream, consumer -> queryRepository.forEach(normalized, consumer)); // Le righe arrivano dal cursore una alla volta.
+    }
+
+    private void writeCsv(OutputStream outputStream, Consumer<Consumer<DocumentHistory>> source) throws IOException { // Scrive intestazione e righe.
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8), CSV_BUFFER_SIZE); // Invia il contenuto a blocchi.
+        writer.write("id;documentType;documentId;action;description;createdAt\n"); // Aggiunge l'intestazione del CSV.
+        try {
+            source.accept(entry -> writeRow(writer, entry)); // Scrive ogni voce appena disponibile.
+        } catch (UncheckedIOException ex) { // Errore di scrittura, ad esempio client disconnesso.
+            throw ex.getCause(); // Propaga l'eccezione originale.
         }
-        return builder.toString().getBytes(UTF_8); // Converte il contenuto in array di byte UTF-8.
+        writer.flush(); // Svuota il buffer senza chiudere lo stream del chiamante.
+    }
+
+    private void writeRow(Writer writer, DocumentHistory entry) { // Scrive una riga del CSV.
+        try {
+            writer.write(valueOf(entry.getId())); // Scrive l'id della voce.
+            writer.write(';'); // Aggiunge il separatore.
+            writer.write(enumValue(entry.getDocumentType())); // Scrive il tipo di documento.
+            writer.write(';'); // Aggiunge il separatore.
+            writer.write(valueOf(entry.getDocumentId())); // Scrive l'id del documento.
+            writer.write(';'); // Aggiunge il separatore.
+            writer.write(enumValue(entry.getAction())); // Scrive l'azione effettuata.
+            writer.write(';'); // Aggiunge il separatore.
+            writer.write(escape(entry.getDescription())); // Scrive la descrizione escapata.
+            writer.write(';'); // Aggiunge il separatore.
+            writer.write(entry.getCreatedAt() != null ? CSV_DATE_FORMATTER.format(entry.getCreatedAt()) : ""); // Scrive la data formattata se presente.
+            writer.write('\n'); // Termina la riga del CSV.
+        } catch (IOException ex) { // Le callback del cursore non ammettono eccezioni controllate.
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private DocumentHistoryQuery exportQuery(DocumentHistoryQuery query) { // Query normalizzata per le esportazioni.
+        return normalize(Objects.requireNonNull(query, "query must not be null"), false) // Normalizza la query senza imporre paginazione.
+                .withoutPagination(); // Disabilita la paginazione per esportare tutti i risultati.
     }
 
     private DocumentHistoryQuery normalize(DocumentHistoryQuery query, boolean enforcePagination) { // Normalizza la query applicando limiti e default.
@@ -94,7 +168,10 @@ public class DocumentHistoryService { // Gestisce lo storico dei documenti e le
                 .actions(query.getActions()) // Copia le azioni richieste.
                 .from(query.getFrom()) // Copia la data iniziale.
                 .to(query.getTo()) // Copia la data finale.
-                .searchText(query.getSearchText()); // Copia il testo di ricerca.
+                .searchText(query.getSearchText()) // Copia il testo di ricerca.
+                .keyset(query.isKeyset()) // Copia la modalità di paginazione.
+                .after(query.getAfterCreatedAt(), query.getAfterId()) // Copia la posizione del cursore.
+                .includeTotal(query.isIncludeTotal()); // Copia la richiesta del totale.
         if (enforcePagination) { // Se occorre forzare la paginazione.
             int size = query.getSize() > 0 ? Math.min(query.getSize(), MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE; // Calcola la dimensione di pagina limitandola.
             builder.page(query.getPage()).size(size); // Imposta pagina e dimensione normalizzate.
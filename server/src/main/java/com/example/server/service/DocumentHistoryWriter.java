@@ -0,0 +1,248 @@
+package com.example.server.service; // Definisce il package per i servizi di gestione dello storico documentale.
+
+import com.example.server.domain.DocumentHistory; // Voce di storico da scrivere.
+import com.example.server.repository.DocumentHistoryBatchRepository; // Repository che inserisce le voci in blocco.
+import jakarta.annotation.PostConstruct; // Avvio dello svuotamento periodico.
+import jakarta.annotation.PreDestroy; // Svuotamento finale alla chiusura del contesto.
+import org.slf4j.Logger; // Logger per gli errori di scrittura.
+import org.slf4j.LoggerFactory; // Factory del logger.
+import org.springframework.beans.factory.annotation.Value; // Iniezione delle proprietà di configurazione.
+import org.springframework.dao.DataAccessResourceFailureException; // Database non raggiungibile.
+import org.springframework.dao.RecoverableDataAccessException; // Errore superabile ripetendo l'operazione.
+import org.springframework.dao.TransientDataAccessException; // Errore temporaneo del database.
+import org.springframework.stereotype.Component; // Annotazione per i componenti Spring.
+import org.springframework.transaction.support.TransactionSynchronization; // Callback sul ciclo di vita della transazione.
+import org.springframework.transaction.support.TransactionSynchronizationManager; // Registro delle sincronizzazioni del thread.
+
+import java.time.Duration; // Intervallo di svuotamento della coda.
+import java.util.ArrayList; // Buffer delle voci in attesa.
+import java.util.List; // Liste di voci.
+import java.util.Locale; // Normalizzazione della modalità configurata.
+import java.util.Objects; // Controlli sui parametri.
+import java.util.concurrent.ArrayBlockingQueue; // Coda limitata della modalità asincrona.
+import java.util.concurrent.BlockingQueue; // Interfaccia della coda.
+import java.util.concurrent.Executors; // Factory dello scheduler.
+import java.util.concurrent.ScheduledExecutorService; // Scheduler dello svuotamento.
+import java.util.concurrent.TimeUnit; // Unità di tempo della pianificazione.
+import java.util.function.Consumer; // Listener delle voci scritte.
+
+/**
+ * Scrive le voci dello storico documentale in batch JDBC, fuori dal percorso delle singole operazioni di business.
+ * La modalità si sceglie con {@code app.document-history.writer}:
+ * <ul>
+ *     <li>{@code transactional} (predefinita): le voci registrate in una transazione vengono accumulate e inserite
+ *     con un unico batch subito prima del commit, quindi restano atomiche con la modifica del documento;</li>
+ *     <li>{@code async}: dopo il commit le voci entrano in una coda limitata che un thread dedicato svuota a blocchi
+ *     di {@link #BATCH_SIZE}; se la coda è piena la voce viene scritta dal chiamante. Un blocco che fallisce per un
+ *     errore temporaneo (database non raggiungibile, deadlock, timeout) viene ritentato per primo al giro successivo,
+ *     per al massimo {@link #MAX_RETRIES} svuotamenti consecutivi, poi viene scartato. Un blocco rifiutato per altri
+ *     motivi (per esempio un vincolo violato) viene riscritto voce per voce e solo le voci rifiutate vengono scartate,
+ *     così una voce errata non ferma la coda. Le voci scartate finiscono nel log; quelle ancora in coda alla chiusura
+ *     vengono scritte, ma un arresto anomalo può perderle.</li>
+ * </ul>
+ * Fuori da una transazione la voce viene scritta subito. Il listener riceve le voci dopo che sono state rese
+ * persistenti, per aggiornare indice di ricerca e cache.
+ */
+@Component // Registrato come bean Spring.
+public class DocumentHistoryWriter { // Scrittura in blocco dello storico documentale.
+
+    static final int BATCH_SIZE = 500; // Voci massime per ogni batch asincrono.
+    static final int QUEUE_CAPACITY = 10_000; // Voci massime in attesa nella modalità asincrona.
+    static final int MAX_RETRIES = 10; // Svuotamenti consecutivi falliti per errore temporaneo prima di scartare un blocco.
+    private static final Logger log = LoggerFactory.getLogger(DocumentHistoryWriter.class); // Logger del writer.
+
+    private final DocumentHistoryBatchRepository batchRepository; // Repository che esegue gli insert.
+    private final Mode mode; // Modalità di scrittura configurata.
+    private final Duration flushInterval; // Intervallo di svuotamento della coda asincrona.
+    private final BlockingQueue<DocumentHistory> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // Voci confermate da scrivere.
+    private volatile Consumer<List<DocumentHistory>> listener = entries -> { }; // Notificato dopo ogni scrittura.
+    private List<DocumentHistory> failedBatch = List.of(); // Blocco non scritto, da ritentare; protetto dal lock della coda.
+    private int failedAttempts; // Errori temporanei consecutivi; protetto dal lock della coda.
+    private ScheduledExecutorService scheduler; // Scheduler della modalità asincrona.
+
+    public DocumentHistoryWriter(DocumentHistoryBatchRepository batchRepository, // Costruttore con dependency injection.
+                                 @Value("${app.document-history.writer:transactional}") String mode, // Modalità di scrittura.
+                                 @Value("${app.document-history.flush-interval:200ms}") Duration flushInterval) { // Intervallo della coda.
+        this.batchRepository = batchRepository; // Assegna il repository.
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)); // Valori ammessi: transactional, async.
+        this.flushInterval = flushInterval; // Assegna l'intervallo.
+    }
+
+    public void onWritten(Consumer<List<DocumentHistory>> listener) { // Registra chi aggiorna indice e cache.
+        this.listener = Objects.requireNonNull(listener, "listener must not be null");
+    }
+
+    @PostConstruct // Eseguito a bean pronto.
+    void start() { // Avvia lo svuotamento periodico della coda.
+        if (mode != Mode.ASYNC) { // La modalità transazionale non usa la coda.
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> { // Unico thread daemon.
+            Thread thread = new Thread(runnable, "document-history-writer"); // Nome per la diagnostica.
+            thread.setDaemon(true); // Non blocca lo spegnimento.
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::safeFlush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy // Eseguito alla chiusura del contesto.
+    void stop() { // Ferma lo scheduler e scrive le voci rimaste.
+        if (scheduler != null) { // Avviato dal container.
+            scheduler.shutdown(); // Lascia terminare lo svuotamento in corso.
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS); // Attesa limitata.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt(); // Ripristina il flag.
+            }
+        }
+        for (int attempt = 0; attempt <= MAX_RETRIES && queued() > 0; attempt++) { // Ultime voci in coda.
+            safeFlush(); // Dopo MAX_RETRIES errori temporanei i blocchi vengono scartati: il ciclo termina.
+        }
+    }
+
+    public void write(DocumentHistory entry) { // Accoda una voce secondo la modalità configurata.
+        Objects.requireNonNull(entry, "entry must not be null");
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { // Nessuna transazione in corso.
+            if (mode == Mode.ASYNC) {
+                enqueue(entry); // Scritta dal thread dedicato.
+            } else {
+                insert(List.of(entry)); // Scritta subito.
+            }
+            return;
+        }
+        if (mode == Mode.ASYNC) { // Solo le voci di transazioni confermate entrano in coda.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry); // Accoda dopo il commit.
+                }
+            });
+            return;
+        }
+        pending().add(entry); // Inserita con le altre voci della transazione prima del commit.
+    }
+
+    int flush() { // Scrive le voci in coda, restituendo quante ne sono state inserite.
+        int total = 0; // Voci scritte.
+        synchronized (queue) { // Un solo svuotamento alla volta, nell'ordine della coda.
+            List<DocumentHistory> batch = new ArrayList<>(failedBatch); // Riparte dal blocco fallito, se presente.
+            failedBatch = List.of();
+            while (!batch.isEmpty() || queue.drainTo(batch, BATCH_SIZE) > 0) { // Finché restano voci da scrivere.
+                List<DocumentHistory> inserted = insertBatch(batch); // Voci persistite del blocco.
+                if (!inserted.isEmpty()) {
+                    listener.accept(inserted); // Il listener vede solo voci persistite.
+                }
+                total += inserted.size();
+                batch = new ArrayList<>(BATCH_SIZE); // Il listener può trattenere il blocco precedente.
+            }
+        }
+        return total;
+    }
+
+    int queued() { // Voci in attesa nella coda asincrona, compreso il blocco da ritentare.
+        synchronized (queue) {
+            return queue.size() + failedBatch.size();
+        }
+    }
+
+    private List<DocumentHistory> insertBatch(List<DocumentHistory> batch) { // Scrive un blocco; chiamato con il lock della coda.
+        try {
+            List<DocumentHistory> inserted = batchRepository.insertAll(batch); // Un batch JDBC per blocco, in un'unica transazione.
+            failedAttempts = 0; // Database di nuovo disponibile.
+            return inserted;
+        } catch (RuntimeException ex) {
+            if (!isTransient(ex)) { // Blocco rifiutato dal database: si cercano le voci responsabili.
+                log.warn("Blocco di {} voci dello storico rifiutato, scrittura voce per voce", batch.size(), ex);
+                return insertEachEntry(batch);
+            }
+            if (++failedAttempts <= MAX_RETRIES) { // Errore temporaneo: il blocco resta da scrivere.
+                failedBatch = batch;
+                throw ex;
+            }
+            log.error("Scrittura dello storico non riuscita dopo {} tentativi, {} voci scartate", MAX_RETRIES, batch.size(), ex);
+            return List.of(); // La coda prosegue; finché il database non risponde i blocchi seguenti vengono scartati al primo errore.
+        }
+    }
+
+    private List<DocumentHistory> insertEachEntry(List<DocumentHistory> batch) { // Scrive le voci una alla volta, scartando quelle rifiutate.
+        List<DocumentHistory> inserted = new ArrayList<>(batch.size()); // Voci persistite.
+        for (DocumentHistory entry : batch) {
+            try {
+                inserted.addAll(batchRepository.insertAll(List.of(entry))); // Una transazione per voce.
+            } catch (RuntimeException ex) { // Solo questa voce va persa.
+                log.error("Voce dello storico scartata: {} {} {}", entry.getDocumentType(), entry.getDocumentId(),
+                        entry.getAction(), ex);
+            }
+        }
+        return inserted;
+    }
+
+    private static boolean isTransient(RuntimeException ex) { // Errori che possono risolversi ripetendo la scrittura.
+        return ex instanceof TransientDataAccessException // Deadlock, timeout, lock non ottenuto.
+                || ex instanceof RecoverableDataAccessException // Errore superabile con una nuova connessione.
+                || ex instanceof DataAccessResourceFailureException; // Database non raggiungibile.
+    }
+
+    private void enqueue(DocumentHistory entry) { // Aggiunge una voce alla coda limitata.
+        if (!queue.offer(entry)) { // Coda piena: il thread di scrittura non tiene il passo.
+            insert(List.of(entry)); // Il chiamante scrive la voce, rallentando i produttori.
+        }
+    }
+
+    private void insert(List<DocumentHistory> entries) { // Inserisce le voci e notifica il listener.
+        listener.accept(batchRepository.insertAll(entries)); // Il listener vede solo voci persistite.
+    }
+
+    private void safeFlush() { // Svuotamento che non interrompe lo scheduler.
+        try {
+            flush();
+        } catch (RuntimeException ex) { // Errore temporaneo: il blocco e il resto della coda riprovano al giro successivo.
+            log.error("Scrittura dello storico documentale non riuscita, {} voci ancora in coda", queued(), ex);
+        }
+    }
+
+    private Pending pending() { // Buffer delle voci della transazione corrente.
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this); // Buffer già creato.
+        if (pending == null) { // Prima voce della transazione.
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending); // Legato al thread della transazione.
+            TransactionSynchronizationManager.registerSynchronization(pending); // Scrive prima del commit.
+        }
+        return pending;
+    }
+
+    // Voci di una transazione, inserite con un unico batch prima del commit.
+    private final class Pending implements TransactionSynchronization {
+
+        private final List<DocumentHistory> entries = new ArrayList<>(); // Voci in attesa del commit.
+        private final List<DocumentHistory> written = new ArrayList<>(); // Voci inserite nella transazione.
+        private boolean flushed; // Batch già eseguito.
+
+        void add(DocumentHistory entry) { // Accumula una voce.
+            if (flushed) { // Registrata da un'altra sincronizzazione dopo il batch.
+                written.addAll(batchRepository.insertAll(List.of(entry))); // Ancora dentro la transazione.
+            } else {
+                entries.add(entry);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) { // Ancora dentro la transazione.
+            flushed = true;
+            written.addAll(batchRepository.insertAll(entries)); // Un unico batch, annullato insieme alla transazione.
+        }
+
+        @Override
+        public void afterCompletion(int status) { // Transazione conclusa.
+            TransactionSynchronizationManager.unbindResourceIfPossible(DocumentHistoryWriter.this); // Libera il thread.
+            if (status == STATUS_COMMITTED) { // Solo le voci confermate aggiornano indice e cache.
+                listener.accept(written);
+            }
+        }
+    }
+
+    enum Mode { // Modalità di scrittura dello storico.
+        TRANSACTIONAL, // Batch nella transazione del chiamante.
+        ASYNC // Batch dopo il commit, dal thread dedicato.
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.server.service; // Package dei servizi applicativi.
+
+import com.example.common.dto.EventDispatchMetricsDTO; // DTO con i contatori della consegna degli eventi.
+import com.example.common.dto.SubscriptionMetricsDTO; // DTO con le sottoscrizioni di un publisher.
+import com.example.server.service.broker.ListenerDispatcher; // Dispatcher dei listener locali.
+import com.example.server.service.broker.SubscriberRegistry; // Contatori dei registri dei listener.
+import org.springframework.stereotype.Service; // Annotazione di servizio Spring.
+
+import java.util.List; // Elenco delle statistiche.
+
+/**
+ * Raccoglie i contatori della consegna asincrona degli eventi, per capire se i listener (long polling, stream SSE)
+ * tengono il passo o se la coda limitata sta scartando eventi, e le sottoscrizioni attive di notifiche e chat.
+ */
+@Service // Indica che la classe è un servizio Spring.
+public class EventMetricsService { // Statistiche della consegna degli eventi.
+
+    private final ListenerDispatcher dispatcher; // Dispatcher condiviso dai publisher.
+    private final NotificationPublisher notificationPublisher; // Publisher delle notifiche.
+    private final ChatPublisher chatPublisher; // Publisher dei messaggi di chat.
+
+    public EventMetricsService(ListenerDispatcher dispatcher, NotificationPublisher notificationPublisher,
+                               ChatPublisher chatPublisher) { // Costruttore con dependency injection.
+        this.dispatcher = dispatcher; // Assegna il dispatcher.
+        this.notificationPublisher = notificationPublisher; // Assegna il publisher delle notifiche.
+        this.chatPublisher = chatPublisher; // Assegna il publisher della chat.
+    }
+
+    public EventDispatchMetricsDTO dispatch() { // Fotografia dei contatori del dispatcher.
+        ListenerDispatcher.Stats stats = dispatcher.stats(); // Valori correnti.
+        return new EventDispatchMetricsDTO(stats.delivered(), stats.dropped(), stats.failed(), stats.queued(),
+                stats.saturatedListeners());
+    }
+
+    public List<SubscriptionMetricsDTO> subscriptions() { // Sottoscrizioni attive di ogni publisher, ordinate per nome.
+        return List.of(
+                subscriptions("chat", chatPublisher.subscriptionStats()), // Conversazioni seguite.
+                subscriptions("notifications", notificationPublisher.subscriptionStats())); // Utenti e team seguiti.
+    }
+
+    private static SubscriptionMetricsDTO subscriptions(String name, SubscriberRegistry.Stats stats) { // Conversione nel DTO.
+        return new SubscriptionMetricsDTO(name, stats.topics(), stats.subscriptions());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.server.service; // Package dei servizi applicativi
+
+import com.example.server.domain.InvoiceLine; // Entità delle righe fattura
+import com.example.server.repository.InvoiceLineRepository; // Repository delle righe fattura
+import org.springframework.stereotype.Component; // Stereotipo di componente Spring
+
+import java.util.ArrayList; // Lista mutabile per i blocchi di id
+import java.util.Collection; // Insieme di id in ingresso
+import java.util.HashMap; // Mappa dei risultati raggruppati
+import java.util.LinkedHashSet; // Deduplica mantenendo l'ordine
+import java.util.List; // Liste di righe
+import java.util.Map; // Righe raggruppate per fattura
+import java.util.Objects; // Utility per i controlli di nullità
+
+/**
+ * Carica le righe di più fatture con query {@code IN (...)} invece di una query per fattura.
+ * Gli id vengono suddivisi in blocchi di {@value #CHUNK_SIZE} per restare sotto il limite di parametri
+ * per istruzione dei database supportati (2100 su SQL Server).
+ */
+@Component // Registra il loader nel contesto Spring
+public class InvoiceLineLoader { // Loader batch delle righe fattura
+
+    static final int CHUNK_SIZE = 1000; // Numero massimo di id per singola query
+
+    private final InvoiceLineRepository invoiceLineRepository; // Repository delle righe fattura
+
+    public InvoiceLineLoader(InvoiceLineRepository invoiceLineRepository) { // Costruttore con dipendenze
+        this.invoiceLineRepository = invoiceLineRepository; // Assegna il repository
+    }
+
+    public Map<Long, List<InvoiceLine>> loadByInvoiceIds(Collection<Long> invoiceIds) { // Restituisce le righe raggruppate per id fattura
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(Objects.requireNonNull(invoiceIds, // Rimuove duplicati e valori nulli
+                "invoiceIds must not be null")));
+        distinctIds.removeIf(Objects::isNull); // Gli id nulli non possono avere righe
+        Map<Long, List<InvoiceLine>> linesByInvoice = new HashMap<>(); // Risultato raggruppato
+        for (int start = 0; start < distinctIds.size(); start += CHUNK_SIZE) { // Un round trip per blocco
+            List<Long> chunk = distinctIds.subList(start, Math.min(start + CHUNK_SIZE, distinctIds.size())); // Blocco corrente
+            for (InvoiceLine line : invoiceLineRepository.findByInvoiceIdInOrderByInvoiceIdAscIdAsc(chunk)) { // Righe già ordinate per id
+                linesByInvoice.computeIfAbsent(line.getInvoiceId(), id -> new ArrayList<>()).add(line); // Raggruppa per fattura
+            }
+        }
+        return linesByInvoice; // Le fatture senza righe non compaiono nella mappa
+    }
+
+    public List<InvoiceLine> loadByInvoiceId(Long invoiceId) { // Righe di una singola fattura
+        return loadByInvoiceIds(List.of(Objects.requireNonNull(invoiceId, "invoiceId must not be null"))) // Stesso percorso del caricamento batch
+                .getOrDefault(invoiceId, List.of()); // Lista vuota se la fattura non ha righe
+    }
+}
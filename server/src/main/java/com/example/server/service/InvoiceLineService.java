@@ -3,13 +3,16 @@ package com.example.server.service; // Definisce il package per i servizi di ges
 import com.example.common.dto.InvoiceLineDTO; // Importa il DTO delle righe fattura.
 import com.example.server.domain.InvoiceLine; // Importa l'entità InvoiceLine.
 import com.example.server.repository.InvoiceLineRepository; // Importa il repository per l'accesso ai dati delle righe fattura.
+import com.example.server.repository.InvoiceRepository; // Importa il repository delle fatture di appartenenza.
 import com.example.server.service.mapper.InvoiceLineMapper; // Importa il mapper tra entità e DTO delle righe fattura.
 import org.springframework.stereotype.Service; // Importa l'annotazione Service di Spring.
 import org.springframework.transaction.annotation.Transactional; // Importa il supporto transazionale.
 import org.springframework.util.StringUtils; // Importa utility per la gestione delle stringhe.
 
 import java.math.BigDecimal; // Importa BigDecimal per i calcoli monetari.
+import java.util.Collection; // Importa Collection per gli insiemi di id fattura.
 import java.util.List; // Importa l'interfaccia List.
+import java.util.Map; // Importa Map per le righe raggruppate per fattura.
 import java.util.Objects; // Importa metodi per controlli null-safe.
 import java.util.Optional; // Importa Optional per gestire risultati opzionali.
 import java.util.stream.StreamSupport; // Importa StreamSupport per trasformare Iterable in stream.
@@ -18,9 +21,14 @@ import java.util.stream.StreamSupport; // Importa StreamSupport per trasformare
 public class InvoiceLineService { // Gestisce le operazioni sulle righe di fattura.
 
     private final InvoiceLineRepository invoiceLineRepository; // Repository per l'accesso ai dati delle righe fattura.
+    private final InvoiceLineLoader invoiceLineLoader; // Loader batch delle righe per più fatture.
+    private final InvoiceRepository invoiceRepository; // Repository delle fatture a cui appartengono le righe.
 
-    public InvoiceLineService(InvoiceLineRepository invoiceLineRepository) { // Costruttore che riceve il repository come dipendenza.
+    public InvoiceLineService(InvoiceLineRepository invoiceLineRepository, InvoiceLineLoader invoiceLineLoader, // Costruttore che riceve le dipendenze.
+                              InvoiceRepository invoiceRepository) {
         this.invoiceLineRepository = invoiceLineRepository; // Inizializza il repository.
+        this.invoiceLineLoader = invoiceLineLoader; // Inizializza il loader batch.
+        this.invoiceRepository = invoiceRepository; // Inizializza il repository delle fatture.
     }
 
     public List<InvoiceLineDTO> findAll() { // Restituisce tutte le righe di fattura.
@@ -30,7 +38,16 @@ public class InvoiceLineService { // Gestisce le operazioni sulle righe di fattu
     }
 
     public List<InvoiceLineDTO> findByInvoiceId(Long invoiceId) { // Restituisce le righe di una specifica fattura.
-        return invoiceLineRepository.findByInvoiceIdOrderById(Objects.requireNonNull(invoiceId, "invoiceId must not be null")).stream() // Recupera le righe per id fattura e le converte in stream.
+        return invoiceLineLoader.loadByInvoiceId(Objects.requireNonNull(invoiceId, "invoiceId must not be null")).stream() // Recupera le righe per id fattura e le converte in stream.
+                .map(InvoiceLineMapper::toDto) // Converte ogni entità in DTO.
+                .toList(); // Colleziona i DTO in una lista.
+    }
+
+    public List<InvoiceLineDTO> findByInvoiceIds(Collection<Long> invoiceIds) { // Restituisce le righe di più fatture con query batch.
+        Map<Long, List<InvoiceLine>> linesByInvoice = invoiceLineLoader.loadByInvoiceIds(invoiceIds); // Carica e raggruppa le righe per fattura.
+        return invoiceIds.stream() // Mantiene l'ordine delle fatture richieste.
+                .distinct() // Evita di ripetere le righe di fatture duplicate.
+                .flatMap(invoiceId -> linesByInvoice.getOrDefault(invoiceId, List.of()).stream()) // Righe della fattura ordinate per id.
                 .map(InvoiceLineMapper::toDto) // Converte ogni entità in DTO.
                 .toList(); // Colleziona i DTO in una lista.
     }
@@ -44,6 +61,7 @@ public class InvoiceLineService { // Gestisce le operazioni sulle righe di fattu
     public InvoiceLineDTO create(InvoiceLineDTO dto) { // Crea una nuova riga di fattura.
         InvoiceLine toSave = validateAndNormalize(null, Objects.requireNonNull(dto, "invoice line must not be null")); // Valida, normalizza e crea l'entità da salvare.
         InvoiceLine saved = invoiceLineRepository.save(toSave); // Salva l'entità nel database.
+        touchInvoice(saved.getInvoiceId()); // Segnala la fattura come modificata alla sincronizzazione incrementale.
         return InvoiceLineMapper.toDto(saved); // Restituisce il DTO della riga salvata.
     }
 
@@ -52,19 +70,34 @@ public class InvoiceLineService { // Gestisce le operazioni sulle righe di fattu
         InvoiceLineDTO validated = Objects.requireNonNull(dto, "invoice line must not be null"); // Verifica che il DTO non sia null.
         Long requiredId = Objects.requireNonNull(id, "id must not be null"); // Valida l'id della riga.
         return invoiceLineRepository.findById(requiredId) // Cerca la riga da aggiornare.
-                .map(existing -> validateAndNormalize(existing.getId(), validated)) // Valida e normalizza i nuovi dati mantenendo l'id esistente.
-                .map(invoiceLineRepository::save) // Salva l'entità aggiornata.
+                .map(existing -> { // Aggiorna la riga e le fatture coinvolte.
+                    InvoiceLine saved = invoiceLineRepository.save(validateAndNormalize(existing.getId(), validated)); // Valida, normalizza e salva mantenendo l'id esistente.
+                    touchInvoice(saved.getInvoiceId()); // Segnala la fattura della riga come modificata.
+                    if (!Objects.equals(existing.getInvoiceId(), saved.getInvoiceId())) { // La riga è stata spostata su un'altra fattura.
+                        touchInvoice(existing.getInvoiceId()); // Anche la fattura di origine ha perso una riga.
+                    }
+                    return saved; // Restituisce l'entità aggiornata.
+                })
                 .map(InvoiceLineMapper::toDto); // Converte l'entità aggiornata in DTO.
     }
 
     @Transactional // Esegue l'operazione in transazione.
     public boolean delete(Long id) { // Elimina una riga di fattura se presente.
         Long requiredId = Objects.requireNonNull(id, "id must not be null"); // Valida l'id fornito.
-        if (!invoiceLineRepository.existsById(requiredId)) { // Verifica l'esistenza della riga.
-            return false; // Restituisce false se non trovata.
-        }
-        invoiceLineRepository.deleteById(requiredId); // Cancella la riga dal database.
-        return true; // Indica che la cancellazione è avvenuta.
+        return invoiceLineRepository.findById(requiredId) // Cerca la riga per conoscerne la fattura.
+                .map(existing -> { // Se presente.
+                    invoiceLineRepository.deleteById(requiredId); // Cancella la riga dal database.
+                    touchInvoice(existing.getInvoiceId()); // Segnala la fattura come modificata.
+                    return true; // Indica che la cancellazione è avvenuta.
+                })
+                .orElse(false); // Restituisce false se non trovata.
+    }
+
+    private void touchInvoice(Long invoiceId) { // Aggiorna updated_at della fattura nella stessa transazione della riga.
+        // Le righe sono un aggregato separato: senza questo salvataggio /api/invoices/changes non restituirebbe la fattura
+        // e i client sincronizzati in modo incrementale manterrebbero righe e totali precedenti.
+        invoiceRepository.findById(invoiceId) // Fattura di appartenenza.
+                .ifPresent(invoiceRepository::save); // Il salvataggio valorizza @LastModifiedDate.
     }
 
     private InvoiceLine validateAndNormalize(Long id, InvoiceLineDTO dto) { // Valida i dati e crea un'entità InvoiceLine normalizzata.
@@ -1,5 +1,7 @@
 package com.example.server.service; // Package declaration for the server service layer
 
+import com.example.common.dto.ChangeSetDTO; // DTO representing incremental list changes
+import com.example.common.dto.CursorPageDTO; // DTO representing a keyset page
 import com.example.common.dto.DocumentHistoryDTO; // DTO representing a document history entry
 import com.example.common.dto.InvoiceDTO; // DTO representing an invoice
 import com.example.common.dto.InvoiceLineDTO; // DTO representing a single invoice line
@@ -18,9 +20,11 @@ import org.springframework.transaction.annotation.Transactional; // Annotation t
 import org.springframework.util.StringUtils; // Utility class for string handling
 
 import java.math.BigDecimal; // BigDecimal for monetary values
+import java.time.Instant; // Instant for sync timestamps
 import java.time.LocalDate; // LocalDate for date handling
 import java.util.ArrayList; // ArrayList implementation
 import java.util.List; // List interface
+import java.util.Map; // Map interface
 import java.util.Objects; // Utility for null checks
 import java.util.Optional; // Optional wrapper type
 
@@ -34,6 +38,9 @@ public class InvoiceService { // Service handling invoice operations
     private final DocumentHistoryService documentHistoryService; // Service to log document history
     private final CommissionService commissionService; // Service to manage commissions
     private final StatisticsService statisticsService; // Service to manage cached statistics
+    private final CommissionRollupService commissionRollupService; // Service maintaining the monthly commission rollup
+    private final InvoiceLineLoader invoiceLineLoader; // Batch loader for invoice lines
+    private final ChangeFeedService changeFeedService; // Service building incremental sync responses
 
     public InvoiceService(InvoiceRepository invoiceRepository, // Constructor injecting invoice repository
                           InvoiceLineRepository invoiceLineRepository, // Constructor injecting invoice line repository
@@ -41,7 +48,10 @@ public class InvoiceService { // Service handling invoice operations
                           ArticleService articleService, // Constructor injecting article service
                           DocumentHistoryService documentHistoryService, // Constructor injecting document history service
                           CommissionService commissionService, // Constructor injecting commission service
-                          StatisticsService statisticsService) { // Constructor injecting statistics service
+                          StatisticsService statisticsService, // Constructor injecting statistics service
+                          CommissionRollupService commissionRollupService, // Constructor injecting rollup service
+                          InvoiceLineLoader invoiceLineLoader, // Constructor injecting invoice line loader
+                          ChangeFeedService changeFeedService) { // Constructor injecting change feed service
         this.invoiceRepository = invoiceRepository; // Assign invoice repository
         this.invoiceLineRepository = invoiceLineRepository; // Assign invoice line repository
         this.customerService = customerService; // Assign customer service
@@ -49,17 +59,48 @@ public class InvoiceService { // Service handling invoice operations
         this.documentHistoryService = documentHistoryService; // Assign document history service
         this.commissionService = commissionService; // Assign commission service
         this.statisticsService = statisticsService; // Assign statistics service
+        this.commissionRollupService = commissionRollupService; // Assign rollup service
+        this.invoiceLineLoader = invoiceLineLoader; // Assign invoice line loader
+        this.changeFeedService = changeFeedService; // Assign change feed service
     } // End constructor
 
     public List<InvoiceDTO> findAll() { // Retrieve all invoices
-        return invoiceRepository.findAllByOrderByIssueDateDesc().stream() // Fetch all invoices sorted by issue date
-                .map(invoice -> { // Map each invoice to a DTO
-                    Long invoiceId = Objects.requireNonNull(invoice.getId(), "invoice id must not be null"); // Ensure invoice id is present
-                    return InvoiceMapper.toDto(invoice, invoiceLineRepository.findByInvoiceIdOrderById(invoiceId)); // Map invoice with its lines
-                }) // Close mapping function
-                .toList(); // Collect to immutable list
+        return toDtos(invoiceRepository.findAllByOrderByIssueDateDesc()); // Fetch all invoices sorted by issue date
     } // End findAll
 
+    public CursorPageDTO<InvoiceDTO> findPage(String cursor, Integer size) { // Retrieve one keyset page of invoices
+        int pageSize = KeysetPagination.pageSize(size); // Normalize the requested page size
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Position after the previous page
+        List<Invoice> invoices; // Rows of the page plus one look-ahead row
+        if (position == null) { // First page
+            invoices = invoiceRepository.findAllByOrderByIssueDateDescIdDesc(KeysetPagination.fetchLimit(pageSize));
+        } else { // Seek past the last returned invoice
+            LocalDate issueDate = position.dateKey(); // Issue date of the last returned invoice
+            invoices = invoiceRepository.findByIssueDateLessThanOrIssueDateAndIdLessThanOrderByIssueDateDescIdDesc(
+                    issueDate, issueDate, position.id(), KeysetPagination.fetchLimit(pageSize));
+        }
+        return KeysetPagination.page(invoices, pageSize, // Build the page and the next cursor
+                invoice -> String.valueOf(invoice.getIssueDate()),
+                Invoice::getId,
+                this::toDtos);
+    } // End findPage
+
+    public ChangeSetDTO<InvoiceDTO> findChanges(Instant since) { // Invoices created, updated or deleted after the given instant
+        return changeFeedService.changes(ChangeFeedService.SyncedEntity.INVOICE, since,
+                invoiceRepository::findByUpdatedAtGreaterThan, // Changed rows through updated_at
+                this::toDtos, // Lines of the changed invoices only
+                this::findAll); // Full list on first sync
+    } // End findChanges
+
+    private List<InvoiceDTO> toDtos(List<Invoice> invoices) { // Map invoices loading their lines in batched queries
+        Map<Long, List<InvoiceLine>> linesByInvoice = invoiceLineLoader.loadByInvoiceIds(invoices.stream() // Lines of these invoices only
+                .map(invoice -> Objects.requireNonNull(invoice.getId(), "invoice id must not be null")) // Ensure invoice id is present
+                .toList()); // Collect the ids
+        return invoices.stream() // Stream the invoices
+                .map(invoice -> InvoiceMapper.toDto(invoice, linesByInvoice.getOrDefault(invoice.getId(), List.of()))) // Map invoice with its lines
+                .toList(); // Collect to immutable list
+    } // End toDtos
+
     public Optional<InvoiceDTO> findById(Long id) { // Retrieve a single invoice by id
         return invoiceRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Find invoice or empty
                 .map(invoice -> { // Map found invoice to DTO
@@ -97,7 +138,8 @@ public class InvoiceService { // Service handling invoice operations
         replaceInvoiceLines(savedId, lines); // Persist invoice lines
         documentHistoryService.log(DocumentType.INVOICE, savedId, DocumentAction.CREATED, // Log creation history
                 "Fattura creata: " + saved.getNumber()); // Message for history
-        statisticsService.clearCache(); // Invalidate cached statistics
+        commissionRollupService.invoiceChanged(null, saved); // Add the invoice to the monthly rollup when already paid
+        statisticsService.invoiceChanged(null, saved); // Evict only statistics covering the new payment date
         return InvoiceMapper.toDto(saved, invoiceLineRepository.findByInvoiceIdOrderById(savedId)); // Return saved invoice DTO
     } // End create
 
@@ -135,7 +177,8 @@ public class InvoiceService { // Service handling invoice operations
                         documentHistoryService.log(DocumentType.INVOICE, savedId, DocumentAction.STATUS_CHANGED, // Log status change
                                 "Stato cambiato da " + existing.getStatus() + " a " + saved.getStatus()); // Status change message
                     } // End status change check
-                    statisticsService.clearCache(); // Invalidate statistics cache
+                    commissionRollupService.invoiceChanged(existing, saved); // Move the invoice contribution in the monthly rollup
+                    statisticsService.invoiceChanged(existing, saved); // Evict statistics covering old and new payment dates
                     return InvoiceMapper.toDto(saved, invoiceLineRepository.findByInvoiceIdOrderById(savedId)); // Return updated DTO
                 }); // End optional mapping
     } // End update
@@ -147,11 +190,13 @@ public class InvoiceService { // Service handling invoice operations
                 .map(invoice -> { // If present
                     invoiceLineRepository.deleteByInvoiceId(requiredId); // Delete related invoice lines first to satisfy FK constraint
                     invoiceRepository.deleteById(requiredId); // Delete invoice record
+                    changeFeedService.recordDeletion(ChangeFeedService.SyncedEntity.INVOICE, requiredId); // Tombstone for synced clients
                     documentHistoryService.log(DocumentType.INVOICE, // Log deletion
                             Objects.requireNonNull(invoice.getId(), "invoice id must not be null"), // Validate invoice id
                             DocumentAction.DELETED, // Action type
                             "Fattura eliminata"); // Message
-                    statisticsService.clearCache(); // Invalidate statistics cache
+                    commissionRollupService.invoiceChanged(invoice, null); // Remove the invoice contribution from the monthly rollup
+                    statisticsService.invoiceChanged(invoice, null); // Evict statistics covering the removed payment date
                     return true; // Indicate success
                 }) // End map
                 .orElse(false); // Return false if invoice not found
@@ -170,7 +215,8 @@ public class InvoiceService { // Service handling invoice operations
                             "Pagamento registrato il " + paymentDate); // Message
                     commissionService.updateAfterPayment(saved.getContractId(), saved.getAmount(), // Update commissions
                             requiredRequest.getAmountPaid() != null ? requiredRequest.getAmountPaid() : saved.getAmount()); // Determine paid amount
-                    statisticsService.clearCache(); // Invalidate statistics cache
+                    commissionRollupService.invoiceChanged(invoice, saved); // Add the payment to the monthly rollup
+                    statisticsService.invoiceChanged(invoice, saved); // Evict statistics covering old and new payment dates
                     return InvoiceMapper.toDto(saved, invoiceLineRepository.findByInvoiceIdOrderById(savedId)); // Return DTO
                 }); // End optional mapping
     } // End registerPayment
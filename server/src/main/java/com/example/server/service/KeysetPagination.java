@@ -0,0 +1,102 @@
+package com.example.server.service; // Package dei servizi applicativi
+
+import com.example.common.dto.CursorPageDTO; // DTO della pagina a cursore
+import org.springframework.data.domain.Limit; // Limite di righe passato ai metodi derivati dei repository
+
+import java.nio.charset.StandardCharsets; // Codifica del contenuto del cursore
+import java.time.Instant; // Chiavi di ordinamento di tipo timestamp
+import java.time.LocalDate; // Chiavi di ordinamento di tipo data
+import java.time.format.DateTimeParseException; // Data non valida nel cursore
+import java.util.Base64; // Codifica opaca e URL-safe del cursore
+import java.util.List; // Righe lette dal repository
+import java.util.function.Function; // Estrattori di chiave e conversione in DTO
+
+/**
+ * Supporto alla paginazione keyset degli elenchi: il cursore codifica la chiave di ordinamento e l'id
+ * dell'ultima riga restituita, e la pagina successiva riparte con un predicato di seek invece di un OFFSET.
+ * I repository leggono sempre una riga in più della pagina per sapere se esiste un seguito.
+ */
+public final class KeysetPagination { // Utility senza stato condivisa dai servizi
+
+    static final int DEFAULT_SIZE = 50; // Dimensione di pagina se il client non la indica
+    static final int MAX_SIZE = 500; // Dimensione massima per singola richiesta
+    private static final char SEPARATOR = '|'; // Separatore tra chiave e id nel cursore
+
+    private KeysetPagination() { // Impedisce l'istanziazione
+    }
+
+    public static int pageSize(Integer requested) { // Normalizza la dimensione richiesta
+        if (requested == null) { // Nessuna dimensione indicata
+            return DEFAULT_SIZE; // Valore predefinito
+        }
+        if (requested < 1) { // Dimensione non valida
+            throw new IllegalArgumentException("size must be positive");
+        }
+        return Math.min(requested, MAX_SIZE); // Evita pagine arbitrariamente grandi
+    }
+
+    public static Limit fetchLimit(int pageSize) { // Righe da leggere: una in più per rilevare la pagina successiva
+        return Limit.of(pageSize + 1);
+    }
+
+    public static Cursor decode(String cursor) { // Decodifica il cursore ricevuto dal client
+        if (cursor == null || cursor.isBlank()) { // Prima pagina
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8); // Contenuto in chiaro
+        } catch (IllegalArgumentException ex) { // Base64 non valido
+            throw new IllegalArgumentException("Cursore non valido", ex);
+        }
+        int separator = decoded.lastIndexOf(SEPARATOR); // La chiave può contenere il separatore, l'id no
+        if (separator < 0) { // Formato inatteso
+            throw new IllegalArgumentException("Cursore non valido");
+        }
+        try {
+            return new Cursor(decoded.substring(0, separator), Long.valueOf(decoded.substring(separator + 1))); // Chiave e id
+        } catch (NumberFormatException ex) { // Id non numerico
+            throw new IllegalArgumentException("Cursore non valido", ex);
+        }
+    }
+
+    public static String encode(String key, Long id) { // Codifica la posizione dell'ultima riga restituita
+        String raw = (key != null ? key : "") + SEPARATOR + (id != null ? id : ""); // Chiave e id separati
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <E, D> CursorPageDTO<D> page(List<E> rows, // Costruisce la pagina dalle righe lette (al più size + 1)
+                                               int pageSize,
+                                               Function<E, String> key,
+                                               Function<E, Long> id,
+                                               Function<List<E>, List<D>> mapper) {
+        boolean hasNext = rows.size() > pageSize; // La riga in più indica che esiste un seguito
+        List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows; // Scarta la riga di controllo
+        String nextCursor = null; // Ultima pagina per default
+        if (hasNext) { // Posizione dell'ultima riga restituita
+            E last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encode(key.apply(last), id.apply(last));
+        }
+        return new CursorPageDTO<>(mapper.apply(pageRows), nextCursor, pageSize);
+    }
+
+    // Posizione decodificata dal cursore: chiave di ordinamento e id dell'ultima riga già restituita.
+    public record Cursor(String key, Long id) {
+
+        public LocalDate dateKey() { // Interpreta la chiave come data ISO
+            try {
+                return LocalDate.parse(key);
+            } catch (DateTimeParseException ex) { // Cursore manomesso o di un altro elenco
+                throw new IllegalArgumentException("Cursore non valido", ex);
+            }
+        }
+
+        public Instant instantKey() { // Interpreta la chiave come istante ISO
+            try {
+                return Instant.parse(key);
+            } catch (DateTimeParseException ex) { // Cursore manomesso o di un altro elenco
+                throw new IllegalArgumentException("Cursore non valido", ex);
+            }
+        }
+    }
+}
@@ -1,40 +1,79 @@
 package com.example.server.service; // Package for service components
 
+import com.example.common.dto.NotificationDTO; // DTO carried by the broker between instances
 import com.example.server.domain.Notification; // Domain entity representing a notification
+import com.example.server.service.broker.EventBroker; // Transport delivering notifications to every instance
+import com.example.server.service.broker.InMemoryEventBroker; // Default single-instance transport
+import com.example.server.service.broker.ListenerDispatcher; // Asynchronous delivery to observers
+import com.example.server.service.broker.SubscriberRegistry; // Observers keyed by user or team
+import com.example.server.service.mapper.NotificationMapper; // Mapper between notification entities and DTOs
+import org.springframework.beans.factory.annotation.Autowired; // Marks the constructor used by Spring
 import org.springframework.stereotype.Component; // Annotation marking a Spring component
 
-import java.util.List; // List interface
-import java.util.Map; // Map interface
-import java.util.concurrent.ConcurrentHashMap; // Thread-safe map implementation
-import java.util.concurrent.CopyOnWriteArrayList; // Thread-safe list implementation
 import java.util.function.Consumer; // Functional interface for consumers
 
 @Component // Marks the class as a Spring-managed component
 public class NotificationPublisher { // Publishes notifications to observers
 
-    private final Map<Long, List<Consumer<Notification>>> userObservers = new ConcurrentHashMap<>(); // Observers keyed by user
-    private final Map<Long, List<Consumer<Notification>>> teamObservers = new ConcurrentHashMap<>(); // Observers keyed by team
+    static final String TOPIC = "notifications"; // Broker topic of notifications
+
+    private final EventBroker broker; // Transport reaching observers on every instance
+    private final ListenerDispatcher dispatcher; // Queues each observer off the publishing thread
+    private final SubscriberRegistry<Long, Consumer<Notification>> userObservers = new SubscriberRegistry<>(); // Observers keyed by user
+    private final SubscriberRegistry<Long, Consumer<Notification>> teamObservers = new SubscriberRegistry<>(); // Observers keyed by team
+
+    public NotificationPublisher() { // Single-instance publisher
+        this(new InMemoryEventBroker(), ListenerDispatcher.direct()); // In-process, synchronous delivery
+    } // End default constructor
+
+    @Autowired // Constructor used by Spring
+    public NotificationPublisher(EventBroker broker, ListenerDispatcher dispatcher) { // Publisher backed by the configured broker
+        this.broker = broker; // Assign broker
+        this.dispatcher = dispatcher; // Assign dispatcher
+        broker.register(TOPIC, NotificationDTO.class, dto -> deliver(NotificationMapper.fromDto(dto))); // Local fan-out of every notification
+    } // End constructor
 
     public Subscription subscribeToUser(Long userId, Consumer<Notification> listener) { // Subscribe to user notifications
-        userObservers.computeIfAbsent(userId, key -> new CopyOnWriteArrayList<>()).add(listener); // Add listener for user
-        return () -> userObservers.getOrDefault(userId, List.of()).remove(listener); // Provide cancellation handle
+        return subscribe(userObservers, userId, dispatcher.mailbox(listener)); // Add listener for user
+    } // End subscribeToUser
+
+    public Subscription subscribeToUser(Long userId, Consumer<Notification> listener, Runnable onOverflow) { // Subscribe, closing on a full queue
+        return subscribe(userObservers, userId, dispatcher.mailbox(listener, onOverflow)); // Add listener for user
     } // End subscribeToUser
 
     public Subscription subscribeToTeam(Long teamId, Consumer<Notification> listener) { // Subscribe to team notifications
-        teamObservers.computeIfAbsent(teamId, key -> new CopyOnWriteArrayList<>()).add(listener); // Add listener for team
-        return () -> teamObservers.getOrDefault(teamId, List.of()).remove(listener); // Provide cancellation handle
+        return subscribe(teamObservers, teamId, dispatcher.mailbox(listener)); // Add listener for team
+    } // End subscribeToTeam
+
+    public Subscription subscribeToTeam(Long teamId, Consumer<Notification> listener, Runnable onOverflow) { // Subscribe, closing on a full queue
+        return subscribe(teamObservers, teamId, dispatcher.mailbox(listener, onOverflow)); // Add listener for team
     } // End subscribeToTeam
 
-    public void publish(Notification notification) { // Publish a notification to relevant observers
+    private Subscription subscribe(SubscriberRegistry<Long, Consumer<Notification>> observers, Long key, // Register an observer behind its own queue
+                                   ListenerDispatcher.Mailbox<Notification> mailbox) { // Publishing only enqueues
+        observers.add(key, mailbox); // Add queued listener
+        return () -> { // Provide cancellation handle
+            observers.remove(key, mailbox); // Stop receiving notifications, evicting the key once empty
+            mailbox.close(); // Drop pending deliveries
+        };
+    } // End subscribe
+
+    public SubscriberRegistry.Stats subscriptionStats() { // Live users/teams and subscriptions of this instance
+        return userObservers.stats().plus(teamObservers.stats()); // Sum of both registries
+    } // End subscriptionStats
+
+    public void publish(Notification notification) { // Publish a notification to observers on every instance
+        broker.publish(TOPIC, NotificationMapper.toDto(notification)); // Hand over to the broker
+    } // End publish
+
+    private void deliver(Notification notification) { // Deliver a notification to the observers of this instance
         if (notification.getUserId() != null) { // If targeted to user
-            userObservers.getOrDefault(notification.getUserId(), List.of()) // Get user listeners
-                    .forEach(listener -> listener.accept(notification)); // Notify each listener
+            userObservers.forEach(notification.getUserId(), listener -> listener.accept(notification)); // Notify each user listener
         } // End user check
         if (notification.getTeamId() != null) { // If targeted to team
-            teamObservers.getOrDefault(notification.getTeamId(), List.of()) // Get team listeners
-                    .forEach(listener -> listener.accept(notification)); // Notify each listener
+            teamObservers.forEach(notification.getTeamId(), listener -> listener.accept(notification)); // Notify each team listener
         } // End team check
-    } // End publish
+    } // End deliver
 
     @FunctionalInterface // Functional interface marker
     public interface Subscription { // Represents a subscription handle
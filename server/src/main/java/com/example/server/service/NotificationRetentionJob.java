@@ -0,0 +1,89 @@
+package com.example.server.service; // Package for service layer classes
+
+import com.example.server.repository.NotificationInboxRepository; // Repository running the batched deletes
+import jakarta.annotation.PostConstruct; // Lifecycle hook for starting the scheduler
+import jakarta.annotation.PreDestroy; // Lifecycle hook for stopping the scheduler
+import org.slf4j.Logger; // Logger for purge results and failures
+import org.slf4j.LoggerFactory; // Logger factory
+import org.springframework.beans.factory.annotation.Value; // Injection of configuration properties
+import org.springframework.stereotype.Component; // Annotation marking a Spring component
+
+import java.time.Clock; // Clock used to compute the cutoff
+import java.time.Duration; // Retention age and run interval
+import java.time.Instant; // Cutoff timestamp
+import java.util.concurrent.Executors; // Factory for the scheduler
+import java.util.concurrent.ScheduledExecutorService; // Scheduler running the purge
+import java.util.concurrent.TimeUnit; // Time unit of the schedule
+
+/**
+ * Periodically deletes read notifications older than {@code app.notifications.retention.read-max-age}, so the
+ * inbox queries and indexes stay small. Each run deletes in batches of {@code app.notifications.retention.batch-size}
+ * rows, each batch a separate statement, and stops after {@link #MAX_BATCHES_PER_RUN} batches; the next run picks up
+ * the rest. Unread notifications are never deleted.
+ */
+@Component // Marks the class as a Spring-managed component
+public class NotificationRetentionJob { // Scheduled pruning of read notifications
+
+    static final int MAX_BATCHES_PER_RUN = 100; // Upper bound on the work done by one run
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionJob.class); // Logger of the job
+
+    private final NotificationInboxRepository inboxRepository; // Repository running the deletes
+    private final Clock clock; // Clock used for the cutoff
+    private final Duration readMaxAge; // Age after which read notifications are deleted
+    private final Duration interval; // Delay between two runs
+    private final int batchSize; // Rows deleted by each statement
+    private ScheduledExecutorService scheduler; // Scheduler started with the context
+
+    public NotificationRetentionJob(NotificationInboxRepository inboxRepository, // Constructor injecting dependencies
+                                    Clock clock,
+                                    @Value("${app.notifications.retention.read-max-age:90d}") Duration readMaxAge,
+                                    @Value("${app.notifications.retention.interval:1h}") Duration interval,
+                                    @Value("${app.notifications.retention.batch-size:500}") int batchSize) {
+        this.inboxRepository = inboxRepository; // Assign repository
+        this.clock = clock; // Assign clock
+        this.readMaxAge = readMaxAge; // Assign retention age
+        this.interval = interval; // Assign run interval
+        this.batchSize = batchSize; // Assign batch size
+    } // End constructor
+
+    @PostConstruct // Runs once the bean is ready
+    void start() { // Starts the periodic purge
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> { // Single daemon thread
+            Thread thread = new Thread(runnable, "notification-retention"); // Named for diagnostics
+            thread.setDaemon(true); // Does not block shutdown
+            return thread; // Return configured thread
+        }); // End thread factory
+        scheduler.scheduleWithFixedDelay(this::safePurge, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS); // Periodic purge
+    } // End start
+
+    @PreDestroy // Runs on context shutdown
+    void stop() { // Stops the scheduler
+        if (scheduler != null) { // Started by the container
+            scheduler.shutdownNow(); // Interrupt the purge
+        } // End scheduler check
+    } // End stop
+
+    int purge() { // Deletes expired read notifications, returning the number of rows removed
+        Instant cutoff = clock.instant().minus(readMaxAge); // Read notifications created before this instant expire
+        int total = 0; // Rows deleted by this run
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) { // Bounded number of statements per run
+            int deleted = inboxRepository.deleteReadBefore(cutoff, batchSize); // One short statement
+            total += deleted; // Accumulate
+            if (deleted < batchSize) { // Nothing left to delete
+                break; // Done
+            } // End remaining check
+        } // End batch loop
+        return total; // Rows removed
+    } // End purge
+
+    private void safePurge() { // Runs a purge without killing the scheduler
+        try { // Guard the scheduled task
+            int deleted = purge(); // Run the purge
+            if (deleted > 0) { // Something was removed
+                log.info("Eliminate {} notifiche lette più vecchie di {}", deleted, readMaxAge); // Report the cleanup
+            } // End report check
+        } catch (RuntimeException ex) { // Database unavailable or unexpected failure
+            log.warn("Pulizia delle notifiche lette non riuscita", ex); // The next run retries
+        } // End guard
+    } // End safePurge
+} // End NotificationRetentionJob class
@@ -2,47 +2,57 @@ package com.example.server.service; // Package for service layer classes
 
 import com.example.common.dto.NotificationDTO; // DTO for notifications
 import com.example.common.dto.NotificationSubscriptionDTO; // DTO for notification subscriptions
+import com.example.common.dto.NotificationUnreadCountDTO; // DTO carrying the unread badge count
 import com.example.server.domain.Notification; // Domain entity for notifications
 import com.example.server.domain.Team; // Domain entity for teams
 import com.example.server.domain.User; // Domain entity for users
 import com.example.server.dto.NotificationSubscribeRequest; // Request object for subscriptions
+import com.example.server.repository.NotificationInboxRepository; // Merged user and team inbox queries
 import com.example.server.repository.NotificationRepository; // Repository for notifications
 import com.example.server.repository.TeamRepository; // Repository for teams
 import com.example.server.repository.UserRepository; // Repository for users
+import com.example.server.service.mapper.NotificationMapper; // Mapper from notification entities to DTOs
 import org.springframework.stereotype.Service; // Annotation marking a service component
 import org.springframework.util.Assert; // Utility for assertions
 import org.springframework.web.context.request.async.DeferredResult; // Async result holder for long polling
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // Server-Sent Events response holder
 
 import java.time.Clock; // Clock abstraction
 import java.time.Instant; // Instant timestamp
 import java.util.ArrayList; // ArrayList implementation
-import java.util.Comparator; // Comparator utility
 import java.util.List; // List interface
 import java.util.Objects; // Utility for null checks
 import java.util.Optional; // Optional wrapper
-import java.util.stream.Stream; // Stream API
 
 @Service // Marks the class as a Spring service
 public class NotificationService { // Service managing notifications
 
+    static final int INBOX_LIMIT = 200; // Notifications returned by one inbox request
+
     private final NotificationRepository notificationRepository; // Repository dependency for notifications
+    private final NotificationInboxRepository inboxRepository; // Repository for the merged inbox
     private final NotificationSubscriptionService subscriptionService; // Service managing subscriptions
     private final UserRepository userRepository; // Repository for users
     private final TeamRepository teamRepository; // Repository for teams
     private final NotificationPublisher publisher; // Publisher to push notifications
+    private final NotificationStreams streams; // Registry of Server-Sent Events streams
     private final Clock clock; // Clock used for timestamps
 
     public NotificationService(NotificationRepository notificationRepository, // Constructor injecting notification repository
+                               NotificationInboxRepository inboxRepository, // Constructor injecting inbox repository
                                NotificationSubscriptionService subscriptionService, // Constructor injecting subscription service
                                UserRepository userRepository, // Constructor injecting user repository
                                TeamRepository teamRepository, // Constructor injecting team repository
                                NotificationPublisher publisher, // Constructor injecting publisher
+                               NotificationStreams streams, // Constructor injecting stream registry
                                Clock clock) { // Constructor injecting clock
         this.notificationRepository = notificationRepository; // Assign notification repository
+        this.inboxRepository = inboxRepository; // Assign inbox repository
         this.subscriptionService = subscriptionService; // Assign subscription service
         this.userRepository = userRepository; // Assign user repository
         this.teamRepository = teamRepository; // Assign team repository
         this.publisher = publisher; // Assign publisher
+        this.streams = streams; // Assign stream registry
         this.clock = clock; // Assign clock
     } // End constructor
 
@@ -56,23 +66,28 @@ public class NotificationService { // Service managing notifications
     } // End subscribe
 
     public List<NotificationDTO> findNotifications(Long userId, Instant since) { // Fetch notifications for user and team
+        return findNotifications(userId, since, null); // No id: everything after the instant
+    } // End findNotifications
+
+    public List<NotificationDTO> findNotifications(Long userId, Instant since, Long afterId) { // Resume after the (since, afterId) keyset
         User user = requireUser(userId); // Ensure user exists
-        Stream<Notification> userNotifications = Optional.ofNullable(since) // Handle optional since timestamp
-                .map(instant -> notificationRepository.findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(user.getId(), instant).stream()) // Stream user notifications after timestamp
-                .orElseGet(() -> notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).stream()); // Otherwise all user notifications
-
-        Stream<Notification> teamNotifications = Optional.ofNullable(user.getTeamId()) // Handle optional team id
-                .map(teamId -> Optional.ofNullable(since) // Nested optional for timestamp
-                        .map(instant -> notificationRepository.findByTeamIdAndCreatedAtAfterOrderByCreatedAtDesc(teamId, instant).stream()) // Stream team notifications after timestamp
-                        .orElseGet(() -> notificationRepository.findByTeamIdOrderByCreatedAtDesc(teamId).stream())) // Otherwise all team notifications
-                .orElse(Stream.empty()); // If no team, empty stream
-
-        return Stream.concat(userNotifications, teamNotifications) // Merge streams
-                .sorted(Comparator.comparing(Notification::getCreatedAt).reversed()) // Sort by creation date descending
-                .map(this::toDto) // Map to DTOs
+        return inboxRepository.findInbox(user.getId(), user.getTeamId(), since, afterId, INBOX_LIMIT).stream() // One query, already merged and sorted
+                .map(NotificationMapper::toDto) // Map to DTOs
                 .toList(); // Collect to list
     } // End findNotifications
 
+    public NotificationUnreadCountDTO countUnread(Long userId) { // Count unread notifications for user and team
+        User user = requireUser(userId); // Ensure user exists
+        return new NotificationUnreadCountDTO(user.getId(), inboxRepository.countUnread(user.getId(), user.getTeamId())); // Counted by the database
+    } // End countUnread
+
+    public NotificationUnreadCountDTO markReadUpTo(Long userId, Long upToId) { // Mark every notification up to the cursor as read
+        Long requiredUpToId = Objects.requireNonNull(upToId, "upToId must not be null"); // Validate cursor
+        User user = requireUser(userId); // Ensure user exists
+        inboxRepository.markReadUpTo(user.getId(), user.getTeamId(), requiredUpToId); // Single UPDATE for user and team notifications
+        return new NotificationUnreadCountDTO(user.getId(), inboxRepository.countUnread(user.getId(), user.getTeamId())); // Updated badge
+    } // End markReadUpTo
+
     public NotificationDTO createNotification(NotificationDTO request) { // Create a new notification
         NotificationDTO requiredRequest = Objects.requireNonNull(request, "request must not be null"); // Validate request
         Assert.hasText(requiredRequest.getTitle(), "Il titolo è obbligatorio"); // Ensure title present
@@ -97,7 +112,7 @@ public class NotificationService { // Service managing notifications
 
         Notification saved = Objects.requireNonNull(notificationRepository.save(notification), "notification must not be null"); // Persist notification
         publisher.publish(saved); // Publish to listeners
-        return toDto(saved); // Return DTO
+        return NotificationMapper.toDto(saved); // Return DTO
     } // End createNotification
 
     public Optional<NotificationDTO> updateNotification(Long id, NotificationDTO request) { // Update an existing notification
@@ -122,7 +137,7 @@ public class NotificationService { // Service managing notifications
 
                     Notification saved = Objects.requireNonNull(notificationRepository.save(updated), // Save changes
                             "notification must not be null"); // Validate save result
-                    return toDto(saved); // Return DTO
+                    return NotificationMapper.toDto(saved); // Return DTO
                 }); // End mapping
     } // End updateNotification
 
@@ -143,7 +158,7 @@ public class NotificationService { // Service managing notifications
         var listener = new java.util.concurrent.atomic.AtomicBoolean(true); // Flag to ensure single response
         java.util.function.Consumer<Notification> consumer = notification -> { // Consumer invoked on notification
             if (listener.getAndSet(false)) { // Respond only once
-                NotificationDTO response = toDto(Objects.requireNonNull(notification, "notification must not be null")); // Map notification to DTO
+                NotificationDTO response = NotificationMapper.toDto(Objects.requireNonNull(notification, "notification must not be null")); // Map notification to DTO
                 List<NotificationDTO> result = Objects.requireNonNull(List.of(response), "notification list must not be null"); // Build single-element list
                 requiredDeferredResult.setResult(result); // Complete deferred result
             } // End first-notification check
@@ -163,21 +178,14 @@ public class NotificationService { // Service managing notifications
         }); // End timeout handler
     } // End registerSubscriber
 
+    public SseEmitter openStream(Long userId, Long lastEventId) { // Open a persistent notification stream
+        User user = requireUser(userId); // Ensure user exists, once per connection
+        return streams.open(user, lastEventId); // Register stream and replay missed notifications
+    } // End openStream
+
     private User requireUser(Long userId) { // Ensure user exists by id
         Long requiredUserId = Objects.requireNonNull(userId, "userId must not be null"); // Validate id
         return userRepository.findById(requiredUserId) // Find user
                 .orElseThrow(() -> new IllegalArgumentException("Utente non trovato: " + requiredUserId)); // Throw if missing
     } // End requireUser
-
-    private NotificationDTO toDto(Notification notification) { // Map Notification entity to DTO
-        NotificationDTO dto = new NotificationDTO(); // Create DTO
-        dto.setId(notification.getId()); // Set id
-        dto.setUserId(notification.getUserId()); // Set user id
-        dto.setTeamId(notification.getTeamId()); // Set team id
-        dto.setTitle(notification.getTitle()); // Set title
-        dto.setMessage(notification.getMessage()); // Set message
-        dto.setRead(notification.isRead()); // Set read flag
-        dto.setCreatedAt(notification.getCreatedAt()); // Set creation time
-        return dto; // Return DTO
-    } // End toDto
 } // End NotificationService class
@@ -0,0 +1,227 @@
+package com.example.server.service; // Package for service components
+
+import com.example.server.domain.Notification; // Domain entity representing a notification
+import com.example.server.domain.User; // Domain entity for the stream owner
+import com.example.server.repository.NotificationRepository; // Repository used to replay missed notifications
+import com.example.server.service.broker.ListenerDispatcher; // Per-stream queues for heartbeats
+import com.example.server.service.mapper.NotificationMapper; // Mapper from notification entities to DTOs
+import jakarta.annotation.PostConstruct; // Lifecycle hook starting the heartbeat
+import jakarta.annotation.PreDestroy; // Lifecycle hook stopping the heartbeat
+import org.springframework.beans.factory.annotation.Autowired; // Constructor used by Spring
+import org.springframework.http.MediaType; // Media type of the event payload
+import org.springframework.stereotype.Component; // Annotation marking a Spring component
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter; // Server-Sent Events response holder
+
+import java.io.IOException; // Raised when the client has gone away
+import java.util.ArrayList; // ArrayList implementation
+import java.util.Comparator; // Orders replayed notifications
+import java.util.HashSet; // Ids already delivered by the replay
+import java.util.List; // List interface
+import java.util.Set; // Set interface
+import java.util.concurrent.ConcurrentHashMap; // Thread-safe set of open streams
+import java.util.concurrent.Executors; // Factory for the heartbeat scheduler
+import java.util.concurrent.ScheduledExecutorService; // Scheduler sending heartbeats
+import java.util.concurrent.TimeUnit; // Heartbeat period unit
+import java.util.concurrent.atomic.AtomicBoolean; // Heartbeat already queued for a stream
+import java.util.concurrent.locks.ReentrantLock; // Per-stream write lock that does not pin virtual threads
+import java.util.stream.Stream; // Stream API
+
+/**
+ * Keeps one Server-Sent Events stream per connected client and pushes every user and team notification
+ * over it. Each event carries the notification id, so a reconnecting client sends it back as
+ * {@code Last-Event-ID} and receives the notifications it missed from {@link NotificationRepository}.
+ * A periodic comment keeps idle connections (and intermediate proxies) alive. The scheduler only queues it on
+ * each stream's {@link ListenerDispatcher} mailbox, so a client with a full TCP window stalls its own stream only.
+ * A stream that falls so far behind that its notification queue overflows stops writing and is completed from the
+ * same mailbox: the client reconnects with {@code Last-Event-ID} and the dropped notifications are replayed.
+ */
+@Component // Marks the class as a Spring-managed component
+public class NotificationStreams { // Registry of open notification streams
+
+    static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L; // Streams are recycled periodically; clients resume from the last id
+    static final long HEARTBEAT_SECONDS = 15; // Interval between keep-alive comments
+    static final String EVENT_NAME = "notification"; // SSE event name of a notification
+
+    private final NotificationPublisher publisher; // Publisher delivering live notifications
+    private final NotificationRepository notificationRepository; // Repository used for resume
+    private final ListenerDispatcher dispatcher; // Writes heartbeats off the scheduler thread
+    private final Set<OpenStream> streams = ConcurrentHashMap.newKeySet(); // Currently open streams
+    private ScheduledExecutorService heartbeat; // Scheduler started with the context
+
+    public NotificationStreams(NotificationPublisher publisher, NotificationRepository notificationRepository) { // Streams writing heartbeats synchronously
+        this(publisher, notificationRepository, ListenerDispatcher.direct()); // Used outside Spring and in tests
+    } // End constructor
+
+    @Autowired // Constructor used by Spring
+    public NotificationStreams(NotificationPublisher publisher, // Constructor injecting dependencies
+                               NotificationRepository notificationRepository,
+                               ListenerDispatcher dispatcher) {
+        this.publisher = publisher; // Assign publisher
+        this.notificationRepository = notificationRepository; // Assign repository
+        this.dispatcher = dispatcher; // Assign dispatcher
+    } // End constructor
+
+    @PostConstruct // Runs once the bean is ready
+    void start() { // Starts the heartbeat scheduler
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> { // Single daemon thread for all streams
+            Thread thread = new Thread(runnable, "notification-heartbeat"); // Named for diagnostics
+            thread.setDaemon(true); // Does not block shutdown
+            return thread; // Return configured thread
+        }); // End thread factory
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS); // Periodic keep-alive
+    } // End start
+
+    @PreDestroy // Runs on context shutdown
+    void stop() { // Stops the scheduler and closes open streams
+        if (heartbeat != null) { // Started by the container
+            heartbeat.shutdownNow(); // Stop heartbeats
+        } // End scheduler check
+        List.copyOf(streams).forEach(stream -> stream.close(true)); // Let clients reconnect to another instance
+    } // End stop
+
+    public SseEmitter open(User user, Long lastEventId) { // Opens a stream for the user, replaying after lastEventId
+        return open(user, lastEventId, new SseEmitter(STREAM_TIMEOUT_MILLIS)); // Long-lived response
+    } // End open
+
+    SseEmitter open(User user, Long lastEventId, SseEmitter emitter) { // Registers the given emitter as a stream
+        OpenStream stream = new OpenStream(emitter); // Per-connection state
+        streams.add(stream); // Track for heartbeats
+        emitter.onCompletion(() -> stream.close(false)); // Release on normal completion
+        emitter.onTimeout(() -> stream.close(true)); // Release on timeout
+        emitter.onError(error -> stream.close(false)); // Release on I/O failure
+        stream.lock.lock(); // Live events wait until the replay is written
+        try {
+            stream.subscriptions.add(publisher.subscribeToUser(user.getId(), stream::send, stream::overflow)); // Subscribe before replaying: nothing is lost
+            if (user.getTeamId() != null) { // If user belongs to a team
+                stream.subscriptions.add(publisher.subscribeToTeam(user.getTeamId(), stream::send, stream::overflow)); // Subscribe to team notifications
+            } // End team subscription check
+            if (lastEventId != null) { // Client is resuming
+                missedSince(user, lastEventId).forEach(stream::replay); // Send what was published while disconnected
+            } // End resume check
+        } finally {
+            stream.lock.unlock(); // Replay written
+        } // End locked replay
+        return emitter; // Returned to Spring MVC
+    } // End open
+
+    int openStreams() { // Number of open streams
+        return streams.size(); // Current size
+    } // End openStreams
+
+    void sendHeartbeats() { // Sends a keep-alive comment to every stream
+        List.copyOf(streams).forEach(OpenStream::queueHeartbeat); // Iterate over a snapshot
+    } // End sendHeartbeats
+
+    private List<Notification> missedSince(User user, Long lastEventId) { // Loads notifications newer than the last delivered id
+        Stream<Notification> userNotifications = notificationRepository // User notifications after the id
+                .findByUserIdAndIdGreaterThanOrderByIdAsc(user.getId(), lastEventId).stream();
+        Stream<Notification> teamNotifications = user.getTeamId() != null // Team notifications after the id
+                ? notificationRepository.findByTeamIdAndIdGreaterThanOrderByIdAsc(user.getTeamId(), lastEventId).stream()
+                : Stream.empty();
+        return Stream.concat(userNotifications, teamNotifications) // Merge streams
+                .sorted(Comparator.comparing(Notification::getId)) // Same order as they were created
+                .toList(); // Collect to list
+    } // End missedSince
+
+    private final class OpenStream { // State of a single SSE connection
+
+        private final SseEmitter emitter; // Underlying response
+        private final List<NotificationPublisher.Subscription> subscriptions = new ArrayList<>(); // Publisher subscriptions
+        private final Set<Long> replayed = new HashSet<>(); // Ids sent by the replay, to drop live duplicates
+        private final ListenerDispatcher.Mailbox<Boolean> heartbeats = dispatcher.mailbox(ignored -> heartbeat()); // Heartbeat writer and overflow closer of this stream
+        private final AtomicBoolean heartbeatQueued = new AtomicBoolean(); // At most one pending heartbeat per stream
+        private final ReentrantLock lock = new ReentrantLock(); // Serializes writes; a write blocked on a slow client releases its carrier thread
+        private boolean closed; // Set once the stream is released
+        private volatile boolean overflowed; // Set when a notification was dropped; nothing after it may be written
+
+        private OpenStream(SseEmitter emitter) { // Constructor
+            this.emitter = emitter; // Assign emitter
+        } // End constructor
+
+        private void replay(Notification notification) { // Sends a missed notification
+            lock.lock(); // One write at a time
+            try {
+                if (write(notification)) { // Delivered
+                    replayed.add(notification.getId()); // Remember it
+                } // End delivery check
+            } finally {
+                lock.unlock(); // Release the stream
+            }
+        } // End replay
+
+        private void send(Notification notification) { // Sends a live notification
+            lock.lock(); // One write at a time
+            try {
+                if (!replayed.remove(notification.getId())) { // Skip notifications already sent by the replay
+                    write(notification); // Deliver
+                } // End duplicate check
+            } finally {
+                lock.unlock(); // Release the stream
+            }
+        } // End send
+
+        private void overflow() { // Called on the publishing thread when a notification queue overflows
+            overflowed = true; // Later notifications would leave a gap before the client's Last-Event-ID
+            queueHeartbeat(); // The heartbeat completes the stream off the publishing thread
+        } // End overflow
+
+        private void queueHeartbeat() { // Hands the heartbeat to the stream's own queue
+            if (heartbeatQueued.compareAndSet(false, true)) { // A stalled client does not pile up heartbeats
+                heartbeats.accept(Boolean.TRUE); // Written on the dispatcher thread
+            } // End pending check
+        } // End queueHeartbeat
+
+        private void heartbeat() { // Sends a keep-alive comment
+            heartbeatQueued.set(false); // The next tick may queue another one
+            if (overflowed) { // A notification was dropped
+                close(true); // Client reconnects with Last-Event-ID and gets it from the replay
+                return; // Stream released
+            } // End overflow check
+            lock.lock(); // One write at a time
+            try {
+                if (closed) { // Nothing to do
+                    return; // Stream released
+                } // End closed check
+                emitter.send(SseEmitter.event().comment("heartbeat")); // Comment lines are ignored by clients
+            } catch (IOException | IllegalStateException ex) { // Client gone or emitter completed
+                close(false); // Release resources
+            } finally {
+                lock.unlock(); // Release the stream
+            }
+        } // End heartbeat
+
+        private boolean write(Notification notification) { // Writes a notification event
+            if (closed || overflowed) { // Nothing to do, or the stream is about to be completed
+                return false; // Stream released
+            } // End closed check
+            try { // Attempt the write
+                emitter.send(SseEmitter.event() // Build the event
+                        .id(String.valueOf(notification.getId())) // Id used as Last-Event-ID on reconnect
+                        .name(EVENT_NAME) // Event name
+                        .data(NotificationMapper.toDto(notification), MediaType.APPLICATION_JSON)); // JSON payload
+                return true; // Delivered
+            } catch (IOException | IllegalStateException ex) { // Client gone or emitter completed
+                close(false); // Release resources
+                return false; // Not delivered
+            } // End write attempt
+        } // End write
+
+        private void close(boolean complete) { // Releases subscriptions and tracking
+            lock.lock(); // Reentrant: also called from a failed write
+            try {
+                if (closed) { // Already released
+                    return; // Idempotent
+                } // End closed check
+                closed = true; // Mark as released
+                subscriptions.forEach(NotificationPublisher.Subscription::cancel); // Stop receiving notifications
+                heartbeats.close(); // Drop a pending heartbeat
+                streams.remove(this); // Stop heartbeats
+                if (complete) { // Close the response as well
+                    emitter.complete(); // Client will reconnect with Last-Event-ID
+                } // End completion check
+            } finally {
+                lock.unlock(); // Release the stream
+            }
+        } // End close
+    } // End OpenStream class
+} // End NotificationStreams class
@@ -1,10 +1,9 @@
 package com.example.server.service;
 
 import com.example.common.enums.InvoiceStatus;
-import com.example.server.domain.Contract;
-import com.example.server.domain.Invoice;
-import com.example.server.repository.ContractRepository;
-import com.example.server.repository.InvoiceRepository;
+import com.example.server.repository.InvoiceReportRepository;
+import com.example.server.repository.InvoiceReportRepository.ClosedInvoiceRow;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -14,124 +13,80 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 
 @Service
 public class ReportService {
 
     private static final float MARGIN = 40f;
     private static final float ROW_HEIGHT = 16f;
+    private static final float SUMMARY_HEIGHT = 4 * ROW_HEIGHT;
+    private static final long MAX_MAIN_MEMORY_BYTES = 4L * 1024 * 1024;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String PAID_STATUS = InvoiceStatus.PAID.name();
 
-    private final InvoiceRepository invoiceRepository;
-    private final ContractRepository contractRepository;
+    private final InvoiceReportRepository invoiceReportRepository;
     private final CommissionService commissionService;
 
-    public ReportService(InvoiceRepository invoiceRepository,
-                         ContractRepository contractRepository,
+    public ReportService(InvoiceReportRepository invoiceReportRepository,
                          CommissionService commissionService) {
-        this.invoiceRepository = invoiceRepository;
-        this.contractRepository = contractRepository;
+        this.invoiceReportRepository = invoiceReportRepository;
         this.commissionService = commissionService;
     }
 
     public byte[] generateClosedInvoicesReport(LocalDate from, LocalDate to, Long agentId) {
-        List<InvoiceReportRow> rows = collectRows(from, to, agentId);
-        BigDecimal totalInvoices = rows.stream()
-                .map(InvoiceReportRow::amount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal totalCommissions = rows.stream()
-                .map(InvoiceReportRow::commission)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        try (PDDocument document = new PDDocument(); ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            PDPageContentStream contentStream = null;
-            try {
-                contentStream = new PDPageContentStream(document, page);
-                float width = page.getMediaBox().getWidth();
-                float y = page.getMediaBox().getHeight() - MARGIN;
-
-                drawTitle(contentStream, width, y);
-                y -= 28;
-
-                y = drawSummary(contentStream, y, from, to, agentId, rows.size(), totalInvoices, totalCommissions);
-                y -= 18;
-
-                y = drawTableHeader(contentStream, y);
-
-                for (InvoiceReportRow row : rows) {
-                    if (y <= MARGIN + ROW_HEIGHT) {
-                        contentStream.close();
-                        page = new PDPage(PDRectangle.A4);
-                        document.addPage(page);
-                        contentStream = new PDPageContentStream(document, page);
-                        y = page.getMediaBox().getHeight() - MARGIN;
-                        y = drawTableHeader(contentStream, y);
-                    }
-                    y = drawRow(contentStream, y, row);
-                }
-            } finally {
-                if (contentStream != null) {
-                    contentStream.close();
-                }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeClosedInvoicesReport(from, to, agentId, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public void writeClosedInvoicesReport(LocalDate from, LocalDate to, Long agentId, OutputStream outputStream) {
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES))) {
+            PDPage firstPage = new PDPage(PDRectangle.A4);
+            document.addPage(firstPage);
+            float width = firstPage.getMediaBox().getWidth();
+            float summaryY = firstPage.getMediaBox().getHeight() - MARGIN - 28;
+
+            ReportSummary summary;
+            try (ReportPageWriter writer = new ReportPageWriter(document, firstPage)) {
+                drawTitle(writer.contentStream, width, firstPage.getMediaBox().getHeight() - MARGIN);
+                writer.y = summaryY - SUMMARY_HEIGHT - 18;
+                writer.y = drawTableHeader(writer.contentStream, writer.y);
+                invoiceReportRepository.forEachClosedInvoice(from, to, agentId, PAID_STATUS,
+                        invoice -> writer.append(toReportRow(invoice)));
+                summary = writer.summary();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, firstPage,
+                    PDPageContentStream.AppendMode.APPEND, true)) {
+                drawSummary(contentStream, summaryY, from, to, agentId,
+                        summary.rows(), summary.totalInvoices(), summary.totalCommissions());
             }
             document.save(outputStream);
-            return outputStream.toByteArray();
         } catch (IOException ex) {
             throw new IllegalStateException("Impossibile generare il report PDF", ex);
         }
     }
 
-    private List<InvoiceReportRow> collectRows(LocalDate from, LocalDate to, Long agentId) {
-        Map<Long, Optional<Contract>> contractCache = new HashMap<>();
-        List<InvoiceReportRow> rows = new ArrayList<>();
-        for (Invoice invoice : invoiceRepository.findAllByOrderByIssueDateDesc()) {
-            if (invoice.getStatus() != InvoiceStatus.PAID) {
-                continue;
-            }
-            LocalDate paymentDate = invoice.getPaymentDate();
-            if (from != null && (paymentDate == null || paymentDate.isBefore(from))) {
-                continue;
-            }
-            if (to != null && (paymentDate == null || paymentDate.isAfter(to))) {
-                continue;
-            }
-            Long contractId = invoice.getContractId();
-            Long invoiceAgentId = null;
-            if (contractId != null) {
-                Optional<Contract> contract = contractCache.computeIfAbsent(contractId, id -> contractRepository.findById(id));
-                invoiceAgentId = contract.flatMap(found -> Optional.ofNullable(found.getAgentId())).orElse(null);
-            }
-            if (agentId != null && !Objects.equals(agentId, invoiceAgentId)) {
-                continue;
-            }
-            BigDecimal commission = commissionService.contractAgentCommission(contractId, invoice.getAmount());
-            BigDecimal amount = invoice.getAmount() != null ? invoice.getAmount().setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
-            rows.add(new InvoiceReportRow(
-                    invoice.getNumber(),
-                    invoice.getCustomerName(),
-                    contractId,
-                    invoiceAgentId,
-                    paymentDate,
-                    amount,
-                    commission
-            ));
-        }
-        rows.sort(Comparator.comparing(InvoiceReportRow::paymentDate, Comparator.nullsLast(Comparator.reverseOrder()))
-                .thenComparing(InvoiceReportRow::number, Comparator.nullsLast(String::compareToIgnoreCase)));
-        return rows;
+    private InvoiceReportRow toReportRow(ClosedInvoiceRow invoice) {
+        BigDecimal commission = commissionService.agentCommission(invoice.agentId(), invoice.amount());
+        BigDecimal amount = invoice.amount() != null ? invoice.amount().setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        return new InvoiceReportRow(
+                invoice.number(),
+                invoice.customerName(),
+                invoice.contractId(),
+                invoice.agentId(),
+                invoice.paymentDate(),
+                amount,
+                commission
+        );
     }
 
     private void drawTitle(PDPageContentStream contentStream, float width, float y) throws IOException {
@@ -256,6 +211,52 @@ public class ReportService {
         return "Fino a " + DATE_FORMATTER.format(to);
     }
 
+    private final class ReportPageWriter implements AutoCloseable {
+
+        private final PDDocument document;
+        private PDPageContentStream contentStream;
+        private float y;
+        private int rows;
+        private BigDecimal totalInvoices = BigDecimal.ZERO;
+        private BigDecimal totalCommissions = BigDecimal.ZERO;
+
+        private ReportPageWriter(PDDocument document, PDPage page) throws IOException {
+            this.document = document;
+            this.contentStream = new PDPageContentStream(document, page);
+        }
+
+        private void append(InvoiceReportRow row) {
+            try {
+                if (y <= MARGIN + ROW_HEIGHT) {
+                    contentStream.close();
+                    PDPage page = new PDPage(PDRectangle.A4);
+                    document.addPage(page);
+                    contentStream = new PDPageContentStream(document, page);
+                    y = page.getMediaBox().getHeight() - MARGIN;
+                    y = drawTableHeader(contentStream, y);
+                }
+                y = drawRow(contentStream, y, row);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            rows++;
+            totalInvoices = totalInvoices.add(row.amount());
+            totalCommissions = totalCommissions.add(row.commission());
+        }
+
+        private ReportSummary summary() {
+            return new ReportSummary(rows, totalInvoices, totalCommissions);
+        }
+
+        @Override
+        public void close() throws IOException {
+            contentStream.close();
+        }
+    }
+
+    private record ReportSummary(int rows, BigDecimal totalInvoices, BigDecimal totalCommissions) {
+    }
+
     private record InvoiceReportRow(String number,
                                     String customer,
                                     Long contractId,
@@ -6,33 +6,55 @@ import com.example.common.dto.MonthlyCommissionDTO;
 import com.example.common.dto.TeamCommissionDTO;
 import com.example.common.dto.TeamStatisticsDTO;
 import com.example.common.enums.InvoiceStatus;
+import com.example.server.domain.Invoice;
 import com.example.server.repository.StatisticsRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class StatisticsService {
 
+    static final String AGENT_CACHE = "agentStatistics";
+    static final String TEAM_CACHE = "teamStatistics";
     private static final String PAID_STATUS = InvoiceStatus.PAID.name();
 
     private final StatisticsRepository statisticsRepository;
     private final CommissionService commissionService;
-    private final Map<StatisticsCacheKey, AgentStatisticsDTO> agentCache = new ConcurrentHashMap<>();
-    private final Map<StatisticsCacheKey, TeamStatisticsDTO> teamCache = new ConcurrentHashMap<>();
+    // Statistiche per periodo e ruolo, nelle cache limitate configurate in app.cache.specs.
+    private final Cache agentCache;
+    private final Cache teamCache;
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
+    // Anni con fatture pagate e relativo conteggio, caricati una sola volta e aggiornati a ogni modifica di fattura.
+    private final Object yearsLock = new Object();
+    private NavigableMap<Integer, Long> paidInvoicesByYear;
+    private volatile List<Integer> availableYears;
+    private long yearsGeneration;
+    private int pendingYearChanges;
 
     public StatisticsService(StatisticsRepository statisticsRepository,
-                            CommissionService commissionService) {
+                            CommissionService commissionService,
+                            CacheManager cacheManager) {
         this.statisticsRepository = statisticsRepository;
         this.commissionService = commissionService;
+        this.agentCache = Objects.requireNonNull(cacheManager.getCache(AGENT_CACHE), "agent statistics cache must not be null");
+        this.teamCache = Objects.requireNonNull(cacheManager.getCache(TEAM_CACHE), "team statistics cache must not be null");
     }
 
     public AgentStatisticsDTO agentStatistics(Integer requestedYear, LocalDate from, LocalDate to, Long roleId) {
-        List<Integer> availableYears = statisticsRepository.findAvailableYears(PAID_STATUS);
+        List<Integer> availableYears = availableYears();
         if (availableYears.isEmpty()) {
             int currentYear = Year.now().getValue();
             return new AgentStatisticsDTO(currentYear, List.of(currentYear), List.of(), List.of());
@@ -40,18 +62,21 @@ public class StatisticsService {
 
         int targetYear = resolveYear(requestedYear, availableYears, from, to);
         StatisticsCacheKey cacheKey = new StatisticsCacheKey(targetYear, from, to, roleId);
-        AgentStatisticsDTO cached = agentCache.get(cacheKey);
+        AgentStatisticsDTO cached = agentCache.get(cacheKey, AgentStatisticsDTO.class);
         if (cached != null && cached.years().equals(availableYears)) {
             return cached;
         }
 
+        long generation = cacheGeneration.get();
         AgentStatisticsDTO computed = buildAgentStatistics(targetYear, availableYears, from, to, roleId);
-        agentCache.put(cacheKey, computed);
+        if (cacheGeneration.get() == generation) {
+            agentCache.put(cacheKey, computed);
+        }
         return computed;
     }
 
     public TeamStatisticsDTO teamStatistics(Integer requestedYear, LocalDate from, LocalDate to, Long roleId) {
-        List<Integer> availableYears = statisticsRepository.findAvailableYears(PAID_STATUS);
+        List<Integer> availableYears = availableYears();
         if (availableYears.isEmpty()) {
             int currentYear = Year.now().getValue();
             return new TeamStatisticsDTO(currentYear, List.of(currentYear), List.of());
@@ -59,21 +84,151 @@ public class StatisticsService {
 
         int targetYear = resolveYear(requestedYear, availableYears, from, to);
         StatisticsCacheKey cacheKey = new StatisticsCacheKey(targetYear, from, to, roleId);
-        TeamStatisticsDTO cached = teamCache.get(cacheKey);
+        TeamStatisticsDTO cached = teamCache.get(cacheKey, TeamStatisticsDTO.class);
         if (cached != null && cached.years().equals(availableYears)) {
             return cached;
         }
 
+        long generation = cacheGeneration.get();
         TeamStatisticsDTO computed = buildTeamStatistics(targetYear, availableYears, from, to, roleId);
-        teamCache.put(cacheKey, computed);
+        if (cacheGeneration.get() == generation) {
+            teamCache.put(cacheKey, computed);
+        }
         return computed;
     }
 
+    /**
+     * Aggiorna cache e anni disponibili dopo la modifica di una fattura, usando le date di pagamento
+     * prima e dopo la modifica: vengono scartate solo le statistiche il cui periodo contiene una delle due date.
+     * Passare {@code null} come fattura precedente per una creazione e come fattura corrente per una cancellazione.
+     */
+    public void invoiceChanged(Invoice previous, Invoice current) {
+        LocalDate previousPaymentDate = paidDate(previous);
+        LocalDate currentPaymentDate = paidDate(current);
+        if (previousPaymentDate == null && currentPaymentDate == null) {
+            return;
+        }
+
+        evictCovering(previousPaymentDate, currentPaymentDate);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyYearChange(previousPaymentDate, currentPaymentDate);
+            return;
+        }
+
+        synchronized (yearsLock) {
+            pendingYearChanges++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    applyYearChange(previousPaymentDate, currentPaymentDate);
+                }
+                synchronized (yearsLock) {
+                    pendingYearChanges--;
+                }
+                // Scarta anche le statistiche ricalcolate da altre richieste prima del commit.
+                evictCovering(previousPaymentDate, currentPaymentDate);
+            }
+        });
+    }
+
     public void clearCache() {
+        synchronized (yearsLock) {
+            yearsGeneration++;
+            paidInvoicesByYear = null;
+            availableYears = null;
+        }
+        evictAll();
+    }
+
+    private List<Integer> availableYears() {
+        List<Integer> years = availableYears;
+        if (years != null) {
+            return years;
+        }
+
+        long startGeneration;
+        synchronized (yearsLock) {
+            if (availableYears != null) {
+                return availableYears;
+            }
+            startGeneration = yearsGeneration;
+        }
+
+        NavigableMap<Integer, Long> loaded = new TreeMap<>();
+        statisticsRepository.findPaidInvoiceCountsByYear(PAID_STATUS)
+                .forEach(count -> loaded.put(count.paymentYear(), count.invoiceCount()));
+        List<Integer> loadedYears = List.copyOf(loaded.keySet());
+
+        synchronized (yearsLock) {
+            // Pubblica solo se nessuna modifica è stata applicata o è in attesa di commit durante la lettura.
+            if (yearsGeneration == startGeneration && pendingYearChanges == 0 && availableYears == null) {
+                paidInvoicesByYear = loaded;
+                availableYears = loadedYears;
+            }
+        }
+        return loadedYears;
+    }
+
+    private void applyYearChange(LocalDate previousPaymentDate, LocalDate currentPaymentDate) {
+        boolean yearsChanged;
+        synchronized (yearsLock) {
+            yearsGeneration++;
+            if (paidInvoicesByYear == null) {
+                return;
+            }
+            if (previousPaymentDate != null) {
+                Long count = paidInvoicesByYear.get(previousPaymentDate.getYear());
+                if (count == null) {
+                    // Conteggio non allineato con il database: verrà ricaricato alla prossima richiesta.
+                    paidInvoicesByYear = null;
+                    availableYears = null;
+                    evictAll();
+                    return;
+                }
+                if (count > 1) {
+                    paidInvoicesByYear.put(previousPaymentDate.getYear(), count - 1);
+                } else {
+                    paidInvoicesByYear.remove(previousPaymentDate.getYear());
+                }
+            }
+            if (currentPaymentDate != null) {
+                paidInvoicesByYear.merge(currentPaymentDate.getYear(), 1L, Long::sum);
+            }
+            List<Integer> updatedYears = List.copyOf(paidInvoicesByYear.keySet());
+            yearsChanged = !updatedYears.equals(availableYears);
+            availableYears = updatedYears;
+        }
+        if (yearsChanged) {
+            evictAll();
+        }
+    }
+
+    private void evictCovering(LocalDate previousPaymentDate, LocalDate currentPaymentDate) {
+        cacheGeneration.incrementAndGet();
+        CacheEntries.evictIf(agentCache, key -> covers(key, previousPaymentDate, currentPaymentDate));
+        CacheEntries.evictIf(teamCache, key -> covers(key, previousPaymentDate, currentPaymentDate));
+    }
+
+    private static boolean covers(Object key, LocalDate previousPaymentDate, LocalDate currentPaymentDate) {
+        return !(key instanceof StatisticsCacheKey statisticsKey)
+                || statisticsKey.covers(previousPaymentDate) || statisticsKey.covers(currentPaymentDate);
+    }
+
+    private void evictAll() {
+        cacheGeneration.incrementAndGet();
         agentCache.clear();
         teamCache.clear();
     }
 
+    private static LocalDate paidDate(Invoice invoice) {
+        if (invoice == null || invoice.getStatus() != InvoiceStatus.PAID) {
+            return null;
+        }
+        return invoice.getPaymentDate();
+    }
+
     private int resolveYear(Integer requestedYear, List<Integer> availableYears, LocalDate from, LocalDate to) {
         if (from != null) {
             return from.getYear();
@@ -97,6 +252,7 @@ public class StatisticsService {
                         aggregate.getYear(),
                         aggregate.getMonth(),
                         commissionService.applyDefaultCommissionRate(aggregate.getTotalAmount())))
+                .sorted(Comparator.comparingInt(MonthlyCommissionDTO::year).thenComparingInt(MonthlyCommissionDTO::month))
                 .toList();
 
         List<AgentCommissionDTO> agentTotals = statisticsRepository
@@ -130,6 +286,16 @@ public class StatisticsService {
     }
 
     private record StatisticsCacheKey(int year, LocalDate from, LocalDate to, Long roleId) {
+
+        // Verifica se la data ricade nel periodo effettivo delle statistiche memorizzate con questa chiave.
+        boolean covers(LocalDate date) {
+            if (date == null) {
+                return false;
+            }
+            LocalDate fromDate = from != null ? from : Year.of(year).atMonth(1).atDay(1);
+            LocalDate toDate = to != null ? to : Year.of(year).atMonth(12).atEndOfMonth();
+            return !date.isBefore(fromDate) && !date.isAfter(toDate);
+        }
     }
 
 }
@@ -0,0 +1,81 @@
+package com.example.server.service; // Package dei servizi applicativi
+
+import com.example.server.service.broker.EventBroker; // Trasporto degli eventi tra istanze
+import jakarta.annotation.PostConstruct; // Registrazione con il contesto
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty; // Attivo solo con più istanze
+import org.springframework.stereotype.Component; // Annotazione che registra il componente Spring
+import org.springframework.transaction.support.TransactionSynchronization; // Callback di fine transazione
+import org.springframework.transaction.support.TransactionSynchronizationManager; // Registro delle sincronizzazioni attive
+
+import java.util.LinkedHashSet; // Tabelle modificate nella transazione, senza duplicati
+import java.util.List; // Tabelle trasportate dall'evento
+import java.util.Set; // Insieme delle tabelle in attesa del commit
+import java.util.UUID; // Identificativo dell'istanza
+
+/**
+ * Propaga le versioni delle tabelle tra le istanze che condividono il database tramite la tabella
+ * {@code event_outbox}, così un'istanza non risponde 304 con dati modificati da un'altra. Le tabelle scritte in una
+ * transazione vengono pubblicate una sola volta, con un evento salvato nella stessa transazione: le altre istanze lo
+ * leggono solo dopo il commit e incrementano le proprie versioni entro {@code app.events.outbox.poll-interval}.
+ */
+@Component // Registrato come bean Spring
+@ConditionalOnProperty(name = "app.events.broker", havingValue = "outbox") // Necessario solo con il broker condiviso
+public class TableVersionReplicator { // Replica delle versioni delle tabelle
+
+    static final String TOPIC = "table-versions"; // Topic degli eventi di modifica
+
+    private final EventBroker broker; // Broker condiviso tramite database
+    private final TableVersionService tableVersionService; // Versioni locali delle tabelle
+    private final String origin = UUID.randomUUID().toString(); // Distingue gli eventi pubblicati da questa istanza
+
+    public TableVersionReplicator(EventBroker broker, TableVersionService tableVersionService) { // Costruttore con dependency injection
+        this.broker = broker; // Assegna il broker
+        this.tableVersionService = tableVersionService; // Assegna le versioni locali
+    }
+
+    @PostConstruct // Eseguito quando il bean è pronto
+    void start() { // Collega il broker alle versioni locali
+        broker.register(TOPIC, TablesChanged.class, this::received); // Modifiche pubblicate dalle istanze
+        tableVersionService.onChanged(this::changed); // Modifiche fatte da questa istanza
+    }
+
+    void changed(String table) { // Modifica locale di una tabella
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { // Scrittura fuori transazione, già confermata
+            publish(Set.of(table)); // Pubblica subito
+            return;
+        }
+        @SuppressWarnings("unchecked") // La risorsa è legata solo da questo metodo
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this); // Tabelle già raccolte
+        if (pending == null) { // Prima modifica della transazione
+            Set<String> tables = new LinkedHashSet<>(); // Raccoglie le tabelle fino al commit
+            TransactionSynchronizationManager.bindResource(this, tables); // Legata alla transazione corrente
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) { // Solo se la transazione viene confermata
+                    publish(tables); // L'evento viene salvato insieme ai dati
+                }
+
+                @Override
+                public void afterCompletion(int status) { // Commit o rollback
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableVersionReplicator.this); // Libera la risorsa
+                }
+            });
+            pending = tables;
+        }
+        pending.add(table); // Aggiunge la tabella all'evento
+    }
+
+    private void publish(Set<String> tables) { // Pubblica le tabelle modificate
+        broker.publish(TOPIC, new TablesChanged(origin, List.copyOf(tables))); // Raggiunge tutte le istanze
+    }
+
+    private void received(TablesChanged event) { // Evento ricevuto dal broker
+        if (origin.equals(event.origin())) { // Pubblicato da questa istanza: versioni già aggiornate
+            return;
+        }
+        event.tables().forEach(tableVersionService::changedElsewhere); // Invalida gli ETag delle tabelle modificate
+    }
+
+    public record TablesChanged(String origin, List<String> tables) { // Evento di modifica delle tabelle
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.server.service; // Package dei servizi applicativi
+
+import org.springframework.context.event.EventListener; // Registrazione dei listener di eventi
+import org.springframework.data.relational.core.mapping.RelationalMappingContext; // Metadati di mapping delle entità
+import org.springframework.data.relational.core.mapping.event.AfterDeleteEvent; // Evento emesso dopo la cancellazione di un aggregato
+import org.springframework.data.relational.core.mapping.event.AfterSaveEvent; // Evento emesso dopo il salvataggio di un aggregato
+import org.springframework.data.relational.core.mapping.event.RelationalEvent; // Evento generico di Spring Data JDBC
+import org.springframework.transaction.support.TransactionSynchronization; // Callback di fine transazione
+import org.springframework.transaction.support.TransactionSynchronizationManager; // Registro delle sincronizzazioni attive
+
+import java.util.Collection; // Insieme di tabelle da cui dipende una risposta
+import java.util.Map; // Mappa delle versioni per tabella
+import java.util.concurrent.ConcurrentHashMap; // Mappe thread-safe
+import java.util.concurrent.atomic.AtomicLong; // Contatori di versione
+import java.util.function.Consumer; // Listener delle modifiche locali
+import java.util.stream.Collectors; // Composizione dell'ETag
+
+/**
+ * Contatori di versione in memoria per tabella, usati per calcolare gli ETag delle risposte GET senza leggere
+ * né serializzare i dati. Ogni salvataggio o cancellazione di un aggregato Spring Data JDBC incrementa la versione
+ * della sua tabella; le scritture fatte con {@code JdbcTemplate} chiamano {@link #changed(String)} esplicitamente.
+ * <p>
+ * La versione viene incrementata subito e di nuovo a fine transazione, come per le cache delle statistiche: una
+ * lettura concorrente che vede ancora i dati precedenti al commit non può quindi associarli all'ETag definitivo.
+ * L'ETag include l'istante di avvio, così i contatori ripartiti da zero dopo un riavvio non collidono.
+ * Con più istanze le modifiche fatte altrove arrivano da {@link TableVersionReplicator}.
+ */
+public class TableVersionService { // Versioni delle tabelle per le GET condizionali
+
+    private final RelationalMappingContext mappingContext; // Risolve la tabella di un'entità
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36); // Identifica l'avvio corrente
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>(); // Versione corrente per tabella
+    private final Map<Class<?>, String> tablesByType = new ConcurrentHashMap<>(); // Tabelle delle entità già risolte
+    private volatile Consumer<String> changeListener = table -> { }; // Riceve le modifiche fatte da questa istanza
+
+    public TableVersionService(RelationalMappingContext mappingContext) { // Costruttore con il contesto di mapping
+        this.mappingContext = mappingContext; // Assegna il contesto di mapping
+    }
+
+    @EventListener // Salvataggi tramite repository
+    public void onAfterSave(AfterSaveEvent<?> event) { // Incrementa la versione della tabella salvata
+        changed(tableOf(event)); // Delega al metodo generico
+    }
+
+    @EventListener // Cancellazioni tramite repository
+    public void onAfterDelete(AfterDeleteEvent<?> event) { // Incrementa la versione della tabella modificata
+        changed(tableOf(event)); // Delega al metodo generico
+    }
+
+    public void onChanged(Consumer<String> listener) { // Registra chi propaga le modifiche alle altre istanze
+        this.changeListener = listener; // Sostituisce il listener predefinito
+    }
+
+    public void changed(String table) { // Segnala la modifica di una tabella
+        AtomicLong version = counter(table); // Contatore della tabella
+        version.incrementAndGet(); // Invalida subito gli ETag emessi finora
+        changeListener.accept(table); // Propaga la modifica, se configurato
+        if (TransactionSynchronizationManager.isSynchronizationActive()) { // Modifica dentro una transazione
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) { // Al termine della transazione
+                    version.incrementAndGet(); // Scarta gli ETag associati a letture precedenti al commit
+                }
+            });
+        }
+    }
+
+    public void changedElsewhere(String table) { // Segnala una modifica già confermata da un'altra istanza
+        counter(table).incrementAndGet(); // Invalida gli ETag emessi finora, senza propagare di nuovo
+    }
+
+    public long version(String table) { // Versione corrente di una tabella
+        AtomicLong version = versions.get(table); // Contatore, se la tabella è già stata modificata
+        return version != null ? version.get() : 0L; // Zero per le tabelle mai modificate dall'avvio
+    }
+
+    public String etag(Collection<String> tables) { // ETag forte di una risposta che dipende dalle tabelle indicate
+        return tables.stream()
+                .map(table -> Long.toString(version(table), 36)) // Versione compatta di ogni tabella
+                .collect(Collectors.joining(".", "\"" + epoch + "-", "\"")); // Formato "avvio-v1.v2..."
+    }
+
+    private AtomicLong counter(String table) { // Contatore di una tabella, creato al primo uso
+        return versions.computeIfAbsent(table, key -> new AtomicLong());
+    }
+
+    private String tableOf(RelationalEvent<?> event) { // Tabella dell'aggregato dell'evento
+        return tablesByType.computeIfAbsent(event.getType(), type -> mappingContext.getRequiredPersistentEntity(type)
+                .getTableName().getReference()); // Nome non quotato, come nelle query del repository
+    }
+}
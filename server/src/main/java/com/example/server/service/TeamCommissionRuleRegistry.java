@@ -0,0 +1,218 @@
+package com.example.server.service; // Definisce il package del registro delle regole provvigionali
+
+import com.example.server.repository.CommissionRuleRepository; // Importa il repository che legge le associazioni agente-team
+import com.example.server.repository.CommissionRuleRepository.AgentAssignment; // Importa il record con l'associazione agente-team
+import org.springframework.cache.Cache; // Importa la cache che conserva lo snapshot
+import org.springframework.cache.CacheManager; // Importa il gestore delle cache applicative
+import org.springframework.stereotype.Service; // Importa l'annotazione di servizio Spring
+import org.springframework.transaction.support.TransactionSynchronization; // Importa il callback di sincronizzazione transazionale
+import org.springframework.transaction.support.TransactionSynchronizationManager; // Importa il gestore delle sincronizzazioni transazionali
+
+import java.math.BigDecimal; // Importa BigDecimal per le aliquote
+import java.util.ArrayList; // Importa ArrayList per collezioni mutabili
+import java.util.HashMap; // Importa HashMap per costruire gli indici
+import java.util.List; // Importa List per le quote
+import java.util.Locale; // Importa Locale per normalizzare i ruoli
+import java.util.Map; // Importa Map per gli indici per team e agente
+import java.util.Objects; // Importa Objects per i controlli sui parametri
+import java.util.concurrent.atomic.AtomicLong; // Importa AtomicLong per i contatori e la generazione
+
+/**
+ * Registro precalcolato delle {@link TeamCommissionRule}: costruisce tutte le regole di team e la mappa
+ * agente → team con una sola query e le mantiene nella cache {@code teamCommissionRules} fino alla prossima
+ * invalidazione o alla scadenza configurata in {@code app.cache.specs}.
+ */
+@Service // Indica che la classe è un servizio Spring
+public class TeamCommissionRuleRegistry { // Mantiene in cache le regole di ripartizione provvigionale
+
+    static final BigDecimal MIN_TEAM_RATE = new BigDecimal("0.10"); // Aliquota minima di team
+    static final BigDecimal MAX_TEAM_RATE = new BigDecimal("0.12"); // Aliquota massima di team
+    private static final BigDecimal SENIOR_RATE = new BigDecimal("0.03"); // Aliquota per ruoli senior
+    private static final BigDecimal JUNIOR_RATE = new BigDecimal("0.02"); // Aliquota per ruoli junior
+    private static final BigDecimal INTERN_RATE = new BigDecimal("0.015"); // Aliquota per stagisti
+    private static final BigDecimal DEFAULT_RATE = new BigDecimal("0.01"); // Aliquota di default
+    static final String CACHE = "teamCommissionRules"; // Nome della cache dello snapshot
+    private static final String SNAPSHOT_KEY = "snapshot"; // Unica chiave: tutte le regole in uno snapshot
+
+    private final CommissionRuleRepository commissionRuleRepository; // Repository che fornisce le associazioni agente-team
+    private final AtomicLong generation = new AtomicLong(); // Generazione corrente, incrementata a ogni invalidazione
+    private final AtomicLong hits = new AtomicLong(); // Letture servite dallo snapshot in memoria
+    private final AtomicLong misses = new AtomicLong(); // Letture che hanno richiesto una ricostruzione
+    private final AtomicLong rebuilds = new AtomicLong(); // Ricostruzioni effettivamente eseguite
+    private final Cache cache; // Cache con lo snapshot immutabile attualmente valido, vuota se invalidato
+
+    public TeamCommissionRuleRegistry(CommissionRuleRepository commissionRuleRepository, // Costruttore con dependency injection
+                                      CacheManager cacheManager) { // Riceve il gestore delle cache
+        this.commissionRuleRepository = commissionRuleRepository; // Assegna il repository
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE), "team commission rule cache must not be null"); // Cache dello snapshot
+    }
+
+    public TeamCommissionRule ruleForTeam(Long teamId) { // Restituisce la regola di commissione per un team
+        if (teamId == null) { // Se il team non è definito
+            return emptyRule(null); // Restituisce la regola minima senza membri
+        }
+        TeamCommissionRule rule = currentSnapshot().teamRules().get(teamId); // Cerca la regola precalcolata
+        return rule != null ? rule : emptyRule(teamId); // Un team senza agenti usa la regola minima
+    }
+
+    public TeamCommissionRule ruleForAgent(Long agentId) { // Restituisce la regola di commissione per un agente specifico
+        if (agentId == null) { // Se l'agente non è definito
+            return null; // Non esiste alcuna regola
+        }
+        Snapshot current = currentSnapshot(); // Legge lo snapshot una sola volta per coerenza
+        AgentAssignment assignment = current.agents().get(agentId); // Recupera l'associazione dell'agente
+        if (assignment == null || assignment.teamId() == null) { // Se l'agente non esiste o non ha team
+            return TeamCommissionRule.singleAgent(agentId, MIN_TEAM_RATE); // Applica la regola minima su un solo agente
+        }
+        TeamCommissionRule teamRule = current.teamRules().getOrDefault(assignment.teamId(), emptyRule(assignment.teamId())); // Regola del team
+        boolean containsAgent = teamRule.shares().stream() // Controlla se l'agente è già presente nella regola
+                .anyMatch(share -> share.agentId().equals(agentId));
+        if (containsAgent) { // Caso normale: l'agente fa parte del proprio team
+            return teamRule; // Restituisce la regola originale
+        }
+        List<AgentCommissionShare> enriched = new ArrayList<>(teamRule.shares()); // Copia le quote esistenti
+        enriched.add(shareFor(assignment)); // Aggiunge la quota per l'agente mancante
+        return new TeamCommissionRule(teamRule.teamId(), teamRule.teamCommissionRate(), // Costruisce una nuova regola
+                teamRule.distributionStrategy(), List.copyOf(enriched)); // Mantiene strategia e aggiunge la nuova quota
+    }
+
+    public Long teamOfAgent(Long agentId) { // Restituisce il team di appartenenza di un agente
+        if (agentId == null) { // Se l'agente non è definito
+            return null; // Nessun team associato
+        }
+        AgentAssignment assignment = currentSnapshot().agents().get(agentId); // Recupera l'associazione
+        return assignment != null ? assignment.teamId() : null; // Restituisce il team o null
+    }
+
+    public void invalidate() { // Scarta lo snapshot corrente dopo una modifica ad agenti, utenti o team
+        discard(); // Invalida subito per la transazione corrente
+        if (TransactionSynchronizationManager.isSynchronizationActive()) { // Se la modifica avviene in una transazione
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() { // Registra un callback post-commit
+                @Override
+                public void afterCompletion(int status) { // Al termine della transazione
+                    discard(); // Invalida di nuovo per scartare snapshot ricostruiti su dati non ancora committati
+                }
+            });
+        }
+    }
+
+    public RegistryStats stats() { // Espone i contatori di utilizzo del registro
+        return new RegistryStats(hits.get(), misses.get(), rebuilds.get()); // Fotografia dei contatori correnti
+    }
+
+    private void discard() { // Invalida lo snapshot e avanza la generazione
+        generation.incrementAndGet(); // Le ricostruzioni in corso non verranno pubblicate
+        cache.evict(SNAPSHOT_KEY); // Forza la ricostruzione alla prossima lettura
+    }
+
+    private Snapshot currentSnapshot() { // Restituisce lo snapshot valido, ricostruendolo se necessario
+        Snapshot current = cache.get(SNAPSHOT_KEY, Snapshot.class); // Lettura senza lock
+        if (current != null) { // Snapshot disponibile
+            hits.incrementAndGet(); // Conta l'accesso in cache
+            return current; // Restituisce lo snapshot
+        }
+        misses.incrementAndGet(); // Conta l'accesso mancato
+        synchronized (this) { // Evita ricostruzioni concorrenti
+            current = cache.get(SNAPSHOT_KEY, Snapshot.class); // Ricontrolla dopo aver acquisito il lock
+            if (current != null) { // Un altro thread ha già ricostruito
+                return current; // Riusa lo snapshot appena pubblicato
+            }
+            long startGeneration = generation.get(); // Generazione al momento della lettura dal database
+            Snapshot rebuilt = build(commissionRuleRepository.findAgentAssignments()); // Unica query per tutte le regole
+            rebuilds.incrementAndGet(); // Conta la ricostruzione
+            if (generation.get() == startGeneration) { // Pubblica solo se nel frattempo nessuno ha invalidato
+                cache.put(SNAPSHOT_KEY, rebuilt); // Pubblica il nuovo snapshot
+            }
+            return rebuilt; // Lo snapshot è comunque coerente per la richiesta corrente
+        }
+    }
+
+    private Snapshot build(List<AgentAssignment> assignments) { // Costruisce indici e regole a partire dalle associazioni
+        Map<Long, AgentAssignment> agents = new HashMap<>(); // Indice agente → associazione
+        Map<Long, List<AgentCommissionShare>> sharesByTeam = new HashMap<>(); // Quote raggruppate per team
+        for (AgentAssignment assignment : assignments) { // Itera tutte le righe lette
+            agents.put(assignment.agentId(), assignment); // Indicizza l'agente
+            if (assignment.teamId() != null) { // Solo gli agenti con team partecipano alle quote
+                sharesByTeam.computeIfAbsent(assignment.teamId(), id -> new ArrayList<>()).add(shareFor(assignment)); // Aggiunge la quota
+            }
+        }
+        Map<Long, TeamCommissionRule> teamRules = new HashMap<>(); // Indice team → regola
+        sharesByTeam.forEach((teamId, shares) -> teamRules.put(teamId, ruleFor(teamId, shares))); // Calcola la regola di ogni team
+        return new Snapshot(Map.copyOf(teamRules), Map.copyOf(agents)); // Snapshot immutabile
+    }
+
+    private TeamCommissionRule ruleFor(Long teamId, List<AgentCommissionShare> shares) { // Calcola la regola per un team a partire dalle quote
+        BigDecimal totalRequested = shares.stream() // Somma le percentuali richieste
+                .map(AgentCommissionShare::percentage)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal teamRate = normalizeTeamRate(totalRequested); // Normalizza l'aliquota del team
+        DistributionStrategy strategy = totalRequested.compareTo(teamRate) > 0 // Decide la strategia in base alla somma richiesta
+                ? DistributionStrategy.BARRIER
+                : DistributionStrategy.PERCENTAGE;
+        return new TeamCommissionRule(teamId, teamRate, strategy, List.copyOf(shares)); // Crea la regola finale per il team
+    }
+
+    private TeamCommissionRule emptyRule(Long teamId) { // Regola di un team senza agenti
+        return new TeamCommissionRule(teamId, MIN_TEAM_RATE, DistributionStrategy.PERCENTAGE, List.of()); // Aliquota minima senza membri
+    }
+
+    private AgentCommissionShare shareFor(AgentAssignment assignment) { // Costruisce la quota di un agente in base al ruolo
+        return new AgentCommissionShare(assignment.agentId(), // Identificativo dell'agente
+                percentageForRole(assignment.teamRole()), // Percentuale basata sul ruolo
+                rankingForRole(assignment.teamRole())); // Ranking basato sul ruolo
+    }
+
+    private BigDecimal normalizeTeamRate(BigDecimal desired) { // Normalizza l'aliquota del team entro i limiti
+        if (desired == null) { // Se non è specificata
+            return MIN_TEAM_RATE; // Usa l'aliquota minima
+        }
+        BigDecimal capped = desired.min(MAX_TEAM_RATE); // Limita l'aliquota al massimo consentito
+        if (capped.compareTo(MIN_TEAM_RATE) < 0) { // Se inferiore al minimo
+            return MIN_TEAM_RATE; // Usa il minimo
+        }
+        return capped; // Restituisce l'aliquota normalizzata
+    }
+
+    private BigDecimal percentageForRole(String role) { // Determina la percentuale di commissione in base al ruolo
+        if (role == null) { // Se il ruolo non è specificato
+            return DEFAULT_RATE; // Usa l'aliquota di default
+        }
+        String normalized = role.toLowerCase(Locale.ITALY); // Normalizza il ruolo in minuscolo
+        if (normalized.contains("senior")) { // Controlla ruolo senior
+            return SENIOR_RATE; // Restituisce aliquota senior
+        }
+        if (normalized.contains("junior")) { // Controlla ruolo junior
+            return JUNIOR_RATE; // Restituisce aliquota junior
+        }
+        if (normalized.contains("stag")) { // Controlla ruolo stagista
+            return INTERN_RATE; // Restituisce aliquota stagista
+        }
+        return DEFAULT_RATE; // In assenza di corrispondenza usa l'aliquota di default
+    }
+
+    private int rankingForRole(String role) { // Determina la priorità di distribuzione in base al ruolo
+        if (role == null) { // Se non è specificato
+            return 3; // Posiziona alla fine
+        }
+        String normalized = role.toLowerCase(Locale.ITALY); // Normalizza il ruolo in minuscolo
+        if (normalized.contains("senior")) { // Ruolo senior
+            return 0; // Priorità più alta
+        }
+        if (normalized.contains("junior")) { // Ruolo junior
+            return 1; // Seconda priorità
+        }
+        if (normalized.contains("stag")) { // Ruolo stagista
+            return 2; // Terza priorità
+        }
+        return 3; // Default per altri ruoli
+    }
+
+    private record Snapshot(Map<Long, TeamCommissionRule> teamRules, Map<Long, AgentAssignment> agents) { // Vista immutabile del registro
+    }
+
+    /**
+     * Contatori di utilizzo del registro.
+     */
+    public record RegistryStats(long hits, long misses, long rebuilds) { // Fotografia dei contatori
+    }
+}
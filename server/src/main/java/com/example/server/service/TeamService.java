@@ -17,9 +17,12 @@ import java.util.stream.StreamSupport; // Importa StreamSupport per creare strea
 public class TeamService { // Classe che incapsula la logica applicativa relativa ai team.
 // Riga vuota per separare dichiarazioni e costruttori.
     private final TeamRepository teamRepository; // Repository che esegue le operazioni di persistenza sui team.
+    private final TeamCommissionRuleRegistry teamCommissionRuleRegistry; // Registro delle regole provvigionali da invalidare sulle modifiche.
 // Riga vuota per separare i campi dal costruttore.
-    public TeamService(TeamRepository teamRepository) { // Costruttore che inietta il repository necessario al servizio.
+    public TeamService(TeamRepository teamRepository, // Costruttore che inietta il repository necessario al servizio.
+                       TeamCommissionRuleRegistry teamCommissionRuleRegistry) { // Inietta il registro delle regole provvigionali.
         this.teamRepository = teamRepository; // Salva il repository in un campo per utilizzi successivi.
+        this.teamCommissionRuleRegistry = teamCommissionRuleRegistry; // Salva il registro delle regole.
     } // Chiusura del costruttore di TeamService.
 // Riga vuota prima delle API pubbliche.
     public List<TeamDTO> findAll() { // Recupera tutti i team e li converte in DTO.
@@ -41,6 +44,7 @@ public class TeamService { // Classe che incapsula la logica applicativa relativ
         ensureUniqueName(normalizedName, null); // Verifica che non esista già un team con lo stesso nome.
         Team toSave = new Team(null, normalizedName); // Costruisce una nuova entità Team pronta per il salvataggio.
         Team saved = teamRepository.save(toSave); // Persiste l'entità e ottiene la versione salvata.
+        teamCommissionRuleRegistry.invalidate(); // Aggiorna il registro delle regole di team.
         return TeamMapper.toDto(saved); // Restituisce il DTO corrispondente al team salvato.
     } // Chiusura del metodo create.
 // Riga vuota per separare le operazioni di aggiornamento.
@@ -54,7 +58,9 @@ public class TeamService { // Classe che incapsula la logica applicativa relativ
                 .map(existing -> { // Elabora il risultato solo se è stato trovato un team.
                     ensureUniqueName(normalizedName, requiredId); // Si assicura che il nuovo nome non sia già utilizzato da altri team.
                     Team toSave = new Team(existing.getId(), normalizedName); // Crea un'istanza aggiornata mantenendo l'id originale.
-                    return TeamMapper.toDto(teamRepository.save(toSave)); // Salva le modifiche e restituisce il DTO aggiornato.
+                    Team saved = teamRepository.save(toSave); // Salva le modifiche.
+                    teamCommissionRuleRegistry.invalidate(); // Aggiorna il registro delle regole di team.
+                    return TeamMapper.toDto(saved); // Restituisce il DTO aggiornato.
                 }); // Chiude la lambda associata alla mappatura dell'Optional.
     } // Chiusura del metodo update.
 // Riga vuota per separare l'operazione di cancellazione.
@@ -65,6 +71,7 @@ public class TeamService { // Classe che incapsula la logica applicativa relativ
                 .map(existing -> { // Se il team esiste, procede con la cancellazione.
                     Team nonNullExisting = Objects.requireNonNull(existing, "team must not be null"); // Conferma che l'entità non sia nulla.
                     teamRepository.delete(nonNullExisting); // Rimuove l'entità dal database.
+                    teamCommissionRuleRegistry.invalidate(); // Il team rimosso non ha più una regola.
                     return true; // Indica che la cancellazione è avvenuta con successo.
                 }) // Chiude la lambda di mappatura.
                 .orElse(false); // Restituisce false se il team non è stato trovato.
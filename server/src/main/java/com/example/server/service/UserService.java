@@ -1,5 +1,6 @@
 package com.example.server.service; // Questa riga gestisce: package com.example.server.service;.
 // Riga vuota lasciata per separare meglio le sezioni del file.
+import com.example.common.dto.CursorPageDTO; // DTO delle pagine a cursore.
 import com.example.common.dto.UserDTO; // Questa riga gestisce: import com.example.common.dto.UserDTO;.
 import com.example.server.domain.Agent; // Questa riga gestisce: import com.example.server.domain.Agent;.
 import com.example.server.domain.Role; // Questa riga gestisce: import com.example.server.domain.Role;.
@@ -61,6 +62,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
     private final AgentRepository agentRepository; // Questa riga gestisce: private final AgentRepository agentRepository;.
     private final RoleRepository roleRepository; // Questa riga gestisce: private final RoleRepository roleRepository;.
     private final TeamRepository teamRepository; // Questa riga gestisce: private final TeamRepository teamRepository;.
+    private final TeamCommissionRuleRegistry teamCommissionRuleRegistry; // Registro delle regole provvigionali da invalidare sulle modifiche.
     private final Clock clock; // Questa riga gestisce: private final Clock clock;.
     private final Set<String> scopes; // Questa riga gestisce: private final Set<String> scopes;.
     private final String devBypassSecret; // Token di sviluppo per saltare MSAL.
@@ -71,6 +73,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                        AgentRepository agentRepository, // Questa riga gestisce: AgentRepository agentRepository,.
                        RoleRepository roleRepository, // Questa riga gestisce: RoleRepository roleRepository,.
                        TeamRepository teamRepository, // Questa riga gestisce: TeamRepository teamRepository,.
+                       TeamCommissionRuleRegistry teamCommissionRuleRegistry, // Registro delle regole provvigionali.
                        Clock clock, // Questa riga gestisce: Clock clock,.
                        @Value("${security.azure.default-scope:https://graph.microsoft.com/.default}") String defaultScope, // Questa riga gestisce: @Value("${security.azure.default-scope:https://graph.microsoft.com/.default}") String defaultScope) {.
                        @Value("${security.azure.dev-bypass-secret:}") String devBypassSecret) { // Segreto usato in sviluppo per saltare MSAL.
@@ -79,6 +82,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
         this.agentRepository = agentRepository; // Questa riga gestisce: this.agentRepository = agentRepository;.
         this.roleRepository = roleRepository; // Questa riga gestisce: this.roleRepository = roleRepository;.
         this.teamRepository = teamRepository; // Questa riga gestisce: this.teamRepository = teamRepository;.
+        this.teamCommissionRuleRegistry = teamCommissionRuleRegistry; // Conserva il registro delle regole provvigionali.
         this.clock = clock; // Questa riga gestisce: this.clock = clock;.
         this.scopes = parseScopes(defaultScope); // Questa riga gestisce: this.scopes = parseScopes(defaultScope);.
         this.devBypassSecret = devBypassSecret; // Conserva il segreto opzionale di bypass.
@@ -88,8 +92,9 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                        UserRepository userRepository, // Questa riga gestisce: UserRepository userRepository,.
                        AgentRepository agentRepository, // Questa riga gestisce: AgentRepository agentRepository,.
                        RoleRepository roleRepository, // Questa riga gestisce: RoleRepository roleRepository,.
-                       TeamRepository teamRepository) { // Questa riga gestisce: TeamRepository teamRepository) {.
-        this(msalClientProvider, userRepository, agentRepository, roleRepository, teamRepository, Clock.systemUTC(), "https://graph.microsoft.com/.default", ""); // Questa riga gestisce: this(msalClientProvider, userRepository, agentRepository, roleRepository, teamRepository, Clock.systemUTC(), "https://graph.microsoft.com/.default", "");.
+                       TeamRepository teamRepository, // Questa riga gestisce: TeamRepository teamRepository,.
+                       TeamCommissionRuleRegistry teamCommissionRuleRegistry) { // Registro delle regole provvigionali.
+        this(msalClientProvider, userRepository, agentRepository, roleRepository, teamRepository, teamCommissionRuleRegistry, Clock.systemUTC(), "https://graph.microsoft.com/.default", ""); // Questa riga gestisce: this(msalClientProvider, userRepository, agentRepository, roleRepository, teamRepository, teamCommissionRuleRegistry, Clock.systemUTC(), "https://graph.microsoft.com/.default", "");.
     } // Questa riga gestisce: }.
 // Riga vuota lasciata per separare meglio le sezioni del file.
     public List<UserDTO> findAll() { // Questa riga gestisce: public List<UserDTO> findAll() {.
@@ -97,6 +102,19 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                 .map(UserMapper::toDto) // Questa riga gestisce: .map(UserMapper::toDto).
                 .toList(); // Questa riga gestisce: .toList();.
     } // Questa riga gestisce: }.
+
+    public CursorPageDTO<UserDTO> findPage(String cursor, Integer size) { // Pagina keyset degli utenti per nome visualizzato e id.
+        int pageSize = KeysetPagination.pageSize(size); // Normalizza la dimensione richiesta.
+        KeysetPagination.Cursor position = KeysetPagination.decode(cursor); // Posizione successiva alla pagina precedente.
+        List<User> users = position == null // Legge una riga in più per sapere se esiste un seguito.
+                ? userRepository.findAllByOrderByDisplayNameAscIdAsc(KeysetPagination.fetchLimit(pageSize))
+                : userRepository.findByDisplayNameGreaterThanOrDisplayNameAndIdGreaterThanOrderByDisplayNameAscIdAsc(
+                        position.key(), position.key(), position.id(), KeysetPagination.fetchLimit(pageSize));
+        return KeysetPagination.page(users, pageSize, // Costruisce la pagina e il cursore successivo.
+                User::getDisplayName,
+                User::getId,
+                rows -> rows.stream().map(UserMapper::toDto).toList());
+    } // Fine del metodo findPage.
 // Riga vuota lasciata per separare meglio le sezioni del file.
     public Optional<UserDTO> findById(Long id) { // Questa riga gestisce: public Optional<UserDTO> findById(Long id) {.
         return userRepository.findById(Objects.requireNonNull(id, "id must not be null")) // Questa riga gestisce: return userRepository.findById(Objects.requireNonNull(id, "id must not be null")).
@@ -121,6 +139,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                 active, // Questa riga gestisce: active,.
                 createdAt); // Questa riga gestisce: createdAt);.
         User saved = Objects.requireNonNull(userRepository.save(toSave), "saved user must not be null"); // Questa riga gestisce: User saved = Objects.requireNonNull(userRepository.save(toSave), "saved user must not be null");.
+        teamCommissionRuleRegistry.invalidate(); // L'appartenenza ai team può essere cambiata.
         return UserMapper.toDto(saved); // Questa riga gestisce: return UserMapper.toDto(saved);.
     } // Questa riga gestisce: }.
 // Riga vuota lasciata per separare meglio le sezioni del file.
@@ -132,7 +151,10 @@ public class UserService { // Questa riga gestisce: public class UserService {.
         return userRepository.findById(requiredId) // Questa riga gestisce: return userRepository.findById(requiredId).
                 .map(existing -> merge(existing, validated)) // Questa riga gestisce: .map(existing -> merge(existing, validated)).
                 .map(userRepository::save) // Questa riga gestisce: .map(userRepository::save).
-                .map(UserMapper::toDto); // Questa riga gestisce: .map(UserMapper::toDto);.
+                .map(saved -> { // Aggiorna il registro delle regole dopo il salvataggio.
+                    teamCommissionRuleRegistry.invalidate(); // Il cambio di team sposta le quote dell'agente.
+                    return UserMapper.toDto(saved); // Converte l'utente salvato in DTO.
+                });
     } // Questa riga gestisce: }.
 // Riga vuota lasciata per separare meglio le sezioni del file.
     @Transactional // Questa riga gestisce: @Transactional.
@@ -141,6 +163,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                 .map(existing -> { // Questa riga gestisce: .map(existing -> {.
                     User nonNullExisting = Objects.requireNonNull(existing, "user must not be null"); // Questa riga gestisce: User nonNullExisting = Objects.requireNonNull(existing, "user must not be null");.
                     userRepository.delete(nonNullExisting); // Questa riga gestisce: userRepository.delete(nonNullExisting);.
+                    teamCommissionRuleRegistry.invalidate(); // L'utente rimosso esce dalle quote del team.
                     return true; // Questa riga gestisce: return true;.
                 }) // Questa riga gestisce: }).
                 .orElse(false); // Questa riga gestisce: .orElse(false);.
@@ -233,6 +256,7 @@ public class UserService { // Questa riga gestisce: public class UserService {.
                             "agent must not be null")); // Questa riga gestisce: "agent must not be null"));.
             agentRepository.save(Objects.requireNonNull(agent, "agent must not be null")); // Questa riga gestisce: agentRepository.save(Objects.requireNonNull(agent, "agent must not be null"));.
         } // Questa riga gestisce: }.
+        teamCommissionRuleRegistry.invalidate(); // Registrazione e cambio team aggiornano le regole provvigionali.
 // Riga vuota lasciata per separare meglio le sezioni del file.
         return toSummary(saved); // Questa riga gestisce: return toSummary(saved);.
     } // Questa riga gestisce: }.
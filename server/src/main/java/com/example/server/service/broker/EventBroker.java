@@ -0,0 +1,37 @@
+package com.example.server.service.broker; // Package del trasporto degli eventi tra istanze del server
+
+import org.springframework.transaction.support.TransactionSynchronization; // Callback di fine transazione
+import org.springframework.transaction.support.TransactionSynchronizationManager; // Registro delle sincronizzazioni attive
+
+import java.util.function.Consumer; // Interfaccia funzionale che riceve gli eventi
+
+/**
+ * Trasporto degli eventi pubblicati da {@code NotificationPublisher} e {@code ChatPublisher}.
+ * Ogni publisher registra un handler per il proprio topic, che consegna l'evento ai listener locali;
+ * il broker decide come l'evento raggiunge gli handler di tutte le istanze del server.
+ * L'implementazione si sceglie con {@code app.events.broker}: {@code memory} (predefinita, singola istanza)
+ * oppure {@code outbox} (tabella condivisa nel database, per più istanze dietro un bilanciatore).
+ * Gli eventi attraversano le istanze come DTO serializzati in JSON.
+ * <p>
+ * Un evento pubblicato dentro una transazione raggiunge gli handler locali solo dopo il commit, e mai se la
+ * transazione viene annullata: i listener non ricevono dati che il database potrebbe non confermare.
+ */
+public interface EventBroker { // Contratto del trasporto eventi
+
+    <T> void register(String topic, Class<T> type, Consumer<T> handler); // Registra la consegna locale degli eventi di un topic
+
+    void publish(String topic, Object event); // Pubblica un evento verso gli handler di tutte le istanze
+
+    static void afterCommit(Runnable delivery) { // Esegue la consegna locale a transazione confermata
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { // Nessuna transazione: dati già confermati
+            delivery.run(); // Consegna subito
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() { // Solo se la transazione viene confermata
+                delivery.run(); // Consegna ai listener locali
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.server.service.broker; // Package del trasporto degli eventi tra istanze del server
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty; // Attiva il broker in base alla configurazione
+import org.springframework.stereotype.Component; // Annotazione che registra il componente Spring
+
+import java.util.List; // Lista degli handler di un topic
+import java.util.Map; // Associazione topic -> handler
+import java.util.concurrent.ConcurrentHashMap; // Mappa thread-safe
+import java.util.concurrent.CopyOnWriteArrayList; // Lista thread-safe per letture frequenti
+import java.util.function.Consumer; // Interfaccia funzionale che riceve gli eventi
+
+/**
+ * Broker in processo: consegna l'evento agli handler registrati nella stessa istanza, senza serializzarlo.
+ * È il comportamento predefinito, adatto a un singolo server.
+ */
+@Component // Registrato come bean Spring
+@ConditionalOnProperty(name = "app.events.broker", havingValue = "memory", matchIfMissing = true) // Predefinito
+public class InMemoryEventBroker implements EventBroker { // Broker locale
+
+    private final Map<String, List<Consumer<Object>>> handlers = new ConcurrentHashMap<>(); // Handler per topic
+
+    @Override
+    @SuppressWarnings("unchecked") // Il tipo è garantito dal publisher che registra il topic
+    public <T> void register(String topic, Class<T> type, Consumer<T> handler) { // Registra la consegna locale
+        handlers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add((Consumer<Object>) handler); // Aggiunge l'handler al topic
+    }
+
+    @Override
+    public void publish(String topic, Object event) { // Consegna diretta agli handler locali
+        EventBroker.afterCommit(() -> handlers.getOrDefault(topic, List.of()).forEach(handler -> handler.accept(event))); // Nessuna copia dell'evento, a commit avvenuto
+    }
+}
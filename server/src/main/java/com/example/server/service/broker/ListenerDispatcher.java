@@ -0,0 +1,175 @@
+package com.example.server.service.broker; // Package del trasporto degli eventi tra istanze del server
+
+import jakarta.annotation.PreDestroy; // Arresto dell'executor con il contesto
+import org.slf4j.Logger; // Logger degli eventi scartati
+import org.slf4j.LoggerFactory; // Factory del logger
+import org.springframework.beans.factory.annotation.Autowired; // Costruttore usato da Spring
+import org.springframework.beans.factory.annotation.Value; // Lettura delle proprietà di configurazione
+import org.springframework.stereotype.Component; // Annotazione che registra il componente Spring
+
+import java.util.Objects; // Controlli di nullità
+import java.util.concurrent.BlockingQueue; // Coda limitata di un listener
+import java.util.concurrent.Executor; // Esecuzione dello svuotamento delle code
+import java.util.concurrent.ExecutorService; // Executor dei thread virtuali
+import java.util.concurrent.Executors; // Factory degli executor
+import java.util.concurrent.LinkedBlockingQueue; // Coda limitata allocata su richiesta
+import java.util.concurrent.RejectedExecutionException; // Executor già arrestato
+import java.util.concurrent.atomic.AtomicBoolean; // Stato di svuotamento della coda
+import java.util.concurrent.atomic.AtomicLong; // Eventi in coda
+import java.util.concurrent.atomic.LongAdder; // Contatori ad alta concorrenza
+import java.util.function.Consumer; // Interfaccia funzionale dei listener
+
+/**
+ * Consegna asincrona degli eventi ai listener locali di {@code NotificationPublisher} e {@code ChatPublisher}.
+ * Ogni listener riceve una casella ({@link Mailbox}) con una coda limitata, svuotata da un thread virtuale alla volta:
+ * il thread che pubblica si limita ad accodare, l'ordine di pubblicazione è mantenuto per ciascun listener e un
+ * listener lento (per esempio uno stream SSE verso un client con rete lenta) rallenta solo la propria coda.
+ * Quando la coda è piena l'evento viene scartato e conteggiato. Un listener registrato con un'azione di overflow
+ * (stream SSE, long poll della chat) viene invece chiuso: la casella scarta gli eventi in attesa ed esegue l'azione,
+ * che chiude la risposta verso il client; il client si riconnette con {@code Last-Event-ID} o {@code afterId} e
+ * recupera dal database gli eventi persi, senza buchi nella sequenza ricevuta.
+ */
+@Component // Registrato come bean Spring
+public class ListenerDispatcher { // Dispatcher dei listener locali
+
+    static final int DEFAULT_QUEUE_CAPACITY = 1_000; // Eventi in attesa ammessi per listener
+    private static final Logger log = LoggerFactory.getLogger(ListenerDispatcher.class); // Logger del dispatcher
+
+    private final Executor executor; // Esegue lo svuotamento delle code
+    private final int queueCapacity; // Capacità della coda di ogni listener
+    private final LongAdder delivered = new LongAdder(); // Eventi consegnati
+    private final LongAdder dropped = new LongAdder(); // Eventi scartati per coda piena
+    private final LongAdder failed = new LongAdder(); // Eventi il cui listener ha sollevato un'eccezione
+    private final AtomicLong queued = new AtomicLong(); // Eventi accodati e non ancora consegnati
+    private final LongAdder saturated = new LongAdder(); // Listener che hanno scartato almeno un evento
+
+    @Autowired // Costruttore usato da Spring
+    public ListenerDispatcher(@Value("${app.events.listener-queue-capacity:1000}") int queueCapacity) { // Dispatcher su thread virtuali
+        this(Executors.newVirtualThreadPerTaskExecutor(), queueCapacity); // Un thread virtuale per ogni coda in svuotamento
+    }
+
+    public ListenerDispatcher(Executor executor, int queueCapacity) { // Dispatcher con executor esplicito
+        this.executor = executor; // Assegna l'executor
+        this.queueCapacity = queueCapacity; // Assegna la capacità
+    }
+
+    public static ListenerDispatcher direct() { // Dispatcher sincrono, per l'uso fuori da Spring e nei test
+        return new ListenerDispatcher(Runnable::run, DEFAULT_QUEUE_CAPACITY); // Consegna sul thread che pubblica
+    }
+
+    @PreDestroy // Eseguito allo spegnimento del contesto
+    void stop() { // Arresta l'executor
+        if (executor instanceof ExecutorService service) { // Executor con ciclo di vita
+            service.shutdownNow(); // Interrompe gli svuotamenti in corso
+        }
+    }
+
+    public <T> Mailbox<T> mailbox(Consumer<T> listener) { // Crea la casella di un listener
+        return new Mailbox<>(listener, null); // Coda dedicata al listener, scarta gli eventi in eccesso
+    }
+
+    public <T> Mailbox<T> mailbox(Consumer<T> listener, Runnable onOverflow) { // Casella che si chiude alla prima coda piena
+        return new Mailbox<>(listener, Objects.requireNonNull(onOverflow, "onOverflow must not be null")); // Coda dedicata al listener
+    }
+
+    public Stats stats() { // Fotografia dei contatori
+        return new Stats(delivered.sum(), dropped.sum(), failed.sum(), queued.get(), saturated.sum()); // Valori correnti
+    }
+
+    public final class Mailbox<T> implements Consumer<T> { // Coda limitata di un singolo listener
+
+        private final Consumer<T> listener; // Listener da servire
+        private final Runnable onOverflow; // Azione eseguita alla prima coda piena, se presente
+        private final BlockingQueue<T> queue = new LinkedBlockingQueue<>(queueCapacity); // Eventi in attesa
+        private final AtomicBoolean draining = new AtomicBoolean(); // Indica uno svuotamento in corso
+        private volatile boolean closed; // Listener rimosso
+        private final AtomicBoolean saturatedOnce = new AtomicBoolean(); // Primo scarto già conteggiato, condiviso dai thread che pubblicano
+
+        private Mailbox(Consumer<T> listener, Runnable onOverflow) { // Costruttore
+            this.listener = listener; // Assegna il listener
+            this.onOverflow = onOverflow; // Assegna l'azione di overflow
+        }
+
+        @Override
+        public void accept(T event) { // Accoda un evento senza eseguire il listener
+            if (closed) { // Listener già rimosso
+                return;
+            }
+            if (!queue.offer(event)) { // Coda piena: il listener non tiene il passo
+                dropped.increment(); // Conta lo scarto
+                if (saturatedOnce.compareAndSet(false, true)) { // Primo scarto per questo listener, anche con più publisher
+                    saturated.increment(); // Conta il listener che non tiene il passo
+                    if (onOverflow != null) { // Il listener preferisce essere chiuso e riprendere dal database
+                        log.warn("Coda del listener piena ({} eventi): listener chiuso", queueCapacity);
+                        overflow(); // Chiude la casella e avvisa il listener
+                    } else {
+                        log.warn("Coda del listener piena ({} eventi): eventi scartati", queueCapacity);
+                    }
+                }
+                return;
+            }
+            queued.incrementAndGet(); // Evento in attesa
+            schedule(); // Avvia lo svuotamento se fermo
+        }
+
+        public void close() { // Rimuove gli eventi non ancora consegnati
+            closed = true; // Nessun nuovo evento
+            discardPending(); // Libera la coda
+        }
+
+        private void overflow() { // Chiude la casella dopo il primo scarto
+            closed = true; // Nessun evento successivo al buco viene consegnato
+            dropped.add(discardPending()); // Anche gli eventi in attesa verranno recuperati dal client
+            try {
+                onOverflow.run(); // Sul thread che pubblica: l'azione deve solo avviare la chiusura della risposta
+            } catch (RuntimeException ex) { // Un'azione guasta non ferma la pubblicazione
+                failed.increment(); // Conta il fallimento
+                log.debug("Azione di overflow del listener fallita", ex);
+            }
+        }
+
+        private int discardPending() { // Svuota la coda e restituisce gli eventi rimossi
+            int discarded = 0; // Eventi rimossi
+            while (queue.poll() != null) { // Libera la coda
+                queued.decrementAndGet(); // Aggiorna il contatore
+                discarded++; // Conta l'evento rimosso
+            }
+            return discarded; // Numero di eventi rimossi
+        }
+
+        private void schedule() { // Avvia uno svuotamento se nessuno è in corso
+            if (draining.compareAndSet(false, true)) { // Un solo svuotamento alla volta: ordine garantito
+                try {
+                    executor.execute(this::drain); // Svuota su un altro thread
+                } catch (RejectedExecutionException ex) { // Contesto in arresto
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() { // Consegna gli eventi in ordine di arrivo
+            try {
+                T event;
+                while (!closed && (event = queue.poll()) != null) { // Finché ci sono eventi
+                    queued.decrementAndGet(); // Evento prelevato
+                    try {
+                        listener.accept(event); // Esegue il listener
+                        delivered.increment(); // Conta la consegna
+                    } catch (RuntimeException ex) { // Un listener guasto non ferma la coda
+                        failed.increment(); // Conta il fallimento
+                        log.debug("Listener fallito durante la consegna di un evento", ex);
+                    }
+                }
+            } finally {
+                draining.set(false); // Svuotamento terminato
+            }
+            if (!closed && !queue.isEmpty()) { // Evento arrivato dopo l'ultimo poll
+                schedule(); // Riprende lo svuotamento
+            }
+        }
+    }
+
+    // Record con i contatori del dispatcher; saturatedListeners conta i listener che hanno scartato almeno un evento.
+    public record Stats(long delivered, long dropped, long failed, long queued, long saturatedListeners) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.server.service.broker; // Package del trasporto degli eventi tra istanze del server
+
+import com.fasterxml.jackson.core.JsonProcessingException; // Errore di serializzazione dell'evento
+import com.fasterxml.jackson.databind.ObjectMapper; // Serializzazione JSON degli eventi
+import jakarta.annotation.PostConstruct; // Avvio del polling con il contesto
+import jakarta.annotation.PreDestroy; // Arresto del polling con il contesto
+import org.slf4j.Logger; // Logger degli errori di consegna
+import org.slf4j.LoggerFactory; // Factory del logger
+import org.springframework.beans.factory.annotation.Value; // Lettura delle proprietà di configurazione
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty; // Attiva il broker in base alla configurazione
+import org.springframework.jdbc.core.JdbcTemplate; // Template con limite di righe per il polling
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource; // Parametri nominati delle query
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate; // Template JDBC con parametri nominati
+import org.springframework.stereotype.Component; // Annotazione che registra il componente Spring
+
+import java.sql.Timestamp; // Soglia di conservazione delle righe
+import java.time.Clock; // Orologio per i timeout e la pulizia
+import java.time.Duration; // Intervalli di polling e conservazione
+import java.time.Instant; // Istante di apertura di un buco negli id
+import java.util.List; // Righe lette e handler di un topic
+import java.util.Map; // Associazione topic -> handler
+import java.util.NavigableSet; // Id letti oltre il cursore
+import java.util.TreeSet; // Implementazione ordinata degli id letti
+import java.util.UUID; // Identificativo dell'istanza
+import java.util.concurrent.ConcurrentHashMap; // Mappa thread-safe degli handler
+import java.util.concurrent.CopyOnWriteArrayList; // Lista thread-safe degli handler
+import java.util.concurrent.Executors; // Factory dello scheduler
+import java.util.concurrent.ScheduledExecutorService; // Scheduler del polling
+import java.util.concurrent.TimeUnit; // Unità degli intervalli
+import java.util.function.Consumer; // Interfaccia funzionale che riceve gli eventi
+
+/**
+ * Broker basato sulla tabella {@code event_outbox}: funziona con più istanze del server che condividono il database,
+ * senza infrastruttura aggiuntiva. {@link #publish} scrive l'evento nella transazione del chiamante e lo consegna
+ * ai listener locali al commit della transazione; ogni istanza legge periodicamente le righe nuove scritte dalle altre e le consegna ai
+ * propri listener.
+ * <p>
+ * Il polling procede per id crescente. Una transazione più lenta può rendere visibile un id minore dopo uno maggiore,
+ * quindi il cursore avanza solo sugli id contigui: gli id già consegnati oltre il cursore sono ricordati per non
+ * ripeterli, e un buco che resta aperto oltre {@link #GAP_TIMEOUT} (transazione annullata, salto dell'identity)
+ * viene superato. Le righe più vecchie di {@code app.events.outbox.retention} vengono eliminate.
+ */
+@Component // Registrato come bean Spring
+@ConditionalOnProperty(name = "app.events.broker", havingValue = "outbox") // Attivo solo se richiesto
+public class OutboxEventBroker implements EventBroker { // Broker condiviso tramite database
+
+    static final int BATCH_SIZE = 500; // Righe lette al massimo per ogni polling
+    static final Duration GAP_TIMEOUT = Duration.ofSeconds(30); // Attesa massima di un id mancante
+    private static final long PURGE_PERIOD_SECONDS = 60; // Intervallo di pulizia della tabella
+    private static final Logger log = LoggerFactory.getLogger(OutboxEventBroker.class); // Logger del broker
+
+    private final NamedParameterJdbcTemplate jdbcTemplate; // Template per scritture e pulizia
+    private final NamedParameterJdbcTemplate pollingTemplate; // Template con limite di righe per il polling
+    private final ObjectMapper objectMapper; // Serializzazione degli eventi
+    private final Clock clock; // Orologio per timeout e pulizia
+    private final Duration pollInterval; // Intervallo tra due letture
+    private final Duration retention; // Durata di conservazione delle righe
+    private final String origin = UUID.randomUUID().toString(); // Identificativo di questa istanza
+    private final Map<String, List<TypedHandler<?>>> handlers = new ConcurrentHashMap<>(); // Handler per topic
+    private final NavigableSet<Long> delivered = new TreeSet<>(); // Id consegnati oltre il cursore
+    private long cursor; // Tutti gli id fino a questo valore sono stati gestiti
+    private Instant gapSince; // Istante in cui è stato notato il primo id mancante
+    private ScheduledExecutorService scheduler; // Scheduler di polling e pulizia
+
+    public OutboxEventBroker(NamedParameterJdbcTemplate jdbcTemplate, // Costruttore con dependency injection
+                             ObjectMapper objectMapper,
+                             Clock clock,
+                             @Value("${app.events.outbox.poll-interval:500ms}") Duration pollInterval,
+                             @Value("${app.events.outbox.retention:1h}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate; // Assegna il template
+        JdbcTemplate limited = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource()); // Stessa connessione, limite dedicato
+        limited.setMaxRows(BATCH_SIZE); // Evita di leggere tutta la tabella dopo un'interruzione
+        this.pollingTemplate = new NamedParameterJdbcTemplate(limited); // Template del polling
+        this.objectMapper = objectMapper; // Assegna il mapper JSON
+        this.clock = clock; // Assegna l'orologio
+        this.pollInterval = pollInterval; // Assegna l'intervallo di polling
+        this.retention = retention; // Assegna la conservazione
+    }
+
+    @PostConstruct // Eseguito quando il bean è pronto
+    void start() { // Parte dagli eventi successivi all'avvio e avvia il polling
+        Long last = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT MAX(\"id\") FROM \"event_outbox\"", Long.class); // Ultimo evento esistente
+        synchronized (this) { // Stato condiviso con il polling
+            cursor = last != null ? last : 0L; // Gli eventi precedenti all'avvio non vengono consegnati
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> { // Un solo thread daemon
+            Thread thread = new Thread(runnable, "event-outbox-poller"); // Nome per la diagnostica
+            thread.setDaemon(true); // Non blocca lo spegnimento
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> safely(this::poll), pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS); // Polling
+        scheduler.scheduleWithFixedDelay(() -> safely(this::purge), PURGE_PERIOD_SECONDS, PURGE_PERIOD_SECONDS, TimeUnit.SECONDS); // Pulizia
+    }
+
+    @PreDestroy // Eseguito allo spegnimento del contesto
+    void stop() { // Arresta polling e pulizia
+        if (scheduler != null) { // Avviato dal container
+            scheduler.shutdownNow(); // Interrompe i task
+        }
+    }
+
+    @Override
+    public <T> void register(String topic, Class<T> type, Consumer<T> handler) { // Registra la consegna locale
+        handlers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(new TypedHandler<>(type, handler)); // Aggiunge l'handler al topic
+    }
+
+    @Override
+    public void publish(String topic, Object event) { // Scrive l'evento e lo consegna ai listener locali
+        String payload; // Evento in formato JSON
+        try {
+            payload = objectMapper.writeValueAsString(event); // Serializza l'evento
+        } catch (JsonProcessingException ex) { // Evento non serializzabile
+            throw new IllegalStateException("Evento non serializzabile per il topic " + topic, ex);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO "event_outbox" ("topic", "origin", "payload", "created_at")
+                VALUES (:topic, :origin, :payload, :createdAt)
+                """, new MapSqlParameterSource()
+                .addValue("topic", topic)
+                .addValue("origin", origin)
+                .addValue("payload", payload)
+                .addValue("createdAt", Timestamp.from(clock.instant()))); // Visibile alle altre istanze al commit del chiamante
+        EventBroker.afterCommit(() -> handlers.getOrDefault(topic, List.of()).forEach(handler -> handler.deliver(event))); // Le altre istanze la riceveranno dal polling
+    }
+
+    synchronized int poll() { // Legge e consegna gli eventi scritti dalle altre istanze
+        List<OutboxRow> rows = pollingTemplate.query("""
+                SELECT "id", "topic", "origin", "payload"
+                FROM "event_outbox"
+                WHERE "id" > :cursor
+                ORDER BY "id"
+                """, new MapSqlParameterSource("cursor", cursor), (rs, rowNum) -> new OutboxRow(
+                rs.getLong("id"), rs.getString("topic"), rs.getString("origin"), rs.getString("payload"))); // Righe successive al cursore
+        int count = 0; // Eventi consegnati in questo giro
+        for (OutboxRow row : rows) { // In ordine di id
+            if (delivered.add(row.id()) && !origin.equals(row.origin())) { // Nuova e scritta da un'altra istanza
+                deliver(row); // Consegna ai listener locali
+                count++;
+            }
+        }
+        advanceCursor(); // Avanza sugli id contigui
+        return count; // Numero di eventi consegnati
+    }
+
+    void purge() { // Elimina le righe oltre la conservazione
+        jdbcTemplate.update("DELETE FROM \"event_outbox\" WHERE \"created_at\" < :cutoff",
+                new MapSqlParameterSource("cutoff", Timestamp.from(clock.instant().minus(retention)))); // Righe già lette da tutte le istanze
+    }
+
+    private void deliver(OutboxRow row) { // Consegna una riga ai listener del suo topic
+        for (TypedHandler<?> handler : handlers.getOrDefault(row.topic(), List.of())) { // Handler registrati
+            try {
+                handler.deliver(objectMapper.readValue(row.payload(), handler.type())); // Ricostruisce il DTO
+            } catch (JsonProcessingException | RuntimeException ex) { // Una riga non valida non blocca le successive
+                log.warn("Evento {} del topic {} non consegnato", row.id(), row.topic(), ex);
+            }
+        }
+    }
+
+    private void advanceCursor() { // Sposta il cursore oltre gli id consegnati senza buchi
+        while (!delivered.isEmpty() && delivered.first() == cursor + 1) { // Id successivo al cursore già gestito
+            cursor = delivered.pollFirst(); // Avanza di uno
+        }
+        if (delivered.isEmpty()) { // Nessun buco
+            gapSince = null;
+            return;
+        }
+        Instant now = clock.instant(); // Istante corrente
+        if (gapSince == null) { // Buco appena notato
+            gapSince = now;
+        } else if (Duration.between(gapSince, now).compareTo(GAP_TIMEOUT) > 0) { // La transazione mancante non arriverà più
+            cursor = delivered.first() - 1; // Supera il buco
+            gapSince = null; // Ricomincia a misurare
+            advanceCursor(); // Avanza sugli id successivi
+        }
+    }
+
+    private void safely(Runnable task) { // Esegue un task senza interrompere lo scheduler
+        try {
+            task.run(); // Esegue il task
+        } catch (RuntimeException ex) { // Database non raggiungibile o errore imprevisto
+            log.warn("Errore nel polling della tabella event_outbox", ex); // Il prossimo giro riprova
+        }
+    }
+
+    private record TypedHandler<T>(Class<T> type, Consumer<T> handler) { // Handler con il tipo del suo evento
+
+        private void deliver(Object event) { // Consegna un evento del tipo atteso
+            handler.accept(type.cast(event)); // Verifica il tipo e consegna
+        }
+    }
+
+    private record OutboxRow(long id, String topic, String origin, String payload) { // Riga letta dalla tabella
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.server.service.broker; // Package del trasporto degli eventi tra istanze del server
+
+import java.util.Map; // Associazione chiave -> listener
+import java.util.Set; // Listener di una chiave
+import java.util.concurrent.ConcurrentHashMap; // Mappa concorrente con aggiornamenti atomici per chiave
+import java.util.concurrent.atomic.LongAdder; // Contatore delle sottoscrizioni attive
+import java.util.function.Consumer; // Azione eseguita su ogni listener
+
+/**
+ * Multimappa concorrente dei listener locali di {@code NotificationPublisher} e {@code ChatPublisher}, pensata per
+ * sottoscrizioni che si aprono e chiudono di continuo (stream SSE, long-poll della chat).
+ * Ogni chiave ha un insieme concorrente, quindi aggiunta e rimozione non copiano i listener esistenti; entrambe
+ * passano da {@link ConcurrentHashMap#compute}, che serializza le operazioni sulla stessa chiave: l'insieme rimasto
+ * vuoto viene rimosso dalla mappa nella stessa operazione e una sottoscrizione concorrente non può finire in un
+ * insieme già rimosso. La consegna legge senza lock.
+ */
+public final class SubscriberRegistry<K, V> { // Registro dei listener per chiave
+
+    private final Map<K, Set<V>> subscribers = new ConcurrentHashMap<>(); // Listener per chiave
+    private final LongAdder subscriptions = new LongAdder(); // Sottoscrizioni attive
+
+    public void add(K key, V subscriber) { // Registra un listener
+        subscribers.compute(key, (id, current) -> { // Atomico rispetto alle rimozioni sulla stessa chiave
+            Set<V> set = current != null ? current : ConcurrentHashMap.newKeySet(); // Crea l'insieme alla prima sottoscrizione
+            if (set.add(subscriber)) { // Nuovo listener
+                subscriptions.increment(); // Aggiorna il contatore
+            }
+            return set;
+        });
+    }
+
+    public boolean remove(K key, V subscriber) { // Rimuove un listener ed elimina la chiave rimasta vuota
+        boolean[] removed = new boolean[1]; // Esito calcolato dentro compute
+        subscribers.computeIfPresent(key, (id, set) -> { // Atomico rispetto alle aggiunte sulla stessa chiave
+            removed[0] = set.remove(subscriber); // Rimuove il listener
+            return set.isEmpty() ? null : set; // null elimina la chiave
+        });
+        if (removed[0]) { // Annullamenti ripetuti non alterano il contatore
+            subscriptions.decrement();
+        }
+        return removed[0];
+    }
+
+    public void forEach(K key, Consumer<? super V> action) { // Esegue l'azione sui listener della chiave
+        Set<V> set = subscribers.get(key); // Lettura senza lock
+        if (set != null) { // Chiave con listener
+            set.forEach(action); // Iterazione debolmente consistente
+        }
+    }
+
+    public Stats stats() { // Valori correnti per il monitoraggio
+        return new Stats(subscribers.size(), subscriptions.sum()); // Chiavi e sottoscrizioni attive
+    }
+
+    // Record con il numero di chiavi e di sottoscrizioni attive.
+    public record Stats(long topics, long subscriptions) {
+
+        public Stats plus(Stats other) { // Somma i valori di due registri
+            return new Stats(topics + other.topics, subscriptions + other.subscriptions);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.server.service.mapper; // Defines the package for notification mapping utilities
+
+import com.example.common.dto.NotificationDTO; // Imports the DTO representation of a notification
+import com.example.server.domain.Notification; // Imports the entity representation of a notification
+
+public final class NotificationMapper { // Utility class to convert Notification entities to and from DTOs
+
+    private NotificationMapper() { // Private constructor to prevent instantiation
+    }
+
+    public static NotificationDTO toDto(Notification notification) { // Converts a Notification entity to its DTO form
+        if (notification == null) { // Returns null when no entity is provided
+            return null; // Avoids NullPointerException when mapping
+        }
+        NotificationDTO dto = new NotificationDTO(); // Create DTO
+        dto.setId(notification.getId()); // Set id
+        dto.setUserId(notification.getUserId()); // Set user id
+        dto.setTeamId(notification.getTeamId()); // Set team id
+        dto.setTitle(notification.getTitle()); // Set title
+        dto.setMessage(notification.getMessage()); // Set message
+        dto.setRead(notification.isRead()); // Set read flag
+        dto.setCreatedAt(notification.getCreatedAt()); // Set creation time
+        return dto; // Return DTO
+    }
+
+    public static Notification fromDto(NotificationDTO dto) { // Converts a NotificationDTO to the entity form
+        if (dto == null) { // Returns null when no DTO is provided
+            return null; // Avoids creating an entity from a null source
+        }
+        return new Notification( // Builds the entity using DTO values
+                dto.getId(), // Sets the notification identifier
+                dto.getUserId(), // Sets the target user
+                dto.getTeamId(), // Sets the target team
+                dto.getTitle(), // Sets the title
+                dto.getMessage(), // Sets the message
+                dto.getRead(), // Sets the read flag
+                dto.getCreatedAt() // Sets the creation time
+        );
+    }
+}
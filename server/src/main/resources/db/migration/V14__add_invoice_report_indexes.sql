@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS ix_invoices_status_payment_date
+    ON invoices (status, payment_date);
+
+CREATE INDEX IF NOT EXISTS ix_contracts_agent
+    ON contracts (agent_id);
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS commission_monthly_rollups (
+    agent_id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    invoice_count INT NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    CONSTRAINT pk_commission_monthly_rollups
+        PRIMARY KEY (period_start, agent_id)
+);
+
+CREATE INDEX IF NOT EXISTS ix_commission_rollups_agent
+    ON commission_monthly_rollups (agent_id, period_start);
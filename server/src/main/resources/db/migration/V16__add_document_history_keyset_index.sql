@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS ix_document_history_created_at_id
+    ON document_history (created_at, id);
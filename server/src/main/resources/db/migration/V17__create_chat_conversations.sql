@@ -0,0 +1,23 @@
+CREATE TABLE IF NOT EXISTS conversations (
+    conversation_id NVARCHAR(255) NOT NULL PRIMARY KEY,
+    team_id BIGINT NULL,
+    last_message_id BIGINT NOT NULL,
+    last_message_at DATETIME2 NOT NULL,
+    last_message_snippet NVARCHAR(61) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_conversations_team_last_message
+    ON conversations (team_id, last_message_at);
+
+CREATE INDEX IF NOT EXISTS ix_messages_conversation_created_at
+    ON messages (conversation_id, created_at);
+
+INSERT INTO conversations (conversation_id, team_id, last_message_id, last_message_at, last_message_snippet)
+SELECT m.conversation_id,
+       CASE WHEN m.conversation_id LIKE 'team:%'
+            THEN CAST(SUBSTRING(m.conversation_id, 6, 250) AS BIGINT) END,
+       m.id,
+       m.created_at,
+       SUBSTRING(m.body, 1, 61)
+FROM messages m
+WHERE m.id = (SELECT MAX(l.id) FROM messages l WHERE l.conversation_id = m.conversation_id);
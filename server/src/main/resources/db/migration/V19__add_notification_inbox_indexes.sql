@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS ix_notifications_user_created_at
+    ON notifications (user_id, created_at, is_read);
+
+CREATE INDEX IF NOT EXISTS ix_notifications_team_created_at
+    ON notifications (team_id, created_at, is_read);
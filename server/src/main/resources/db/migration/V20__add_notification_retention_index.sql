@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS ix_notifications_read_created_at
+    ON notifications (is_read, created_at);
@@ -0,0 +1,22 @@
+UPDATE invoices SET updated_at = created_at WHERE updated_at IS NULL;
+UPDATE customers SET updated_at = created_at WHERE updated_at IS NULL;
+UPDATE articles SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS ix_invoices_updated_at
+    ON invoices (updated_at);
+
+CREATE INDEX IF NOT EXISTS ix_customers_updated_at
+    ON customers (updated_at);
+
+CREATE INDEX IF NOT EXISTS ix_articles_updated_at
+    ON articles (updated_at);
+
+CREATE TABLE IF NOT EXISTS sync_tombstones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type NVARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at DATETIME2 NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS ix_sync_tombstones_type_deleted_at
+    ON sync_tombstones (entity_type, deleted_at);
@@ -0,0 +1,15 @@
+-- Catalogo e indice full-text sulla descrizione dello storico, usati dalla ricerca testuale con il profilo sqlserver.
+-- Le istruzioni FULLTEXT non possono essere eseguite in una transazione (vedi il file .conf associato).
+IF NOT EXISTS (SELECT 1 FROM sys.fulltext_catalogs WHERE name = 'ft_document_history')
+    CREATE FULLTEXT CATALOG ft_document_history WITH ACCENT_SENSITIVITY = OFF
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.fulltext_indexes WHERE object_id = OBJECT_ID('document_history'))
+BEGIN
+    DECLARE @pk NVARCHAR(260) = QUOTENAME((SELECT name FROM sys.key_constraints
+                                            WHERE parent_object_id = OBJECT_ID('document_history') AND type = 'PK'))
+    DECLARE @sql NVARCHAR(MAX) = N'CREATE FULLTEXT INDEX ON document_history (description LANGUAGE 1040) KEY INDEX '
+        + @pk + N' ON ft_document_history WITH CHANGE_TRACKING AUTO'
+    EXEC sp_executesql @sql
+END
+GO
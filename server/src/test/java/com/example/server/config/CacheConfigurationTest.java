@@ -0,0 +1,81 @@
+package com.example.server.config;
+
+import com.example.common.dto.CacheMetricsDTO;
+import com.example.server.service.CacheMetricsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigurationTest {
+
+    @Test
+    void shouldBindSpecsKeyedByCacheName() {
+        CacheSettingsProperties properties = bind(Map.of(
+                "app.cache.default-spec", "maximumSize=10",
+                "app.cache.specs[documentHistorySearch]", "maximumSize=2,expireAfterWrite=5m"));
+
+        assertThat(properties.getDefaultSpec()).isEqualTo("maximumSize=10");
+        assertThat(properties.getSpecs()).containsEntry("documentHistorySearch", "maximumSize=2,expireAfterWrite=5m");
+    }
+
+    @Test
+    void shouldBoundEachCacheAndReportItsHitRatio() {
+        CacheSettingsProperties properties = new CacheSettingsProperties();
+        properties.setDefaultSpec("maximumSize=100");
+        properties.setSpecs(Map.of("documentHistorySearch", "maximumSize=5"));
+        CacheManager cacheManager = new CacheConfiguration().cacheManager(properties);
+        Cache search = cacheManager.getCache("documentHistorySearch");
+        Cache statistics = cacheManager.getCache("agentStatistics");
+
+        IntStream.range(0, 50).forEach(i -> search.put("key-" + i, i));
+        IntStream.range(0, 50).forEach(i -> statistics.put("key-" + i, i));
+        statistics.get("key-1");
+        statistics.get("key-2");
+        statistics.get("key-3");
+        statistics.get("missing");
+
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) search.getNativeCache()).cleanUp();
+
+        Map<String, CacheMetricsDTO> metrics = new CacheMetricsService(cacheManager).caches().stream()
+                .collect(Collectors.toMap(CacheMetricsDTO::name, dto -> dto));
+        assertThat(metrics.get("documentHistorySearch").size()).isLessThanOrEqualTo(5);
+        assertThat(metrics.get("documentHistorySearch").evictions()).isPositive();
+        assertThat(metrics.get("agentStatistics").size()).isEqualTo(50);
+        assertThat(metrics.get("agentStatistics").hits()).isEqualTo(3);
+        assertThat(metrics.get("agentStatistics").misses()).isEqualTo(1);
+        assertThat(metrics.get("agentStatistics").hitRatio()).isEqualTo(0.75);
+    }
+
+    @Test
+    void shouldAcceptSpecsThatAlreadyRecordStats() {
+        CacheSettingsProperties properties = new CacheSettingsProperties();
+        properties.setDefaultSpec("maximumSize=100, recordStats");
+        properties.setSpecs(Map.of("documentHistorySearch", "recordStats,maximumSize=5"));
+        CacheManager cacheManager = new CacheConfiguration().cacheManager(properties);
+        Cache search = cacheManager.getCache("documentHistorySearch");
+        Cache statistics = cacheManager.getCache("agentStatistics");
+
+        search.get("missing");
+        statistics.put("key", 1);
+        statistics.get("key");
+
+        Map<String, CacheMetricsDTO> metrics = new CacheMetricsService(cacheManager).caches().stream()
+                .collect(Collectors.toMap(CacheMetricsDTO::name, dto -> dto));
+        assertThat(metrics.get("documentHistorySearch").misses()).isEqualTo(1);
+        assertThat(metrics.get("agentStatistics").hits()).isEqualTo(1);
+    }
+
+    private static CacheSettingsProperties bind(Map<String, String> values) {
+        return new Binder(new MapConfigurationPropertySource(values))
+                .bind("app.cache", CacheSettingsProperties.class)
+                .orElseGet(CacheSettingsProperties::new);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.server.controller;
 
+import com.example.common.dto.CursorPageDTO;
 import com.example.common.dto.CustomerDTO;
 import com.example.server.service.CustomerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -59,6 +60,28 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$[1].vatNumber").value("VAT2"));
     }
 
+    @Test
+    @DisplayName("Customer page forwards cursor and size to service")
+    void listCustomersPage() throws Exception {
+        CustomerDTO gamma = new CustomerDTO(3L, "Gamma", "VAT3", "TC3", "g@example.com", "456", "Street 3", Instant.EPOCH, null);
+        when(customerService.findPage("abc", 1)).thenReturn(new CursorPageDTO<>(List.of(gamma), "def", 1));
+
+        mockMvc.perform(get("/api/customers/page").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("Gamma"))
+                .andExpect(jsonPath("$.nextCursor").value("def"))
+                .andExpect(jsonPath("$.size").value(1));
+    }
+
+    @Test
+    @DisplayName("Customer page maps an invalid cursor to 400")
+    void listCustomersPageInvalidCursor() throws Exception {
+        when(customerService.findPage("broken", null)).thenThrow(new IllegalArgumentException("Cursore non valido"));
+
+        mockMvc.perform(get("/api/customers/page").param("cursor", "broken"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Find customer by id delegates to service")
     void findById() throws Exception {
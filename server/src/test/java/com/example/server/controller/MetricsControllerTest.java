@@ -0,0 +1,70 @@
+package com.example.server.controller;
+
+import com.example.common.dto.EventDispatchMetricsDTO;
+import com.example.common.dto.SubscriptionMetricsDTO;
+import com.example.server.service.CacheMetricsService;
+import com.example.server.service.EventMetricsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(MetricsController.class)
+class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheMetricsService cacheMetricsService;
+
+    @MockBean
+    private EventMetricsService eventMetricsService;
+
+    @MockBean
+    private JdbcMappingContext jdbcMappingContext;
+
+    @MockBean(name = "jdbcAuditingHandler")
+    private Object jdbcAuditingHandler;
+
+    @Test
+    @DisplayName("Event dispatch counters are exposed with the metrics")
+    void eventsExposeDispatchCounters() throws Exception {
+        when(eventMetricsService.dispatch()).thenReturn(new EventDispatchMetricsDTO(120, 7, 1, 3, 2));
+
+        mockMvc.perform(get("/api/metrics/events"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.delivered").value(120))
+                .andExpect(jsonPath("$.dropped").value(7))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.queued").value(3))
+                .andExpect(jsonPath("$.saturatedListeners").value(2));
+    }
+
+    @Test
+    @DisplayName("Live subscriptions are listed per publisher")
+    void subscriptionsListEachPublisher() throws Exception {
+        when(eventMetricsService.subscriptions()).thenReturn(List.of(
+                new SubscriptionMetricsDTO("chat", 2, 3),
+                new SubscriptionMetricsDTO("notifications", 4, 5)));
+
+        mockMvc.perform(get("/api/metrics/subscriptions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("chat"))
+                .andExpect(jsonPath("$[0].topics").value(2))
+                .andExpect(jsonPath("$[0].subscriptions").value(3))
+                .andExpect(jsonPath("$[1].name").value("notifications"))
+                .andExpect(jsonPath("$[1].topics").value(4))
+                .andExpect(jsonPath("$[1].subscriptions").value(5));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.server.e2e;
 
 import com.example.common.dto.AgentDTO;
 import com.example.common.dto.AgentStatisticsDTO;
+import com.example.common.dto.ChangeSetDTO;
 import com.example.common.dto.InvoiceDTO;
 import com.example.common.dto.InvoicePaymentRequest;
 import com.example.common.dto.MonthlyCommissionDTO;
@@ -37,7 +38,9 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -113,7 +116,8 @@ class ApiE2ETest {
                 "DELETE FROM agents",
                 "DELETE FROM users",
                 "DELETE FROM customers",
-                "DELETE FROM articles"
+                "DELETE FROM articles",
+                "DELETE FROM sync_tombstones"
         );
     }
 
@@ -234,6 +238,78 @@ class ApiE2ETest {
         assertThat(updated.getBody().getNotes()).isEqualTo("Aggiornata");
     }
 
+    @Test
+    @DisplayName("/invoices/changes restituisce le fatture modificate ed eliminate dopo l'ultima sincronizzazione")
+    void invoiceChangesReturnUpdatesAndDeletionsSinceLastSync() {
+        Long customerId = customerRepository.save(Customer.create(
+                "Cliente Sync", null, null, "sync@example.com", null, null)).getId();
+        InvoiceDTO kept = restTemplate.postForObject(url("/api/invoices"), invoicePayload(customerId, "Da aggiornare"), InvoiceDTO.class);
+        InvoiceDTO removed = restTemplate.postForObject(url("/api/invoices"), invoicePayload(customerId, "Da eliminare"), InvoiceDTO.class);
+
+        ChangeSetDTO<InvoiceDTO> snapshot = invoiceChanges("/api/invoices/changes");
+        assertThat(snapshot.isFull()).isTrue();
+        assertThat(snapshot.getItems()).extracting(InvoiceDTO::getId).contains(kept.getId(), removed.getId());
+
+        kept.setNotes("Aggiornata");
+        restTemplate.put(url("/api/invoices/" + kept.getId()), kept);
+        restTemplate.delete(url("/api/invoices/" + removed.getId()));
+
+        ChangeSetDTO<InvoiceDTO> delta = invoiceChanges("/api/invoices/changes?since=" + snapshot.getSyncedAt());
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getItems()).extracting(InvoiceDTO::getId).containsExactly(kept.getId());
+        assertThat(delta.getItems().get(0).getNotes()).isEqualTo("Aggiornata");
+        assertThat(delta.getDeletedIds()).containsExactly(removed.getId());
+        assertThat(delta.getSyncedAt()).isAfterOrEqualTo(snapshot.getSyncedAt());
+    }
+
+    @Test
+    @DisplayName("/customers risponde 304 finché i clienti non cambiano")
+    void customerListSupportsConditionalGet() {
+        ResponseEntity<String> first = restTemplate.getForEntity(url("/api/customers"), String.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotBlank();
+
+        ResponseEntity<String> unchanged = getIfNoneMatch("/api/customers", etag);
+        assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unchanged.getBody()).isNull();
+
+        customerRepository.save(Customer.create("Cliente ETag", null, null, "etag@example.com", null, null));
+
+        ResponseEntity<String> changed = getIfNoneMatch("/api/customers", etag);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(changed.getBody()).contains("Cliente ETag");
+    }
+
+    private ResponseEntity<String> getIfNoneMatch(String path, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(url(path), HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private ChangeSetDTO<InvoiceDTO> invoiceChanges(String path) {
+        ResponseEntity<ChangeSetDTO<InvoiceDTO>> response = restTemplate.exchange(
+                url(path),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        return response.getBody();
+    }
+
+    private static InvoiceDTO invoicePayload(Long customerId, String notes) {
+        InvoiceDTO payload = new InvoiceDTO();
+        payload.setCustomerId(customerId);
+        payload.setAmount(new BigDecimal("300.00"));
+        payload.setIssueDate(LocalDate.of(2024, 3, 1));
+        payload.setDueDate(LocalDate.of(2024, 4, 1));
+        payload.setStatus(InvoiceStatus.DRAFT);
+        payload.setNotes(notes);
+        return payload;
+    }
+
     @Test
     @DisplayName("/stats restituisce aggregati coerenti dopo il pagamento di una fattura")
     void statisticsEndpointsReturnAggregations() {
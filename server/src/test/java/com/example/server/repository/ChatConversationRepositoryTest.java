@@ -0,0 +1,51 @@
+package com.example.server.repository;
+
+import com.example.server.domain.Message;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJdbcTest
+@ActiveProfiles("test")
+@Import(ChatConversationRepository.class)
+class ChatConversationRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2024-02-01T10:15:30Z");
+
+    @Autowired
+    private ChatConversationRepository repository;
+
+    @Test
+    void recordMessageShouldKeepOnlyTheLatestMessagePerConversation() {
+        repository.recordMessage(new Message(1L, "team:1", 2L, 1L, "primo", NOW.minusSeconds(60)), 1L);
+        repository.recordMessage(new Message(3L, "team:1", 2L, 1L, "x".repeat(80), NOW), 1L);
+        repository.recordMessage(new Message(2L, "team:1", 2L, 1L, "in ritardo", NOW.minusSeconds(30)), 1L);
+
+        assertThat(repository.findAccessible(1L))
+                .extracting(ChatConversationRepository.ConversationSummary::lastMessageId,
+                        ChatConversationRepository.ConversationSummary::lastMessageAt,
+                        ChatConversationRepository.ConversationSummary::lastMessageSnippet)
+                .containsExactly(tuple(3L, NOW, "x".repeat(ChatConversationRepository.SNIPPET_LENGTH)));
+    }
+
+    @Test
+    void findAccessibleShouldHideOtherTeamsAndOrderByActivity() {
+        repository.recordMessage(new Message(1L, "team:1", 2L, 1L, "team", NOW.minusSeconds(20)), 1L);
+        repository.recordMessage(new Message(2L, "team:2", 5L, 2L, "altro team", NOW), 2L);
+        repository.recordMessage(new Message(3L, "4", 4L, 1L, "diretto", NOW.minusSeconds(10)), null);
+
+        assertThat(repository.findAccessible(1L))
+                .extracting(ChatConversationRepository.ConversationSummary::conversationId)
+                .containsExactly("4", "team:1");
+        assertThat(repository.findAccessible(null))
+                .extracting(ChatConversationRepository.ConversationSummary::conversationId)
+                .containsExactly("4");
+    }
+}
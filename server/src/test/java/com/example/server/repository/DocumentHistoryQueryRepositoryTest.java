@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 
@@ -18,13 +19,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJdbcTest
 @ActiveProfiles("test")
-@Import(DocumentHistoryQueryRepository.class)
+@Import({DocumentHistoryQueryRepository.class, LikeDocumentHistoryTextSearch.class})
 @Sql(scripts = "/data.sql")
 class DocumentHistoryQueryRepositoryTest {
 
     @Autowired
     private DocumentHistoryQueryRepository repository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void findShouldApplyFiltersPaginationAndOrdering() {
         DocumentHistoryQuery query = DocumentHistoryQuery.builder()
@@ -46,6 +50,27 @@ class DocumentHistoryQueryRepositoryTest {
         assertThat(page.totalElements()).isEqualTo(2L);
     }
 
+    @Test
+    void findWithoutCountShouldTellWhetherAnotherPageExists() {
+        DocumentHistoryQuery.Builder query = DocumentHistoryQuery.builder()
+                .documentType(DocumentType.INVOICE)
+                .documentId(10L)
+                .actions(List.of(DocumentAction.CREATED, DocumentAction.UPDATED))
+                .from(Instant.parse("2024-01-01T00:00:00Z"))
+                .to(Instant.parse("2024-02-15T00:00:00Z"))
+                .size(1)
+                .includeTotal(false);
+
+        DocumentHistoryQueryRepository.ResultPage first = repository.find(query.page(0).build());
+        DocumentHistoryQueryRepository.ResultPage last = repository.find(query.page(1).build());
+
+        assertThat(first.items()).extracting(DocumentHistory::getId).containsExactly(2L);
+        assertThat(first.totalElements()).isEqualTo(DocumentHistoryQueryRepository.UNKNOWN_TOTAL);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(last.items()).extracting(DocumentHistory::getId).containsExactly(1L);
+        assertThat(last.hasMore()).isFalse();
+    }
+
     @Test
     void findAllShouldReturnEmptyListWhenNoRecordsMatch() {
         DocumentHistoryQuery query = DocumentHistoryQuery.builder()
@@ -60,4 +85,22 @@ class DocumentHistoryQueryRepositoryTest {
 
         assertThat(results).isEmpty();
     }
+
+    @Test
+    void findAllShouldBreakTimestampTiesByIdLikeThePagedSearch() {
+        for (long id = 41; id <= 43; id++) {
+            jdbcTemplate.update("""
+                    INSERT INTO "document_history" (id, document_type, document_id, action, description, created_at)
+                    VALUES (?, 'CONTRACT', 99, 'UPDATED', 'Same instant', TIMESTAMP '2024-05-01 10:00:00')
+                    """, id);
+        }
+        DocumentHistoryQuery query = DocumentHistoryQuery.builder()
+                .documentType(DocumentType.CONTRACT)
+                .documentId(99L)
+                .build();
+
+        assertThat(repository.findAll(query))
+                .extracting(DocumentHistory::getId)
+                .containsExactly(43L, 42L, 41L);
+    }
 }
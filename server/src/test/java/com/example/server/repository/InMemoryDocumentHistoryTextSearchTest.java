@@ -0,0 +1,137 @@
+package com.example.server.repository;
+
+import com.example.common.enums.DocumentAction;
+import com.example.common.enums.DocumentType;
+import com.example.server.domain.DocumentHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryDocumentHistoryTextSearchTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcOperations jdbcOperations;
+
+    private InMemoryDocumentHistoryTextSearch textSearch;
+
+    @BeforeEach
+    void setUp() {
+        textSearch = new InMemoryDocumentHistoryTextSearch(jdbcTemplate);
+    }
+
+    @Test
+    void shouldNormalizeTermsIgnoringCaseAccentsAndPunctuation() {
+        assertThat(InMemoryDocumentHistoryTextSearch.terms("Fattura N. 12 — Attività, attivita!"))
+                .containsExactly("fattura", "n", "12", "attivita");
+        assertThat(InMemoryDocumentHistoryTextSearch.terms(" -- ")).isEmpty();
+    }
+
+    @Test
+    void shouldFallBackToOneLikePerTermUntilIndexIsLoaded() {
+        StringBuilder where = new StringBuilder();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+        textSearch.appendCondition("Rossi,  MARIO", where, parameters);
+
+        assertThat(where.toString()).isEqualTo(" AND LOWER(\"description\") LIKE :searchTerm0"
+                + " AND LOWER(\"description\") LIKE :searchTerm1");
+        assertThat(parameters.getValue("searchTerm0")).isEqualTo("%rossi%");
+        assertThat(parameters.getValue("searchTerm1")).isEqualTo("%mario%");
+    }
+
+    @Test
+    void shouldMatchEntriesIndexedIncrementallyByWordPrefix() {
+        loadEmptyIndex();
+        textSearch.indexed(entry(1L, "Fattura creata"));
+        textSearch.indexed(entry(2L, "Fattura pagata"));
+        textSearch.indexed(entry(3L, "Contratto approvato"));
+
+        assertThat(textSearch.matching(List.of("fatt"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(textSearch.matching(List.of("fattura", "pag"))).containsExactly(2L);
+        assertThat(textSearch.matching(List.of("attura"))).isEmpty();
+
+        StringBuilder where = new StringBuilder();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        textSearch.appendCondition("FATTURA  pagata", where, parameters);
+        assertThat(where.toString()).isEqualTo(" AND \"id\" IN (:searchIds)");
+        assertThat(parameters.getValue("searchIds")).isEqualTo(Set.of(2L));
+    }
+
+    @Test
+    void shouldShortCircuitWhenNothingMatchesAndScanWhenTooManyDo() {
+        loadEmptyIndex();
+        LongStream.rangeClosed(1, InMemoryDocumentHistoryTextSearch.MAX_MATCHES + 1)
+                .forEach(id -> textSearch.indexed(entry(id, "Documento creato")));
+
+        StringBuilder none = new StringBuilder();
+        textSearch.appendCondition("inesistente", none, new MapSqlParameterSource());
+        StringBuilder broad = new StringBuilder();
+        MapSqlParameterSource broadParameters = new MapSqlParameterSource();
+        textSearch.appendCondition("creato documento", broad, broadParameters);
+
+        assertThat(none.toString()).isEqualTo(" AND 1 = 0");
+        assertThat(broad.toString()).isEqualTo(" AND LOWER(\"description\") LIKE :searchTerm0"
+                + " AND LOWER(\"description\") LIKE :searchTerm1");
+        assertThat(broadParameters.getValue("searchTerm0")).isEqualTo("%creato%");
+        assertThat(broadParameters.getValue("searchTerm1")).isEqualTo("%documento%");
+    }
+
+    @Test
+    void shouldNotBuildTheIndexWithTheSharedBrokerBecauseOtherNodesWriteEntriesToo() {
+        textSearch = new InMemoryDocumentHistoryTextSearch(jdbcTemplate, "outbox",
+                InMemoryDocumentHistoryTextSearch.DEFAULT_MAX_POSTINGS);
+        textSearch.rebuild();
+        textSearch.indexed(entry(1L, "Fattura creata"));
+
+        StringBuilder where = new StringBuilder();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        textSearch.appendCondition("fattura", where, parameters);
+
+        assertThat(textSearch.requiresIds()).isFalse();
+        assertThat(textSearch.matching(List.of("fattura"))).isEmpty();
+        assertThat(where.toString()).isEqualTo(" AND LOWER(\"description\") LIKE :searchTerm0");
+        assertThat(parameters.getValue("searchTerm0")).isEqualTo("%fattura%");
+    }
+
+    @Test
+    void shouldDropTheIndexAndScanOnceItOutgrowsItsMemoryLimit() {
+        textSearch = new InMemoryDocumentHistoryTextSearch(jdbcTemplate, "memory", 3);
+        loadEmptyIndex();
+        textSearch.indexed(entry(1L, "Fattura creata"));
+        assertThat(textSearch.requiresIds()).isTrue();
+
+        textSearch.indexed(entry(2L, "Fattura pagata"));
+        StringBuilder where = new StringBuilder();
+        textSearch.appendCondition("fattura", where, new MapSqlParameterSource());
+
+        assertThat(textSearch.requiresIds()).isFalse();
+        assertThat(textSearch.matching(List.of("fattura"))).isEmpty();
+        assertThat(where.toString()).isEqualTo(" AND LOWER(\"description\") LIKE :searchTerm0");
+    }
+
+    private void loadEmptyIndex() {
+        when(jdbcTemplate.getJdbcOperations()).thenReturn(jdbcOperations);
+        textSearch.rebuild();
+    }
+
+    private static DocumentHistory entry(Long id, String description) {
+        return new DocumentHistory(id, DocumentType.INVOICE, 1L, DocumentAction.CREATED, description, Instant.EPOCH);
+    }
+}
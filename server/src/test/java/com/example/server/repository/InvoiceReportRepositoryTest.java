@@ -0,0 +1,94 @@
+package com.example.server.repository;
+
+import com.example.server.repository.InvoiceReportRepository.ClosedInvoiceRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJdbcTest
+@ActiveProfiles("test")
+@Import(InvoiceReportRepository.class)
+class InvoiceReportRepositoryTest {
+
+    @Autowired
+    private InvoiceReportRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO \"roles\" (id, name) VALUES (901, 'Report role')");
+        jdbcTemplate.update("INSERT INTO \"teams\" (id, name) VALUES (901, 'Report team')");
+        for (long id = 901; id <= 902; id++) {
+            jdbcTemplate.update("""
+                    INSERT INTO "users" (id, azure_id, email, display_name, role_id, team_id, active, created_at)
+                    VALUES (?, ?, 'report@example.com', 'Report', 901, 901, TRUE, TIMESTAMP '2024-01-01 00:00:00')
+                    """, id, "azure-report-" + id);
+            jdbcTemplate.update("INSERT INTO \"agents\" (id, user_id, agent_code) VALUES (?, ?, ?)", id, id, "RPT-" + id);
+            jdbcTemplate.update("""
+                    INSERT INTO "contracts" (id, agent_id, customer_name, start_date, total_value, status)
+                    VALUES (?, ?, 'Cliente', DATE '2024-01-01', 1000.00, 'ACTIVE')
+                    """, id, id);
+        }
+        invoice("RPT-A-1", 901L, "PAID", LocalDate.of(2024, 3, 10), "100.00");
+        invoice("rpt-a-2", 902L, "PAID", LocalDate.of(2024, 3, 10), "200.00");
+        invoice("RPT-B-3", 901L, "PAID", LocalDate.of(2024, 3, 10), "300.00");
+        invoice("RPT-C-4", null, "PAID", null, "400.00");
+        invoice("RPT-D-5", 901L, "DRAFT", LocalDate.of(2024, 3, 15), "500.00");
+        invoice("RPT-E-6", 901L, "PAID", LocalDate.of(2023, 12, 31), "600.00");
+    }
+
+    @Test
+    void forEachClosedInvoiceShouldStreamPaidInvoicesWithTheContractAgentNewestFirst() {
+        List<ClosedInvoiceRow> rows = collect(null, null, null).stream()
+                .filter(row -> row.number().toUpperCase().startsWith("RPT-"))
+                .toList();
+
+        assertThat(rows)
+                .extracting(ClosedInvoiceRow::number, ClosedInvoiceRow::contractId, ClosedInvoiceRow::agentId,
+                        ClosedInvoiceRow::paymentDate, ClosedInvoiceRow::amount)
+                .containsExactly(
+                        tuple("RPT-A-1", 901L, 901L, LocalDate.of(2024, 3, 10), new BigDecimal("100.00")),
+                        tuple("rpt-a-2", 902L, 902L, LocalDate.of(2024, 3, 10), new BigDecimal("200.00")),
+                        tuple("RPT-B-3", 901L, 901L, LocalDate.of(2024, 3, 10), new BigDecimal("300.00")),
+                        tuple("RPT-E-6", 901L, 901L, LocalDate.of(2023, 12, 31), new BigDecimal("600.00")),
+                        tuple("RPT-C-4", null, null, null, new BigDecimal("400.00")));
+        assertThat(rows).extracting(ClosedInvoiceRow::customerName).containsOnly("Cliente report");
+    }
+
+    @Test
+    void forEachClosedInvoiceShouldFilterPeriodAndAgentInSql() {
+        assertThat(collect(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), 901L))
+                .extracting(ClosedInvoiceRow::number)
+                .containsExactly("RPT-A-1", "RPT-B-3");
+        assertThat(collect(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), 901L))
+                .extracting(ClosedInvoiceRow::number)
+                .containsExactly("RPT-E-6");
+    }
+
+    private List<ClosedInvoiceRow> collect(LocalDate fromDate, LocalDate toDate, Long agentId) {
+        List<ClosedInvoiceRow> rows = new ArrayList<>();
+        repository.forEachClosedInvoice(fromDate, toDate, agentId, "PAID", rows::add);
+        return rows;
+    }
+
+    private void invoice(String number, Long contractId, String status, LocalDate paymentDate, String amount) {
+        jdbcTemplate.update("""
+                INSERT INTO "invoices" (contract_id, invoice_number, customer_name, amount, issue_date, status, payment_date, created_at)
+                VALUES (?, ?, 'Cliente report', ?, DATE '2023-12-01', ?, ?, TIMESTAMP '2024-01-01 00:00:00')
+                """, contractId, number, new BigDecimal(amount), status, paymentDate);
+    }
+}
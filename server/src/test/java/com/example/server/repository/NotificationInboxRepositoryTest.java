@@ -0,0 +1,148 @@
+package com.example.server.repository;
+
+import com.example.server.domain.Notification;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJdbcTest
+@ActiveProfiles("test")
+@Import(NotificationInboxRepository.class)
+class NotificationInboxRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2024-02-01T10:15:30Z");
+
+    @Autowired
+    private NotificationInboxRepository repository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void findInboxShouldMergeUserAndTeamNotificationsNewestFirstWithinLimit() {
+        save(Notification.forUser(7L, "Titolo", "utente vecchia", NOW.minusSeconds(300)));
+        save(Notification.forTeam(3L, "Titolo", "team", NOW.minusSeconds(200)));
+        save(Notification.forUser(7L, "Titolo", "utente nuova", NOW.minusSeconds(100)));
+        save(Notification.forTeam(4L, "Titolo", "altro team", NOW.minusSeconds(50)));
+        save(Notification.forUser(8L, "Titolo", "altro utente", NOW.minusSeconds(10)));
+
+        assertThat(repository.findInbox(7L, 3L, null, 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("utente nuova", "team", "utente vecchia");
+        assertThat(repository.findInbox(7L, 3L, null, 2))
+                .extracting(Notification::getMessage)
+                .containsExactly("utente nuova", "team");
+        assertThat(repository.findInbox(7L, 3L, NOW.minusSeconds(200), 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("utente nuova");
+        assertThat(repository.findInbox(7L, null, null, 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("utente nuova", "utente vecchia");
+    }
+
+    @Test
+    void findInboxSinceWithoutAfterIdShouldKeepNewestFirstWithinTheLimit() {
+        save(Notification.forUser(7L, "Titolo", "già vista", NOW.minusSeconds(400)));
+        save(Notification.forUser(7L, "Titolo", "prima", NOW.minusSeconds(300)));
+        save(Notification.forTeam(3L, "Titolo", "seconda", NOW.minusSeconds(200)));
+        save(Notification.forUser(7L, "Titolo", "terza", NOW.minusSeconds(100)));
+
+        assertThat(repository.findInbox(7L, 3L, NOW.minusSeconds(400), 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("terza", "seconda", "prima");
+        assertThat(repository.findInbox(7L, 3L, NOW.minusSeconds(400), 2))
+                .extracting(Notification::getMessage)
+                .containsExactly("terza", "seconda");
+    }
+
+    @Test
+    void findInboxSinceAndAfterIdShouldReturnOldestFirstSoTheNextCallResumesAfterTheLimit() {
+        save(Notification.forUser(7L, "Titolo", "già vista", NOW.minusSeconds(400)));
+        Notification first = save(Notification.forUser(7L, "Titolo", "prima", NOW.minusSeconds(300)));
+        save(Notification.forTeam(3L, "Titolo", "seconda", NOW.minusSeconds(200)));
+        save(Notification.forUser(7L, "Titolo", "terza", NOW.minusSeconds(100)));
+
+        assertThat(repository.findInbox(7L, 3L, NOW.minusSeconds(300), 0L, 2))
+                .extracting(Notification::getMessage)
+                .containsExactly("prima", "seconda");
+        assertThat(repository.findInbox(7L, 3L, first.getCreatedAt(), first.getId(), 1))
+                .extracting(Notification::getMessage)
+                .containsExactly("seconda");
+    }
+
+    @Test
+    void findInboxSinceAndAfterIdShouldResumeAmongNotificationsSharingTheBoundaryTimestamp() {
+        Instant sameInstant = NOW.minusSeconds(300);
+        Notification first = save(Notification.forUser(7L, "Titolo", "prima", sameInstant));
+        save(Notification.forTeam(3L, "Titolo", "seconda", sameInstant));
+        save(Notification.forUser(7L, "Titolo", "terza", sameInstant));
+        save(Notification.forTeam(3L, "Titolo", "quarta", NOW.minusSeconds(100)));
+
+        List<Notification> page = repository.findInbox(7L, 3L, NOW.minusSeconds(400), 0L, 2);
+        assertThat(page).extracting(Notification::getMessage).containsExactly("prima", "seconda");
+        Notification last = page.get(page.size() - 1);
+
+        assertThat(repository.findInbox(7L, 3L, last.getCreatedAt(), last.getId(), 2))
+                .extracting(Notification::getMessage)
+                .containsExactly("terza", "quarta");
+        assertThat(repository.findInbox(7L, 3L, first.getCreatedAt(), first.getId(), 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("seconda", "terza", "quarta");
+    }
+
+    @Test
+    void countUnreadShouldCountOnlyUnreadUserAndTeamNotifications() {
+        save(Notification.forUser(7L, "Titolo", "letta", NOW).withRead(true));
+        save(Notification.forUser(7L, "Titolo", "da leggere", NOW));
+        save(Notification.forTeam(3L, "Titolo", "team", NOW));
+        save(Notification.forTeam(4L, "Titolo", "altro team", NOW));
+
+        assertThat(repository.countUnread(7L, 3L)).isEqualTo(2);
+        assertThat(repository.countUnread(7L, null)).isEqualTo(1);
+        assertThat(repository.countUnread(9L, null)).isZero();
+    }
+
+    @Test
+    void markReadUpToShouldUpdateOnlyOwnNotificationsUpToTheCursor() {
+        Notification first = save(Notification.forUser(7L, "Titolo", "prima", NOW));
+        Notification team = save(Notification.forTeam(3L, "Titolo", "team", NOW));
+        Notification other = save(Notification.forUser(8L, "Titolo", "altro utente", NOW));
+        Notification later = save(Notification.forUser(7L, "Titolo", "successiva", NOW));
+
+        assertThat(repository.markReadUpTo(7L, 3L, other.getId())).isEqualTo(2);
+
+        assertThat(notificationRepository.findById(first.getId())).get().extracting(Notification::isRead).isEqualTo(true);
+        assertThat(notificationRepository.findById(team.getId())).get().extracting(Notification::isRead).isEqualTo(true);
+        assertThat(notificationRepository.findById(other.getId())).get().extracting(Notification::isRead).isEqualTo(false);
+        assertThat(notificationRepository.findById(later.getId())).get().extracting(Notification::isRead).isEqualTo(false);
+        assertThat(repository.markReadUpTo(7L, 3L, other.getId())).isZero();
+    }
+
+    @Test
+    void deleteReadBeforeShouldRemoveOnlyOldReadNotificationsInBatches() {
+        save(Notification.forUser(7L, "Titolo", "vecchia letta 1", NOW.minusSeconds(3_600)).withRead(true));
+        save(Notification.forUser(7L, "Titolo", "vecchia letta 2", NOW.minusSeconds(3_600)).withRead(true));
+        save(Notification.forUser(7L, "Titolo", "vecchia letta 3", NOW.minusSeconds(3_600)).withRead(true));
+        save(Notification.forUser(7L, "Titolo", "vecchia da leggere", NOW.minusSeconds(3_600)));
+        save(Notification.forUser(7L, "Titolo", "recente letta", NOW).withRead(true));
+
+        assertThat(repository.deleteReadBefore(NOW.minusSeconds(60), 2)).isEqualTo(2);
+        assertThat(repository.deleteReadBefore(NOW.minusSeconds(60), 2)).isEqualTo(1);
+        assertThat(repository.deleteReadBefore(NOW.minusSeconds(60), 2)).isZero();
+
+        assertThat(repository.findInbox(7L, null, null, 10))
+                .extracting(Notification::getMessage)
+                .containsExactly("recente letta", "vecchia da leggere");
+    }
+
+    private Notification save(Notification notification) {
+        return notificationRepository.save(notification);
+    }
+}
@@ -33,6 +33,15 @@ class StatisticsRepositoryTest {
         assertThat(years).containsExactly(2022, 2024);
     }
 
+    @Test
+    void findPaidInvoiceCountsByYearShouldCountPaidInvoicesPerYear() {
+        List<StatisticsRepository.YearCount> counts = statisticsRepository.findPaidInvoiceCountsByYear("PAID");
+
+        assertThat(counts)
+                .extracting(StatisticsRepository.YearCount::paymentYear, StatisticsRepository.YearCount::invoiceCount)
+                .containsExactly(tuple(2022, 1L), tuple(2024, 3L));
+    }
+
     @Test
     void findMonthlyTotalsShouldGroupResultsByMonthForTargetYear() {
         List<StatisticsRepository.MonthlyAggregate> totals = statisticsRepository.findMonthlyTotals(
@@ -1,6 +1,7 @@
 package com.example.server.service;
 
 import com.example.common.dto.AgentDTO;
+import com.example.common.dto.CursorPageDTO;
 import com.example.server.domain.Agent;
 import com.example.server.repository.AgentRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,11 +28,14 @@ class AgentServiceTest {
     @Mock
     private AgentRepository agentRepository;
 
+    @Mock
+    private TeamCommissionRuleRegistry teamCommissionRuleRegistry;
+
     private AgentService service;
 
     @BeforeEach
     void setUp() {
-        service = new AgentService(agentRepository);
+        service = new AgentService(agentRepository, teamCommissionRuleRegistry);
     }
 
     @Test
@@ -50,6 +55,25 @@ class AgentServiceTest {
                 );
     }
 
+    @Test
+    void shouldWalkAgentPagesByCode() {
+        when(agentRepository.findAllByOrderByAgentCodeAsc(Limit.of(2))).thenReturn(List.of(
+                new Agent(1L, 99L, "A002", "Lead"),
+                new Agent(2L, 100L, "B003", "Associate")
+        ));
+        when(agentRepository.findByAgentCodeGreaterThanOrderByAgentCodeAsc("A002", Limit.of(2))).thenReturn(List.of(
+                new Agent(2L, 100L, "B003", "Associate")
+        ));
+
+        CursorPageDTO<AgentDTO> first = service.findPage(null, 1);
+        CursorPageDTO<AgentDTO> second = service.findPage(first.getNextCursor(), 1);
+
+        assertThat(first.getItems()).extracting(AgentDTO::getAgentCode).containsExactly("A002");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getItems()).extracting(AgentDTO::getAgentCode).containsExactly("B003");
+        assertThat(second.hasNext()).isFalse();
+    }
+
     @Test
     void shouldFindByIdWhenPresent() {
         Agent agent = new Agent(5L, 77L, "C004", "Coordinator");
@@ -0,0 +1,104 @@
+package com.example.server.service;
+
+import com.example.common.dto.ChangeSetDTO;
+import com.example.server.repository.SyncTombstoneRepository;
+import com.example.server.service.ChangeFeedService.SyncedEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private SyncTombstoneRepository tombstoneRepository;
+    private final List<Instant> queriedFrom = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:change-feed;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ByteArrayResource("""
+                DROP TABLE IF EXISTS "sync_tombstones";
+                CREATE TABLE "sync_tombstones" (
+                    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    "entity_type" VARCHAR(50) NOT NULL,
+                    "entity_id" BIGINT NOT NULL,
+                    "deleted_at" TIMESTAMP NOT NULL
+                );
+                """.getBytes())).execute(dataSource);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        tombstoneRepository = new SyncTombstoneRepository(jdbcTemplate);
+    }
+
+    @Test
+    void shouldReturnFullListOnFirstSyncOrWhenTombstonesMayHaveExpired() {
+        ChangeFeedService service = serviceAt(NOW);
+
+        ChangeSetDTO<String> first = changes(service, null);
+        ChangeSetDTO<String> stale = changes(service, NOW.minus(RETENTION).minusSeconds(1));
+
+        assertThat(first.isFull()).isTrue();
+        assertThat(first.getItems()).containsExactly("tutti");
+        assertThat(first.getSyncedAt()).isEqualTo(NOW);
+        assertThat(stale.isFull()).isTrue();
+        assertThat(queriedFrom).isEmpty();
+    }
+
+    @Test
+    void shouldReturnRowsChangedAndDeletedSinceThePreviousSyncWithOverlap() {
+        serviceAt(NOW.minusSeconds(600)).recordDeletion(SyncedEntity.INVOICE, 1L);
+        serviceAt(NOW.minusSeconds(50)).recordDeletion(SyncedEntity.INVOICE, 2L);
+        serviceAt(NOW.minusSeconds(10)).recordDeletion(SyncedEntity.INVOICE, 3L);
+        serviceAt(NOW.minusSeconds(10)).recordDeletion(SyncedEntity.CUSTOMER, 4L);
+        Instant previousSync = NOW.minusSeconds(60);
+
+        ChangeSetDTO<String> changes = changes(serviceAt(NOW), previousSync);
+
+        assertThat(changes.isFull()).isFalse();
+        assertThat(changes.getItems()).containsExactly("modificati");
+        assertThat(changes.getDeletedIds()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(changes.getSyncedAt()).isEqualTo(NOW);
+        assertThat(queriedFrom).containsExactly(previousSync.minus(ChangeFeedService.OVERLAP));
+    }
+
+    @Test
+    void shouldPruneExpiredTombstonesWhenRecordingADeletion() {
+        serviceAt(NOW.minus(RETENTION).minusSeconds(1)).recordDeletion(SyncedEntity.ARTICLE, 1L);
+        serviceAt(NOW.minus(RETENTION).minusSeconds(1)).recordDeletion(SyncedEntity.INVOICE, 2L);
+
+        serviceAt(NOW).recordDeletion(SyncedEntity.ARTICLE, 3L);
+
+        assertThat(jdbcTemplate.queryForList("SELECT \"entity_id\" FROM \"sync_tombstones\" ORDER BY \"entity_id\"",
+                Map.of(), Long.class)).containsExactly(2L, 3L);
+    }
+
+    private ChangeFeedService serviceAt(Instant instant) {
+        return new ChangeFeedService(tombstoneRepository, Clock.fixed(instant, ZoneOffset.UTC), RETENTION);
+    }
+
+    private ChangeSetDTO<String> changes(ChangeFeedService service, Instant since) {
+        return service.changes(SyncedEntity.INVOICE, since,
+                from -> {
+                    queriedFrom.add(from);
+                    return List.of("modificati");
+                },
+                rows -> rows,
+                () -> List.of("tutti"));
+    }
+}
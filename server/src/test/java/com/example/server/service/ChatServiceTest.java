@@ -5,6 +5,7 @@ import com.example.common.dto.ChatMessageDTO;
 import com.example.common.dto.ChatMessageRequest;
 import com.example.server.domain.Message;
 import com.example.server.domain.User;
+import com.example.server.repository.ChatConversationRepository;
 import com.example.server.repository.MessageRepository;
 import com.example.server.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,14 +14,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.context.request.async.DeferredResult;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -40,6 +45,9 @@ class ChatServiceTest {
     @Mock
     private MessageRepository messageRepository;
 
+    @Mock
+    private ChatConversationRepository conversationRepository;
+
     @Mock
     private UserRepository userRepository;
 
@@ -50,28 +58,33 @@ class ChatServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new ChatService(messageRepository, userRepository, chatPublisher, Clock.fixed(NOW, ZoneOffset.UTC));
+        service = new ChatService(messageRepository, conversationRepository, userRepository, chatPublisher, Clock.fixed(NOW, ZoneOffset.UTC));
     }
 
     @Test
-    void shouldListOnlyAccessibleConversationsOrderedByActivity() {
+    void shouldListAccessibleConversationsFromSummariesWithBatchedTitles() {
         User user = userWithTeam(1L);
         when(userRepository.findById(7L)).thenReturn(Optional.of(user));
-        Message teamMessage = new Message(1L, "team:1", 2L, 1L, "Hello team", NOW);
-        Message personalOld = new Message(2L, "direct:4", 4L, null, "older", NOW.minus(1, ChronoUnit.HOURS));
-        Message personalNew = new Message(3L, "direct:4", 4L, null, "newer", NOW.minusSeconds(10));
-        Message otherTeam = new Message(4L, "team:2", 5L, 2L, "secret", NOW);
-        when(messageRepository.findAll()).thenReturn(List.of(teamMessage, personalOld, personalNew, otherTeam));
+        when(conversationRepository.findAccessible(1L)).thenReturn(List.of(
+                new ChatConversationRepository.ConversationSummary("team:1", 1L, 1L, NOW, "Hello team"),
+                new ChatConversationRepository.ConversationSummary("4", null, 3L, NOW.minusSeconds(10), "newer"),
+                new ChatConversationRepository.ConversationSummary("5", null, 2L, NOW.minusSeconds(20), "x".repeat(61)),
+                new ChatConversationRepository.ConversationSummary("vendite-all", null, 6L, NOW.minusSeconds(30), "hi")));
+        User participant = new User(4L, "az4", "mail4", "Mario Rossi", null, null, 1L, true, null);
+        when(userRepository.findAllById(Set.of(4L, 5L))).thenReturn(List.of(participant));
 
         var conversations = service.listConversations(7L);
 
         assertThat(conversations)
-                .extracting(ChatConversationDTO::conversationId, ChatConversationDTO::lastMessagePreview)
+                .extracting(ChatConversationDTO::conversationId, ChatConversationDTO::title, ChatConversationDTO::lastMessagePreview)
                 .containsExactly(
-                        org.assertj.core.api.Assertions.tuple("team:1", "Hello team"),
-                        org.assertj.core.api.Assertions.tuple("direct:4", "newer")
+                        org.assertj.core.api.Assertions.tuple("team:1", "Team 1", "Hello team"),
+                        org.assertj.core.api.Assertions.tuple("4", "Mario Rossi", "newer"),
+                        org.assertj.core.api.Assertions.tuple("5", "5", "x".repeat(57) + "..."),
+                        org.assertj.core.api.Assertions.tuple("vendite-all", "vendite-all", "hi")
                 );
-        assertThat(conversations.getFirst().lastActivity()).isAfterOrEqualTo(conversations.get(1).lastActivity());
+        verify(messageRepository, never()).findAll();
+        verify(userRepository, never()).findById(4L);
     }
 
     @Test
@@ -100,6 +113,7 @@ class ChatServiceTest {
         verify(messageRepository).save(persisted.capture());
         assertThat(persisted.getValue().getBody()).isEqualTo("payload");
         verify(chatPublisher).publish(response);
+        verify(conversationRepository).recordMessage(saved, null);
         assertThat(response.id()).isEqualTo(10L);
     }
 
@@ -118,7 +132,7 @@ class ChatServiceTest {
         User user = userWithTeam(5L);
         when(userRepository.findById(12L)).thenReturn(Optional.of(user));
         AtomicReference<Consumer<ChatMessageDTO>> listener = new AtomicReference<>();
-        when(chatPublisher.subscribe(eq("team:5"), any())).thenAnswer(invocation -> {
+        when(chatPublisher.subscribe(eq("team:5"), any(), any())).thenAnswer(invocation -> {
             listener.set(invocation.getArgument(1));
             return (ChatPublisher.Subscription) () -> { };
         });
@@ -131,6 +145,111 @@ class ChatServiceTest {
         assertThat(deferredResult.getResult()).isEqualTo(List.of(message));
     }
 
+    @Test
+    void shouldReplayMissedMessagesAfterCursorInOneBatch() {
+        User user = userWithTeam(5L);
+        when(userRepository.findById(12L)).thenReturn(Optional.of(user));
+        AtomicReference<Consumer<ChatMessageDTO>> listener = new AtomicReference<>();
+        when(chatPublisher.subscribe(eq("team:5"), any(), any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            return (ChatPublisher.Subscription) () -> { };
+        });
+        when(messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc("team:5", 3L, Limit.of(ChatService.MAX_POLL_BATCH)))
+                .thenAnswer(invocation -> {
+                    listener.get().accept(new ChatMessageDTO(5L, "team:5", 12L, 5L, "live", NOW));
+                    return List.of(new Message(4L, "team:5", 12L, 5L, "missed", NOW),
+                            new Message(5L, "team:5", 12L, 5L, "live", NOW));
+                });
+        DeferredResult<List<ChatMessageDTO>> deferredResult = new DeferredResult<>();
+
+        service.registerConversationListener(12L, "team:5", 3L, deferredResult);
+
+        assertThat(deferredResult.getResult()).isEqualTo(List.of(
+                new ChatMessageDTO(4L, "team:5", 12L, 5L, "missed", NOW),
+                new ChatMessageDTO(5L, "team:5", 12L, 5L, "live", NOW)));
+    }
+
+    @Test
+    void shouldRereadMessagesCommittedOutOfOrderBeforeTheCursorWithoutAnsweringEarly() {
+        User user = userWithTeam(5L);
+        when(userRepository.findById(12L)).thenReturn(Optional.of(user));
+        AtomicReference<Consumer<ChatMessageDTO>> listener = new AtomicReference<>();
+        when(chatPublisher.subscribe(eq("team:5"), any(), any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            return (ChatPublisher.Subscription) () -> { };
+        });
+        when(messageRepository.findById(8L)).thenReturn(Optional.of(new Message(8L, "team:5", 12L, 5L, "ultimo", NOW)));
+        when(messageRepository.findByConversationIdAndIdLessThanAndCreatedAtGreaterThanEqualOrderByIdDesc("team:5", 8L,
+                NOW.minus(ChatService.RESUME_OVERLAP), Limit.of(ChatService.MAX_POLL_BATCH)))
+                .thenReturn(List.of(new Message(7L, "team:5", 12L, 5L, "già ricevuto", NOW)));
+        when(messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc("team:5", 8L, Limit.of(ChatService.MAX_POLL_BATCH)))
+                .thenReturn(List.of());
+        DeferredResult<List<ChatMessageDTO>> deferredResult = new DeferredResult<>();
+
+        service.registerConversationListener(12L, "team:5", 8L, deferredResult);
+        assertThat(deferredResult.hasResult()).isFalse();
+        listener.get().accept(new ChatMessageDTO(8L, "team:5", 12L, 5L, "ultimo", NOW));
+        assertThat(deferredResult.hasResult()).isFalse();
+        listener.get().accept(new ChatMessageDTO(6L, "team:5", 12L, 5L, "confermato in ritardo", NOW));
+
+        assertThat(deferredResult.getResult()).isEqualTo(List.of(
+                new ChatMessageDTO(6L, "team:5", 12L, 5L, "confermato in ritardo", NOW),
+                new ChatMessageDTO(7L, "team:5", 12L, 5L, "già ricevuto", NOW)));
+    }
+
+    @Test
+    void shouldCompletePollWithDeliveredMessagesWhenTheListenerQueueOverflows() {
+        service = new ChatService(messageRepository, conversationRepository, userRepository, chatPublisher, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofMinutes(1));
+        User user = userWithTeam(5L);
+        when(userRepository.findById(12L)).thenReturn(Optional.of(user));
+        AtomicReference<Consumer<ChatMessageDTO>> listener = new AtomicReference<>();
+        AtomicReference<Runnable> overflow = new AtomicReference<>();
+        when(chatPublisher.subscribe(eq("team:5"), any(), any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            overflow.set(invocation.getArgument(2));
+            return (ChatPublisher.Subscription) () -> { };
+        });
+        DeferredResult<List<ChatMessageDTO>> deferredResult = new DeferredResult<>();
+
+        service.registerConversationListener(12L, "team:5", deferredResult);
+        ChatMessageDTO delivered = new ChatMessageDTO(6L, "team:5", 12L, 5L, "consegnato", NOW);
+        listener.get().accept(delivered);
+        assertThat(deferredResult.hasResult()).isFalse();
+        overflow.get().run();
+
+        assertThat(deferredResult.getResult()).isEqualTo(List.of(delivered));
+    }
+
+    @Test
+    void shouldCoalesceMessagesPublishedWithinWindow() throws InterruptedException {
+        service = new ChatService(messageRepository, conversationRepository, userRepository, chatPublisher, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofMillis(100));
+        User user = userWithTeam(5L);
+        when(userRepository.findById(12L)).thenReturn(Optional.of(user));
+        AtomicReference<Consumer<ChatMessageDTO>> listener = new AtomicReference<>();
+        when(chatPublisher.subscribe(eq("team:5"), any(), any())).thenAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+            return (ChatPublisher.Subscription) () -> { };
+        });
+        when(messageRepository.findByConversationIdAndIdGreaterThanOrderByIdAsc("team:5", 1L, Limit.of(ChatService.MAX_POLL_BATCH)))
+                .thenReturn(List.of());
+        CountDownLatch completed = new CountDownLatch(1);
+        DeferredResult<List<ChatMessageDTO>> deferredResult = new DeferredResult<>();
+        deferredResult.setResultHandler(result -> completed.countDown());
+
+        service.registerConversationListener(12L, "team:5", 1L, deferredResult);
+        listener.get().accept(new ChatMessageDTO(3L, "team:5", 12L, 5L, "second", NOW));
+        listener.get().accept(new ChatMessageDTO(2L, "team:5", 12L, 5L, "first", NOW));
+        listener.get().accept(new ChatMessageDTO(1L, "team:5", 12L, 5L, "already seen", NOW));
+
+        assertThat(deferredResult.hasResult()).isFalse();
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deferredResult.getResult()).isEqualTo(List.of(
+                new ChatMessageDTO(2L, "team:5", 12L, 5L, "first", NOW),
+                new ChatMessageDTO(3L, "team:5", 12L, 5L, "second", NOW)));
+    }
+
     @Test
     void shouldFailOnUnknownUser() {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
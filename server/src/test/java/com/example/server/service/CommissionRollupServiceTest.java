@@ -0,0 +1,137 @@
+package com.example.server.service;
+
+import com.example.common.enums.InvoiceStatus;
+import com.example.server.domain.Contract;
+import com.example.server.domain.Invoice;
+import com.example.server.repository.CommissionRollupRepository;
+import com.example.server.repository.ContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CommissionRollupServiceTest {
+
+    @Mock
+    private CommissionRollupRepository rollupRepository;
+
+    @Mock
+    private ContractRepository contractRepository;
+
+    @Mock
+    private StatisticsService statisticsService;
+
+    @Mock
+    private TableVersionService tableVersionService;
+
+    private CommissionRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CommissionRollupService(rollupRepository, contractRepository,
+                statisticsService, tableVersionService, true);
+    }
+
+    @Test
+    void shouldAddPaymentToAgentMonth() {
+        when(contractRepository.findById(20L)).thenReturn(Optional.of(contract(20L, 7L)));
+
+        service.invoiceChanged(invoice(20L, "200.00", InvoiceStatus.SENT, null),
+                invoice(20L, "200.00", InvoiceStatus.PAID, LocalDate.of(2024, 5, 17)));
+
+        verify(rollupRepository).addToPeriod(7L, LocalDate.of(2024, 5, 1), 1,
+                new BigDecimal("200.00"));
+    }
+
+    @Test
+    void shouldMoveContributionWhenPaymentMonthChanges() {
+        when(contractRepository.findById(20L)).thenReturn(Optional.of(contract(20L, 7L)));
+
+        service.invoiceChanged(invoice(20L, "100.00", InvoiceStatus.PAID, LocalDate.of(2024, 1, 31)),
+                invoice(20L, "100.00", InvoiceStatus.PAID, LocalDate.of(2024, 2, 1)));
+
+        verify(rollupRepository).addToPeriod(7L, LocalDate.of(2024, 1, 1), -1,
+                new BigDecimal("-100.00"));
+        verify(rollupRepository).addToPeriod(7L, LocalDate.of(2024, 2, 1), 1,
+                new BigDecimal("100.00"));
+    }
+
+    @Test
+    void shouldSkipChangesThatDoNotAffectPaidTotals() {
+        service.invoiceChanged(invoice(20L, "100.00", InvoiceStatus.PAID, LocalDate.of(2024, 1, 3)),
+                invoice(20L, "100.0", InvoiceStatus.PAID, LocalDate.of(2024, 1, 25)));
+        service.invoiceChanged(invoice(20L, "100.00", InvoiceStatus.DRAFT, null),
+                invoice(20L, "150.00", InvoiceStatus.SENT, null));
+
+        verifyNoInteractions(rollupRepository, contractRepository);
+    }
+
+    @Test
+    void shouldRebuildRollupFromPaidInvoices() {
+        when(rollupRepository.findPaidInvoiceTotals("PAID", null)).thenReturn(List.of(
+                new CommissionRollupRepository.PaidInvoiceTotal(7L, LocalDate.of(2024, 1, 1), 2, new BigDecimal("300.00"))
+        ));
+        when(rollupRepository.replaceAll(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        int rows = service.rebuild();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CommissionRollupRepository.RollupRow>> captor = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepository).replaceAll(captor.capture());
+        assertThat(rows).isEqualTo(1);
+        assertThat(captor.getValue()).containsExactly(new CommissionRollupRepository.RollupRow(
+                7L, LocalDate.of(2024, 1, 1), 2, new BigDecimal("300.00")));
+        verify(statisticsService).clearCache();
+        verify(tableVersionService).changed("commission_monthly_rollups");
+    }
+
+    @Test
+    void shouldMoveContractTotalsToNewAgent() {
+        when(rollupRepository.findPaidInvoiceTotals("PAID", 20L)).thenReturn(List.of(
+                new CommissionRollupRepository.PaidInvoiceTotal(7L, LocalDate.of(2024, 3, 1), 1, new BigDecimal("50.00"))
+        ));
+
+        service.contractAgentChanged(20L, 7L, 8L);
+
+        verify(rollupRepository).addToPeriod(7L, LocalDate.of(2024, 3, 1), -1,
+                new BigDecimal("-50.00"));
+        verify(rollupRepository).addToPeriod(8L, LocalDate.of(2024, 3, 1), 1,
+                new BigDecimal("50.00"));
+        verify(statisticsService).clearCache();
+    }
+
+    @Test
+    void shouldBackfillOnlyWhenRollupIsEmpty() {
+        when(rollupRepository.isEmpty()).thenReturn(false);
+
+        service.backfillIfEmpty();
+
+        verify(rollupRepository, never()).replaceAll(any());
+    }
+
+    private static Contract contract(Long id, Long agentId) {
+        return new Contract(id, agentId, "Cliente", "Contratto", LocalDate.of(2024, 1, 1), null,
+                new BigDecimal("1000.00"), null);
+    }
+
+    private static Invoice invoice(Long contractId, String amount, InvoiceStatus status, LocalDate paymentDate) {
+        return new Invoice(1L, contractId, "INV-1", 3L, "Cliente", new BigDecimal(amount),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), status, paymentDate, null, null, null);
+    }
+}
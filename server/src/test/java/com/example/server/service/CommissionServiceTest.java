@@ -1,17 +1,16 @@
 package com.example.server.service;
 
-import com.example.server.domain.Agent;
 import com.example.server.domain.Contract;
-import com.example.server.domain.User;
-import com.example.server.repository.AgentRepository;
 import com.example.server.repository.CommissionRepository;
+import com.example.server.repository.CommissionRuleRepository;
+import com.example.server.repository.CommissionRuleRepository.AgentAssignment;
 import com.example.server.repository.ContractRepository;
-import com.example.server.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
 import java.math.BigDecimal;
 import java.time.Clock;
@@ -21,7 +20,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,17 +34,16 @@ class CommissionServiceTest {
     private ContractRepository contractRepository;
 
     @Mock
-    private AgentRepository agentRepository;
-
-    @Mock
-    private UserRepository userRepository;
+    private CommissionRuleRepository commissionRuleRepository;
 
+    private TeamCommissionRuleRegistry registry;
     private CommissionService commissionService;
 
     @BeforeEach
     void setUp() {
         Clock fixedClock = Clock.fixed(Instant.parse("2024-06-01T10:15:30Z"), ZoneOffset.UTC);
-        commissionService = new CommissionService(commissionRepository, contractRepository, agentRepository, userRepository, fixedClock);
+        registry = new TeamCommissionRuleRegistry(commissionRuleRepository, new CaffeineCacheManager());
+        commissionService = new CommissionService(commissionRepository, contractRepository, registry, fixedClock);
     }
 
     @Test
@@ -59,12 +58,10 @@ class CommissionServiceTest {
     @Test
     void calculateTeamCommissionUsesNormalizedRate() {
         long teamId = 5L;
-        when(userRepository.findByTeamId(teamId)).thenReturn(List.of(
-                new User(1L, null, null, null, null, null, teamId, true, null),
-                new User(2L, null, null, null, null, null, teamId, true, null)
+        when(commissionRuleRepository.findAgentAssignments()).thenReturn(List.of(
+                new AgentAssignment(101L, 1L, teamId, "Senior"),
+                new AgentAssignment(102L, 2L, teamId, "Junior")
         ));
-        when(agentRepository.findByUserId(1L)).thenReturn(Optional.of(new Agent(101L, 1L, "A1", "Senior")));
-        when(agentRepository.findByUserId(2L)).thenReturn(Optional.of(new Agent(102L, 2L, "A2", "Junior")));
 
         BigDecimal commission = commissionService.calculateTeamCommission(teamId, new BigDecimal("50"));
 
@@ -74,12 +71,10 @@ class CommissionServiceTest {
     @Test
     void calculateAgentCommissionDistributesWithPercentageStrategy() {
         long teamId = 8L;
-        when(userRepository.findByTeamId(teamId)).thenReturn(List.of(
-                new User(11L, null, null, null, null, null, teamId, true, null),
-                new User(12L, null, null, null, null, null, teamId, true, null)
+        when(commissionRuleRepository.findAgentAssignments()).thenReturn(List.of(
+                new AgentAssignment(201L, 11L, teamId, "Senior"),
+                new AgentAssignment(202L, 12L, teamId, "Junior")
         ));
-        when(agentRepository.findByUserId(11L)).thenReturn(Optional.of(new Agent(201L, 11L, "A201", "Senior")));
-        when(agentRepository.findByUserId(12L)).thenReturn(Optional.of(new Agent(202L, 12L, "A202", "Junior")));
 
         BigDecimal seniorCommission = commissionService.calculateAgentCommission(teamId, 201L, new BigDecimal("100"));
         BigDecimal juniorCommission = commissionService.calculateAgentCommission(teamId, 202L, new BigDecimal("100"));
@@ -91,18 +86,13 @@ class CommissionServiceTest {
     @Test
     void calculateAgentCommissionStopsAtTeamRateForBarrierStrategy() {
         long teamId = 15L;
-        when(userRepository.findByTeamId(teamId)).thenReturn(List.of(
-                new User(21L, null, null, null, null, null, teamId, true, null),
-                new User(22L, null, null, null, null, null, teamId, true, null),
-                new User(23L, null, null, null, null, null, teamId, true, null),
-                new User(24L, null, null, null, null, null, teamId, true, null),
-                new User(25L, null, null, null, null, null, teamId, true, null)
+        when(commissionRuleRepository.findAgentAssignments()).thenReturn(List.of(
+                new AgentAssignment(301L, 21L, teamId, "Senior"),
+                new AgentAssignment(302L, 22L, teamId, "Senior"),
+                new AgentAssignment(303L, 23L, teamId, "Senior"),
+                new AgentAssignment(304L, 24L, teamId, "Senior"),
+                new AgentAssignment(305L, 25L, teamId, "Senior")
         ));
-        when(agentRepository.findByUserId(21L)).thenReturn(Optional.of(new Agent(301L, 21L, "A301", "Senior")));
-        when(agentRepository.findByUserId(22L)).thenReturn(Optional.of(new Agent(302L, 22L, "A302", "Senior")));
-        when(agentRepository.findByUserId(23L)).thenReturn(Optional.of(new Agent(303L, 23L, "A303", "Senior")));
-        when(agentRepository.findByUserId(24L)).thenReturn(Optional.of(new Agent(304L, 24L, "A304", "Senior")));
-        when(agentRepository.findByUserId(25L)).thenReturn(Optional.of(new Agent(305L, 25L, "A305", "Senior")));
 
         BigDecimal first = commissionService.calculateAgentCommission(teamId, 301L, new BigDecimal("100"));
         BigDecimal second = commissionService.calculateAgentCommission(teamId, 302L, new BigDecimal("100"));
@@ -130,10 +120,53 @@ class CommissionServiceTest {
     void contractAgentCommissionUsesSingleAgentRuleWhenAgentUnknown() {
         Contract contract = Contract.create(500L, "cust", "desc", null, null, null, null);
         when(contractRepository.findById(1L)).thenReturn(Optional.of(contract));
-        when(agentRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(commissionRuleRepository.findAgentAssignments()).thenReturn(List.of());
 
         BigDecimal commission = commissionService.contractAgentCommission(1L, new BigDecimal("200"));
 
         assertThat(commission).isEqualTo(new BigDecimal("20.00"));
     }
+
+    @Test
+    void registryServesRepeatedLookupsFromSingleQuery() {
+        long teamId = 5L;
+        when(commissionRuleRepository.findAgentAssignments()).thenReturn(List.of(
+                new AgentAssignment(101L, 1L, teamId, "Senior"),
+                new AgentAssignment(102L, 2L, teamId, "Junior")
+        ));
+
+        for (int i = 0; i < 10; i++) {
+            commissionService.calculateAgentCommission(teamId, 101L, new BigDecimal("100"));
+            commissionService.calculateTeamCommission(teamId, new BigDecimal("100"));
+        }
+
+        verify(commissionRuleRepository, times(1)).findAgentAssignments();
+        assertThat(registry.stats().rebuilds()).isEqualTo(1);
+        assertThat(registry.stats().misses()).isEqualTo(1);
+        assertThat(registry.stats().hits()).isEqualTo(19);
+    }
+
+    @Test
+    void registryRebuildsAfterInvalidation() {
+        long teamId = 5L;
+        when(commissionRuleRepository.findAgentAssignments())
+                .thenReturn(List.of(new AgentAssignment(101L, 1L, teamId, "Senior")))
+                .thenReturn(List.of(
+                        new AgentAssignment(101L, 1L, teamId, "Senior"),
+                        new AgentAssignment(102L, 2L, teamId, "Senior"),
+                        new AgentAssignment(103L, 3L, teamId, "Senior"),
+                        new AgentAssignment(104L, 4L, teamId, "Senior"),
+                        new AgentAssignment(105L, 5L, teamId, "Senior")
+                ));
+
+        assertThat(commissionService.calculateAgentCommission(teamId, 101L, new BigDecimal("100")))
+                .isEqualTo(new BigDecimal("10.00"));
+
+        registry.invalidate();
+
+        assertThat(commissionService.calculateAgentCommission(teamId, 101L, new BigDecimal("100")))
+                .isEqualTo(new BigDecimal("3.00"));
+        assertThat(registry.teamOfAgent(105L)).isEqualTo(teamId);
+        assertThat(registry.stats().rebuilds()).isEqualTo(2);
+    }
 }
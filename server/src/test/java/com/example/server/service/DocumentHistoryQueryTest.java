@@ -4,8 +4,10 @@ import com.example.common.enums.DocumentAction;
 import com.example.common.enums.DocumentType;
 import com.example.server.repository.DocumentHistoryQueryRepository;
 import com.example.server.repository.DocumentHistoryRepository;
+import com.example.server.repository.LikeDocumentHistoryTextSearch;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
 import java.time.Instant;
 import java.time.Clock;
@@ -64,6 +66,31 @@ class DocumentHistoryQueryTest {
         assertEquals("INVOICE|42|CREATED,UPDATED|2024-01-01T10:15:30Z|2024-02-01T10:15:30Z|ricerca|2|5", query.cacheKey());
     }
 
+    @Test
+    void shouldKeepKeysetPositionOnlyInKeysetMode() {
+        Instant createdAt = Instant.parse("2024-01-05T08:00:00Z");
+
+        DocumentHistoryQuery keyset = DocumentHistoryQuery.builder()
+                .keyset(true)
+                .after(createdAt, 7L)
+                .includeTotal(false)
+                .page(3)
+                .size(10)
+                .build();
+        DocumentHistoryQuery paged = DocumentHistoryQuery.from(keyset)
+                .keyset(false)
+                .page(3)
+                .build();
+
+        assertTrue(keyset.hasPosition());
+        assertEquals(0, keyset.getPage(), "keyset pages are not numbered");
+        assertEquals("*|*|*|*|*|*|0|10|after=2024-01-05T08:00:00Z,7|nototal", keyset.cacheKey());
+        assertFalse(paged.hasPosition());
+        assertNull(paged.getAfterCreatedAt());
+        assertEquals(3, paged.getPage());
+        assertNotEquals(keyset, paged);
+    }
+
     @Test
     void shouldDefensivelyCopyAndExposeImmutableActions() {
         List<DocumentAction> mutableActions = new ArrayList<>();
@@ -138,7 +165,8 @@ class DocumentHistoryQueryTest {
         DocumentHistoryQueryRepository queryRepository = mock(DocumentHistoryQueryRepository.class);
         when(queryRepository.find(any())).thenReturn(new DocumentHistoryQueryRepository.ResultPage(List.of(), 0));
 
-        DocumentHistoryService service = new DocumentHistoryService(repository, queryRepository, Clock.systemUTC());
+        DocumentHistoryService service = new DocumentHistoryService(repository, queryRepository, new LikeDocumentHistoryTextSearch(),
+                mock(DocumentHistoryWriter.class), new CaffeineCacheManager(), Clock.systemUTC());
         service.search(oversizedQuery);
 
         ArgumentCaptor<DocumentHistoryQuery> normalizedQuery = ArgumentCaptor.forClass(DocumentHistoryQuery.class);
@@ -6,20 +6,29 @@ import com.example.common.enums.DocumentType;
 import com.example.server.domain.DocumentHistory;
 import com.example.server.repository.DocumentHistoryQueryRepository;
 import com.example.server.repository.DocumentHistoryRepository;
+import com.example.server.repository.DocumentHistoryTextSearch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,24 +43,55 @@ class DocumentHistoryServiceTest {
     @Mock
     private DocumentHistoryQueryRepository queryRepository;
 
+    @Mock
+    private DocumentHistoryTextSearch textSearch;
+
+    @Mock
+    private DocumentHistoryWriter writer;
+
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
     private DocumentHistoryService service;
 
     @BeforeEach
     void setUp() {
-        service = new DocumentHistoryService(repository, queryRepository, Clock.fixed(NOW, ZoneOffset.UTC));
+        service = new DocumentHistoryService(repository, queryRepository, textSearch, writer, cacheManager,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        service.registerWrittenListener();
     }
 
     @Test
     void shouldPersistLoggedEntryWithTimestamp() {
-        DocumentHistory created = DocumentHistory.create(DocumentType.CONTRACT, 9L, DocumentAction.CREATED, "desc", NOW);
-        when(repository.save(any())).thenReturn(created);
-
-        DocumentHistory stored = service.log(DocumentType.CONTRACT, 9L, DocumentAction.CREATED, "desc");
+        service.log(DocumentType.CONTRACT, 9L, DocumentAction.CREATED, "desc");
 
         ArgumentCaptor<DocumentHistory> captor = ArgumentCaptor.forClass(DocumentHistory.class);
-        verify(repository).save(captor.capture());
+        verify(writer).write(captor.capture());
         assertThat(captor.getValue().getCreatedAt()).isEqualTo(NOW);
-        assertThat(stored).isEqualTo(created);
+        assertThat(captor.getValue().getDocumentType()).isEqualTo(DocumentType.CONTRACT);
+        assertThat(captor.getValue().getDocumentId()).isEqualTo(9L);
+        verify(repository, never()).save(any());
+        verify(writer).onWritten(any());
+    }
+
+    @Test
+    void shouldIndexWrittenEntriesAndEvictOnlySearchesCoveringThem() {
+        Cache cache = cacheManager.getCache(DocumentHistoryService.SEARCH_CACHE);
+        String sameInvoice = DocumentHistoryQuery.builder().documentType(DocumentType.INVOICE).documentId(4L).build().cacheKey();
+        String allInvoices = DocumentHistoryQuery.builder().documentType(DocumentType.INVOICE).build().cacheKey();
+        String everything = DocumentHistoryQuery.builder().searchText("a|b").build().cacheKey();
+        String otherInvoice = DocumentHistoryQuery.builder().documentType(DocumentType.INVOICE).documentId(5L).build().cacheKey();
+        String contracts = DocumentHistoryQuery.builder().documentType(DocumentType.CONTRACT).build().cacheKey();
+        List.of(sameInvoice, allInvoices, everything, otherInvoice, contracts).forEach(key -> cache.put(key, "page"));
+        DocumentHistory written = new DocumentHistory(30L, DocumentType.INVOICE, 4L, DocumentAction.UPDATED, "desc", NOW);
+
+        service.written(List.of(written));
+
+        verify(textSearch).indexed(written);
+        assertThat(cache.get(sameInvoice)).isNull();
+        assertThat(cache.get(allInvoices)).isNull();
+        assertThat(cache.get(everything)).isNull();
+        assertThat(cache.get(otherInvoice)).isNotNull();
+        assertThat(cache.get(contracts)).isNotNull();
     }
 
     @Test
@@ -82,6 +122,30 @@ class DocumentHistoryServiceTest {
         assertThat(page.getTotalElements()).isZero();
     }
 
+    @Test
+    void shouldReturnCursorForNextKeysetPage() {
+        List<DocumentHistory> entries = List.of(
+                new DocumentHistory(9L, DocumentType.INVOICE, 4L, DocumentAction.UPDATED, "second", NOW),
+                new DocumentHistory(8L, DocumentType.INVOICE, 4L, DocumentAction.CREATED, "first", NOW)
+        );
+        DocumentHistoryQuery query = DocumentHistoryQuery.builder().keyset(true).includeTotal(false).size(2).build();
+        when(queryRepository.find(any())).thenReturn(new DocumentHistoryQueryRepository.ResultPage(entries,
+                DocumentHistoryQueryRepository.UNKNOWN_TOTAL, true));
+
+        DocumentHistoryPageDTO page = service.search(query);
+
+        ArgumentCaptor<DocumentHistoryQuery> normalized = ArgumentCaptor.forClass(DocumentHistoryQuery.class);
+        verify(queryRepository).find(normalized.capture());
+        assertThat(normalized.getValue().isKeyset()).isTrue();
+        assertThat(normalized.getValue().isIncludeTotal()).isFalse();
+        assertThat(page.isKeyset()).isTrue();
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.totalKnown()).isFalse();
+        KeysetPagination.Cursor cursor = KeysetPagination.decode(page.getNextCursor());
+        assertThat(cursor.instantKey()).isEqualTo(NOW);
+        assertThat(cursor.id()).isEqualTo(8L);
+    }
+
     @Test
     void shouldExportCsvWithEscapedValues() {
         List<DocumentHistory> entries = List.of(
@@ -98,4 +162,28 @@ class DocumentHistoryServiceTest {
         assertThat(lines[1]).contains("10;CONTRACT;3;DELETED;\"descrizione \"\"con\"\" apici\";2024-03-10T12:00:00Z");
         assertThat(lines[2]).isEqualTo("11;CONTRACT;3;CREATED;\"\";");
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamCsvRowsFromCursorAsUtf8() throws IOException {
+        DocumentHistoryQuery query = DocumentHistoryQuery.builder().documentType(DocumentType.INVOICE).page(2).size(10).build();
+        doAnswer(invocation -> {
+            Consumer<DocumentHistory> consumer = invocation.getArgument(1);
+            consumer.accept(new DocumentHistory(20L, DocumentType.INVOICE, 5L, DocumentAction.UPDATED, "città", NOW));
+            consumer.accept(new DocumentHistory(21L, DocumentType.INVOICE, 5L, DocumentAction.CREATED, "creata", NOW));
+            return null;
+        }).when(queryRepository).forEach(any(), any(Consumer.class));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.writeCsv(query, output);
+
+        ArgumentCaptor<DocumentHistoryQuery> normalized = ArgumentCaptor.forClass(DocumentHistoryQuery.class);
+        verify(queryRepository).forEach(normalized.capture(), any(Consumer.class));
+        verify(queryRepository, never()).findAll(any());
+        assertThat(normalized.getValue().isPaginated()).isFalse();
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "id;documentType;documentId;action;description;createdAt",
+                "20;INVOICE;5;UPDATED;\"città\";2024-03-10T12:00:00Z",
+                "21;INVOICE;5;CREATED;\"creata\";2024-03-10T12:00:00Z");
+    }
 }
@@ -0,0 +1,206 @@
+package com.example.server.service;
+
+import com.example.common.enums.DocumentAction;
+import com.example.common.enums.DocumentType;
+import com.example.server.domain.DocumentHistory;
+import com.example.server.repository.DocumentHistoryBatchRepository;
+import com.example.server.repository.DocumentHistoryTextSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentHistoryWriterTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private DocumentHistoryBatchRepository batchRepository;
+    private final List<DocumentHistory> written = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:history-writer;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ByteArrayResource("""
+                DROP TABLE IF EXISTS "document_history";
+                CREATE TABLE "document_history" (
+                    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    "document_type" VARCHAR(50) NOT NULL,
+                    "document_id" BIGINT NOT NULL,
+                    "action" VARCHAR(50) NOT NULL,
+                    "description" VARCHAR(1000),
+                    "created_at" TIMESTAMP NOT NULL
+                );
+                """.getBytes())).execute(dataSource);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        DocumentHistoryTextSearch textSearch = mock(DocumentHistoryTextSearch.class);
+        when(textSearch.requiresIds()).thenReturn(true);
+        batchRepository = spy(new DocumentHistoryBatchRepository(jdbcTemplate, textSearch));
+    }
+
+    @Test
+    void shouldInsertEntriesOfATransactionInOneBatchBeforeCommit() {
+        DocumentHistoryWriter writer = writer("transactional");
+
+        long rowsBeforeCommit = transactionTemplate.execute(status -> {
+            writer.write(entry(1L));
+            writer.write(entry(2L));
+            writer.write(entry(3L));
+            return rows();
+        });
+
+        assertThat(rowsBeforeCommit).isZero();
+        assertThat(rows()).isEqualTo(3);
+        verify(batchRepository, times(1)).insertAll(any());
+        assertThat(written).extracting(DocumentHistory::getDocumentId).containsExactly(1L, 2L, 3L);
+        assertThat(written).allSatisfy(entry -> assertThat(entry.getId()).isNotNull());
+    }
+
+    @Test
+    void shouldDiscardEntriesOfRolledBackTransaction() {
+        DocumentHistoryWriter writer = writer("transactional");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.write(entry(1L));
+            status.setRollbackOnly();
+        });
+
+        assertThat(rows()).isZero();
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void shouldQueueCommittedEntriesAndFlushThemAsOneBatch() {
+        DocumentHistoryWriter writer = writer("async");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.write(entry(1L));
+            writer.write(entry(2L));
+            assertThat(writer.queued()).isZero();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.write(entry(3L));
+            status.setRollbackOnly();
+        });
+        writer.write(entry(4L));
+
+        assertThat(writer.queued()).isEqualTo(3);
+        assertThat(rows()).isZero();
+        assertThat(writer.flush()).isEqualTo(3);
+        assertThat(rows()).isEqualTo(3);
+        verify(batchRepository, times(1)).insertAll(any());
+        assertThat(written).extracting(DocumentHistory::getDocumentId).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void shouldRetryAFailedAsyncBatchOnTheNextFlush() {
+        DocumentHistoryWriter writer = writer("async");
+        writer.write(entry(1L));
+        writer.write(entry(2L));
+        doThrow(new DataAccessResourceFailureException("database non disponibile"))
+                .doCallRealMethod()
+                .when(batchRepository).insertAll(any());
+
+        assertThatThrownBy(writer::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(writer.queued()).isEqualTo(2);
+        writer.write(entry(3L));
+
+        assertThat(writer.flush()).isEqualTo(3);
+        assertThat(rows()).isEqualTo(3);
+        assertThat(writer.queued()).isZero();
+        assertThat(written).extracting(DocumentHistory::getDocumentId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void shouldWriteARejectedBatchEntryByEntryAndDropOnlyTheRejectedEntry() {
+        DocumentHistoryWriter writer = writer("async");
+        DocumentHistory rejected = entry(2L);
+        writer.write(entry(1L));
+        writer.write(rejected);
+        writer.write(entry(3L));
+        doThrow(new DataIntegrityViolationException("voce non valida"))
+                .when(batchRepository).insertAll(argThat(entries -> entries.stream().anyMatch(entry -> entry == rejected)));
+
+        assertThat(writer.flush()).isEqualTo(2);
+        assertThat(rows()).isEqualTo(2);
+        assertThat(writer.queued()).isZero();
+        assertThat(written).extracting(DocumentHistory::getDocumentId).containsExactly(1L, 3L);
+
+        writer.write(entry(4L));
+        assertThat(writer.flush()).isEqualTo(1);
+        assertThat(rows()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldDropABatchWhoseTransientFailuresExceedTheRetryBound() {
+        DocumentHistoryWriter writer = writer("async");
+        writer.write(entry(1L));
+        doThrow(new DataAccessResourceFailureException("database non disponibile"))
+                .when(batchRepository).insertAll(any());
+
+        for (int attempt = 0; attempt < DocumentHistoryWriter.MAX_RETRIES; attempt++) {
+            assertThatThrownBy(writer::flush).isInstanceOf(DataAccessResourceFailureException.class);
+            assertThat(writer.queued()).isEqualTo(1);
+        }
+
+        assertThat(writer.flush()).isZero();
+        assertThat(writer.queued()).isZero();
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void shouldWriteQueuedEntriesOnStopAfterATransientFailure() {
+        DocumentHistoryWriter writer = writer("async");
+        writer.write(entry(1L));
+        writer.write(entry(2L));
+        doThrow(new DataAccessResourceFailureException("database non disponibile"))
+                .doCallRealMethod()
+                .when(batchRepository).insertAll(any());
+
+        writer.stop();
+
+        assertThat(rows()).isEqualTo(2);
+        assertThat(writer.queued()).isZero();
+        assertThat(written).extracting(DocumentHistory::getDocumentId).containsExactly(1L, 2L);
+    }
+
+    private DocumentHistoryWriter writer(String mode) {
+        DocumentHistoryWriter writer = new DocumentHistoryWriter(batchRepository, mode, Duration.ofHours(1));
+        writer.onWritten(written::addAll);
+        return writer;
+    }
+
+    private long rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"document_history\"", Map.of(), Long.class);
+    }
+
+    private static DocumentHistory entry(long documentId) {
+        return DocumentHistory.create(DocumentType.INVOICE, documentId, DocumentAction.UPDATED, "voce " + documentId, NOW);
+    }
+}
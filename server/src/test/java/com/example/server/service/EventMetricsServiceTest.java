@@ -0,0 +1,31 @@
+package com.example.server.service;
+
+import com.example.common.dto.SubscriptionMetricsDTO;
+import com.example.server.service.broker.ListenerDispatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventMetricsServiceTest {
+
+    private final NotificationPublisher notificationPublisher = new NotificationPublisher();
+    private final ChatPublisher chatPublisher = new ChatPublisher();
+    private final EventMetricsService service =
+            new EventMetricsService(ListenerDispatcher.direct(), notificationPublisher, chatPublisher);
+
+    @Test
+    void subscriptionsShouldReflectLiveListenersOfBothPublishers() {
+        notificationPublisher.subscribeToUser(1L, notification -> { });
+        notificationPublisher.subscribeToTeam(7L, notification -> { });
+        chatPublisher.subscribe("c-1", message -> { });
+        ChatPublisher.Subscription second = chatPublisher.subscribe("c-1", message -> { });
+
+        assertThat(service.subscriptions()).containsExactly(
+                new SubscriptionMetricsDTO("chat", 1, 2),
+                new SubscriptionMetricsDTO("notifications", 2, 2));
+
+        second.cancel();
+
+        assertThat(service.subscriptions()).first().isEqualTo(new SubscriptionMetricsDTO("chat", 1, 1));
+    }
+}
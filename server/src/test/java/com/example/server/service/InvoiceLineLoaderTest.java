@@ -0,0 +1,78 @@
+package com.example.server.service;
+
+import com.example.server.domain.InvoiceLine;
+import com.example.server.repository.InvoiceLineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceLineLoaderTest {
+
+    @Mock
+    private InvoiceLineRepository invoiceLineRepository;
+
+    private InvoiceLineLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        loader = new InvoiceLineLoader(invoiceLineRepository);
+    }
+
+    @Test
+    void shouldGroupLinesByInvoiceInSingleQuery() {
+        when(invoiceLineRepository.findByInvoiceIdInOrderByInvoiceIdAscIdAsc(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                line(10L, 1L), line(11L, 1L), line(20L, 2L)
+        ));
+
+        Map<Long, List<InvoiceLine>> lines = loader.loadByInvoiceIds(Arrays.asList(1L, 2L, 2L, null, 3L));
+
+        assertThat(lines.get(1L)).extracting(InvoiceLine::getId).containsExactly(10L, 11L);
+        assertThat(lines.get(2L)).extracting(InvoiceLine::getId).containsExactly(20L);
+        assertThat(lines).doesNotContainKey(3L);
+    }
+
+    @Test
+    void shouldNotQueryWhenNoInvoices() {
+        assertThat(loader.loadByInvoiceIds(List.of())).isEmpty();
+
+        verify(invoiceLineRepository, never()).findByInvoiceIdInOrderByInvoiceIdAscIdAsc(anyCollection());
+    }
+
+    @Test
+    void shouldQueryOncePerChunkOfInvoices() {
+        int invoiceCount = 2_500;
+        List<Long> invoiceIds = LongStream.rangeClosed(1, invoiceCount).boxed().toList();
+        when(invoiceLineRepository.findByInvoiceIdInOrderByInvoiceIdAscIdAsc(anyCollection()))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).stream()
+                        .map(id -> line((Long) id * 10, (Long) id))
+                        .toList());
+
+        Map<Long, List<InvoiceLine>> lines = loader.loadByInvoiceIds(invoiceIds);
+
+        assertThat(lines).hasSize(invoiceCount);
+        assertThat(mockingDetails(invoiceLineRepository).getInvocations())
+                .hasSize((invoiceCount + InvoiceLineLoader.CHUNK_SIZE - 1) / InvoiceLineLoader.CHUNK_SIZE);
+    }
+
+    private static InvoiceLine line(Long id, Long invoiceId) {
+        return new InvoiceLine(id, invoiceId, null, null, "Riga", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ZERO,
+                BigDecimal.ONE);
+    }
+}
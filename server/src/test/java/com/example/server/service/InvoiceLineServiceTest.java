@@ -0,0 +1,102 @@
+package com.example.server.service;
+
+import com.example.common.dto.ChangeSetDTO;
+import com.example.common.dto.InvoiceDTO;
+import com.example.common.dto.InvoiceLineDTO;
+import com.example.server.config.BackendConfiguration;
+import com.example.server.repository.SyncTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.jdbc.DataJdbcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJdbcTest
+@ActiveProfiles("test")
+@Import({InvoiceLineService.class, InvoiceLineLoader.class, InvoiceService.class, ChangeFeedService.class,
+        SyncTombstoneRepository.class, BackendConfiguration.class})
+class InvoiceLineServiceTest {
+
+    private static final long INVOICE_ID = 41L;
+
+    @Autowired
+    private InvoiceLineService invoiceLineService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Clock clock;
+
+    @MockBean
+    private CustomerService customerService;
+
+    @MockBean
+    private ArticleService articleService;
+
+    @MockBean
+    private DocumentHistoryService documentHistoryService;
+
+    @MockBean
+    private CommissionService commissionService;
+
+    @MockBean
+    private StatisticsService statisticsService;
+
+    @MockBean
+    private CommissionRollupService commissionRollupService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("""
+                INSERT INTO "invoices" (id, invoice_number, customer_name, amount, issue_date, status, created_at, updated_at)
+                VALUES (?, 'INV-41', 'Cliente', 10.00, DATE '2024-01-01', 'DRAFT',
+                        TIMESTAMP '2024-01-01 00:00:00', TIMESTAMP '2024-01-01 00:00:00')
+                """, INVOICE_ID);
+    }
+
+    @Test
+    void lineWritesShouldMarkTheInvoiceAsChangedForIncrementalSync() {
+        Instant since = clock.instant().minusSeconds(60);
+        assertThat(changedInvoiceIds(since)).isEmpty();
+
+        InvoiceLineDTO created = invoiceLineService.create(line(null, "Riga"));
+        assertThat(changedInvoiceIds(since)).containsExactly(INVOICE_ID);
+
+        resetUpdatedAt();
+        invoiceLineService.update(created.getId(), line(created.getId(), "Riga modificata"));
+        assertThat(changedInvoiceIds(since)).containsExactly(INVOICE_ID);
+
+        resetUpdatedAt();
+        assertThat(invoiceLineService.delete(created.getId())).isTrue();
+        assertThat(changedInvoiceIds(since)).containsExactly(INVOICE_ID);
+    }
+
+    private List<Long> changedInvoiceIds(Instant since) {
+        ChangeSetDTO<InvoiceDTO> changes = invoiceService.findChanges(since);
+        assertThat(changes.isFull()).isFalse();
+        return changes.getItems().stream().map(InvoiceDTO::getId).toList();
+    }
+
+    private void resetUpdatedAt() {
+        jdbcTemplate.update("UPDATE \"invoices\" SET updated_at = TIMESTAMP '2024-01-01 00:00:00' WHERE id = ?", INVOICE_ID);
+    }
+
+    private InvoiceLineDTO line(Long id, String description) {
+        return new InvoiceLineDTO(id, INVOICE_ID, null, null, description, BigDecimal.ONE, BigDecimal.TEN,
+                BigDecimal.ZERO, null);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.server.service;
 
+import com.example.common.dto.CursorPageDTO;
 import com.example.common.dto.InvoiceDTO;
 import com.example.common.dto.InvoicePaymentRequest;
 import com.example.common.dto.InvoiceLineDTO;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -26,7 +28,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,12 +59,19 @@ class InvoiceServiceTest {
     @Mock
     private StatisticsService statisticsService;
 
+    @Mock
+    private CommissionRollupService commissionRollupService;
+
+    @Mock
+    private ChangeFeedService changeFeedService;
+
     private InvoiceService service;
 
     @BeforeEach
     void setUp() {
         service = new InvoiceService(invoiceRepository, invoiceLineRepository, customerService, articleService,
-                documentHistoryService, commissionService, statisticsService);
+                documentHistoryService, commissionService, statisticsService, commissionRollupService,
+                new InvoiceLineLoader(invoiceLineRepository), changeFeedService);
     }
 
     @Test
@@ -86,6 +98,52 @@ class InvoiceServiceTest {
                 eq("Pagamento registrato il " + paid.getPaymentDate()));
         verify(commissionService).updateAfterPayment(eq(existing.getContractId()), eq(existing.getAmount()),
                 eq(existing.getAmount()));
+        verify(statisticsService).invoiceChanged(eq(existing),
+                argThat(invoice -> invoice.getStatus() == InvoiceStatus.PAID
+                        && LocalDate.now().equals(invoice.getPaymentDate())));
+        verify(commissionRollupService).invoiceChanged(eq(existing),
+                argThat(invoice -> invoice.getStatus() == InvoiceStatus.PAID));
+    }
+
+    @Test
+    void shouldLoadLinesForAllInvoicesInSingleQuery() {
+        Invoice first = new Invoice(1L, null, "INV-1", 1L, "Cliente", BigDecimal.ONE,
+                LocalDate.parse("2024-02-01"), null, InvoiceStatus.SENT, null, null, null, null);
+        Invoice second = new Invoice(2L, null, "INV-2", 1L, "Cliente", BigDecimal.TEN,
+                LocalDate.parse("2024-01-01"), null, InvoiceStatus.SENT, null, null, null, null);
+        when(invoiceRepository.findAllByOrderByIssueDateDesc()).thenReturn(List.of(first, second));
+        when(invoiceLineRepository.findByInvoiceIdInOrderByInvoiceIdAscIdAsc(List.of(1L, 2L))).thenReturn(List.of(
+                new InvoiceLine(5L, 1L, null, null, "Riga", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE)
+        ));
+
+        List<InvoiceDTO> invoices = service.findAll();
+
+        assertThat(invoices).extracting(InvoiceDTO::getId).containsExactly(1L, 2L);
+        assertThat(invoices.get(0).getLines()).extracting(InvoiceLineDTO::getId).containsExactly(5L);
+        assertThat(invoices.get(1).getLines()).isEmpty();
+        verify(invoiceLineRepository, never()).findByInvoiceIdOrderById(any());
+    }
+
+    @Test
+    void shouldSeekNextInvoicePageAndLoadOnlyItsLines() {
+        Invoice first = new Invoice(7L, null, "INV-7", 1L, "Cliente", BigDecimal.ONE,
+                LocalDate.parse("2024-02-01"), null, InvoiceStatus.SENT, null, null, null, null);
+        Invoice second = new Invoice(6L, null, "INV-6", 1L, "Cliente", BigDecimal.TEN,
+                LocalDate.parse("2024-02-01"), null, InvoiceStatus.SENT, null, null, null, null);
+        Invoice lookAhead = new Invoice(3L, null, "INV-3", 1L, "Cliente", BigDecimal.TEN,
+                LocalDate.parse("2024-01-15"), null, InvoiceStatus.SENT, null, null, null, null);
+        LocalDate lastIssueDate = LocalDate.parse("2024-03-01");
+        when(invoiceRepository.findByIssueDateLessThanOrIssueDateAndIdLessThanOrderByIssueDateDescIdDesc(
+                lastIssueDate, lastIssueDate, 9L, Limit.of(3))).thenReturn(List.of(first, second, lookAhead));
+        when(invoiceLineRepository.findByInvoiceIdInOrderByInvoiceIdAscIdAsc(List.of(7L, 6L))).thenReturn(List.of());
+
+        CursorPageDTO<InvoiceDTO> page = service.findPage(KeysetPagination.encode("2024-03-01", 9L), 2);
+
+        assertThat(page.getItems()).extracting(InvoiceDTO::getId).containsExactly(7L, 6L);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(KeysetPagination.decode(page.getNextCursor()))
+                .isEqualTo(new KeysetPagination.Cursor("2024-02-01", 6L));
+        verify(invoiceRepository, never()).findAllByOrderByIssueDateDesc();
     }
 
     @Test
@@ -120,7 +178,7 @@ class InvoiceServiceTest {
         verify(invoiceLineRepository).deleteByInvoiceId(11L);
         verify(invoiceLineRepository).saveAll(anyList());
         verify(documentHistoryService).log(eq(DocumentType.INVOICE), eq(11L), eq(DocumentAction.CREATED), any());
-        verify(statisticsService).clearCache();
+        verify(statisticsService).invoiceChanged(isNull(), any(Invoice.class));
     }
 
     @Test
@@ -145,7 +203,7 @@ class InvoiceServiceTest {
         verify(documentHistoryService).log(DocumentType.INVOICE, 4L, DocumentAction.UPDATED, "Fattura aggiornata");
         verify(documentHistoryService).log(DocumentType.INVOICE, 4L, DocumentAction.STATUS_CHANGED,
                 "Stato cambiato da DRAFT a SENT");
-        verify(statisticsService).clearCache();
+        verify(statisticsService).invoiceChanged(eq(existing), any(Invoice.class));
     }
 
     @Test
@@ -160,7 +218,9 @@ class InvoiceServiceTest {
         verify(invoiceRepository).deleteById(13L);
         verify(invoiceLineRepository).deleteByInvoiceId(13L);
         verify(documentHistoryService).log(DocumentType.INVOICE, 13L, DocumentAction.DELETED, "Fattura eliminata");
-        verify(statisticsService).clearCache();
+        verify(statisticsService).invoiceChanged(existing, null);
+        verify(commissionRollupService).invoiceChanged(existing, null);
+        verify(changeFeedService).recordDeletion(ChangeFeedService.SyncedEntity.INVOICE, 13L);
     }
 
     @Test
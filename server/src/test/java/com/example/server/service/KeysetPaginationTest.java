@@ -0,0 +1,67 @@
+package com.example.server.service;
+
+import com.example.common.dto.CursorPageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPaginationTest {
+
+    @Test
+    void shouldRoundTripCursorWithSeparatorInKey() {
+        String cursor = KeysetPagination.encode("Rossi | Bianchi", 42L);
+
+        KeysetPagination.Cursor decoded = KeysetPagination.decode(cursor);
+
+        assertThat(cursor).doesNotContain("|", "=", "/", "+");
+        assertThat(decoded.key()).isEqualTo("Rossi | Bianchi");
+        assertThat(decoded.id()).isEqualTo(42L);
+    }
+
+    @Test
+    void shouldTreatMissingCursorAsFirstPage() {
+        assertThat(KeysetPagination.decode(null)).isNull();
+        assertThat(KeysetPagination.decode(" ")).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedCursors() {
+        assertThatThrownBy(() -> KeysetPagination.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetPagination.decode(KeysetPagination.encode("2024-01-01", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetPagination.decode(KeysetPagination.encode("not-a-date", 1L)).dateKey())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldClampPageSize() {
+        assertThat(KeysetPagination.pageSize(null)).isEqualTo(KeysetPagination.DEFAULT_SIZE);
+        assertThat(KeysetPagination.pageSize(10_000)).isEqualTo(KeysetPagination.MAX_SIZE);
+        assertThat(KeysetPagination.fetchLimit(20).max()).isEqualTo(21);
+        assertThatThrownBy(() -> KeysetPagination.pageSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldUseLookAheadRowToBuildNextCursor() {
+        List<LocalDate> rows = List.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1));
+
+        CursorPageDTO<String> page = KeysetPagination.page(rows, 2, LocalDate::toString,
+                date -> (long) date.getMonthValue(), dates -> dates.stream().map(LocalDate::toString).toList());
+        CursorPageDTO<String> last = KeysetPagination.page(rows.subList(2, 3), 2, LocalDate::toString,
+                date -> (long) date.getMonthValue(), dates -> dates.stream().map(LocalDate::toString).toList());
+
+        assertThat(page.getItems()).containsExactly("2024-03-01", "2024-02-01");
+        assertThat(page.hasNext()).isTrue();
+        KeysetPagination.Cursor next = KeysetPagination.decode(page.getNextCursor());
+        assertThat(next.dateKey()).isEqualTo(LocalDate.of(2024, 2, 1));
+        assertThat(next.id()).isEqualTo(2L);
+        assertThat(last.getItems()).containsExactly("2024-01-01");
+        assertThat(last.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.server.service;
+
+import com.example.server.repository.NotificationInboxRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRetentionJobTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+    private static final Instant CUTOFF = NOW.minus(Duration.ofDays(30));
+
+    @Mock
+    private NotificationInboxRepository inboxRepository;
+
+    private NotificationRetentionJob job() {
+        return new NotificationRetentionJob(inboxRepository, Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofDays(30), Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void shouldDeleteInBatchesUntilAPartialBatch() {
+        when(inboxRepository.deleteReadBefore(CUTOFF, 100)).thenReturn(100, 100, 37);
+
+        assertThat(job().purge()).isEqualTo(237);
+        verify(inboxRepository, times(3)).deleteReadBefore(CUTOFF, 100);
+    }
+
+    @Test
+    void shouldStopAfterTheMaximumNumberOfBatchesPerRun() {
+        when(inboxRepository.deleteReadBefore(CUTOFF, 100)).thenReturn(100);
+
+        assertThat(job().purge()).isEqualTo(100 * NotificationRetentionJob.MAX_BATCHES_PER_RUN);
+        verify(inboxRepository, times(NotificationRetentionJob.MAX_BATCHES_PER_RUN)).deleteReadBefore(CUTOFF, 100);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.server.service;
+
+import com.example.common.dto.NotificationDTO;
+import com.example.server.domain.Notification;
+import com.example.server.domain.User;
+import com.example.server.repository.NotificationRepository;
+import com.example.server.service.broker.InMemoryEventBroker;
+import com.example.server.service.broker.ListenerDispatcher;
+import com.example.server.service.broker.SubscriberRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStreamsTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private NotificationPublisher publisher;
+    private NotificationStreams streams;
+    private final User user = new User(7L, null, "agente@example.com", "Agente", null, 1L, 3L, true, LocalDateTime.now());
+
+    @BeforeEach
+    void setUp() {
+        publisher = new NotificationPublisher();
+        streams = new NotificationStreams(publisher, notificationRepository);
+    }
+
+    @Test
+    void shouldPushUserAndTeamNotificationsOverOneStream() {
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        streams.open(user, null, emitter);
+        publisher.publish(withId(Notification.forUser(7L, "Titolo", "Utente", NOW), 10L));
+        publisher.publish(withId(Notification.forTeam(3L, "Titolo", "Team", NOW), 11L));
+        publisher.publish(withId(Notification.forTeam(4L, "Titolo", "Altro team", NOW), 12L));
+
+        assertThat(emitter.notificationIds()).containsExactly(10L, 11L);
+        assertThat(emitter.notifications()).extracting(NotificationDTO::getMessage).containsExactly("Utente", "Team");
+    }
+
+    @Test
+    void shouldReplayMissedNotificationsAfterLastEventIdWithoutDuplicates() {
+        Notification missedUser = withId(Notification.forUser(7L, "Titolo", "Persa", NOW), 21L);
+        Notification missedTeam = withId(Notification.forTeam(3L, "Titolo", "Persa team", NOW), 20L);
+        when(notificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(7L, 19L)).thenReturn(List.of(missedUser));
+        when(notificationRepository.findByTeamIdAndIdGreaterThanOrderByIdAsc(3L, 19L)).thenReturn(List.of(missedTeam));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        streams.open(user, 19L, emitter);
+        publisher.publish(missedUser);
+        publisher.publish(withId(Notification.forUser(7L, "Titolo", "Nuova", NOW), 22L));
+
+        assertThat(emitter.notificationIds()).containsExactly(20L, 21L, 22L);
+    }
+
+    @Test
+    void shouldSendHeartbeatsAndReleaseBrokenStreams() {
+        RecordingEmitter healthy = new RecordingEmitter();
+        RecordingEmitter broken = new RecordingEmitter();
+        streams.open(user, null, healthy);
+        streams.open(user, null, broken);
+        broken.failing = true;
+
+        streams.sendHeartbeats();
+        publisher.publish(withId(Notification.forUser(7L, "Titolo", "Dopo", NOW), 30L));
+
+        assertThat(healthy.comments).containsExactly("heartbeat");
+        assertThat(healthy.notificationIds()).containsExactly(30L);
+        assertThat(broken.events).isEmpty();
+        assertThat(streams.openStreams()).isEqualTo(1);
+        assertThat(publisher.subscriptionStats()).isEqualTo(new SubscriberRegistry.Stats(2, 2));
+    }
+
+    @Test
+    void shouldKeepSendingHeartbeatsToOtherStreamsWhileOneClientIsStalled() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            NotificationStreams asyncStreams = new NotificationStreams(publisher, notificationRepository,
+                    new ListenerDispatcher(executor, 10));
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch stalledWrites = new CountDownLatch(1);
+            RecordingEmitter stalled = new RecordingEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) throws IOException {
+                    stalledWrites.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.send(builder);
+                }
+            };
+            RecordingEmitter healthy = new RecordingEmitter();
+            asyncStreams.open(user, null, stalled);
+            asyncStreams.open(user, null, healthy);
+
+            asyncStreams.sendHeartbeats();
+
+            assertThat(stalledWrites.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(healthy.heartbeats.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(stalled.comments).isEmpty();
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCompleteTheStreamWhenItsQueueOverflowsSoTheClientResumesFromTheDatabase() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            ListenerDispatcher dispatcher = new ListenerDispatcher(executor, 2);
+            NotificationPublisher asyncPublisher = new NotificationPublisher(new InMemoryEventBroker(), dispatcher);
+            NotificationStreams asyncStreams = new NotificationStreams(asyncPublisher, notificationRepository, dispatcher);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch writing = new CountDownLatch(1);
+            CountDownLatch completed = new CountDownLatch(1);
+            RecordingEmitter slow = new RecordingEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) throws IOException {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    super.send(builder);
+                }
+
+                @Override
+                public void complete() {
+                    completed.countDown();
+                }
+            };
+            asyncStreams.open(user, null, slow);
+
+            asyncPublisher.publish(withId(Notification.forUser(7L, "Titolo", "In scrittura", NOW), 40L));
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+            for (long id = 41L; id <= 44L; id++) {
+                asyncPublisher.publish(withId(Notification.forUser(7L, "Titolo", "In coda", NOW), id));
+            }
+            release.countDown();
+
+            assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(slow.notificationIds()).containsExactly(40L);
+            assertThat(asyncStreams.openStreams()).isZero();
+            assertThat(asyncPublisher.subscriptionStats()).isEqualTo(new SubscriberRegistry.Stats(0, 0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Notification withId(Notification notification, Long id) {
+        return notification.withId(id);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Set<ResponseBodyEmitter.DataWithMediaType>> events = new ArrayList<>();
+        private final List<String> comments = new ArrayList<>();
+        private final CountDownLatch heartbeats = new CountDownLatch(1);
+        private boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> data = builder.build();
+            String text = data.iterator().next().getData().toString();
+            if (text.startsWith(":")) {
+                comments.add(text.substring(1).trim());
+                heartbeats.countDown();
+            } else {
+                events.add(data);
+            }
+        }
+
+        private List<Long> notificationIds() {
+            return notifications().stream().map(NotificationDTO::getId).toList();
+        }
+
+        private List<NotificationDTO> notifications() {
+            return events.stream()
+                    .flatMap(Set::stream)
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(NotificationDTO.class::isInstance)
+                    .map(NotificationDTO.class::cast)
+                    .toList();
+        }
+    }
+}
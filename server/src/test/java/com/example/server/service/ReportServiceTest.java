@@ -0,0 +1,81 @@
+package com.example.server.service;
+
+import com.example.server.repository.InvoiceReportRepository;
+import com.example.server.repository.InvoiceReportRepository.ClosedInvoiceRow;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    @Mock
+    private InvoiceReportRepository invoiceReportRepository;
+
+    @Mock
+    private CommissionService commissionService;
+
+    private ReportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReportService(invoiceReportRepository, commissionService);
+    }
+
+    @Test
+    void closedInvoicesReportPushesFiltersToRepositoryAndUsesResolvedAgent() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        doAnswer(invocation -> {
+            Consumer<ClosedInvoiceRow> consumer = invocation.getArgument(4);
+            consumer.accept(new ClosedInvoiceRow("INV-2", "Beta", 20L, 7L, LocalDate.of(2024, 3, 1), new BigDecimal("200")));
+            consumer.accept(new ClosedInvoiceRow("INV-1", "Alpha", 10L, 7L, LocalDate.of(2024, 2, 1), new BigDecimal("100")));
+            return null;
+        }).when(invoiceReportRepository).forEachClosedInvoice(eq(from), eq(to), eq(7L), eq("PAID"), any());
+        when(commissionService.agentCommission(7L, new BigDecimal("200"))).thenReturn(new BigDecimal("20.00"));
+        when(commissionService.agentCommission(7L, new BigDecimal("100"))).thenReturn(new BigDecimal("10.00"));
+
+        byte[] pdf = service.generateClosedInvoicesReport(from, to, 7L);
+
+        assertThat(new String(pdf, 0, 5, StandardCharsets.US_ASCII)).isEqualTo("%PDF-");
+        verify(commissionService).agentCommission(7L, new BigDecimal("200"));
+        verify(commissionService).agentCommission(7L, new BigDecimal("100"));
+    }
+
+    @Test
+    void closedInvoicesReportSpansMultiplePagesWhileStreamingRows() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ClosedInvoiceRow> consumer = invocation.getArgument(4);
+            for (int i = 0; i < 120; i++) {
+                consumer.accept(new ClosedInvoiceRow("INV-" + i, "Cliente", 1L, null, LocalDate.of(2024, 1, 1), BigDecimal.TEN));
+            }
+            return null;
+        }).when(invoiceReportRepository).forEachClosedInvoice(any(), any(), any(), eq("PAID"), any());
+        when(commissionService.agentCommission(null, BigDecimal.TEN)).thenReturn(new BigDecimal("0.00"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.writeClosedInvoicesReport(null, null, null, output);
+
+        try (PDDocument document = PDDocument.load(output.toByteArray())) {
+            assertThat(document.getNumberOfPages()).isGreaterThan(1);
+            assertThat(new PDFTextStripper().getText(document)).contains("Fatture incluse: 120", "INV-119");
+        }
+    }
+}
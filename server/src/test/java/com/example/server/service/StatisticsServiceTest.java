@@ -3,16 +3,20 @@ package com.example.server.service;
 import com.example.common.dto.AgentStatisticsDTO;
 import com.example.common.dto.MonthlyCommissionDTO;
 import com.example.common.dto.TeamStatisticsDTO;
+import com.example.common.enums.InvoiceStatus;
+import com.example.server.domain.Invoice;
 import com.example.server.repository.StatisticsRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.Year;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,6 +25,7 @@ import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,12 +41,12 @@ class StatisticsServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new StatisticsService(statisticsRepository, commissionService);
+        service = new StatisticsService(statisticsRepository, commissionService, new CaffeineCacheManager());
     }
 
     @Test
     void shouldReturnFallbackWhenNoPaidInvoices() {
-        when(statisticsRepository.findAvailableYears("PAID")).thenReturn(List.of());
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(List.of());
 
         AgentStatisticsDTO agentStats = service.agentStatistics(null, null, null, null);
         TeamStatisticsDTO teamStats = service.teamStatistics(2020, null, null, null);
@@ -56,7 +61,7 @@ class StatisticsServiceTest {
 
     @Test
     void shouldCacheAgentStatisticsWhenYearsUnchanged() {
-        when(statisticsRepository.findAvailableYears("PAID")).thenReturn(List.of(2022, 2023));
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2022, 2023));
         when(statisticsRepository.findMonthlyTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of(
                 new StatisticsRepository.MonthlyAggregate(2023, 5, new BigDecimal("10")),
                 new StatisticsRepository.MonthlyAggregate(2023, 4, new BigDecimal("5"))
@@ -75,13 +80,61 @@ class StatisticsServiceTest {
                 .containsExactly(4, 5);
         assertThat(first.agentTotals().getFirst().commission()).isEqualTo(BigDecimal.TEN);
         assertThat(second).isSameAs(first);
+        verify(statisticsRepository, times(1)).findPaidInvoiceCountsByYear("PAID");
         verify(statisticsRepository, times(1)).findMonthlyTotals(any(), any(), eq("PAID"), isNull());
         verify(statisticsRepository, times(1)).findAgentTotals(any(), any(), eq("PAID"), isNull());
+        verifyNoMoreInteractions(statisticsRepository);
+    }
+
+    @Test
+    void shouldEvictOnlyStatisticsCoveringChangedPaymentDates() {
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2022, 2023));
+        when(statisticsRepository.findTeamTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of());
+
+        TeamStatisticsDTO stats2022 = service.teamStatistics(2022, null, null, null);
+        TeamStatisticsDTO stats2023 = service.teamStatistics(2023, null, null, null);
+
+        service.invoiceChanged(invoice(InvoiceStatus.SENT, null), invoice(InvoiceStatus.PAID, LocalDate.of(2023, 3, 15)));
+
+        assertThat(service.teamStatistics(2022, null, null, null)).isSameAs(stats2022);
+        assertThat(service.teamStatistics(2023, null, null, null)).isNotSameAs(stats2023);
+        verify(statisticsRepository, times(1)).findPaidInvoiceCountsByYear("PAID");
+        verify(statisticsRepository, times(1)).findTeamTotals(eq(LocalDate.of(2022, 1, 1)), any(), eq("PAID"), isNull());
+        verify(statisticsRepository, times(2)).findTeamTotals(eq(LocalDate.of(2023, 1, 1)), any(), eq("PAID"), isNull());
+    }
+
+    @Test
+    void shouldIgnoreChangesToUnpaidInvoices() {
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2023));
+        when(statisticsRepository.findTeamTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of());
+
+        TeamStatisticsDTO first = service.teamStatistics(2023, null, null, null);
+        service.invoiceChanged(invoice(InvoiceStatus.DRAFT, null), invoice(InvoiceStatus.SENT, null));
+
+        assertThat(service.teamStatistics(2023, null, null, null)).isSameAs(first);
+    }
+
+    @Test
+    void shouldUpdateAvailableYearsInMemory() {
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2023));
+        when(statisticsRepository.findTeamTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of());
+
+        assertThat(service.teamStatistics(null, null, null, null).years()).containsExactly(2023);
+
+        service.invoiceChanged(null, invoice(InvoiceStatus.PAID, LocalDate.of(2024, 1, 10)));
+        TeamStatisticsDTO withNewYear = service.teamStatistics(null, null, null, null);
+        assertThat(withNewYear.year()).isEqualTo(2024);
+        assertThat(withNewYear.years()).containsExactly(2023, 2024);
+
+        service.invoiceChanged(invoice(InvoiceStatus.PAID, LocalDate.of(2023, 6, 1)), null);
+        assertThat(service.teamStatistics(null, null, null, null).years()).containsExactly(2024);
+
+        verify(statisticsRepository, times(1)).findPaidInvoiceCountsByYear("PAID");
     }
 
     @Test
     void shouldBuildTeamStatisticsForRequestedYearWhenAvailable() {
-        when(statisticsRepository.findAvailableYears("PAID")).thenReturn(List.of(2021, 2022));
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2021, 2022));
         when(statisticsRepository.findTeamTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of(
                 new StatisticsRepository.TeamAggregate(3L, "North", new BigDecimal("50"))
         ));
@@ -96,7 +149,7 @@ class StatisticsServiceTest {
 
     @Test
     void shouldReturnMonthlyTotalsSortedByYearAndMonth() {
-        when(statisticsRepository.findAvailableYears("PAID")).thenReturn(List.of(2022, 2023));
+        when(statisticsRepository.findPaidInvoiceCountsByYear("PAID")).thenReturn(yearCounts(2022, 2023));
         when(statisticsRepository.findMonthlyTotals(any(), any(), eq("PAID"), isNull())).thenReturn(List.of(
                 new StatisticsRepository.MonthlyAggregate(2022, 6, new BigDecimal("5")),
                 new StatisticsRepository.MonthlyAggregate(2022, 12, new BigDecimal("10")),
@@ -120,4 +173,14 @@ class StatisticsServiceTest {
                 );
     }
 
+    private static List<StatisticsRepository.YearCount> yearCounts(Integer... years) {
+        return Arrays.stream(years)
+                .map(year -> new StatisticsRepository.YearCount(year, 1L))
+                .toList();
+    }
+
+    private static Invoice invoice(InvoiceStatus status, LocalDate paymentDate) {
+        return new Invoice(1L, 2L, "INV-1", 3L, "Cliente", BigDecimal.TEN,
+                LocalDate.of(2023, 1, 1), LocalDate.of(2023, 2, 1), status, paymentDate, null, null, null);
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.server.service;
+
+import com.example.server.domain.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+import org.springframework.data.relational.core.conversion.MutableAggregateChange;
+import org.springframework.data.relational.core.mapping.event.AfterSaveEvent;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableVersionServiceTest {
+
+    private final TableVersionService service = new TableVersionService(new JdbcMappingContext());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldKeepTheEtagUntilOneOfItsTablesChanges() {
+        String etag = service.etag(List.of("customers", "invoices"));
+
+        service.changed("articles");
+        assertThat(service.etag(List.of("customers", "invoices"))).isEqualTo(etag);
+
+        service.changed("invoices");
+        assertThat(service.etag(List.of("customers", "invoices"))).isNotEqualTo(etag).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void shouldBumpTheTableOfASavedAggregate() {
+        Customer customer = Customer.create("Cliente", null, null, "cliente@example.com", null, null);
+
+        service.onAfterSave(new AfterSaveEvent<>(customer, MutableAggregateChange.forSave(customer)));
+
+        assertThat(service.version("customers")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldBumpAgainWhenTheTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.changed("invoices");
+        String duringTransaction = service.etag(List.of("invoices"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(service.version("invoices")).isEqualTo(2L);
+        assertThat(service.etag(List.of("invoices"))).isNotEqualTo(duringTransaction);
+    }
+}
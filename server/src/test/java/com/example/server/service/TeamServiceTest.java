@@ -26,11 +26,14 @@ class TeamServiceTest {
     @Mock
     private TeamRepository teamRepository;
 
+    @Mock
+    private TeamCommissionRuleRegistry teamCommissionRuleRegistry;
+
     private TeamService service;
 
     @BeforeEach
     void setUp() {
-        service = new TeamService(teamRepository);
+        service = new TeamService(teamRepository, teamCommissionRuleRegistry);
     }
 
     @Test
@@ -51,6 +51,9 @@ class UserServiceTest {
     @Mock
     private TeamRepository teamRepository;
 
+    @Mock
+    private TeamCommissionRuleRegistry teamCommissionRuleRegistry;
+
     private Clock clock;
     private UserService service;
 
@@ -58,7 +61,7 @@ class UserServiceTest {
     void setUp() {
         clock = Clock.fixed(Instant.parse("2024-05-01T12:00:00Z"), ZoneOffset.UTC);
         service = new UserService(msalClientProvider, userRepository, agentRepository, roleRepository, teamRepository,
-                clock, "https://graph.microsoft.com/.default", "");
+                teamCommissionRuleRegistry, clock, "https://graph.microsoft.com/.default", "");
 
         when(roleRepository.findByName("Agent")).thenReturn(Optional.of(new Role(1L, "Agent")));
         when(teamRepository.findByName("Vendite")).thenReturn(Optional.of(new Team(2L, "Vendite")));
@@ -0,0 +1,125 @@
+package com.example.server.service.broker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerDispatcherTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldDeliverEventsToEachListenerInPublicationOrderOffThePublishingThread() throws InterruptedException {
+        ListenerDispatcher dispatcher = new ListenerDispatcher(executor, 100);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+        ListenerDispatcher.Mailbox<Integer> mailbox = dispatcher.mailbox(event -> {
+            received.add(event);
+            threads.add(Thread.currentThread());
+            done.countDown();
+        });
+
+        IntStream.range(0, 50).forEach(mailbox::accept);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactlyElementsOf(IntStream.range(0, 50).boxed().toList());
+        assertThat(threads).doesNotContain(Thread.currentThread());
+        assertThat(dispatcher.stats().delivered()).isEqualTo(50);
+        assertThat(dispatcher.stats().queued()).isZero();
+    }
+
+    @Test
+    void shouldIsolateSlowListenerAndDropWhatDoesNotFitInItsQueue() throws InterruptedException {
+        ListenerDispatcher dispatcher = new ListenerDispatcher(executor, 10);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ListenerDispatcher.Mailbox<Integer> slow = dispatcher.mailbox(event -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch fastDone = new CountDownLatch(5);
+        ListenerDispatcher.Mailbox<Integer> fast = dispatcher.mailbox(event -> fastDone.countDown());
+
+        slow.accept(0);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        IntStream.rangeClosed(1, 15).forEach(slow::accept);
+        IntStream.rangeClosed(1, 5).forEach(fast::accept);
+
+        assertThat(fastDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.stats().dropped()).isEqualTo(5);
+        assertThat(dispatcher.stats().queued()).isEqualTo(10);
+        assertThat(dispatcher.stats().saturatedListeners()).isEqualTo(1);
+        release.countDown();
+        slow.close();
+    }
+
+    @Test
+    void shouldCloseListenerWithOverflowActionInsteadOfSkippingEvents() throws InterruptedException {
+        ListenerDispatcher dispatcher = new ListenerDispatcher(executor, 2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch overflowed = new CountDownLatch(1);
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        ListenerDispatcher.Mailbox<Integer> mailbox = dispatcher.mailbox(event -> {
+            received.add(event);
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, overflowed::countDown);
+
+        mailbox.accept(0);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        IntStream.rangeClosed(1, 3).forEach(mailbox::accept);
+        assertThat(overflowed.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+        mailbox.accept(4);
+
+        assertThat(dispatcher.stats().dropped()).isEqualTo(3);
+        assertThat(dispatcher.stats().queued()).isZero();
+        assertThat(dispatcher.stats().saturatedListeners()).isEqualTo(1);
+        assertThat(received).containsExactly(0);
+    }
+
+    @Test
+    void shouldKeepDeliveringAfterListenerFailure() {
+        ListenerDispatcher dispatcher = ListenerDispatcher.direct();
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        ListenerDispatcher.Mailbox<Integer> mailbox = dispatcher.mailbox(event -> {
+            if (event == 1) {
+                throw new IllegalStateException("boom");
+            }
+            received.add(event);
+        });
+
+        mailbox.accept(1);
+        mailbox.accept(2);
+        mailbox.close();
+        mailbox.accept(3);
+
+        assertThat(received).containsExactly(2);
+        assertThat(dispatcher.stats().failed()).isEqualTo(1);
+        assertThat(dispatcher.stats().delivered()).isEqualTo(1);
+    }
+}
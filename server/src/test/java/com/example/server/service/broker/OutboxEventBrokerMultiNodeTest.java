@@ -0,0 +1,226 @@
+package com.example.server.service.broker;
+
+import com.example.common.dto.ChatMessageDTO;
+import com.example.server.domain.Notification;
+import com.example.server.service.ChatPublisher;
+import com.example.server.service.NotificationPublisher;
+import com.example.server.service.TableVersionReplicator;
+import com.example.server.service.TableVersionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jdbc.core.mapping.JdbcMappingContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts share one H2 database, as two server instances behind a load balancer would:
+ * events published on one node must reach the listeners parked on the other.
+ */
+class OutboxEventBrokerMultiNodeTest {
+
+    private static final String URL = "jdbc:h2:mem:outbox-nodes;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+    private static final Instant NOW = Instant.parse("2024-03-10T12:00:00Z");
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+        new ResourceDatabasePopulator(new ByteArrayResource("DROP TABLE IF EXISTS event_outbox;".getBytes()),
+                new ClassPathResource("db/migration/V18__create_event_outbox.sql")).execute(dataSource);
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void shouldDeliverNotificationsPublishedOnOneNodeToListenersOnTheOther() {
+        List<Notification> receivedOnA = new CopyOnWriteArrayList<>();
+        List<Notification> receivedOnB = new CopyOnWriteArrayList<>();
+        nodeA.getBean(NotificationPublisher.class).subscribeToUser(7L, receivedOnA::add);
+        nodeB.getBean(NotificationPublisher.class).subscribeToUser(7L, receivedOnB::add);
+
+        nodeA.getBean(NotificationPublisher.class).publish(Notification.forUser(7L, "Titolo", "Da A", NOW).withId(41L));
+
+        assertThat(receivedOnA).extracting(Notification::getMessage).containsExactly("Da A");
+        assertThat(receivedOnB).isEmpty();
+        assertThat(broker(nodeB).poll()).isEqualTo(1);
+        assertThat(broker(nodeA).poll()).isZero();
+        assertThat(receivedOnB)
+                .extracting(Notification::getId, Notification::getUserId, Notification::getMessage, Notification::getCreatedAt)
+                .containsExactly(org.assertj.core.api.Assertions.tuple(41L, 7L, "Da A", NOW));
+        assertThat(receivedOnA).hasSize(1);
+    }
+
+    @Test
+    void shouldDeliverChatMessagesOnceInPublicationOrder() {
+        List<ChatMessageDTO> receivedOnB = new CopyOnWriteArrayList<>();
+        nodeB.getBean(ChatPublisher.class).subscribe("team:5", receivedOnB::add);
+        ChatPublisher publisherA = nodeA.getBean(ChatPublisher.class);
+
+        publisherA.publish(new ChatMessageDTO(1L, "team:5", 12L, 5L, "primo", NOW));
+        publisherA.publish(new ChatMessageDTO(2L, "team:6", 12L, 6L, "altra conversazione", NOW));
+        publisherA.publish(new ChatMessageDTO(3L, "team:5", 12L, 5L, "secondo", NOW));
+
+        broker(nodeB).poll();
+        broker(nodeB).poll();
+
+        assertThat(receivedOnB).extracting(ChatMessageDTO::body).containsExactly("primo", "secondo");
+    }
+
+    @Test
+    void shouldDeliverMessagesPublishedInATransactionOnlyOnceItCommits() {
+        List<ChatMessageDTO> receivedOnA = new CopyOnWriteArrayList<>();
+        List<ChatMessageDTO> receivedOnB = new CopyOnWriteArrayList<>();
+        nodeA.getBean(ChatPublisher.class).subscribe("team:5", receivedOnA::add);
+        nodeB.getBean(ChatPublisher.class).subscribe("team:5", receivedOnB::add);
+        ChatPublisher publisherA = nodeA.getBean(ChatPublisher.class);
+        TransactionTemplate transaction = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class));
+
+        transaction.executeWithoutResult(status -> {
+            publisherA.publish(new ChatMessageDTO(1L, "team:5", 12L, 5L, "confermato", NOW));
+            assertThat(receivedOnA).isEmpty();
+        });
+        transaction.executeWithoutResult(status -> {
+            publisherA.publish(new ChatMessageDTO(2L, "team:5", 12L, 5L, "annullato", NOW));
+            status.setRollbackOnly();
+        });
+
+        assertThat(receivedOnA).extracting(ChatMessageDTO::body).containsExactly("confermato");
+        assertThat(broker(nodeB).poll()).isEqualTo(1);
+        assertThat(receivedOnB).extracting(ChatMessageDTO::body).containsExactly("confermato");
+    }
+
+    @Test
+    void shouldCarryMessagesWhoseEscapedPayloadExceedsFourThousandCharacters() {
+        List<ChatMessageDTO> receivedOnB = new CopyOnWriteArrayList<>();
+        nodeB.getBean(ChatPublisher.class).subscribe("team:5", receivedOnB::add);
+        String body = "\"\n\\".repeat(667).substring(0, 2000);
+
+        nodeA.getBean(ChatPublisher.class).publish(new ChatMessageDTO(1L, "team:5", 12L, 5L, body, NOW));
+
+        assertThat(broker(nodeB).poll()).isEqualTo(1);
+        assertThat(receivedOnB).extracting(ChatMessageDTO::body).containsExactly(body);
+    }
+
+    @Test
+    void shouldNotReplayEventsWrittenBeforeTheNodeStarted() {
+        nodeA.getBean(ChatPublisher.class).publish(new ChatMessageDTO(1L, "team:5", 12L, 5L, "vecchio", NOW));
+        ConfigurableApplicationContext nodeC = startNode();
+        try {
+            List<ChatMessageDTO> receivedOnC = new CopyOnWriteArrayList<>();
+            nodeC.getBean(ChatPublisher.class).subscribe("team:5", receivedOnC::add);
+
+            assertThat(broker(nodeC).poll()).isZero();
+            assertThat(receivedOnC).isEmpty();
+        } finally {
+            nodeC.close();
+        }
+    }
+
+    @Test
+    void shouldInvalidateEtagsOfTablesCommittedOnTheOtherNode() {
+        TableVersionService versionsA = nodeA.getBean(TableVersionService.class);
+        TableVersionService versionsB = nodeB.getBean(TableVersionService.class);
+        String etagOnB = versionsB.etag(List.of("customers", "invoices"));
+        TransactionTemplate transaction = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class));
+
+        transaction.executeWithoutResult(status -> {
+            versionsA.changed("customers");
+            versionsA.changed("invoices");
+            versionsA.changed("customers");
+        });
+        transaction.executeWithoutResult(status -> {
+            versionsA.changed("articles");
+            status.setRollbackOnly();
+        });
+
+        assertThat(broker(nodeB).poll()).isEqualTo(1);
+        assertThat(versionsB.etag(List.of("customers", "invoices"))).isNotEqualTo(etagOnB);
+        assertThat(versionsB.version("customers")).isEqualTo(1L);
+        assertThat(versionsB.version("articles")).isZero();
+        assertThat(broker(nodeA).poll()).isZero();
+    }
+
+    private static OutboxEventBroker broker(ConfigurableApplicationContext node) {
+        return node.getBean(OutboxEventBroker.class);
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(NodeConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off")
+                .run("--app.events.broker=outbox", "--app.events.outbox.poll-interval=1h");
+    }
+
+    @Configuration
+    @Import({InMemoryEventBroker.class, OutboxEventBroker.class, NotificationPublisher.class, ChatPublisher.class,
+            TableVersionReplicator.class})
+    static class NodeConfiguration {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource(URL, "sa", "");
+        }
+
+        @Bean
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
+            return new NamedParameterJdbcTemplate(dataSource);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        TableVersionService tableVersionService() {
+            return new TableVersionService(new JdbcMappingContext());
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return JsonMapper.builder().findAndAddModules().build();
+        }
+
+        @Bean
+        ListenerDispatcher listenerDispatcher() {
+            return ListenerDispatcher.direct();
+        }
+
+        @Bean
+        Clock clock() {
+            return Clock.systemUTC();
+        }
+    }
+}
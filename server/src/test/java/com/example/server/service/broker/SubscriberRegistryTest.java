@@ -0,0 +1,74 @@
+package com.example.server.service.broker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriberRegistryTest {
+
+    @Test
+    void shouldEvictTopicWhenLastSubscriberLeaves() {
+        SubscriberRegistry<String, String> registry = new SubscriberRegistry<>();
+        registry.add("team:1", "a");
+        registry.add("team:1", "b");
+        registry.add("team:2", "c");
+
+        assertThat(registry.stats()).isEqualTo(new SubscriberRegistry.Stats(2, 3));
+
+        assertThat(registry.remove("team:1", "a")).isTrue();
+        assertThat(registry.remove("team:1", "a")).isFalse();
+        assertThat(registry.remove("team:1", "b")).isTrue();
+        assertThat(registry.remove("team:9", "b")).isFalse();
+
+        assertThat(registry.stats()).isEqualTo(new SubscriberRegistry.Stats(1, 1));
+        List<String> delivered = new ArrayList<>();
+        registry.forEach("team:1", delivered::add);
+        registry.forEach("team:2", delivered::add);
+        assertThat(delivered).containsExactly("c");
+    }
+
+    @Test
+    void shouldLeaveNoEmptyTopicsAfterConcurrentChurn() throws Exception {
+        SubscriberRegistry<Integer, Object> registry = new SubscriberRegistry<>();
+        Object resident = new Object();
+        registry.add(0, resident);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        Object subscriber = new Object();
+                        int topic = i % 16;
+                        registry.add(topic, subscriber);
+                        registry.forEach(topic, ignored -> { });
+                        registry.remove(topic, subscriber);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(registry.stats()).isEqualTo(new SubscriberRegistry.Stats(1, 1));
+        List<Object> remaining = new ArrayList<>();
+        registry.forEach(0, remaining::add);
+        assertThat(remaining).containsExactly(resident);
+    }
+}
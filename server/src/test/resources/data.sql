@@ -1,22 +1,23 @@
-TRUNCATE TABLE "document_history";
-TRUNCATE TABLE "invoices";
-TRUNCATE TABLE "contracts";
-TRUNCATE TABLE "agents";
-TRUNCATE TABLE "users";
-TRUNCATE TABLE "teams";
-TRUNCATE TABLE "roles";
-
-ALTER TABLE "document_history" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "invoices" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "contracts" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "agents" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "users" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "teams" ALTER COLUMN "id" RESTART WITH 1;
-ALTER TABLE "roles" ALTER COLUMN "id" RESTART WITH 1;
+DELETE FROM "sync_tombstones";
+DELETE FROM "notifications";
+DELETE FROM "conversations";
+DELETE FROM "document_history";
+DELETE FROM "commission_monthly_rollups";
+DELETE FROM "commissions";
+DELETE FROM "invoice_lines";
+DELETE FROM "invoices";
+DELETE FROM "contracts";
+DELETE FROM "customers";
+DELETE FROM "articles";
+DELETE FROM "agents";
+DELETE FROM "users";
+DELETE FROM "teams";
+DELETE FROM "roles";
 
 INSERT INTO "roles" (id, name) VALUES (1, 'Agent');
 
-INSERT INTO "roles" (name) VALUES ('Agent');
+INSERT INTO "teams" (id, name) VALUES (1, 'Sales');
+INSERT INTO "teams" (id, name) VALUES (2, 'Support');
 
 INSERT INTO "users" (id, azure_id, email, display_name, password_hash, role_id, team_id, active, created_at)
 VALUES (
@@ -152,6 +153,12 @@ VALUES (
     TIMESTAMP '2022-11-10T00:00:00'
 );
 
+INSERT INTO "commission_monthly_rollups" (agent_id, period_start, invoice_count, total_amount)
+VALUES (1, DATE '2022-11-01', 1, 500.00),
+       (1, DATE '2024-01-01', 1, 100.00),
+       (1, DATE '2024-02-01', 1, 250.00),
+       (2, DATE '2024-03-01', 1, 300.00);
+
 INSERT INTO "document_history" (id, document_type, document_id, action, description, created_at)
 VALUES (
     1,
@@ -377,3 +384,11 @@ VALUES (
     'Contract terminated due to non-renewal',
     TIMESTAMP '2024-04-30T18:00:00'
 );
+
+ALTER TABLE "document_history" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "invoices" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "contracts" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "agents" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "users" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "teams" ALTER COLUMN "id" RESTART WITH 100;
+ALTER TABLE "roles" ALTER COLUMN "id" RESTART WITH 100;
@@ -1,9 +1,13 @@
 DROP ALL OBJECTS;
 
+DROP TABLE IF EXISTS "sync_tombstones" CASCADE;
+DROP TABLE IF EXISTS "notifications" CASCADE;
+DROP TABLE IF EXISTS "conversations" CASCADE;
 DROP TABLE IF EXISTS "document_history" CASCADE;
 DROP TABLE IF EXISTS "invoice_lines" CASCADE;
 DROP TABLE IF EXISTS "invoices" CASCADE;
 DROP TABLE IF EXISTS "commissions" CASCADE;
+DROP TABLE IF EXISTS "commission_monthly_rollups" CASCADE;
 DROP TABLE IF EXISTS "contracts" CASCADE;
 DROP TABLE IF EXISTS "customers" CASCADE;
 DROP TABLE IF EXISTS "articles" CASCADE;
@@ -111,6 +115,12 @@ CREATE TABLE "invoices" (
 CREATE UNIQUE INDEX uq_invoices_number
     ON "invoices" (invoice_number);
 
+CREATE INDEX ix_invoices_status_payment_date
+    ON "invoices" (status, payment_date);
+
+CREATE INDEX ix_contracts_agent
+    ON "contracts" (agent_id);
+
 CREATE TABLE "invoice_lines" (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     invoice_id BIGINT NOT NULL,
@@ -137,6 +147,9 @@ CREATE TABLE "document_history" (
     created_at TIMESTAMP NOT NULL
 );
 
+CREATE INDEX ix_document_history_created_at_id
+    ON "document_history" (created_at, id);
+
 CREATE TABLE "commissions" (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     agent_id BIGINT NOT NULL,
@@ -149,3 +162,63 @@ CREATE TABLE "commissions" (
     CONSTRAINT fk_commission_agent FOREIGN KEY (agent_id) REFERENCES agents (id),
     CONSTRAINT uq_commission_agent_contract UNIQUE (agent_id, contract_id)
 );
+
+CREATE TABLE "commission_monthly_rollups" (
+    agent_id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    invoice_count INT NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    CONSTRAINT pk_commission_monthly_rollups PRIMARY KEY (period_start, agent_id)
+);
+
+CREATE INDEX ix_commission_rollups_agent
+    ON "commission_monthly_rollups" (agent_id, period_start);
+
+CREATE TABLE "conversations" (
+    conversation_id VARCHAR(255) NOT NULL PRIMARY KEY,
+    team_id BIGINT,
+    last_message_id BIGINT NOT NULL,
+    last_message_at TIMESTAMP NOT NULL,
+    last_message_snippet VARCHAR(61) NOT NULL
+);
+
+CREATE INDEX ix_conversations_team_last_message
+    ON "conversations" (team_id, last_message_at);
+
+CREATE TABLE "notifications" (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT,
+    team_id BIGINT,
+    title VARCHAR(255),
+    message VARCHAR(1000) NOT NULL,
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX ix_notifications_user_created_at
+    ON "notifications" (user_id, created_at, is_read);
+
+CREATE INDEX ix_notifications_team_created_at
+    ON "notifications" (team_id, created_at, is_read);
+
+CREATE INDEX ix_notifications_read_created_at
+    ON "notifications" (is_read, created_at);
+
+CREATE INDEX ix_invoices_updated_at
+    ON "invoices" (updated_at);
+
+CREATE INDEX ix_customers_updated_at
+    ON "customers" (updated_at);
+
+CREATE INDEX ix_articles_updated_at
+    ON "articles" (updated_at);
+
+CREATE TABLE "sync_tombstones" (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX ix_sync_tombstones_type_deleted_at
+    ON "sync_tombstones" (entity_type, deleted_at);